@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.ceres.jai.tilecache;
+
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A thread-safe {@link SwapSpace} which, like the {@link DefaultSwapSpace}, creates a file for each
+ * swapped tile in the given swap directory. Other than the {@link DefaultSwapSpace}, calls for different
+ * tiles do not block each other and tiles are restored using memory-mapped reads.
+ * <p>
+ * It is meant to be used together with the {@link ConcurrentSwappingTileCache}, which guarantees that
+ * calls for the same tile are not interleaved.
+ *
+ * @since SNAP 8
+ */
+public class ConcurrentSwapSpace implements SwapSpace {
+
+    private final File swapDir;
+    private final Logger logger;
+    private final ConcurrentHashMap<Object, SwappedTile> swappedTiles;
+
+    public ConcurrentSwapSpace(File swapDir) {
+        this(swapDir, Logger.getLogger(System.getProperty("ceres.context", "ceres")));
+    }
+
+    public ConcurrentSwapSpace(File swapDir, Logger logger) {
+        this.swapDir = swapDir;
+        this.logger = logger;
+        this.swappedTiles = new ConcurrentHashMap<>(1009); // prime number
+    }
+
+    @Override
+    public boolean storeTile(MemoryTile mt) {
+        final Object key = mt.getKey();
+        if (swappedTiles.containsKey(key)) {
+            return false;
+        }
+        final SwappedTile st = new SwappedTile(mt, swapDir);
+        try {
+            final long t1 = System.currentTimeMillis();
+            st.storeTile(mt.getTile());
+            final long t2 = System.currentTimeMillis();
+            st.getFile().deleteOnExit();
+            logger.log(Level.FINEST, "Tile stored: " + st.getFile() + " (" + (t2 - t1) + " ms)");
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Tile NOT stored: " + st.getFile(), e);
+            st.delete();
+            return false;
+        }
+        swappedTiles.put(key, st);
+        return true;
+    }
+
+    @Override
+    public MemoryTile restoreTile(RenderedImage owner, int tileX, int tileY) {
+        final SwappedTile st = swappedTiles.get(MemoryTile.hashKey(owner, tileX, tileY));
+        if (st == null) {
+            return null;
+        }
+        try {
+            final long t1 = System.currentTimeMillis();
+            final Raster tile = st.restoreTileMapped();
+            final long t2 = System.currentTimeMillis();
+            logger.log(Level.FINEST, "Tile restored: " + st.getFile() + " (" + (t2 - t1) + " ms)");
+            return new MemoryTile(owner, tileX, tileY, tile, st.getTileCacheMetric());
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Tile NOT restored: " + st.getFile(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean deleteTile(RenderedImage owner, int tileX, int tileY) {
+        final SwappedTile st = swappedTiles.remove(MemoryTile.hashKey(owner, tileX, tileY));
+        if (st == null || !st.getFile().exists()) {
+            return false;
+        }
+        final boolean deleted = st.delete();
+        if (deleted) {
+            logger.log(Level.FINEST, "Tile deleted: " + st.getFile());
+        } else {
+            logger.log(Level.WARNING, "Tile NOT deleted: " + st.getFile());
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,683 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.ceres.jai.tilecache;
+
+import com.sun.media.jai.util.CacheDiagnostics;
+import com.sun.media.jai.util.ImageUtil;
+
+import javax.media.jai.TileCache;
+import javax.media.jai.util.ImagingListener;
+import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Observable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent variant of the {@link SwappingTileCache}. Like the {@link SwappingTileCache}, tiles
+ * are never thrown away but swapped to a {@link SwapSpace} if they don't fit into memory anymore.
+ * <p>
+ * The cache is divided into a number of segments, each guarded by its own lock and holding its own
+ * share of the memory capacity, so that threads accessing different tiles rarely block each other.
+ * Tiles evicted from a segment are written to the swap space by a single background writer thread.
+ * Until they have been written, they can still be retrieved from memory. The number of tiles waiting
+ * to be written is bounded; if the writer cannot keep up, threads evicting tiles will wait for it.
+ * <p>
+ * Tiles are evicted from each segment in least-recently-used order. A tile comparator may be set, but
+ * it is not used to determine the eviction order.
+ *
+ * @since SNAP 8
+ */
+public final class ConcurrentSwappingTileCache extends Observable implements TileCache, CacheDiagnostics {
+
+    /**
+     * The default number of segments.
+     */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * The maximum number of tiles waiting to be written to the swap space.
+     */
+    private static final int MAX_PENDING_SWAP_OUTS = 64;
+
+    // diagnostic actions, see SwappingTileCache.getCachedTileActions()
+    private static final int ADD = 0;
+    private static final int REMOVE = 1;
+    private static final int REMOVE_FROM_FLUSH = 2;
+    private static final int REMOVE_FROM_MEMCON = 3;
+    private static final int UPDATE_FROM_ADD = 4;
+    private static final int UPDATE_FROM_GETTILE = 5;
+
+    private final Segment[] segments;
+    private final SwapSpace swapSpace;
+    private final ConcurrentHashMap<Object, SwapOut> pendingSwapOuts;
+    private final ThreadPoolExecutor swapWriter;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+
+    private volatile long memoryCapacity;
+    private volatile float memoryThreshold = 0.75F;
+    private volatile Comparator comparator;
+    private volatile boolean diagnostics;
+
+    /**
+     * Constructor. Uses the {@link #DEFAULT_CONCURRENCY_LEVEL}.
+     *
+     * @param memoryCapacity The maximum cache memory size in bytes.
+     * @param swapSpace      The space used to swap out tiles.
+     * @throws IllegalArgumentException If <code>memoryCapacity</code>
+     *                                  is less than 0.
+     */
+    public ConcurrentSwappingTileCache(long memoryCapacity, SwapSpace swapSpace) {
+        this(memoryCapacity, swapSpace, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param memoryCapacity   The maximum cache memory size in bytes.
+     * @param swapSpace        The space used to swap out tiles.
+     * @param concurrencyLevel The number of segments, will be rounded up to the next power of two.
+     * @throws IllegalArgumentException If <code>memoryCapacity</code>
+     *                                  is less than 0 or <code>concurrencyLevel</code> is less than 1.
+     */
+    public ConcurrentSwappingTileCache(long memoryCapacity, SwapSpace swapSpace, int concurrencyLevel) {
+        if (memoryCapacity < 0) {
+            throw new IllegalArgumentException("memoryCapacity < 0");
+        }
+        if (concurrencyLevel < 1) {
+            throw new IllegalArgumentException("concurrencyLevel < 1");
+        }
+        if (swapSpace == null) {
+            throw new NullPointerException("swapSpace");
+        }
+
+        this.memoryCapacity = memoryCapacity;
+        this.swapSpace = swapSpace;
+
+        int numSegments = 1;
+        while (numSegments < concurrencyLevel) {
+            numSegments <<= 1;
+        }
+        segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            segments[i] = new Segment();
+        }
+        pendingSwapOuts = new ConcurrentHashMap<>(2 * MAX_PENDING_SWAP_OUTS);
+        hitCount = new LongAdder();
+        missCount = new LongAdder();
+
+        // A single writer thread keeps swap-outs of the same tile in order. If its queue is full,
+        // the evicting thread waits for a free slot instead of running the swap-out itself.
+        swapWriter = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+                                            new LinkedBlockingQueue<>(MAX_PENDING_SWAP_OUTS),
+                                            r -> {
+                                                Thread thread = new Thread(r, "ConcurrentSwappingTileCache-writer");
+                                                thread.setDaemon(true);
+                                                return thread;
+                                            },
+                                            (r, executor) -> {
+                                                try {
+                                                    executor.getQueue().put(r);
+                                                } catch (InterruptedException e) {
+                                                    Thread.currentThread().interrupt();
+                                                    throw new RejectedExecutionException(e);
+                                                }
+                                            });
+        swapWriter.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Adds a tile to the cache.
+     *
+     * @param owner The image the tile blongs to.
+     * @param tileX The tile's X index within the image.
+     * @param tileY The tile's Y index within the image.
+     * @param tile  The tile to be cached.
+     */
+    @Override
+    public void add(RenderedImage owner, int tileX, int tileY, Raster tile) {
+        add(owner, tileX, tileY, tile, null);
+    }
+
+    /**
+     * Adds a tile to the cache with an associated tile compute cost.
+     *
+     * @param owner           The image the tile blongs to.
+     * @param tileX           The tile's X index within the image.
+     * @param tileY           The tile's Y index within the image.
+     * @param tile            The tile to be cached.
+     * @param tileCacheMetric Metric for prioritizing tiles
+     */
+    @Override
+    public void add(RenderedImage owner, int tileX, int tileY, Raster tile, Object tileCacheMetric) {
+        if (memoryCapacity == 0) {
+            return;
+        }
+        final List<MemoryTile> evicted = new ArrayList<>();
+        final Object key = MemoryTile.hashKey(owner, tileX, tileY);
+        final Segment segment = segmentFor(key);
+        MemoryTile ct;
+        boolean added = false;
+        synchronized (segment) {
+            ct = segment.tiles.get(key);
+            if (ct != null) {
+                hitCount.increment();
+            } else {
+                ct = new MemoryTile(owner, tileX, tileY, tile, tileCacheMetric);
+                added = addTileNonSync(segment, ct, evicted);
+                if (!added) {
+                    return;
+                }
+            }
+        }
+        if (diagnostics) {
+            notifyDiagnostics(ct, added ? ADD : UPDATE_FROM_ADD);
+        }
+        swapOut(evicted);
+    }
+
+    /**
+     * Adds an array of tiles to the tile cache.
+     *
+     * @param owner           The <code>RenderedImage</code> that the tile belongs to.
+     * @param tileIndices     An array of <code>Point</code>s containing the
+     *                        <code>tileX</code> and <code>tileY</code> indices for each tile.
+     * @param tiles           The array of tile <code>Raster</code>s containing tile data.
+     * @param tileCacheMetric Object which provides an ordering metric
+     *                        associated with the <code>RenderedImage</code> owner.
+     */
+    @Override
+    public void addTiles(RenderedImage owner, Point[] tileIndices, Raster[] tiles, Object tileCacheMetric) {
+        for (int i = 0; i < tileIndices.length; i++) {
+            add(owner, tileIndices[i].x, tileIndices[i].y, tiles[i], tileCacheMetric);
+        }
+    }
+
+    /**
+     * Retrieves a tile from the cache. If the tile has been swapped out, it is restored
+     * from the swap space.
+     *
+     * @param owner The image the tile blongs to.
+     * @param tileX The tile's X index within the image.
+     * @param tileY The tile's Y index within the image.
+     * @return The tile or <code>null</code>, if it is neither in memory nor in the swap space.
+     */
+    @Override
+    public Raster getTile(RenderedImage owner, int tileX, int tileY) {
+        if (memoryCapacity == 0) {
+            return null;
+        }
+        return getTileInternal(owner, tileX, tileY);
+    }
+
+    /**
+     * Retrieves a contiguous array of all tiles in the cache which are
+     * owned by the specified image.
+     *
+     * @param owner The <code>RenderedImage</code> to which the tiles belong.
+     * @return An array of all tiles owned by the specified image or
+     *         <code>null</code> if there are none currently in the cache.
+     */
+    @Override
+    public Raster[] getTiles(RenderedImage owner) {
+        if (memoryCapacity == 0) {
+            return null;
+        }
+        final int minTx = owner.getMinTileX();
+        final int minTy = owner.getMinTileY();
+        final int maxTx = minTx + owner.getNumXTiles();
+        final int maxTy = minTy + owner.getNumYTiles();
+        final ArrayList<Raster> temp = new ArrayList<>(32);
+        for (int y = minTy; y < maxTy; y++) {
+            for (int x = minTx; x < maxTx; x++) {
+                final Raster tile = getTileInternal(owner, x, y);
+                if (tile != null) {
+                    temp.add(tile);
+                }
+            }
+        }
+        return temp.isEmpty() ? null : temp.toArray(new Raster[temp.size()]);
+    }
+
+    /**
+     * Returns an array of tile <code>Raster</code>s from the cache.
+     *
+     * @param owner       The <code>RenderedImage</code> that the tile belongs to.
+     * @param tileIndices An array of <code>Point</code>s containing the
+     *                    <code>tileX</code> and <code>tileY</code> indices for each tile.
+     */
+    @Override
+    public Raster[] getTiles(RenderedImage owner, Point[] tileIndices) {
+        if (memoryCapacity == 0) {
+            return null;
+        }
+        final Raster[] tiles = new Raster[tileIndices.length];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = getTileInternal(owner, tileIndices[i].x, tileIndices[i].y);
+        }
+        return tiles;
+    }
+
+    /**
+     * Removes a tile from the cache and from the swap space.
+     */
+    @Override
+    public void remove(RenderedImage owner, int tileX, int tileY) {
+        if (memoryCapacity == 0) {
+            return;
+        }
+        final Object key = MemoryTile.hashKey(owner, tileX, tileY);
+        final Segment segment = segmentFor(key);
+        final MemoryTile ct;
+        synchronized (segment) {
+            ct = segment.tiles.remove(key);
+            if (ct != null) {
+                segment.memoryUsage -= ct.tileSize;
+                segment.tileCount--;
+            }
+            final SwapOut swapOut = pendingSwapOuts.remove(key);
+            if (swapOut != null) {
+                // the writer will delete the tile again, if it is currently storing it
+                swapOut.removed = true;
+            }
+        }
+        if (ct != null && diagnostics) {
+            notifyDiagnostics(ct, REMOVE);
+        }
+        swapSpace.deleteTile(owner, tileX, tileY);
+    }
+
+    /**
+     * Removes all the tiles that belong to a <code>RenderedImage</code>
+     * from the cache and from the swap space.
+     *
+     * @param owner The image whose tiles are to be removed from the cache.
+     */
+    @Override
+    public void removeTiles(RenderedImage owner) {
+        if (memoryCapacity == 0) {
+            return;
+        }
+        final int minTx = owner.getMinTileX();
+        final int minTy = owner.getMinTileY();
+        final int maxTx = minTx + owner.getNumXTiles();
+        final int maxTy = minTy + owner.getNumYTiles();
+        for (int y = minTy; y < maxTy; y++) {
+            for (int x = minTx; x < maxTx; x++) {
+                remove(owner, x, y);
+            }
+        }
+    }
+
+    /**
+     * Removes -ALL- tiles from memory. As with the {@link SwappingTileCache},
+     * tiles already swapped out remain in the swap space.
+     */
+    @Override
+    public void flush() {
+        hitCount.reset();
+        missCount.reset();
+        for (Segment segment : segments) {
+            final List<MemoryTile> removed;
+            synchronized (segment) {
+                removed = diagnostics ? new ArrayList<>(segment.tiles.values()) : null;
+                segment.tiles.clear();
+                segment.memoryUsage = 0;
+                segment.tileCount = 0;
+            }
+            if (removed != null) {
+                for (MemoryTile ct : removed) {
+                    notifyDiagnostics(ct, REMOVE_FROM_FLUSH);
+                }
+            }
+        }
+    }
+
+    /**
+     * Swaps out tiles of each segment based on their last-access time
+     * (old to new) until its memory usage is memoryThreshold % of its
+     * share of the memory capacity.
+     */
+    @Override
+    public void memoryControl() {
+        final long limit = (long) (getSegmentCapacity() * memoryThreshold);
+        for (Segment segment : segments) {
+            final List<MemoryTile> evicted = new ArrayList<>();
+            synchronized (segment) {
+                evictNonSync(segment, limit, evicted);
+            }
+            swapOut(evicted);
+        }
+    }
+
+    /**
+     * This implementation of <code>TileCache</code> does not use
+     * the tile capacity.  This method always returns 0.
+     */
+    @Override
+    public int getTileCapacity() {
+        return 0;
+    }
+
+    /**
+     * This implementation of <code>TileCache</code> does not use
+     * the tile capacity.  This method does nothing.
+     */
+    @Override
+    public void setTileCapacity(int tileCapacity) {
+    }
+
+    /**
+     * Returns the cache's memory capacity in bytes.
+     */
+    @Override
+    public long getMemoryCapacity() {
+        return memoryCapacity;
+    }
+
+    /**
+     * Sets the cache's memory capacity to the desired number of bytes.
+     * If the new memory capacity is smaller than the amount of memory
+     * currently being used by this cache, tiles are swapped out.
+     *
+     * @param memoryCapacity The desired memory capacity for this cache in bytes.
+     * @throws IllegalArgumentException If <code>memoryCapacity</code>
+     *                                  is less than 0.
+     */
+    @Override
+    public void setMemoryCapacity(long memoryCapacity) {
+        if (memoryCapacity < 0) {
+            throw new IllegalArgumentException("memoryCapacity < 0");
+        } else if (memoryCapacity == 0) {
+            flush();
+        }
+
+        this.memoryCapacity = memoryCapacity;
+
+        if (getCacheMemoryUsed() > memoryCapacity) {
+            memoryControl();
+        }
+    }
+
+    /**
+     * Set the memory threshold value.
+     */
+    @Override
+    public void setMemoryThreshold(float mt) {
+        if (mt < 0.0F || mt > 1.0F) {
+            throw new IllegalArgumentException("mt < 0.0F || mt > 1.0F");
+        }
+        memoryThreshold = mt;
+        memoryControl();
+    }
+
+    /**
+     * Returns the current <code>memoryThreshold</code>.
+     */
+    @Override
+    public float getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    /**
+     * Sets the tile comparator. It is not used to determine the eviction order.
+     */
+    @Override
+    public void setTileComparator(Comparator c) {
+        comparator = c;
+    }
+
+    /**
+     * Returns the current comparator.
+     */
+    @Override
+    public Comparator getTileComparator() {
+        return comparator;
+    }
+
+    @Override
+    public void enableDiagnostics() {
+        diagnostics = true;
+    }
+
+    @Override
+    public void disableDiagnostics() {
+        diagnostics = false;
+    }
+
+    @Override
+    public long getCacheTileCount() {
+        long tileCount = 0;
+        for (Segment segment : segments) {
+            tileCount += segment.tileCount;
+        }
+        return tileCount;
+    }
+
+    @Override
+    public long getCacheMemoryUsed() {
+        long memoryUsage = 0;
+        for (Segment segment : segments) {
+            memoryUsage += segment.memoryUsage;
+        }
+        return memoryUsage;
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return missCount.sum();
+    }
+
+    @Override
+    public void resetCounts() {
+        hitCount.reset();
+        missCount.reset();
+    }
+
+    /**
+     * @return The number of tiles evicted from memory but not yet written to the swap space.
+     */
+    public int getPendingSwapOutCount() {
+        return pendingSwapOuts.size();
+    }
+
+    /**
+     * Returns a string representation of the class object.
+     */
+    public String toString() {
+        return getClass().getName() + "@" + Integer.toHexString(hashCode()) +
+                ": memoryCapacity = " + Long.toHexString(memoryCapacity) +
+                " memoryUsage = " + Long.toHexString(getCacheMemoryUsed()) +
+                " #tilesInCache = " + getCacheTileCount() +
+                " #segments = " + segments.length;
+    }
+
+    private Raster getTileInternal(RenderedImage owner, int tileX, int tileY) {
+        final List<MemoryTile> evicted = new ArrayList<>();
+        final Object key = MemoryTile.hashKey(owner, tileX, tileY);
+        final Segment segment = segmentFor(key);
+        MemoryTile ct;
+        synchronized (segment) {
+            ct = segment.tiles.get(key);
+            if (ct == null) {
+                // tile may have been evicted, but not yet been written
+                final SwapOut swapOut = pendingSwapOuts.remove(key);
+                if (swapOut != null) {
+                    ct = swapOut.tile;
+                    addTileNonSync(segment, ct, evicted);
+                }
+            }
+        }
+        if (ct == null) {
+            // restore outside of the segment lock, so other tiles of this segment remain accessible
+            ct = swapSpace.restoreTile(owner, tileX, tileY);
+            if (ct != null) {
+                synchronized (segment) {
+                    final MemoryTile other = segment.tiles.get(key);
+                    if (other != null) {
+                        ct = other;
+                    } else {
+                        addTileNonSync(segment, ct, evicted);
+                    }
+                }
+            }
+        }
+        swapOut(evicted);
+        if (ct == null) {
+            missCount.increment();
+            return null;
+        }
+        hitCount.increment();
+        if (diagnostics) {
+            notifyDiagnostics(ct, UPDATE_FROM_GETTILE);
+        }
+        return ct.getTile();
+    }
+
+    private boolean addTileNonSync(Segment segment, MemoryTile ct, List<MemoryTile> evicted) {
+        final long segmentCapacity = getSegmentCapacity();
+        final long limit = (long) (segmentCapacity * memoryThreshold);
+        // Don't cache tile if adding it would provoke memory control
+        // which would in turn only end up removing the tile.
+        if (segment.memoryUsage + ct.tileSize > segmentCapacity && ct.tileSize > limit) {
+            return false;
+        }
+        final MemoryTile old = segment.tiles.put(ct.key, ct);
+        if (old == null) {
+            segment.memoryUsage += ct.tileSize;
+            segment.tileCount++;
+        } else {
+            segment.memoryUsage += ct.tileSize - old.tileSize;
+        }
+        if (segment.memoryUsage > segmentCapacity) {
+            evictNonSync(segment, limit, evicted);
+        }
+        return true;
+    }
+
+    private void evictNonSync(Segment segment, long limit, List<MemoryTile> evicted) {
+        // iteration order of the access-ordered map is least-recently-used first
+        final Iterator<MemoryTile> iterator = segment.tiles.values().iterator();
+        while (segment.memoryUsage > limit && iterator.hasNext()) {
+            final MemoryTile ct = iterator.next();
+            iterator.remove();
+            segment.memoryUsage -= ct.tileSize;
+            segment.tileCount--;
+            pendingSwapOuts.put(ct.key, new SwapOut(ct, segment));
+            evicted.add(ct);
+        }
+    }
+
+    private void swapOut(List<MemoryTile> evicted) {
+        for (MemoryTile ct : evicted) {
+            final SwapOut swapOut = pendingSwapOuts.get(ct.key);
+            if (swapOut == null || swapOut.tile != ct) {
+                continue; // already reclaimed or removed
+            }
+            try {
+                swapWriter.execute(swapOut);
+            } catch (RejectedExecutionException e) {
+                // the tile is lost, it will be recomputed on demand
+                synchronized (swapOut.segment) {
+                    pendingSwapOuts.remove(ct.key, swapOut);
+                }
+            }
+            if (diagnostics) {
+                notifyDiagnostics(ct, REMOVE_FROM_MEMCON);
+            }
+        }
+    }
+
+    private long getSegmentCapacity() {
+        return memoryCapacity / segments.length;
+    }
+
+    private Segment segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+
+    private synchronized void notifyDiagnostics(MemoryTile ct, int action) {
+        ct.action = action;
+        setChanged();
+        notifyObservers(ct);
+    }
+
+    void sendExceptionToListener(String message, Exception e) {
+        ImagingListener listener = ImageUtil.getImagingListener((RenderingHints) null);
+        listener.errorOccurred(message, e, this, false);
+    }
+
+    private static final class Segment {
+        // access-ordered, all fields guarded by the segment's monitor
+        final LinkedHashMap<Object, MemoryTile> tiles = new LinkedHashMap<>(64, 0.75F, true);
+        volatile long memoryUsage;
+        volatile int tileCount;
+    }
+
+    private final class SwapOut implements Runnable {
+        final MemoryTile tile;
+        final Segment segment;
+        boolean removed; // guarded by the segment's monitor
+
+        SwapOut(MemoryTile tile, Segment segment) {
+            this.tile = tile;
+            this.segment = segment;
+        }
+
+        @Override
+        public void run() {
+            if (pendingSwapOuts.get(tile.key) != this) {
+                return; // reclaimed or removed meanwhile, nothing to write
+            }
+            try {
+                swapSpace.storeTile(tile);
+            } catch (RuntimeException e) {
+                sendExceptionToListener("Failed to swap out tile.", e);
+            }
+            final boolean deleteTile;
+            synchronized (segment) {
+                pendingSwapOuts.remove(tile.key, this);
+                deleteTile = removed;
+            }
+            if (deleteTile) {
+                final RenderedImage owner = tile.getOwner();
+                if (owner != null) {
+                    swapSpace.deleteTile(owner, tile.tileX, tile.tileY);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,648 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.ceres.jai.tilecache;
+
+import com.sun.media.jai.util.CacheDiagnostics;
+
+import javax.media.jai.TileCache;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A tile cache which keeps the sample data of cached tiles outside of the Java heap in direct
+ * {@link ByteBuffer}s. Its memory capacity is a byte budget of its own and is not limited by
+ * the maximum heap size. Note that the JVM limits the total amount of direct memory, so
+ * {@code -XX:MaxDirectMemorySize} must be set at least to the memory capacity of this cache.
+ * <p>
+ * When a tile is requested, a new {@link Raster} with the same sample model, data buffer layout and
+ * location is created from the off-heap data. Such rasters are short-lived copies, so changing them has no
+ * effect on the cached tile. Only tiles backed by the standard <code>java.awt.image</code> data buffers
+ * are cached.
+ * <p>
+ * The cache is divided into a number of segments, each guarded by its own lock and holding its own
+ * share of the memory capacity. Tiles are evicted from each segment in least-recently-used order and
+ * their buffers are reused for new tiles of the same size. Evicted tiles are discarded, they must be
+ * recomputed on demand.
+ *
+ * @since SNAP 8
+ */
+public final class OffHeapTileCache implements TileCache, CacheDiagnostics {
+
+    /**
+     * The default number of segments.
+     */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private final Segment[] segments;
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+    private final LongAdder evictionCount;
+
+    private volatile long memoryCapacity;
+    private volatile float memoryThreshold = 0.75F;
+    private volatile Comparator comparator;
+
+    /**
+     * Constructor. Uses the {@link #DEFAULT_CONCURRENCY_LEVEL}.
+     *
+     * @param memoryCapacity The maximum size of the off-heap memory used by the cache in bytes.
+     * @throws IllegalArgumentException If <code>memoryCapacity</code>
+     *                                  is less than 0.
+     */
+    public OffHeapTileCache(long memoryCapacity) {
+        this(memoryCapacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param memoryCapacity   The maximum size of the off-heap memory used by the cache in bytes.
+     * @param concurrencyLevel The number of segments, will be rounded up to the next power of two.
+     * @throws IllegalArgumentException If <code>memoryCapacity</code>
+     *                                  is less than 0 or <code>concurrencyLevel</code> is less than 1.
+     */
+    public OffHeapTileCache(long memoryCapacity, int concurrencyLevel) {
+        if (memoryCapacity < 0) {
+            throw new IllegalArgumentException("memoryCapacity < 0");
+        }
+        if (concurrencyLevel < 1) {
+            throw new IllegalArgumentException("concurrencyLevel < 1");
+        }
+        this.memoryCapacity = memoryCapacity;
+        int numSegments = 1;
+        while (numSegments < concurrencyLevel) {
+            numSegments <<= 1;
+        }
+        segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            segments[i] = new Segment();
+        }
+        hitCount = new LongAdder();
+        missCount = new LongAdder();
+        evictionCount = new LongAdder();
+    }
+
+    @Override
+    public void add(RenderedImage owner, int tileX, int tileY, Raster tile) {
+        add(owner, tileX, tileY, tile, null);
+    }
+
+    /**
+     * Adds a tile to the cache. The tile's sample data is copied into off-heap memory.
+     * If the tile is already in the cache, it will not be cached again.
+     *
+     * @param owner           The image the tile blongs to.
+     * @param tileX           The tile's X index within the image.
+     * @param tileY           The tile's Y index within the image.
+     * @param tile            The tile to be cached.
+     * @param tileCacheMetric Not used.
+     */
+    @Override
+    public void add(RenderedImage owner, int tileX, int tileY, Raster tile, Object tileCacheMetric) {
+        if (memoryCapacity == 0 || !isSupported(tile.getDataBuffer())) {
+            return;
+        }
+        final Object key = MemoryTile.hashKey(owner, tileX, tileY);
+        final Segment segment = segmentFor(key);
+        final int byteSize = getByteSize(tile.getDataBuffer());
+        synchronized (segment) {
+            if (segment.tiles.get(key) != null) {
+                hitCount.increment();
+                return;
+            }
+            final ByteBuffer buffer = allocateNonSync(segment, byteSize);
+            if (buffer != null) {
+                segment.tiles.put(key, new OffHeapTile(tile, buffer));
+                segment.memoryUsage += byteSize;
+            }
+        }
+    }
+
+    @Override
+    public void addTiles(RenderedImage owner, Point[] tileIndices, Raster[] tiles, Object tileCacheMetric) {
+        for (int i = 0; i < tileIndices.length; i++) {
+            add(owner, tileIndices[i].x, tileIndices[i].y, tiles[i], tileCacheMetric);
+        }
+    }
+
+    /**
+     * Retrieves a tile from the cache. The returned raster is a heap copy of the cached tile.
+     *
+     * @param owner The image the tile blongs to.
+     * @param tileX The tile's X index within the image.
+     * @param tileY The tile's Y index within the image.
+     * @return The tile or <code>null</code>, if it is not in the cache.
+     */
+    @Override
+    public Raster getTile(RenderedImage owner, int tileX, int tileY) {
+        if (memoryCapacity == 0) {
+            return null;
+        }
+        final Object key = MemoryTile.hashKey(owner, tileX, tileY);
+        final Segment segment = segmentFor(key);
+        final OffHeapTile ct;
+        final DataBuffer dataBuffer;
+        synchronized (segment) {
+            ct = segment.tiles.get(key);
+            if (ct == null) {
+                missCount.increment();
+                return null;
+            }
+            // must be copied while holding the lock, the buffer may be reused after eviction
+            dataBuffer = ct.readDataBuffer();
+        }
+        hitCount.increment();
+        return ct.createRaster(dataBuffer);
+    }
+
+    @Override
+    public Raster[] getTiles(RenderedImage owner) {
+        if (memoryCapacity == 0) {
+            return null;
+        }
+        final int minTx = owner.getMinTileX();
+        final int minTy = owner.getMinTileY();
+        final int maxTx = minTx + owner.getNumXTiles();
+        final int maxTy = minTy + owner.getNumYTiles();
+        final ArrayList<Raster> temp = new ArrayList<>(32);
+        for (int y = minTy; y < maxTy; y++) {
+            for (int x = minTx; x < maxTx; x++) {
+                final Raster tile = getTile(owner, x, y);
+                if (tile != null) {
+                    temp.add(tile);
+                }
+            }
+        }
+        return temp.isEmpty() ? null : temp.toArray(new Raster[temp.size()]);
+    }
+
+    @Override
+    public Raster[] getTiles(RenderedImage owner, Point[] tileIndices) {
+        if (memoryCapacity == 0) {
+            return null;
+        }
+        final Raster[] tiles = new Raster[tileIndices.length];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = getTile(owner, tileIndices[i].x, tileIndices[i].y);
+        }
+        return tiles;
+    }
+
+    @Override
+    public void remove(RenderedImage owner, int tileX, int tileY) {
+        if (memoryCapacity == 0) {
+            return;
+        }
+        final Object key = MemoryTile.hashKey(owner, tileX, tileY);
+        final Segment segment = segmentFor(key);
+        synchronized (segment) {
+            final OffHeapTile ct = segment.tiles.remove(key);
+            if (ct != null) {
+                segment.memoryUsage -= ct.buffer.capacity();
+                releaseNonSync(segment, ct.buffer);
+            }
+        }
+    }
+
+    @Override
+    public void removeTiles(RenderedImage owner) {
+        if (memoryCapacity == 0) {
+            return;
+        }
+        final int minTx = owner.getMinTileX();
+        final int minTy = owner.getMinTileY();
+        final int maxTx = minTx + owner.getNumXTiles();
+        final int maxTy = minTy + owner.getNumYTiles();
+        for (int y = minTy; y < maxTy; y++) {
+            for (int x = minTx; x < maxTx; x++) {
+                remove(owner, x, y);
+            }
+        }
+    }
+
+    /**
+     * Removes -ALL- tiles from the cache and gives its off-heap memory free.
+     */
+    @Override
+    public void flush() {
+        hitCount.reset();
+        missCount.reset();
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.tiles.clear();
+                segment.freeBuffers.clear();
+                segment.memoryUsage = 0;
+                segment.freeMemory = 0;
+            }
+        }
+    }
+
+    /**
+     * Evicts tiles of each segment based on their last-access time
+     * (old to new) until its memory usage is memoryThreshold % of its
+     * share of the memory capacity. Unused buffers are given free.
+     */
+    @Override
+    public void memoryControl() {
+        final long limit = (long) (getSegmentCapacity() * memoryThreshold);
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                final Iterator<OffHeapTile> iterator = segment.tiles.values().iterator();
+                while (segment.memoryUsage > limit && iterator.hasNext()) {
+                    final OffHeapTile ct = iterator.next();
+                    iterator.remove();
+                    segment.memoryUsage -= ct.buffer.capacity();
+                    evictionCount.increment();
+                }
+                segment.freeBuffers.clear();
+                segment.freeMemory = 0;
+            }
+        }
+    }
+
+    /**
+     * This implementation of <code>TileCache</code> does not use
+     * the tile capacity.  This method always returns 0.
+     */
+    @Override
+    public int getTileCapacity() {
+        return 0;
+    }
+
+    /**
+     * This implementation of <code>TileCache</code> does not use
+     * the tile capacity.  This method does nothing.
+     */
+    @Override
+    public void setTileCapacity(int tileCapacity) {
+    }
+
+    /**
+     * Returns the maximum size of the off-heap memory used by the cache in bytes.
+     */
+    @Override
+    public long getMemoryCapacity() {
+        return memoryCapacity;
+    }
+
+    /**
+     * Sets the maximum size of the off-heap memory used by the cache in bytes.
+     *
+     * @param memoryCapacity The desired memory capacity for this cache in bytes.
+     * @throws IllegalArgumentException If <code>memoryCapacity</code>
+     *                                  is less than 0.
+     */
+    @Override
+    public void setMemoryCapacity(long memoryCapacity) {
+        if (memoryCapacity < 0) {
+            throw new IllegalArgumentException("memoryCapacity < 0");
+        } else if (memoryCapacity == 0) {
+            flush();
+        }
+
+        this.memoryCapacity = memoryCapacity;
+
+        if (getCacheMemoryUsed() > memoryCapacity) {
+            memoryControl();
+        }
+    }
+
+    @Override
+    public void setMemoryThreshold(float mt) {
+        if (mt < 0.0F || mt > 1.0F) {
+            throw new IllegalArgumentException("mt < 0.0F || mt > 1.0F");
+        }
+        memoryThreshold = mt;
+        memoryControl();
+    }
+
+    @Override
+    public float getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    /**
+     * Sets the tile comparator. It is not used to determine the eviction order.
+     */
+    @Override
+    public void setTileComparator(Comparator c) {
+        comparator = c;
+    }
+
+    @Override
+    public Comparator getTileComparator() {
+        return comparator;
+    }
+
+    /**
+     * Does nothing, the counters are always maintained.
+     */
+    @Override
+    public void enableDiagnostics() {
+    }
+
+    /**
+     * Does nothing, the counters are always maintained.
+     */
+    @Override
+    public void disableDiagnostics() {
+    }
+
+    @Override
+    public long getCacheTileCount() {
+        long tileCount = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                tileCount += segment.tiles.size();
+            }
+        }
+        return tileCount;
+    }
+
+    /**
+     * @return The off-heap memory used by cached tiles in bytes.
+     */
+    @Override
+    public long getCacheMemoryUsed() {
+        long memoryUsage = 0;
+        for (Segment segment : segments) {
+            memoryUsage += segment.memoryUsage;
+        }
+        return memoryUsage;
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return hitCount.sum();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return The number of tiles evicted from the cache in order to free memory.
+     */
+    public long getCacheEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    @Override
+    public void resetCounts() {
+        hitCount.reset();
+        missCount.reset();
+        evictionCount.reset();
+    }
+
+    /**
+     * Returns a string representation of the class object.
+     */
+    public String toString() {
+        return getClass().getName() + "@" + Integer.toHexString(hashCode()) +
+                ": memoryCapacity = " + Long.toHexString(memoryCapacity) +
+                " memoryUsage = " + Long.toHexString(getCacheMemoryUsed()) +
+                " #tilesInCache = " + getCacheTileCount() +
+                " #hits = " + getCacheHitCount() +
+                " #misses = " + getCacheMissCount() +
+                " #evictions = " + getCacheEvictionCount();
+    }
+
+    private ByteBuffer allocateNonSync(Segment segment, int byteSize) {
+        final long segmentCapacity = getSegmentCapacity();
+        if (byteSize > segmentCapacity) {
+            return null;
+        }
+        while (true) {
+            final ArrayDeque<ByteBuffer> freeBuffers = segment.freeBuffers.get(byteSize);
+            if (freeBuffers != null && !freeBuffers.isEmpty()) {
+                segment.freeMemory -= byteSize;
+                final ByteBuffer buffer = freeBuffers.poll();
+                buffer.clear();
+                return buffer;
+            }
+            if (segment.memoryUsage + segment.freeMemory + byteSize <= segmentCapacity) {
+                return ByteBuffer.allocateDirect(byteSize).order(ByteOrder.nativeOrder());
+            }
+            if (segment.freeMemory > 0) {
+                // free buffers of other sizes are no use, give them to the garbage collector
+                segment.freeBuffers.clear();
+                segment.freeMemory = 0;
+            } else {
+                final Iterator<OffHeapTile> iterator = segment.tiles.values().iterator();
+                final OffHeapTile eldest = iterator.next();
+                iterator.remove();
+                segment.memoryUsage -= eldest.buffer.capacity();
+                releaseNonSync(segment, eldest.buffer);
+                evictionCount.increment();
+            }
+        }
+    }
+
+    private static void releaseNonSync(Segment segment, ByteBuffer buffer) {
+        segment.freeBuffers.computeIfAbsent(buffer.capacity(), k -> new ArrayDeque<>()).add(buffer);
+        segment.freeMemory += buffer.capacity();
+    }
+
+    private long getSegmentCapacity() {
+        return memoryCapacity / segments.length;
+    }
+
+    private Segment segmentFor(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+
+    private static boolean isSupported(DataBuffer dataBuffer) {
+        return dataBuffer instanceof DataBufferByte
+                || dataBuffer instanceof DataBufferShort
+                || dataBuffer instanceof DataBufferUShort
+                || dataBuffer instanceof DataBufferInt
+                || dataBuffer instanceof DataBufferFloat
+                || dataBuffer instanceof DataBufferDouble;
+    }
+
+    private static int getByteSize(DataBuffer dataBuffer) {
+        final int bankLength = getBankLength(dataBuffer);
+        return DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8 * bankLength * dataBuffer.getNumBanks();
+    }
+
+    private static int getBankLength(DataBuffer dataBuffer) {
+        if (dataBuffer instanceof DataBufferByte) {
+            return ((DataBufferByte) dataBuffer).getData().length;
+        } else if (dataBuffer instanceof DataBufferShort) {
+            return ((DataBufferShort) dataBuffer).getData().length;
+        } else if (dataBuffer instanceof DataBufferUShort) {
+            return ((DataBufferUShort) dataBuffer).getData().length;
+        } else if (dataBuffer instanceof DataBufferInt) {
+            return ((DataBufferInt) dataBuffer).getData().length;
+        } else if (dataBuffer instanceof DataBufferFloat) {
+            return ((DataBufferFloat) dataBuffer).getData().length;
+        } else {
+            return ((DataBufferDouble) dataBuffer).getData().length;
+        }
+    }
+
+    private static final class Segment {
+        // all fields guarded by the segment's monitor
+        final LinkedHashMap<Object, OffHeapTile> tiles = new LinkedHashMap<>(64, 0.75F, true);
+        final Map<Integer, ArrayDeque<ByteBuffer>> freeBuffers = new HashMap<>();
+        volatile long memoryUsage;
+        long freeMemory;
+    }
+
+    /**
+     * The off-heap data of a tile and everything needed to recreate a raster from it.
+     */
+    private static final class OffHeapTile {
+        final ByteBuffer buffer;
+        final SampleModel sampleModel;
+        final int dataType;
+        final int numBanks;
+        final int bankLength;
+        final int size;
+        final int[] offsets;
+        final Point sampleModelTranslate;
+        final Rectangle bounds;
+        final boolean writable;
+
+        OffHeapTile(Raster tile, ByteBuffer buffer) {
+            final DataBuffer dataBuffer = tile.getDataBuffer();
+            this.buffer = buffer;
+            this.sampleModel = tile.getSampleModel();
+            this.dataType = dataBuffer.getDataType();
+            this.numBanks = dataBuffer.getNumBanks();
+            this.bankLength = getBankLength(dataBuffer);
+            this.size = dataBuffer.getSize();
+            this.offsets = dataBuffer.getOffsets();
+            this.sampleModelTranslate = new Point(tile.getSampleModelTranslateX(), tile.getSampleModelTranslateY());
+            this.bounds = tile.getBounds();
+            this.writable = tile instanceof WritableRaster;
+            writeDataBuffer(dataBuffer);
+        }
+
+        private void writeDataBuffer(DataBuffer dataBuffer) {
+            buffer.clear();
+            for (int bank = 0; bank < numBanks; bank++) {
+                if (dataBuffer instanceof DataBufferByte) {
+                    buffer.put(((DataBufferByte) dataBuffer).getData(bank));
+                } else if (dataBuffer instanceof DataBufferShort) {
+                    buffer.asShortBuffer().put(((DataBufferShort) dataBuffer).getData(bank));
+                    buffer.position(buffer.position() + 2 * bankLength);
+                } else if (dataBuffer instanceof DataBufferUShort) {
+                    buffer.asShortBuffer().put(((DataBufferUShort) dataBuffer).getData(bank));
+                    buffer.position(buffer.position() + 2 * bankLength);
+                } else if (dataBuffer instanceof DataBufferInt) {
+                    buffer.asIntBuffer().put(((DataBufferInt) dataBuffer).getData(bank));
+                    buffer.position(buffer.position() + 4 * bankLength);
+                } else if (dataBuffer instanceof DataBufferFloat) {
+                    buffer.asFloatBuffer().put(((DataBufferFloat) dataBuffer).getData(bank));
+                    buffer.position(buffer.position() + 4 * bankLength);
+                } else {
+                    buffer.asDoubleBuffer().put(((DataBufferDouble) dataBuffer).getData(bank));
+                    buffer.position(buffer.position() + 8 * bankLength);
+                }
+            }
+        }
+
+        DataBuffer readDataBuffer() {
+            buffer.clear();
+            switch (dataType) {
+                case DataBuffer.TYPE_BYTE: {
+                    final byte[][] data = new byte[numBanks][bankLength];
+                    for (byte[] bankData : data) {
+                        buffer.get(bankData);
+                    }
+                    return new DataBufferByte(data, size, offsets);
+                }
+                case DataBuffer.TYPE_SHORT: {
+                    final short[][] data = new short[numBanks][bankLength];
+                    for (short[] bankData : data) {
+                        buffer.asShortBuffer().get(bankData);
+                        buffer.position(buffer.position() + 2 * bankLength);
+                    }
+                    return new DataBufferShort(data, size, offsets);
+                }
+                case DataBuffer.TYPE_USHORT: {
+                    final short[][] data = new short[numBanks][bankLength];
+                    for (short[] bankData : data) {
+                        buffer.asShortBuffer().get(bankData);
+                        buffer.position(buffer.position() + 2 * bankLength);
+                    }
+                    return new DataBufferUShort(data, size, offsets);
+                }
+                case DataBuffer.TYPE_INT: {
+                    final int[][] data = new int[numBanks][bankLength];
+                    for (int[] bankData : data) {
+                        buffer.asIntBuffer().get(bankData);
+                        buffer.position(buffer.position() + 4 * bankLength);
+                    }
+                    return new DataBufferInt(data, size, offsets);
+                }
+                case DataBuffer.TYPE_FLOAT: {
+                    final float[][] data = new float[numBanks][bankLength];
+                    for (float[] bankData : data) {
+                        buffer.asFloatBuffer().get(bankData);
+                        buffer.position(buffer.position() + 4 * bankLength);
+                    }
+                    return new DataBufferFloat(data, size, offsets);
+                }
+                default: {
+                    final double[][] data = new double[numBanks][bankLength];
+                    for (double[] bankData : data) {
+                        buffer.asDoubleBuffer().get(bankData);
+                        buffer.position(buffer.position() + 8 * bankLength);
+                    }
+                    return new DataBufferDouble(data, size, offsets);
+                }
+            }
+        }
+
+        Raster createRaster(DataBuffer dataBuffer) {
+            final WritableRaster raster = Raster.createWritableRaster(sampleModel, dataBuffer, sampleModelTranslate);
+            if (raster.getBounds().equals(bounds)) {
+                return writable ? raster : Raster.createRaster(sampleModel, dataBuffer, sampleModelTranslate);
+            }
+            if (writable) {
+                return raster.createWritableChild(bounds.x, bounds.y, bounds.width, bounds.height, bounds.x, bounds.y, null);
+            }
+            return raster.createChild(bounds.x, bounds.y, bounds.width, bounds.height, bounds.x, bounds.y, null);
+        }
+    }
+}
@@ -33,6 +33,9 @@ import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 
 final class SwappedTile {
@@ -97,6 +100,24 @@ final class SwappedTile {
         return tile;
     }
 
+    /**
+     * Restores the tile using a memory-mapped read of the swap file. Other than {@link #restoreTile()},
+     * the tile data is copied in bulk from the mapped file instead of being decoded by an image input stream.
+     */
+    public Raster restoreTileMapped() throws IOException {
+        final DataBuffer dataBuffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            dataBuffer = readTileData(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), sampleModel);
+        }
+        final Raster tile;
+        if (writable) {
+            tile = Raster.createWritableRaster(sampleModel, dataBuffer, location);
+        } else {
+            tile = Raster.createRaster(sampleModel, dataBuffer, location);
+        }
+        return tile;
+    }
+
     public void storeTile(Raster tile) throws IOException {
         final ImageOutputStream stream = new FileImageOutputStream(file);
         try {
@@ -136,6 +157,40 @@ final class SwappedTile {
         }
     }
 
+    private static DataBuffer readTileData(ByteBuffer buffer, SampleModel sampleModel) throws IOException {
+        final int dataType = sampleModel.getDataType();
+        final int arrayLength = buffer.getInt();
+        final int bufferSize = buffer.getInt();
+        final int bufferOffset = buffer.getInt();
+        if (bufferOffset < 0 || bufferSize < 0 || bufferOffset + bufferSize > arrayLength) {
+            throw new IOException("corrupted tile file");
+        }
+        // only the elements [bufferOffset, bufferOffset + bufferSize) have been written, see writeTileData()
+        if (dataType == DataBuffer.TYPE_BYTE) {
+            byte[] data = new byte[arrayLength];
+            buffer.get(data, bufferOffset, bufferSize);
+            return new DataBufferByte(data, bufferSize, bufferOffset);
+        } else if (dataType == DataBuffer.TYPE_SHORT || dataType == DataBuffer.TYPE_USHORT) {
+            short[] data = new short[arrayLength];
+            buffer.asShortBuffer().get(data, bufferOffset, bufferSize);
+            return new DataBufferShort(data, bufferSize, bufferOffset);
+        } else if (dataType == DataBuffer.TYPE_INT) {
+            int[] data = new int[arrayLength];
+            buffer.asIntBuffer().get(data, bufferOffset, bufferSize);
+            return new DataBufferInt(data, bufferSize, bufferOffset);
+        } else if (dataType == DataBuffer.TYPE_FLOAT) {
+            float[] data = new float[arrayLength];
+            buffer.asFloatBuffer().get(data, bufferOffset, bufferSize);
+            return new DataBufferFloat(data, bufferSize, bufferOffset);
+        } else if (dataType == DataBuffer.TYPE_DOUBLE) {
+            double[] data = new double[arrayLength];
+            buffer.asDoubleBuffer().get(data, bufferOffset, bufferSize);
+            return new DataBufferDouble(data, bufferSize, bufferOffset);
+        } else {
+            throw new IllegalStateException();
+        }
+    }
+
     private static void writeTileData(ImageOutputStream stream, DataBuffer dataBuffer) throws IOException {
         final Object data;
         try {
@@ -0,0 +1,554 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.ceres.jai.tilescheduler;
+
+import javax.media.jai.JAI;
+import javax.media.jai.OpImage;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.TileComputationListener;
+import javax.media.jai.TileRequest;
+import javax.media.jai.TileScheduler;
+import javax.media.jai.util.ImagingListener;
+import java.awt.Point;
+import java.awt.image.Raster;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * A {@link TileScheduler} which computes requested tiles in two separate thread pools: a CPU pool sized by the
+ * {@link #getParallelism() parallelism} and an I/O pool sized by the {@link #getIoParallelism() I/O parallelism}.
+ * Tiles of images which are classified as I/O-bound are computed in the I/O pool. Its threads spend most of their
+ * time waiting for blocking reads, so it can be much larger than the number of processors without starving the
+ * CPU-bound tile computations.
+ * <p>
+ * By default, only images implementing {@link IoBoundImage} are classified as I/O-bound. These are the images
+ * reading data from files or remote locations.
+ * <p>
+ * Synchronous tile computations ({@link #scheduleTile}) are performed in the calling thread. Concurrent requests
+ * for the same tile wait for the computation already in progress instead of computing the tile twice. Synchronous
+ * requests for several tiles ({@link #scheduleTiles(OpImage, Point[])}) are shared between the pool and the calling
+ * thread, and are computed in the calling thread alone if it is a thread of this scheduler. Thus, nested requests
+ * made by tile computations never wait for tasks queued behind them.
+ * <p>
+ * The only exceptions are nested requests for tiles of I/O-bound images made by a thread of the CPU pool, e.g. an
+ * operator reading its source tiles from a product reader. These are handed over to the I/O pool, whose threads
+ * compute all nested requests themselves and therefore never wait for a pool. While a CPU thread waits for the I/O
+ * pool, the CPU pool is enlarged by one thread, up to the I/O parallelism, so that the next CPU-bound tile can be
+ * started in the meantime.
+ *
+ * @since SNAP 8
+ */
+public class SplitPoolTileScheduler implements TileScheduler {
+
+    private static final String CPU_POOL_NAME = "cpu";
+
+    private final ThreadPoolExecutor cpuExecutor;
+    private final ThreadPoolExecutor ioExecutor;
+    private final ThreadPoolExecutor prefetchExecutor;
+    private final ConcurrentHashMap<TileKey, FutureTask<Raster>> tilesInProgress;
+    private final Object poolSizeLock;
+
+    private int parallelism;
+    private int waitingWorkerCount;
+
+    private volatile Predicate<PlanarImage> ioBoundPredicate;
+    private volatile int priority;
+    private volatile int prefetchPriority;
+
+    public SplitPoolTileScheduler(int parallelism, int ioParallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism <= 0");
+        }
+        if (ioParallelism <= 0) {
+            throw new IllegalArgumentException("ioParallelism <= 0");
+        }
+        priority = Thread.NORM_PRIORITY;
+        prefetchPriority = Thread.MIN_PRIORITY;
+        cpuExecutor = createExecutor(parallelism, CPU_POOL_NAME, false);
+        ioExecutor = createExecutor(ioParallelism, "io", false);
+        prefetchExecutor = createExecutor(1, "prefetch", true);
+        tilesInProgress = new ConcurrentHashMap<>();
+        poolSizeLock = new Object();
+        this.parallelism = parallelism;
+        ioBoundPredicate = image -> image instanceof IoBoundImage;
+    }
+
+    /**
+     * Gets the number of tile requests which can be processed concurrently by the given tile scheduler. For a
+     * {@code SplitPoolTileScheduler} this includes the threads of the I/O pool: the requests exceeding the
+     * parallelism are served by the threads added to the CPU pool while its threads wait for I/O-bound tiles.
+     *
+     * @param tileScheduler The tile scheduler.
+     * @return The number of tiles which can be computed concurrently.
+     */
+    public static int getTileRequestParallelism(TileScheduler tileScheduler) {
+        if (tileScheduler instanceof SplitPoolTileScheduler) {
+            final SplitPoolTileScheduler splitPoolTileScheduler = (SplitPoolTileScheduler) tileScheduler;
+            return splitPoolTileScheduler.getParallelism() + splitPoolTileScheduler.getIoParallelism();
+        }
+        return tileScheduler.getParallelism();
+    }
+
+    public Predicate<PlanarImage> getIoBoundPredicate() {
+        return ioBoundPredicate;
+    }
+
+    /**
+     * @param ioBoundPredicate Decides whether the tiles of an image are computed in the I/O pool.
+     */
+    public void setIoBoundPredicate(Predicate<PlanarImage> ioBoundPredicate) {
+        if (ioBoundPredicate == null) {
+            throw new NullPointerException("ioBoundPredicate");
+        }
+        this.ioBoundPredicate = ioBoundPredicate;
+    }
+
+    public int getIoParallelism() {
+        return ioExecutor.getMaximumPoolSize();
+    }
+
+    public void setIoParallelism(int ioParallelism) {
+        synchronized (poolSizeLock) {
+            setPoolSize(ioExecutor, ioParallelism);
+            updateCpuPoolSize();
+        }
+    }
+
+    @Override
+    public Raster scheduleTile(OpImage target, int tileX, int tileY) {
+        if (target == null) {
+            throw new IllegalArgumentException("target == null");
+        }
+        if (isCpuWorkerThread() && ioBoundPredicate.test(target)) {
+            // computed in the calling thread of the I/O pool, which also reports a failure
+            final FutureTask<Raster> ioTask = new FutureTask<>(() -> scheduleTile(target, tileX, tileY));
+            ioExecutor.execute(ioTask);
+            workerWaiting();
+            try {
+                return getTile(ioTask, tileX, tileY, false);
+            } finally {
+                workerContinuing();
+            }
+        }
+        final TileKey key = new TileKey(target, tileX, tileY);
+        final FutureTask<Raster> task = new FutureTask<>(() -> target.computeTile(tileX, tileY));
+        FutureTask<Raster> runningTask = tilesInProgress.putIfAbsent(key, task);
+        if (runningTask == null) {
+            try {
+                task.run();
+            } finally {
+                tilesInProgress.remove(key, task);
+            }
+            runningTask = task;
+        }
+        return getTile(runningTask, tileX, tileY, true);
+    }
+
+    private Raster getTile(FutureTask<Raster> task, int tileX, int tileY, boolean reportFailure) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for tile computation", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (reportFailure) {
+                final ImagingListener imagingListener = JAI.getDefaultInstance().getImagingListener();
+                imagingListener.errorOccurred("Failed to compute tile " + tileX + "," + tileY, cause, this, false);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public Raster[] scheduleTiles(OpImage target, Point[] tileIndices) {
+        if (target == null || tileIndices == null) {
+            throw new IllegalArgumentException("target == null || tileIndices == null");
+        }
+        // a thread of this scheduler must not wait for the pools, they may be occupied by threads waiting like it,
+        // except for a CPU thread handing over I/O-bound tiles to the I/O pool, whose threads never wait for a pool
+        final boolean ioHandOver = isCpuWorkerThread() && ioBoundPredicate.test(target);
+        final ThreadPoolExecutor executor;
+        if (ioHandOver) {
+            executor = ioExecutor;
+        } else {
+            executor = isWorkerThread() ? null : getExecutor(target);
+        }
+        final FutureTask<?>[] tasks = new FutureTask<?>[tileIndices.length];
+        final Raster[] tiles = new Raster[tileIndices.length];
+        for (int i = 0; i < tileIndices.length; i++) {
+            final int index = i;
+            final Point tileIndex = tileIndices[i];
+            tasks[i] = new FutureTask<>(() -> tiles[index] = scheduleTile(target, tileIndex.x, tileIndex.y), null);
+            if (executor != null) {
+                executor.execute(tasks[i]);
+            }
+        }
+        if (ioHandOver) {
+            workerWaiting();
+        }
+        try {
+            for (FutureTask<?> task : tasks) {
+                if (!ioHandOver) {
+                    // the tasks not yet started by the pool are computed by the calling thread, running a task twice has no effect
+                    task.run();
+                }
+                try {
+                    task.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for tile computation", e);
+                } catch (ExecutionException e) {
+                    // already reported by scheduleTile(), the tile remains null
+                }
+            }
+        } finally {
+            if (ioHandOver) {
+                workerContinuing();
+            }
+        }
+        return tiles;
+    }
+
+    @Override
+    public TileRequest scheduleTiles(PlanarImage target, Point[] tileIndices, TileComputationListener[] tileListeners) {
+        if (target == null || tileIndices == null) {
+            throw new IllegalArgumentException("target == null || tileIndices == null");
+        }
+        final Request request = new Request(this, target, tileIndices, tileListeners);
+        final ThreadPoolExecutor executor = getExecutor(target);
+        for (int i = 0; i < tileIndices.length; i++) {
+            final int index = i;
+            executor.execute(() -> request.compute(index));
+        }
+        return request;
+    }
+
+    @Override
+    public void cancelTiles(TileRequest request, Point[] tileIndices) {
+        if (request == null) {
+            throw new IllegalArgumentException("request == null");
+        }
+        if (request instanceof Request) {
+            ((Request) request).cancel(tileIndices);
+        }
+    }
+
+    @Override
+    public void prefetchTiles(PlanarImage target, Point[] tileIndices) {
+        if (target == null || tileIndices == null) {
+            throw new IllegalArgumentException("target == null || tileIndices == null");
+        }
+        for (Point tileIndex : tileIndices) {
+            prefetchExecutor.execute(() -> {
+                try {
+                    target.getTile(tileIndex.x, tileIndex.y);
+                } catch (RuntimeException ignored) {
+                    // a prefetch failure is reported again when the tile is actually requested
+                }
+            });
+        }
+    }
+
+    @Override
+    public void setParallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism <= 0");
+        }
+        synchronized (poolSizeLock) {
+            this.parallelism = parallelism;
+            updateCpuPoolSize();
+        }
+    }
+
+    @Override
+    public int getParallelism() {
+        synchronized (poolSizeLock) {
+            return parallelism;
+        }
+    }
+
+    @Override
+    public void setPrefetchParallelism(int parallelism) {
+        setPoolSize(prefetchExecutor, parallelism);
+    }
+
+    @Override
+    public int getPrefetchParallelism() {
+        return prefetchExecutor.getMaximumPoolSize();
+    }
+
+    /**
+     * Sets the priority of the CPU and I/O pool threads. Only threads created afterwards are affected.
+     */
+    @Override
+    public void setPriority(int priority) {
+        this.priority = clampPriority(priority);
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Sets the priority of the prefetch threads. Only threads created afterwards are affected.
+     */
+    @Override
+    public void setPrefetchPriority(int priority) {
+        this.prefetchPriority = clampPriority(priority);
+    }
+
+    @Override
+    public int getPrefetchPriority() {
+        return prefetchPriority;
+    }
+
+    private ThreadPoolExecutor getExecutor(PlanarImage target) {
+        return ioBoundPredicate.test(target) ? ioExecutor : cpuExecutor;
+    }
+
+    private boolean isWorkerThread() {
+        final Thread thread = Thread.currentThread();
+        return thread instanceof WorkerThread && ((WorkerThread) thread).scheduler == this;
+    }
+
+    private boolean isCpuWorkerThread() {
+        return isWorkerThread() && ((WorkerThread) Thread.currentThread()).poolName.equals(CPU_POOL_NAME);
+    }
+
+    private void workerWaiting() {
+        synchronized (poolSizeLock) {
+            waitingWorkerCount++;
+            updateCpuPoolSize();
+        }
+    }
+
+    private void workerContinuing() {
+        synchronized (poolSizeLock) {
+            waitingWorkerCount--;
+            updateCpuPoolSize();
+        }
+    }
+
+    private void updateCpuPoolSize() {
+        // the CPU threads waiting for the I/O pool are replaced, but not more than the I/O pool can serve
+        setPoolSize(cpuExecutor, parallelism + Math.min(waitingWorkerCount, ioExecutor.getMaximumPoolSize()));
+    }
+
+    private ThreadPoolExecutor createExecutor(int poolSize, String poolName, boolean prefetch) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                                                                   new LinkedBlockingQueue<>(),
+                                                                   new WorkerThreadFactory(poolName, prefetch));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static void setPoolSize(ThreadPoolExecutor executor, int poolSize) {
+        if (poolSize <= 0) {
+            throw new IllegalArgumentException("parallelism <= 0");
+        }
+        if (poolSize > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(poolSize);
+            executor.setCorePoolSize(poolSize);
+        } else {
+            executor.setCorePoolSize(poolSize);
+            executor.setMaximumPoolSize(poolSize);
+        }
+    }
+
+    private static int clampPriority(int priority) {
+        return Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY, priority));
+    }
+
+    private class WorkerThreadFactory implements ThreadFactory {
+
+        private final String poolName;
+        private final String namePrefix;
+        private final boolean prefetch;
+        private final AtomicInteger threadCount;
+
+        WorkerThreadFactory(String poolName, boolean prefetch) {
+            this.poolName = poolName;
+            this.namePrefix = SplitPoolTileScheduler.class.getSimpleName() + "-" + poolName + "-";
+            this.prefetch = prefetch;
+            this.threadCount = new AtomicInteger();
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new WorkerThread(SplitPoolTileScheduler.this, poolName, runnable,
+                                                   namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(prefetch ? prefetchPriority : priority);
+            return thread;
+        }
+    }
+
+    private static final class WorkerThread extends Thread {
+
+        private final SplitPoolTileScheduler scheduler;
+        private final String poolName;
+
+        WorkerThread(SplitPoolTileScheduler scheduler, String poolName, Runnable runnable, String name) {
+            super(runnable, name);
+            this.scheduler = scheduler;
+            this.poolName = poolName;
+        }
+    }
+
+    private static final class TileKey {
+
+        private final PlanarImage image;
+        private final int tileX;
+        private final int tileY;
+
+        TileKey(PlanarImage image, int tileX, int tileY) {
+            this.image = image;
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TileKey)) {
+                return false;
+            }
+            final TileKey other = (TileKey) o;
+            return image == other.image && tileX == other.tileX && tileY == other.tileY;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(image) + tileX) + tileY;
+        }
+    }
+
+    private static final class Request implements TileRequest {
+
+        private final SplitPoolTileScheduler scheduler;
+        private final PlanarImage image;
+        private final Point[] tileIndices;
+        private final TileComputationListener[] tileListeners;
+        private final AtomicInteger[] tileStatus;
+
+        Request(SplitPoolTileScheduler scheduler, PlanarImage image, Point[] tileIndices,
+                TileComputationListener[] tileListeners) {
+            this.scheduler = scheduler;
+            this.image = image;
+            this.tileIndices = tileIndices.clone();
+            this.tileListeners = tileListeners != null ? tileListeners.clone() : new TileComputationListener[0];
+            this.tileStatus = new AtomicInteger[tileIndices.length];
+            for (int i = 0; i < tileStatus.length; i++) {
+                tileStatus[i] = new AtomicInteger(TILE_STATUS_PENDING);
+            }
+        }
+
+        @Override
+        public PlanarImage getImage() {
+            return image;
+        }
+
+        @Override
+        public Point[] getTileIndices() {
+            return tileIndices.clone();
+        }
+
+        @Override
+        public TileComputationListener[] getTileListeners() {
+            return tileListeners.clone();
+        }
+
+        @Override
+        public boolean isStatusAvailable() {
+            return true;
+        }
+
+        @Override
+        public int getTileStatus(int tileX, int tileY) {
+            for (int i = 0; i < tileIndices.length; i++) {
+                if (tileIndices[i].x == tileX && tileIndices[i].y == tileY) {
+                    return tileStatus[i].get();
+                }
+            }
+            throw new IllegalArgumentException("Tile " + tileX + "," + tileY + " is not part of the request");
+        }
+
+        @Override
+        public void cancelTiles(Point[] tileIndices) {
+            scheduler.cancelTiles(this, tileIndices);
+        }
+
+        void cancel(Point[] indices) {
+            for (int i = 0; i < tileIndices.length; i++) {
+                if (indices == null || contains(indices, tileIndices[i])) {
+                    tileStatus[i].compareAndSet(TILE_STATUS_PENDING, TILE_STATUS_CANCELLED);
+                }
+            }
+        }
+
+        void compute(int index) {
+            final int tileX = tileIndices[index].x;
+            final int tileY = tileIndices[index].y;
+            final TileRequest[] requests = {this};
+            if (!tileStatus[index].compareAndSet(TILE_STATUS_PENDING, TILE_STATUS_PROCESSING)) {
+                for (TileComputationListener listener : tileListeners) {
+                    listener.tileCancelled(scheduler, requests, image, tileX, tileY);
+                }
+                return;
+            }
+            final Raster tile;
+            try {
+                tile = image.getTile(tileX, tileY);
+            } catch (Throwable t) {
+                tileStatus[index].set(TILE_STATUS_FAILED);
+                for (TileComputationListener listener : tileListeners) {
+                    listener.tileComputationFailure(scheduler, requests, image, tileX, tileY, t);
+                }
+                return;
+            }
+            tileStatus[index].set(TILE_STATUS_COMPUTED);
+            for (TileComputationListener listener : tileListeners) {
+                listener.tileComputed(scheduler, requests, image, tileX, tileY, tile);
+            }
+        }
+
+        private static boolean contains(Point[] indices, Point tileIndex) {
+            for (Point index : indices) {
+                if (index.equals(tileIndex)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.ceres.jai.tilecache;
+
+import junit.framework.TestCase;
+
+import javax.media.jai.ComponentSampleModelJAI;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.TiledImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConcurrentSwappingTileCacheTest extends TestCase {
+
+    private static final long TILE_SIZE = 64 * 64 * 4;
+
+    private File swapDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        swapDir = Files.createTempDirectory("ConcurrentSwappingTileCacheTest").toFile();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        final File[] files = swapDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        swapDir.delete();
+    }
+
+    public void testTilesAreSwappedOutAndRestored() throws Exception {
+        final TiledImage image = createImage(4, 4);
+        final ConcurrentSwappingTileCache cache = new ConcurrentSwappingTileCache(3 * TILE_SIZE + 1,
+                                                                                  new ConcurrentSwapSpace(swapDir), 1);
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                cache.add(image, x, y, image.getTile(x, y));
+                assertTrue(cache.getCacheMemoryUsed() <= cache.getMemoryCapacity());
+            }
+        }
+        assertTrue(cache.getCacheTileCount() <= 3);
+        waitForSwapOuts(cache);
+        assertTrue(swapDir.list().length >= 13);
+
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                assertEqualTile(image.getTile(x, y), cache.getTile(image, x, y));
+                assertTrue(cache.getCacheMemoryUsed() <= cache.getMemoryCapacity());
+            }
+        }
+        assertEquals(16, cache.getCacheHitCount());
+        assertEquals(0, cache.getCacheMissCount());
+        assertNull(cache.getTile(createImage(1, 1), 0, 0));
+        assertEquals(1, cache.getCacheMissCount());
+    }
+
+    public void testRemoveDeletesSwappedTiles() throws Exception {
+        final TiledImage image = createImage(4, 4);
+        final SwapSpaceMock swapSpace = new SwapSpaceMock();
+        final ConcurrentSwappingTileCache cache = new ConcurrentSwappingTileCache(3 * TILE_SIZE + 1, swapSpace, 1);
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                cache.add(image, x, y, image.getTile(x, y));
+            }
+        }
+        waitForSwapOuts(cache);
+        assertTrue(swapSpace.tiles.size() >= 13);
+
+        cache.removeTiles(image);
+        waitForSwapOuts(cache);
+        assertEquals(0, swapSpace.tiles.size());
+        assertEquals(0, cache.getCacheTileCount());
+        assertEquals(0, cache.getCacheMemoryUsed());
+        assertNull(cache.getTile(image, 0, 0));
+    }
+
+    public void testConcurrentAccess() throws Exception {
+        final TiledImage image = createImage(16, 16);
+        final ConcurrentSwappingTileCache cache = new ConcurrentSwappingTileCache(32 * TILE_SIZE,
+                                                                                  new ConcurrentSwapSpace(swapDir));
+        final ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                final int offset = i;
+                futures.add(executorService.submit((Callable<Void>) () -> {
+                    for (int n = 0; n < 256; n++) {
+                        final int tileIndex = (offset * 37 + n) % 256;
+                        final int tileX = tileIndex % 16;
+                        final int tileY = tileIndex / 16;
+                        cache.add(image, tileX, tileY, image.getTile(tileX, tileY));
+                    }
+                    for (int n = 0; n < 256; n++) {
+                        final int tileIndex = (offset * 53 + n) % 256;
+                        final int tileX = tileIndex % 16;
+                        final int tileY = tileIndex / 16;
+                        assertEqualTile(image.getTile(tileX, tileY), cache.getTile(image, tileX, tileY));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        assertTrue(cache.getCacheMemoryUsed() <= cache.getMemoryCapacity());
+        assertEquals(0, cache.getCacheMissCount());
+    }
+
+    static TiledImage createImage(int numXTiles, int numYTiles) {
+        final ComponentSampleModelJAI sm = new ComponentSampleModelJAI(DataBuffer.TYPE_FLOAT, 64, 64, 1, 64, new int[1]);
+        final TiledImage image = new TiledImage(0, 0, numXTiles * 64, numYTiles * 64, 0, 0, sm,
+                                                PlanarImage.createColorModel(sm));
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setSample(x, y, 0, x + 0.5F * y);
+            }
+        }
+        return image;
+    }
+
+    private static void waitForSwapOuts(ConcurrentSwappingTileCache cache) throws InterruptedException {
+        for (int i = 0; i < 500 && cache.getPendingSwapOutCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, cache.getPendingSwapOutCount());
+    }
+
+    private static void assertEqualTile(Raster expected, Raster actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getBounds(), actual.getBounds());
+        assertEquals(expected.getSampleModel(), actual.getSampleModel());
+        final float[] expectedSamples = expected.getSamples(expected.getMinX(), expected.getMinY(),
+                                                            expected.getWidth(), expected.getHeight(), 0, (float[]) null);
+        final float[] actualSamples = actual.getSamples(actual.getMinX(), actual.getMinY(),
+                                                        actual.getWidth(), actual.getHeight(), 0, (float[]) null);
+        for (int i = 0; i < expectedSamples.length; i++) {
+            assertEquals(expectedSamples[i], actualSamples[i], 0.0F);
+        }
+    }
+
+    private static class SwapSpaceMock implements SwapSpace {
+
+        final ConcurrentHashMap<Object, MemoryTile> tiles = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean storeTile(MemoryTile memoryTile) {
+            return tiles.putIfAbsent(memoryTile.getKey(), memoryTile) == null;
+        }
+
+        @Override
+        public MemoryTile restoreTile(RenderedImage owner, int tileX, int tileY) {
+            return tiles.get(MemoryTile.hashKey(owner, tileX, tileY));
+        }
+
+        @Override
+        public boolean deleteTile(RenderedImage owner, int tileX, int tileY) {
+            return tiles.remove(MemoryTile.hashKey(owner, tileX, tileY)) != null;
+        }
+    }
+}
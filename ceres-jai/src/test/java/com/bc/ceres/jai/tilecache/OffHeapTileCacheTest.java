@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.ceres.jai.tilecache;
+
+import junit.framework.TestCase;
+
+import javax.media.jai.TiledImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+public class OffHeapTileCacheTest extends TestCase {
+
+    private static final long TILE_SIZE = 64 * 64 * 4;
+
+    public void testTilesAreCopiedOffHeap() {
+        final TiledImage image = ConcurrentSwappingTileCacheTest.createImage(2, 2);
+        final OffHeapTileCache cache = new OffHeapTileCache(4 * TILE_SIZE, 1);
+
+        final Raster tile = image.getTile(1, 1);
+        cache.add(image, 1, 1, tile);
+        assertEquals(1, cache.getCacheTileCount());
+        assertEquals(TILE_SIZE, cache.getCacheMemoryUsed());
+
+        final Raster cachedTile = cache.getTile(image, 1, 1);
+        assertNotSame(tile, cachedTile);
+        assertEquals(tile.getBounds(), cachedTile.getBounds());
+        assertEquals(tile.getSampleModel(), cachedTile.getSampleModel());
+        assertTrue(cachedTile instanceof WritableRaster);
+        for (int y = tile.getMinY(); y < tile.getMinY() + tile.getHeight(); y++) {
+            for (int x = tile.getMinX(); x < tile.getMinX() + tile.getWidth(); x++) {
+                assertEquals(tile.getSampleFloat(x, y, 0), cachedTile.getSampleFloat(x, y, 0), 0.0F);
+            }
+        }
+
+        // changing the returned raster does not change the cached tile
+        ((WritableRaster) cachedTile).setSample(64, 64, 0, -1.0F);
+        assertEquals(tile.getSampleFloat(64, 64, 0), cache.getTile(image, 1, 1).getSampleFloat(64, 64, 0), 0.0F);
+
+        assertNull(cache.getTile(image, 0, 0));
+        assertEquals(2, cache.getCacheHitCount());
+        assertEquals(1, cache.getCacheMissCount());
+    }
+
+    public void testLeastRecentlyUsedTilesAreEvicted() {
+        final TiledImage image = ConcurrentSwappingTileCacheTest.createImage(4, 4);
+        final OffHeapTileCache cache = new OffHeapTileCache(3 * TILE_SIZE, 1);
+
+        cache.add(image, 0, 0, image.getTile(0, 0));
+        cache.add(image, 1, 0, image.getTile(1, 0));
+        cache.add(image, 2, 0, image.getTile(2, 0));
+        assertNotNull(cache.getTile(image, 0, 0));
+        cache.add(image, 3, 0, image.getTile(3, 0));
+
+        assertEquals(3, cache.getCacheTileCount());
+        assertEquals(3 * TILE_SIZE, cache.getCacheMemoryUsed());
+        assertEquals(1, cache.getCacheEvictionCount());
+        assertNotNull(cache.getTile(image, 0, 0));
+        assertNull(cache.getTile(image, 1, 0));
+        assertNotNull(cache.getTile(image, 2, 0));
+        assertNotNull(cache.getTile(image, 3, 0));
+
+        cache.removeTiles(image);
+        assertEquals(0, cache.getCacheTileCount());
+        assertEquals(0, cache.getCacheMemoryUsed());
+    }
+
+    public void testTilesLargerThanCapacityAreNotCached() {
+        final TiledImage image = ConcurrentSwappingTileCacheTest.createImage(1, 1);
+        final OffHeapTileCache cache = new OffHeapTileCache(TILE_SIZE / 2, 1);
+        cache.add(image, 0, 0, image.getTile(0, 0));
+        assertEquals(0, cache.getCacheTileCount());
+        assertNull(cache.getTile(image, 0, 0));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.ceres.jai.tilecache;
+
+import javax.media.jai.TileCache;
+import javax.media.jai.TiledImage;
+import java.awt.image.Raster;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Compares the throughput of the {@link SwappingTileCache} and the {@link ConcurrentSwappingTileCache}
+ * for an increasing number of threads. Each thread repeatedly requests random tiles of a shared image
+ * and adds them to the cache if they are missing, the working set is four times the cache capacity.
+ * <p>
+ * Usage: {@code TileCacheThroughputTestMain [maxThreads [requestsPerThread]]}
+ */
+public class TileCacheThroughputTestMain {
+
+    private static final int NUM_TILES_X = 32;
+    private static final int NUM_TILES_Y = 32;
+    private static final long TILE_SIZE = 64 * 64 * 4;
+
+    public static void main(String[] args) throws Exception {
+        final int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        final int requestsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        final TiledImage image = ConcurrentSwappingTileCacheTest.createImage(NUM_TILES_X, NUM_TILES_Y);
+        final long memoryCapacity = NUM_TILES_X * NUM_TILES_Y * TILE_SIZE / 4;
+
+        System.out.println("Threads\tSwappingTileCache [req/s]\tConcurrentSwappingTileCache [req/s]\tGain");
+        for (int numThreads = 1; numThreads <= maxThreads; numThreads *= 2) {
+            final double r1 = measure(image, numThreads, requestsPerThread,
+                                      swapDir -> new SwappingTileCache(memoryCapacity, new DefaultSwapSpace(swapDir)));
+            final double r2 = measure(image, numThreads, requestsPerThread,
+                                      swapDir -> new ConcurrentSwappingTileCache(memoryCapacity, new ConcurrentSwapSpace(swapDir)));
+            System.out.printf("%d\t%.0f\t%.0f\t%.2f%n", numThreads, r1, r2, r2 / r1);
+        }
+    }
+
+    private static double measure(TiledImage image, int numThreads, int requestsPerThread,
+                                  Function<File, TileCache> cacheFactory) throws Exception {
+        final File swapDir = Files.createTempDirectory("TileCacheThroughputTestMain").toFile();
+        final TileCache cache = cacheFactory.apply(swapDir);
+        final ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                final Random random = new Random(i);
+                tasks.add(() -> {
+                    for (int n = 0; n < requestsPerThread; n++) {
+                        final int tileX = random.nextInt(NUM_TILES_X);
+                        final int tileY = random.nextInt(NUM_TILES_Y);
+                        final Raster tile = cache.getTile(image, tileX, tileY);
+                        if (tile == null) {
+                            cache.add(image, tileX, tileY, image.getTile(tileX, tileY));
+                        }
+                    }
+                    return null;
+                });
+            }
+            final long t0 = System.nanoTime();
+            for (Future<Void> future : executorService.invokeAll(tasks)) {
+                future.get();
+            }
+            final long t1 = System.nanoTime();
+            return numThreads * (double) requestsPerThread / ((t1 - t0) * 1.0e-9);
+        } finally {
+            executorService.shutdown();
+            cache.removeTiles(image);
+            final File[] files = swapDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            swapDir.delete();
+        }
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.ceres.jai.tilescheduler;
+
+import junit.framework.TestCase;
+
+import javax.media.jai.ComponentSampleModelJAI;
+import javax.media.jai.ImageLayout;
+import javax.media.jai.JAI;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.SourcelessOpImage;
+import javax.media.jai.TileComputationListener;
+import javax.media.jai.TileRequest;
+import javax.media.jai.TileScheduler;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SplitPoolTileSchedulerTest extends TestCase {
+
+    private static final int TILE_SIZE = 16;
+
+    public void testScheduleTilesWithListener() throws Exception {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(2, 8);
+        final TestImage image = new IoTestImage(scheduler, 4, 4);
+        final RecordingListener listener = new RecordingListener(16);
+
+        final TileRequest request = scheduler.scheduleTiles(image, getAllTileIndices(4, 4),
+                                                            new TileComputationListener[]{listener});
+
+        assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        assertEquals(16, listener.computed.get());
+        assertEquals(0, listener.failed.get());
+        assertSame(image, request.getImage());
+        assertEquals(TileRequest.TILE_STATUS_COMPUTED, request.getTileStatus(3, 2));
+        // reading images are I/O-bound by default
+        for (String threadName : image.threadNames) {
+            assertTrue(threadName, threadName.startsWith("SplitPoolTileScheduler-io-"));
+        }
+    }
+
+    public void testIoBoundPredicate() throws Exception {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(2, 8);
+        scheduler.setIoBoundPredicate(image -> false);
+        final TestImage image = new IoTestImage(scheduler, 2, 2);
+        final RecordingListener listener = new RecordingListener(4);
+
+        scheduler.scheduleTiles(image, getAllTileIndices(2, 2), new TileComputationListener[]{listener});
+
+        assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        for (String threadName : image.threadNames) {
+            assertTrue(threadName, threadName.startsWith("SplitPoolTileScheduler-cpu-"));
+        }
+    }
+
+    public void testSourcelessImageIsNotIoBound() throws Exception {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(2, 8);
+        final TestImage image = new TestImage(scheduler, 2, 2, 0L);
+        final RecordingListener listener = new RecordingListener(4);
+
+        scheduler.scheduleTiles(image, getAllTileIndices(2, 2), new TileComputationListener[]{listener});
+
+        assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        for (String threadName : image.threadNames) {
+            assertTrue(threadName, threadName.startsWith("SplitPoolTileScheduler-cpu-"));
+        }
+    }
+
+    public void testNestedScheduleTilesInPoolThread() throws Exception {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(1, 1);
+        final TestImage sourceImage = new TestImage(scheduler, 2, 2, 0L);
+        final TestImage image = new TestImage(scheduler, 2, 2, 0L) {
+            @Override
+            protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+                super.computeRect(sources, dest, destRect);
+                // a nested request like the one of a GPF operator pulling its source tiles
+                scheduler.scheduleTiles(sourceImage, getAllTileIndices(2, 2));
+            }
+        };
+        final RecordingListener listener = new RecordingListener(4);
+
+        scheduler.scheduleTiles(image, getAllTileIndices(2, 2), new TileComputationListener[]{listener});
+
+        assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        assertEquals(4, listener.computed.get());
+        assertEquals(16, sourceImage.computeCount.get());
+    }
+
+    public void testIoBoundTilesRequestedInCpuThreadAreComputedInIoPool() throws Exception {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(2, 2);
+        final TestImage readerImage = new IoTestImage(scheduler, 2, 2);
+        final TestImage image = new TestImage(scheduler, 2, 2, 0L) {
+            @Override
+            protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+                super.computeRect(sources, dest, destRect);
+                // a GPF operator reading its source tiles from a product reader
+                final int tileX = XToTileX(destRect.x);
+                final int tileY = YToTileY(destRect.y);
+                assertNotNull(scheduler.scheduleTile(readerImage, tileX, tileY));
+                assertNotNull(scheduler.scheduleTiles(readerImage, new Point[]{new Point(tileX, tileY)})[0]);
+            }
+        };
+        final RecordingListener listener = new RecordingListener(4);
+
+        scheduler.scheduleTiles(image, getAllTileIndices(2, 2), new TileComputationListener[]{listener});
+
+        assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        assertEquals(4, listener.computed.get());
+        assertEquals(8, readerImage.computeCount.get());
+        for (String threadName : image.threadNames) {
+            assertTrue(threadName, threadName.startsWith("SplitPoolTileScheduler-cpu-"));
+        }
+        for (String threadName : readerImage.threadNames) {
+            assertTrue(threadName, threadName.startsWith("SplitPoolTileScheduler-io-"));
+        }
+    }
+
+    public void testCpuPoolIsEnlargedWhileWaitingForIoPool() throws Exception {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(1, 2);
+        final TestImage readerImage = new IoTestImage(scheduler, 2, 1, 300L);
+        final TestImage image = new TestImage(scheduler, 2, 1, 0L) {
+            @Override
+            protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+                super.computeRect(sources, dest, destRect);
+                scheduler.scheduleTile(readerImage, XToTileX(destRect.x), YToTileY(destRect.y));
+            }
+        };
+        final RecordingListener listener = new RecordingListener(2);
+
+        scheduler.scheduleTiles(image, getAllTileIndices(2, 1), new TileComputationListener[]{listener});
+
+        assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        // the second tile is started by an additional thread while the first one waits for its source tile
+        assertEquals(2, image.threadNames.size());
+        assertEquals(1, scheduler.getParallelism());
+    }
+
+    public void testConcurrentRequestsComputeTileOnce() throws Exception {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(2, 8);
+        final TestImage image = new TestImage(scheduler, 2, 2, 200L);
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            final Future<?>[] futures = new Future<?>[4];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = executorService.submit(() -> scheduler.scheduleTile(image, 1, 1));
+            }
+            final Raster tile = (Raster) futures[0].get();
+            for (Future<?> future : futures) {
+                assertSame(tile, future.get());
+            }
+            assertEquals(1, image.computeCount.get());
+
+            // once finished, the tile is computed again
+            scheduler.scheduleTile(image, 1, 1);
+            assertEquals(2, image.computeCount.get());
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    public void testScheduleTilesSynchronously() {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(2, 8);
+        final TestImage image = new TestImage(scheduler, 3, 2, 0L);
+
+        final Raster[] tiles = scheduler.scheduleTiles(image, new Point[]{new Point(2, 1), new Point(0, 0)});
+
+        assertEquals(2, tiles.length);
+        assertEquals(2 * TILE_SIZE, tiles[0].getMinX());
+        assertEquals(TILE_SIZE, tiles[0].getMinY());
+        assertEquals(0, tiles[1].getMinX());
+        assertEquals(0, tiles[1].getMinY());
+    }
+
+    public void testComputationFailure() throws Exception {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(2, 8);
+        final TestImage image = new TestImage(scheduler, 2, 1, 0L);
+        image.failingTile = new Point(1, 0);
+        final RecordingListener listener = new RecordingListener(2);
+
+        final TileRequest request = scheduler.scheduleTiles(image, getAllTileIndices(2, 1),
+                                                            new TileComputationListener[]{listener});
+
+        assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, listener.computed.get());
+        assertEquals(1, listener.failed.get());
+        assertEquals(TileRequest.TILE_STATUS_FAILED, request.getTileStatus(1, 0));
+    }
+
+    public void testCancelTiles() throws Exception {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(1, 1);
+        final TestImage image = new TestImage(scheduler, 4, 1, 100L);
+        final RecordingListener listener = new RecordingListener(4);
+
+        final TileRequest request = scheduler.scheduleTiles(image, getAllTileIndices(4, 1),
+                                                            new TileComputationListener[]{listener});
+        request.cancelTiles(new Point[]{new Point(3, 0)});
+
+        assertTrue(listener.done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, listener.computed.get());
+        assertEquals(1, listener.cancelled.get());
+        assertEquals(TileRequest.TILE_STATUS_CANCELLED, request.getTileStatus(3, 0));
+    }
+
+    public void testParallelism() {
+        final SplitPoolTileScheduler scheduler = new SplitPoolTileScheduler(2, 8);
+        assertEquals(2, scheduler.getParallelism());
+        assertEquals(8, scheduler.getIoParallelism());
+        assertEquals(10, SplitPoolTileScheduler.getTileRequestParallelism(scheduler));
+
+        scheduler.setParallelism(4);
+        scheduler.setIoParallelism(3);
+        assertEquals(4, scheduler.getParallelism());
+        assertEquals(3, scheduler.getIoParallelism());
+
+        try {
+            scheduler.setParallelism(0);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    static Point[] getAllTileIndices(int numTilesX, int numTilesY) {
+        final Point[] tileIndices = new Point[numTilesX * numTilesY];
+        for (int tileY = 0; tileY < numTilesY; tileY++) {
+            for (int tileX = 0; tileX < numTilesX; tileX++) {
+                tileIndices[tileY * numTilesX + tileX] = new Point(tileX, tileY);
+            }
+        }
+        return tileIndices;
+    }
+
+    static class TestImage extends SourcelessOpImage {
+
+        final AtomicInteger computeCount = new AtomicInteger();
+        final Set<String> threadNames = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private final long delayMillis;
+        volatile Point failingTile;
+
+        TestImage(TileScheduler scheduler, int numTilesX, int numTilesY, long delayMillis) {
+            this(createLayout(numTilesX, numTilesY), scheduler, delayMillis);
+        }
+
+        private TestImage(ImageLayout layout, TileScheduler scheduler, long delayMillis) {
+            super(layout, Collections.singletonMap(JAI.KEY_TILE_SCHEDULER, scheduler), layout.getSampleModel(null),
+                  0, 0, layout.getWidth(null), layout.getHeight(null));
+            this.delayMillis = delayMillis;
+            setTileCache(null);
+        }
+
+        @Override
+        protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+            computeCount.incrementAndGet();
+            threadNames.add(Thread.currentThread().getName());
+            if (failingTile != null && failingTile.equals(new Point(XToTileX(destRect.x), YToTileY(destRect.y)))) {
+                throw new IllegalStateException("failure at tile " + failingTile);
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private static ImageLayout createLayout(int numTilesX, int numTilesY) {
+            final SampleModel sampleModel = new ComponentSampleModelJAI(DataBuffer.TYPE_INT, TILE_SIZE, TILE_SIZE,
+                                                                        1, TILE_SIZE, new int[]{0});
+            return new ImageLayout(0, 0, numTilesX * TILE_SIZE, numTilesY * TILE_SIZE, 0, 0, TILE_SIZE, TILE_SIZE,
+                                   sampleModel, null);
+        }
+    }
+
+    static class IoTestImage extends TestImage implements IoBoundImage {
+
+        IoTestImage(TileScheduler scheduler, int numTilesX, int numTilesY) {
+            this(scheduler, numTilesX, numTilesY, 0L);
+        }
+
+        IoTestImage(TileScheduler scheduler, int numTilesX, int numTilesY, long delayMillis) {
+            super(scheduler, numTilesX, numTilesY, delayMillis);
+        }
+    }
+
+    private static class RecordingListener implements TileComputationListener {
+
+        final AtomicInteger computed = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final CountDownLatch done;
+
+        RecordingListener(int numTiles) {
+            done = new CountDownLatch(numTiles);
+        }
+
+        @Override
+        public void tileComputed(Object eventSource, TileRequest[] requests, PlanarImage image, int tileX, int tileY,
+                                 Raster tile) {
+            computed.incrementAndGet();
+            done.countDown();
+        }
+
+        @Override
+        public void tileCancelled(Object eventSource, TileRequest[] requests, PlanarImage image, int tileX, int tileY) {
+            cancelled.incrementAndGet();
+            done.countDown();
+        }
+
+        @Override
+        public void tileComputationFailure(Object eventSource, TileRequest[] requests, PlanarImage image, int tileX,
+                                           int tileY, Throwable situation) {
+            failed.incrementAndGet();
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package com.bc.ceres.jai.tilescheduler;
+
+import javax.media.jai.ComponentSampleModelJAI;
+import javax.media.jai.ImageLayout;
+import javax.media.jai.JAI;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.SourcelessOpImage;
+import javax.media.jai.TileComputationListener;
+import javax.media.jai.TileRequest;
+import javax.media.jai.TileScheduler;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Compares a single pool with the split pools of the {@link SplitPoolTileScheduler} for a graph dominated by
+ * blocking reads. It mimics the way the GPF computes a target product: a sourceless target image is computed tile
+ * by tile, limited by a semaphore, and every target tile reads its source tile from an {@link IoBoundImage} which
+ * waits for a simulated remote read before the target tile is computed with some CPU load. With a single pool, the
+ * source tiles are read by the CPU threads computing the target tiles.
+ * <p>
+ * Usage: {@code TileSchedulerThroughputTestMain [readLatencyMillis [ioParallelism]]}
+ */
+public class TileSchedulerThroughputTestMain {
+
+    private static final int NUM_TILES_X = 16;
+    private static final int NUM_TILES_Y = 16;
+    private static final int TILE_SIZE = 256;
+
+    public static void main(String[] args) throws Exception {
+        final long readLatency = args.length > 0 ? Long.parseLong(args[0]) : 50L;
+        final int parallelism = Runtime.getRuntime().availableProcessors();
+        final int ioParallelism = args.length > 1 ? Integer.parseInt(args[1]) : 8 * parallelism;
+
+        final SplitPoolTileScheduler singlePoolScheduler = new SplitPoolTileScheduler(parallelism, ioParallelism);
+        singlePoolScheduler.setIoBoundPredicate(image -> false);
+        final double t1 = measure(singlePoolScheduler, readLatency);
+        final double t2 = measure(new SplitPoolTileScheduler(parallelism, ioParallelism), readLatency);
+
+        System.out.println("Parallelism\tI/O parallelism\tRead latency [ms]\tSingle pool [s]\tSplit pools [s]\tGain");
+        System.out.printf("%d\t%d\t%d\t%.2f\t%.2f\t%.2f%n", parallelism, ioParallelism, readLatency, t1, t2, t1 / t2);
+    }
+
+    private static double measure(TileScheduler scheduler, long readLatency) throws InterruptedException {
+        final Map<Object, Object> configuration = Collections.singletonMap(JAI.KEY_TILE_SCHEDULER, scheduler);
+        final ReadImage readImage = new ReadImage(configuration, readLatency);
+        final ProcessImage processImage = new ProcessImage(configuration, readImage);
+
+        final int parallelism = SplitPoolTileScheduler.getTileRequestParallelism(scheduler);
+        final Semaphore semaphore = new Semaphore(parallelism);
+        final TileComputationListener[] listeners = {new SemaphoreReleasingListener(semaphore)};
+
+        final long t0 = System.nanoTime();
+        for (int tileY = 0; tileY < NUM_TILES_Y; tileY++) {
+            for (int tileX = 0; tileX < NUM_TILES_X; tileX++) {
+                semaphore.acquire();
+                scheduler.scheduleTiles(processImage, new Point[]{new Point(tileX, tileY)}, listeners);
+            }
+        }
+        semaphore.acquire(parallelism);
+        return (System.nanoTime() - t0) * 1.0e-9;
+    }
+
+    private static ImageLayout createLayout() {
+        final SampleModel sampleModel = new ComponentSampleModelJAI(DataBuffer.TYPE_FLOAT, TILE_SIZE, TILE_SIZE,
+                                                                    1, TILE_SIZE, new int[]{0});
+        return new ImageLayout(0, 0, NUM_TILES_X * TILE_SIZE, NUM_TILES_Y * TILE_SIZE, 0, 0, TILE_SIZE, TILE_SIZE,
+                               sampleModel, null);
+    }
+
+    private static class ReadImage extends SourcelessOpImage implements IoBoundImage {
+
+        private final long readLatency;
+
+        ReadImage(Map<Object, Object> configuration, long readLatency) {
+            this(createLayout(), configuration, readLatency);
+        }
+
+        private ReadImage(ImageLayout layout, Map<Object, Object> configuration, long readLatency) {
+            super(layout, configuration, layout.getSampleModel(null), 0, 0, layout.getWidth(null), layout.getHeight(null));
+            this.readLatency = readLatency;
+        }
+
+        @Override
+        protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+            try {
+                Thread.sleep(readLatency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (int y = destRect.y; y < destRect.y + destRect.height; y++) {
+                for (int x = destRect.x; x < destRect.x + destRect.width; x++) {
+                    dest.setSample(x, y, 0, x + y);
+                }
+            }
+        }
+    }
+
+    private static class ProcessImage extends SourcelessOpImage {
+
+        private final PlanarImage source;
+
+        ProcessImage(Map<Object, Object> configuration, PlanarImage source) {
+            this(createLayout(), configuration, source);
+        }
+
+        private ProcessImage(ImageLayout layout, Map<Object, Object> configuration, PlanarImage source) {
+            super(layout, configuration, layout.getSampleModel(null), 0, 0, layout.getWidth(null), layout.getHeight(null));
+            this.source = source;
+        }
+
+        @Override
+        protected void computeRect(PlanarImage[] sources, WritableRaster dest, Rectangle destRect) {
+            final Raster sourceData = source.getData(destRect);
+            for (int y = destRect.y; y < destRect.y + destRect.height; y++) {
+                for (int x = destRect.x; x < destRect.x + destRect.width; x++) {
+                    double value = sourceData.getSampleDouble(x, y, 0);
+                    for (int i = 0; i < 20; i++) {
+                        value = Math.sqrt(value + i) * Math.log1p(value);
+                    }
+                    dest.setSample(x, y, 0, value);
+                }
+            }
+        }
+    }
+
+    private static class SemaphoreReleasingListener implements TileComputationListener {
+
+        private final Semaphore semaphore;
+
+        SemaphoreReleasingListener(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        @Override
+        public void tileComputed(Object eventSource, TileRequest[] requests, PlanarImage image, int tileX, int tileY,
+                                 Raster tile) {
+            semaphore.release();
+        }
+
+        @Override
+        public void tileCancelled(Object eventSource, TileRequest[] requests, PlanarImage image, int tileX, int tileY) {
+            semaphore.release();
+        }
+
+        @Override
+        public void tileComputationFailure(Object eventSource, TileRequest[] requests, PlanarImage image, int tileX,
+                                           int tileY, Throwable situation) {
+            semaphore.release();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import sun.awt.image.SunWritableRaster;
 import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.image.BandedSampleModel;
 import java.awt.image.DataBuffer;
 import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
@@ -131,6 +132,32 @@ public class OpenJP2Decoder implements AutoCloseable {
         return decompress(rectangle);
     }
 
+    /**
+     * Extracts all the components of the tile (or of the full image if no tile index was given) as the bands of a
+     * raster, without saving them in the cache directory. The components must have the same size.
+     *
+     * @since SNAP 8
+     */
+    public Raster readBands() throws IOException {
+        ImageComponent[] components = decode();
+        int tileWidth = components[0].w;
+        int tileHeight = components[0].h;
+        int pixelCount = tileWidth * tileHeight;
+        SampleModel sampleModel = new BandedSampleModel(this.dataType, tileWidth, tileHeight, components.length);
+        DataBuffer buffer = sampleModel.createDataBuffer();
+        for (int bank = 0; bank < components.length; bank++) {
+            ImageComponent component = components[bank];
+            if (component.w != tileWidth || component.h != tileHeight) {
+                throw new IOException("The component " + bank + " has the size " + component.w + "x" + component.h + " instead of " + tileWidth + "x" + tileHeight + ".");
+            }
+            int[] pixels = component.data.getPointer().getIntArray(0, pixelCount);
+            for (int i = 0; i < pixelCount; i++) {
+                buffer.setElem(bank, i, pixels[i]);
+            }
+        }
+        return Raster.createWritableRaster(sampleModel, buffer, null);
+    }
+
     /**
      * Cleans up the native memory resources if allocated.
      */
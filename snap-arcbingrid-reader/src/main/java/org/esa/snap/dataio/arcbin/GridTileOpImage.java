@@ -15,6 +15,7 @@
  */
 package org.esa.snap.dataio.arcbin;
 
+import com.bc.ceres.jai.tilescheduler.IoBoundImage;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.image.ResolutionLevel;
 import org.esa.snap.core.image.SingleBandedOpImage;
@@ -26,7 +27,7 @@ import java.awt.image.DataBuffer;
 import java.awt.image.WritableRaster;
 
 
-class GridTileOpImage extends SingleBandedOpImage {
+class GridTileOpImage extends SingleBandedOpImage implements IoBoundImage {
 
     private final Header header;
     private final Dimension gridTileSize;
@@ -0,0 +1,37 @@
+package org.esa.snap.dataio.bigtiff;
+
+import org.esa.snap.core.dataio.ProductWriter;
+
+import java.util.Locale;
+
+/**
+ * Plug-in for writing cloud optimized GeoTIFF (COG) files: tiled GeoTIFF or BigTIFF files with internal overviews,
+ * whose IFDs precede the image data, so that a client can read a single resolution level or tile with few ranged
+ * requests.
+ *
+ * @since SNAP 8
+ */
+public class BigGeoTiffCogProductWriterPlugIn extends BigGeoTiffProductWriterPlugIn {
+
+    public static final String FORMAT_NAME = "GeoTIFF-COG";
+
+    @Override
+    public ProductWriter createWriterInstance() {
+        return new BigGeoTiffProductWriter(this, true);
+    }
+
+    @Override
+    protected boolean isTiledWriting() {
+        return true;
+    }
+
+    @Override
+    public String[] getFormatNames() {
+        return new String[]{FORMAT_NAME};
+    }
+
+    @Override
+    public String getDescription(Locale locale) {
+        return "Cloud optimized GeoTIFF data product";
+    }
+}
@@ -29,7 +29,9 @@ import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.core.util.geotiff.GeoTIFF;
 import org.esa.snap.core.util.geotiff.GeoTIFFMetadata;
 import org.esa.snap.core.util.io.FileUtils;
+import org.esa.snap.dataio.bigtiff.internal.TiffCompression;
 import org.esa.snap.dataio.bigtiff.internal.TiffIFD;
+import org.esa.snap.dataio.bigtiff.internal.TiledTiffWriter;
 import org.esa.snap.runtime.Config;
 
 import javax.imageio.IIOImage;
@@ -59,10 +61,13 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 class BigGeoTiffProductWriter extends AbstractProductWriter {
 
-    private static final String PARAM_COMPRESSION_TYPE = "snap.dataio.bigtiff.compression.type";   // value must be "LZW" or "NONE" or empty or null
+    private static final String PARAM_COMPRESSION_TYPE = "snap.dataio.bigtiff.compression.type";   // value must be "LZW", "DEFLATE" or "NONE" or empty or null
     private static final String COMPRESSION_TYPE_LZW = "LZW";
     private static final String COMPRESSION_TYPE_DEFAULT = COMPRESSION_TYPE_LZW;
     private static final String COMPRESSION_TYPE_NONE = "NONE";
+    private static final String COMPRESSION_TYPE_DEFLATE = "DEFLATE";   // only supported by the tiled writing mode
+
+    private static final String PARAM_COMPRESSION_PREDICTOR = "snap.dataio.bigtiff.compression.predictor";   // boolean, only used by the tiled writing mode
 
     private static final String PARAM_COMPRESSION_QUALITY = "snap.dataio.bigtiff.compression.quality";   // value float 0 ... 1, default 0.75
     private static final float PARAM_COMPRESSION_QUALITY_DEFAULT = 0.75f;
@@ -74,6 +79,13 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
     public static final String PARAM_PUSH_PROCESSING = "snap.dataio.bigtiff.support.pushprocessing";   // boolean
     private static final String PARAM_ARCGIS_AUX = "snap.dataio.bigtiff.write.arcgisaux";   // boolean
 
+    // writes the tiles as they arrive and compresses them concurrently, instead of writing the whole product through ImageIO
+    private static final String PARAM_TILED_WRITING = "snap.dataio.bigtiff.tiled.writing";   // boolean
+    private static final String PARAM_TILED_WRITING_THREADS = "snap.dataio.bigtiff.tiled.writing.threads";   // integer, default is the number of processors
+    private static final long MAX_CLASSIC_TIFF_IMAGE_SIZE = Integer.MAX_VALUE;
+    // tile size of cloud optimized GeoTIFFs, if the tiling is not configured explicitly
+    private static final int COG_DEFAULT_TILE_SIZE = 512;
+
     private File outputFile;
     private TIFFImageWriter imageWriter;
     private AtomicBoolean isDataWritten;
@@ -84,12 +96,27 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
     private ProductWriter intermediateWriter = null;
     private List<String> bandNames = new ArrayList<>();
     private boolean writingDataHasStarted = false;
+    private boolean tiledWriting;
+    private TiffCompression tiledCompression;
+    private TiledTiffWriter tiledTiffWriter;
+    private final boolean cloudOptimized;
 
     public BigGeoTiffProductWriter(ProductWriterPlugIn writerPlugIn) {
+        this(writerPlugIn, false);
+    }
+
+    /**
+     * @param writerPlugIn   the plug-in which created this writer
+     * @param cloudOptimized whether a cloud optimized GeoTIFF with overviews is written, which implies the tiled
+     *                       writing mode
+     */
+    BigGeoTiffProductWriter(ProductWriterPlugIn writerPlugIn, boolean cloudOptimized) {
         super(writerPlugIn);
+        this.cloudOptimized = cloudOptimized;
         createWriterParams();
         final boolean writeIntermediateProduct = Config.instance().preferences().getBoolean(PARAM_PUSH_PROCESSING, false);
-        setWriteIntermediateProduct(writeIntermediateProduct);
+        // the tiled writing mode accepts the regions as they are computed, an intermediate product is not needed
+        setWriteIntermediateProduct(writeIntermediateProduct && !tiledWriting);
         isDataWritten = new AtomicBoolean(false);
     }
 
@@ -103,6 +130,10 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
 
     @Override
     public void close() throws IOException {
+        if (tiledTiffWriter != null) {
+            tiledTiffWriter.close();
+        }
+
         if (withIntermediate) {
             if (intermediateWriter != null) {
                 intermediateWriter.flush();
@@ -116,7 +147,7 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
             }
         }
 
-        if (outputStream != null && Config.instance().preferences().getBoolean(PARAM_ARCGIS_AUX, false)) {
+        if ((outputStream != null || tiledTiffWriter != null) && Config.instance().preferences().getBoolean(PARAM_ARCGIS_AUX, false)) {
             File auxFile = new File(outputFile.getParent(), outputFile.getName() + ".aux.xml");
             SystemUtils.LOG.info("writing band names to ArcGIS aux " + auxFile.getPath());
             try (BufferedWriter auxWriter = new BufferedWriter(new FileWriter(auxFile))) {
@@ -141,6 +172,7 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
             imageWriter.dispose();
             imageWriter = null;
         }
+        tiledTiffWriter = null;
     }
 
     @Override
@@ -159,7 +191,9 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
 
     @Override
     public void writeBandRasterData(Band sourceBand, int sourceOffsetX, int sourceOffsetY, int sourceWidth, int sourceHeight, ProductData sourceBuffer, ProgressMonitor pm) throws IOException {
-        if (withIntermediate) {
+        if (tiledTiffWriter != null) {
+            tiledTiffWriter.writeBandRasterData(sourceBand, sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight, sourceBuffer);
+        } else if (withIntermediate) {
             intermediateWriter.writeBandRasterData(sourceBand, sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight, sourceBuffer, pm);
         } else {
             if (!isDataWritten.getAndSet(true)) {
@@ -168,6 +202,15 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
         }
     }
 
+    /**
+     * Returns <code>true</code>, the product is either written tile-wise in the tiled writing mode, at once by the
+     * first call of {@link #writeBandRasterData} or band-wise to an intermediate BEAM-DIMAP product.
+     */
+    @Override
+    public boolean canWriteBandsConcurrently() {
+        return !withIntermediate || intermediateWriter.canWriteBandsConcurrently();
+    }
+
     @Override
     protected void writeProductNodesImpl() throws IOException {
         writingDataHasStarted = true;
@@ -183,11 +226,60 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
             }
             SystemUtils.LOG.info("writing to intermediate file " + intermediateFile.getPath());
             intermediateWriter.writeProductNodes(getSourceProduct(), intermediateFile);
+        } else if (tiledWriting) {
+            writeTiledProductNodes();
         } else {
             _writeProductNodesImpl();
         }
     }
 
+    private void writeTiledProductNodes() throws IOException {
+        outputFile = getOutputFile();
+        SystemUtils.LOG.info("writing tiles to output file " + outputFile.getPath());
+        deleteOutput();
+        updateProductName();
+
+        final Product sourceProduct = getSourceProduct();
+        final int tileWidth = TiledTiffWriter.getValidTileSize(writeParam.getTileWidth());
+        final int tileHeight = TiledTiffWriter.getValidTileSize(writeParam.getTileHeight());
+        final boolean predictor = Config.instance().preferences().getBoolean(PARAM_COMPRESSION_PREDICTOR, false);
+        final float compressionQuality = Config.instance().preferences().getFloat(PARAM_COMPRESSION_QUALITY, PARAM_COMPRESSION_QUALITY_DEFAULT);
+        // same mapping of the quality to the deflate level as the ImageIO TIFF deflater
+        final int compressionLevel = (int) (1 + 8 * compressionQuality);
+        final int parallelism = Config.instance().preferences().getInt(PARAM_TILED_WRITING_THREADS, Runtime.getRuntime().availableProcessors());
+        final long imageSize = (long) sourceProduct.getSceneRasterWidth() * sourceProduct.getSceneRasterHeight()
+                               * getBandsToExport(sourceProduct).size() * ProductData.getElemSize(new TiffIFD(sourceProduct).getBandDataType());
+        // the overviews add up to a third of the image size
+        final long fileSize = cloudOptimized ? imageSize + imageSize / 3 : imageSize;
+        final boolean bigTiff = Config.instance().preferences().getBoolean(PARAM_FORCE_BIGTIFF, false) || fileSize > MAX_CLASSIC_TIFF_IMAGE_SIZE;
+        final int overviewLevelCount = cloudOptimized ? getOverviewLevelCount(sourceProduct, tileWidth, tileHeight) : 0;
+        tiledTiffWriter = new TiledTiffWriter(outputFile, sourceProduct, tileWidth, tileHeight, tiledCompression,
+                                              predictor, compressionLevel, bigTiff, Math.max(1, parallelism),
+                                              overviewLevelCount, cloudOptimized);
+        if (cloudOptimized) {
+            // the overviews precede the full resolution tiles, they are computed from the level images of the bands
+            tiledTiffWriter.writeOverviews();
+        }
+    }
+
+    /**
+     * Returns the number of overviews of a cloud optimized GeoTIFF: the image is halved until it fits into a single
+     * tile, but not beyond the levels provided by the source images of the bands.
+     */
+    private int getOverviewLevelCount(Product sourceProduct, int tileWidth, int tileHeight) {
+        int maxLevel = Integer.MAX_VALUE;
+        for (Band band : getBandsToExport(sourceProduct)) {
+            maxLevel = Math.min(maxLevel, band.getSourceImage().getModel().getLevelCount() - 1);
+        }
+        int levelCount = 0;
+        while (levelCount < maxLevel
+               && (TiffIFD.getLevelSize(sourceProduct.getSceneRasterWidth(), levelCount) > tileWidth
+                   || TiffIFD.getLevelSize(sourceProduct.getSceneRasterHeight(), levelCount) > tileHeight)) {
+            levelCount++;
+        }
+        return levelCount;
+    }
+
     private void _writeBandRasterData(Product sourceProduct, ProgressMonitor pm) throws IOException {
         pm.beginTask("Writing all GeoTiff bands", 1);
         try {
@@ -234,7 +326,12 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
         writeParam = new TIFFImageWriteParam(Locale.ENGLISH);
 
         final String compressionType = Config.instance().preferences().get(PARAM_COMPRESSION_TYPE, COMPRESSION_TYPE_DEFAULT);
-        if (StringUtils.isNotNullAndNotEmpty(compressionType) || COMPRESSION_TYPE_NONE.equals(compressionType)) {
+        tiledWriting = isTiledWriting(cloudOptimized);
+        if (tiledWriting) {
+            tiledCompression = StringUtils.isNullOrEmpty(compressionType) ? TiffCompression.NONE : TiffCompression.fromName(compressionType);
+        } else if (COMPRESSION_TYPE_DEFLATE.equals(compressionType)) {
+            throw new IllegalArgumentException("Compression type '" + compressionType + "' requires the tiled writing mode ('" + PARAM_TILED_WRITING + "')");
+        } else if (StringUtils.isNotNullAndNotEmpty(compressionType) || COMPRESSION_TYPE_NONE.equals(compressionType)) {
             if (COMPRESSION_TYPE_DEFAULT.equals(compressionType)) {
                 writeParam.setCompressionMode(TIFFImageWriteParam.MODE_EXPLICIT);
 
@@ -263,6 +360,14 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
         writeParam.setForceToBigTIFF(forceBigTiff);
     }
 
+    /**
+     * @param cloudOptimized whether a cloud optimized GeoTIFF is written
+     * @return whether the product is written in the tiled writing mode
+     */
+    static boolean isTiledWriting(boolean cloudOptimized) {
+        return cloudOptimized || Config.instance().preferences().getBoolean(PARAM_TILED_WRITING, false);
+    }
+
     private void setWriteIntermediateProduct(boolean intermediate) {
         if (writingDataHasStarted) {
             throw new IllegalStateException("It is not allowed to change the state 'write intermediate product' " +
@@ -276,17 +381,18 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
         }
     }
 
-    private void _writeProductNodesImpl() throws IOException {
-        outputFile = null;
-
+    private File getOutputFile() {
         final File file;
         if (getOutput() instanceof String) {
             file = new File((String) getOutput());
         } else {
             file = (File) getOutput();
         }
+        return FileUtils.ensureExtension(file, Constants.FILE_EXTENSIONS[0]);
+    }
 
-        outputFile = FileUtils.ensureExtension(file, Constants.FILE_EXTENSIONS[0]);
+    private void _writeProductNodesImpl() throws IOException {
+        outputFile = getOutputFile();
         SystemUtils.LOG.info("writing to output file " + outputFile.getPath());
 
         deleteOutput();
@@ -299,7 +405,10 @@ class BigGeoTiffProductWriter extends AbstractProductWriter {
     }
 
     private void updateTilingParameter() {
-        if (writeParam.getTilingMode() != TIFFImageWriteParam.MODE_EXPLICIT) {
+        if (writeParam.getTilingMode() != TIFFImageWriteParam.MODE_EXPLICIT && cloudOptimized) {
+            writeParam.setTilingMode(TIFFImageWriteParam.MODE_EXPLICIT);
+            writeParam.setTiling(COG_DEFAULT_TILE_SIZE, COG_DEFAULT_TILE_SIZE, 0, 0);
+        } else if (writeParam.getTilingMode() != TIFFImageWriteParam.MODE_EXPLICIT) {
             final Product sourceProduct = getSourceProduct();
             final MultiLevelImage firstSourceImage = sourceProduct.getBandAt(0).getSourceImage();
             final int tileWidth = firstSourceImage.getTileWidth();
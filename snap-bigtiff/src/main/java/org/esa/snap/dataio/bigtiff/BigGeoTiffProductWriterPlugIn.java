@@ -30,7 +30,8 @@ public class BigGeoTiffProductWriterPlugIn implements ProductWriterPlugIn {
         } else if (!(geoCoding instanceof MapGeoCoding) && !(geoCoding instanceof CrsGeoCoding)) {
             return new EncodeQualification(EncodeQualification.Preservation.PARTIAL,
                                            "The product is geo-coded but seems not rectified. Geo-coding information may not be properly preserved.");
-        } else if (product.isMultiSize() && ! Config.instance().preferences().getBoolean(BigGeoTiffProductWriter.PARAM_PUSH_PROCESSING, false)) {
+        } else if (product.isMultiSize() && (isTiledWriting() || ! Config.instance().preferences().getBoolean(BigGeoTiffProductWriter.PARAM_PUSH_PROCESSING, false))) {
+            // the tiled writing mode writes all bands in the raster of the scene, it does not use an intermediate product
             for (RasterDataNode node : product.getRasterDataNodes()) {
                 SystemUtils.LOG.warning(node.getName() + " width=" + node.getRasterWidth() + " height=" + node.getRasterHeight());
             }
@@ -41,6 +42,13 @@ public class BigGeoTiffProductWriterPlugIn implements ProductWriterPlugIn {
         }
     }
 
+    /**
+     * @return whether the writers of this plug-in write in the tiled writing mode
+     */
+    protected boolean isTiledWriting() {
+        return BigGeoTiffProductWriter.isTiledWriting(false);
+    }
+
     @Override
     public Class[] getOutputTypes() {
         return OUTPUT_TYPES;
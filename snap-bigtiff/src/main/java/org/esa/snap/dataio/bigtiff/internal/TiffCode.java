@@ -33,6 +33,7 @@ class TiffCode {
     public static final int COMPRESSION_GROUP3_FAX = 3;
     public static final int COMPRESSION_GROUP4_FAX = 4;
     public static final int COMPRESSION_LZW = 5;
+    public static final int COMPRESSION_DEFLATE = 8;
     public static final int COMPRESSION_PACKBITS = 32773;
 
     // PhotometricInterpretaion Codes
@@ -82,6 +83,14 @@ class TiffCode {
     public static final TiffShort PLANAR_CONFIG_CHUNKY = new TiffShort(1);
     public static final TiffShort PLANAR_CONFIG_PLANAR = new TiffShort(2);
 
+    //New Subfile Type
+    public static final int NEW_SUBFILE_TYPE_REDUCED_RESOLUTION = 1;
+
+    //Predictor
+    public static final int PREDICTOR_NONE = 1;
+    public static final int PREDICTOR_HORIZONTAL = 2;
+    public static final int PREDICTOR_FLOATING_POINT = 3;
+
     //Extra Samples
     public static final TiffShort EXTRA_SAMPLES_UNSPEC_DATA = new TiffShort(0);
     public static final TiffShort EXTRA_SAMPLES_ASSOC_ALPHA_DATA = new TiffShort(1);
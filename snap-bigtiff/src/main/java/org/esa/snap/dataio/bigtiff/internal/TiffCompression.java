@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.dataio.bigtiff.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * The compressions supported for the tiles written by the {@link TiledTiffWriter}.
+ *
+ * @since SNAP 8
+ */
+public enum TiffCompression {
+
+    NONE(TiffCode.COMPRESSION_UNCOMPRESSED),
+    LZW(TiffCode.COMPRESSION_LZW),
+    DEFLATE(TiffCode.COMPRESSION_DEFLATE);
+
+    private final int code;
+
+    TiffCompression(int code) {
+        this.code = code;
+    }
+
+    /**
+     * @return the value of the TIFF compression tag
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Compresses the given bytes.
+     *
+     * @param data   the bytes
+     * @param length the number of bytes to compress
+     * @param level  the compression level from 1 (fastest) to 9 (best), only used by {@link #DEFLATE}
+     * @return the compressed bytes
+     */
+    byte[] compress(byte[] data, int length, int level) {
+        switch (this) {
+            case LZW:
+                return new TiffLzwEncoder().encode(data, length);
+            case DEFLATE:
+                return deflate(data, length, level);
+            default:
+                if (length == data.length) {
+                    return data;
+                }
+                final byte[] bytes = new byte[length];
+                System.arraycopy(data, 0, bytes, 0, length);
+                return bytes;
+        }
+    }
+
+    /**
+     * Returns the compression with the given name, ignoring the case.
+     *
+     * @throws IllegalArgumentException if the compression is not supported
+     */
+    public static TiffCompression fromName(String name) {
+        for (TiffCompression compression : values()) {
+            if (compression.name().equalsIgnoreCase(name)) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("Compression type '" + name + "' is not supported");
+    }
+
+    private static byte[] deflate(byte[] data, int length, int level) {
+        final Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length / 2 + 64);
+            final byte[] buffer = new byte[64 * 1024];
+            while (!deflater.finished()) {
+                final int count = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, count);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
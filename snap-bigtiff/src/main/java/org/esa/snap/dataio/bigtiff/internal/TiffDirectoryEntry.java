@@ -30,18 +30,26 @@ import java.io.IOException;
 public class TiffDirectoryEntry {
 
     public static final short BYTES_PER_ENTRY = 12;
+    public static final short BYTES_PER_BIG_TIFF_ENTRY = 20;
     private TiffShort tag;
     private TiffShort type;
     private TiffUInt count;
     private TiffValue[] values;
-    private TiffUInt valuesOffset;
+    private long valuesOffset = -1;
 
     public TiffDirectoryEntry(final TiffShort tiffTag, final TiffValue value) {
         this(tiffTag, new TiffValue[]{value});
     }
 
     public TiffDirectoryEntry(final TiffShort tiffTag, final TiffValue[] values) {
-        type = TiffType.getType(values);
+        this(tiffTag, TiffType.getType(values), values);
+    }
+
+    /**
+     * Creates an entry with an explicitly given TIFF type, e.g. LONG8 for the tile offsets of a BigTIFF file.
+     */
+    TiffDirectoryEntry(final TiffShort tiffTag, final TiffShort type, final TiffValue[] values) {
+        this.type = type;
         tag = tiffTag;
         count = getCount(values);
         this.values = values;
@@ -64,28 +72,43 @@ public class TiffDirectoryEntry {
     }
 
     public void write(final ImageOutputStream ios) throws IOException {
-        if (mustValuesBeReferenced() && valuesOffset == null) {
+        write(ios, false);
+    }
+
+    /**
+     * Writes the entry, and the referenced values if they do not fit into the entry.
+     *
+     * @param ios     the stream
+     * @param bigTiff whether the entry is written in the BigTIFF layout with 8-byte counts and offsets
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(final ImageOutputStream ios, final boolean bigTiff) throws IOException {
+        if (mustValuesBeReferenced(bigTiff) && valuesOffset < 0) {
             throw new IllegalStateException("no value offset given");
         }
 
         tag.write(ios);
         type.write(ios);
-        count.write(ios);
+        if (bigTiff) {
+            ios.writeLong(count.getValue());
+        } else {
+            count.write(ios);
+        }
 
-        if (valuesOffset == null) {
-            writeValuesInsideEnty(ios);
+        if (valuesOffset < 0) {
+            writeValuesInsideEnty(ios, bigTiff);
         } else {
-            writeValuesReferenced(ios);
+            writeValuesReferenced(ios, bigTiff);
         }
     }
 
-    private void writeValuesInsideEnty(final ImageOutputStream ios) throws IOException {
+    private void writeValuesInsideEnty(final ImageOutputStream ios, final boolean bigTiff) throws IOException {
         writeValues(ios);
-        fillEntry(ios);
+        fillEntry(ios, bigTiff);
     }
 
-    private void fillEntry(final ImageOutputStream ios) throws IOException {
-        final long bytesToWrite = 4 - getValuesSizeInBytes();
+    private void fillEntry(final ImageOutputStream ios, final boolean bigTiff) throws IOException {
+        final long bytesToWrite = getValueFieldSize(bigTiff) - getValuesSizeInBytes();
         for (int i = 0; i < bytesToWrite; i++) {
             ios.writeByte(0);
         }
@@ -100,7 +123,7 @@ public class TiffDirectoryEntry {
     }
 
     public void setValuesOffset(final long offset) {
-        valuesOffset = new TiffUInt(offset);
+        valuesOffset = offset;
     }
 
     public long getSize() {
@@ -108,7 +131,11 @@ public class TiffDirectoryEntry {
     }
 
     public boolean mustValuesBeReferenced() {
-        return getValuesSizeInBytes() > 4;
+        return mustValuesBeReferenced(false);
+    }
+
+    public boolean mustValuesBeReferenced(final boolean bigTiff) {
+        return getValuesSizeInBytes() > getValueFieldSize(bigTiff);
     }
 
     public long getValuesSizeInBytes() {
@@ -119,9 +146,13 @@ public class TiffDirectoryEntry {
         return size;
     }
 
-    private void writeValuesReferenced(final ImageOutputStream ios) throws IOException {
-        valuesOffset.write(ios);
-        ios.seek(valuesOffset.getValue());
+    private void writeValuesReferenced(final ImageOutputStream ios, final boolean bigTiff) throws IOException {
+        if (bigTiff) {
+            ios.writeLong(valuesOffset);
+        } else {
+            new TiffUInt(valuesOffset).write(ios);
+        }
+        ios.seek(valuesOffset);
         writeValues(ios);
     }
 
@@ -131,10 +162,14 @@ public class TiffDirectoryEntry {
         }
     }
 
-    public TiffUInt getValuesOffset() {
+    public long getValuesOffset() {
         return valuesOffset;
     }
 
+    private static int getValueFieldSize(final boolean bigTiff) {
+        return bigTiff ? 8 : 4;
+    }
+
     private TiffUInt getCount(final TiffValue[] values) {
         if (type.getValue() != TiffType.ASCII.getValue()) {
             return new TiffUInt(values.length);
@@ -40,6 +40,10 @@ class TiffDirectoryEntrySet {
         entryMap.put(key, entry);
     }
 
+    public void remove(final TiffShort tag) {
+        entryMap.remove(getKey(tag));
+    }
+
     public TiffDirectoryEntry[] getEntries() {
         return (TiffDirectoryEntry[]) entryMap.values().toArray(new TiffDirectoryEntry[entryMap.size()]);
     }
@@ -52,26 +52,146 @@ public class TiffIFD {
     private static final int TIFF_COLORMAP_SIZE = 256;
     private static final int BYTES_FOR_NEXT_IFD_OFFSET = 4;
     private static final int BYTES_FOR_NUMBER_OF_ENTRIES = 2;
+    private static final int BIG_TIFF_BYTES_FOR_NEXT_IFD_OFFSET = 8;
+    private static final int BIG_TIFF_BYTES_FOR_NUMBER_OF_ENTRIES = 8;
 
     private final TiffDirectoryEntrySet entrySet;
+    private final boolean bigTiff;
     private int maxElemSizeBandDataType;
+    private int predictor;
 
     public TiffIFD(final Product product) {
         entrySet = new TiffDirectoryEntrySet();
+        bigTiff = false;
+        predictor = TiffCode.PREDICTOR_NONE;
         initEntrys(product);
     }
 
+    /**
+     * Creates an IFD for a tiled image. The bands are stored planar, so that each tile holds the samples of a single
+     * band. The tile offsets and byte counts are zero until they are set by {@link #setTileLocations}, which does not
+     * change the size of the IFD.
+     *
+     * @param product     the product
+     * @param tileWidth   the tile width
+     * @param tileHeight  the tile height
+     * @param compression the compression of the tiles
+     * @param predictor   whether the horizontal differencing (integer data) or floating point predictor is applied
+     * @param bigTiff     whether the IFD is written in the BigTIFF layout
+     */
+    public TiffIFD(final Product product, final int tileWidth, final int tileHeight,
+                   final TiffCompression compression, final boolean predictor, final boolean bigTiff) {
+        this(product, 0, tileWidth, tileHeight, compression, predictor, bigTiff);
+    }
+
+    /**
+     * Creates an IFD for a tiled image of the given resolution level. Level 0 is the full resolution image, the
+     * width and height of level {@code n} are those of level 0 divided by 2<sup>n</sup> and rounded up, as for the
+     * level images of a {@link com.bc.ceres.glevel.MultiLevelImage}. The IFDs of the levels greater than 0 are
+     * marked as reduced resolution images and carry neither the GeoTIFF tags nor the DIMAP header.
+     *
+     * @param product     the product
+     * @param level       the resolution level
+     * @param tileWidth   the tile width
+     * @param tileHeight  the tile height
+     * @param compression the compression of the tiles
+     * @param predictor   whether the horizontal differencing (integer data) or floating point predictor is applied
+     * @param bigTiff     whether the IFD is written in the BigTIFF layout
+     */
+    public TiffIFD(final Product product, final int level, final int tileWidth, final int tileHeight,
+                   final TiffCompression compression, final boolean predictor, final boolean bigTiff) {
+        entrySet = new TiffDirectoryEntrySet();
+        this.bigTiff = bigTiff;
+        initEntrys(product);
+        entrySet.remove(TiffTag.STRIP_OFFSETS);
+        entrySet.remove(TiffTag.ROWS_PER_STRIP);
+        entrySet.remove(TiffTag.STRIP_BYTE_COUNTS);
+        if (level > 0) {
+            entrySet.remove(TiffTag.IMAGE_DESCRIPTION);
+            entrySet.remove(TiffTag.BEAM_METADATA);
+            entrySet.remove(TiffTag.GeoKeyDirectoryTag);
+            entrySet.remove(TiffTag.GeoDoubleParamsTag);
+            entrySet.remove(TiffTag.GeoAsciiParamsTag);
+            entrySet.remove(TiffTag.ModelTransformationTag);
+            entrySet.remove(TiffTag.ModelPixelScaleTag);
+            entrySet.remove(TiffTag.ModelTiepointTag);
+            setEntry(new TiffDirectoryEntry(TiffTag.NEW_SUBFILE_TYPE, new TiffUInt(TiffCode.NEW_SUBFILE_TYPE_REDUCED_RESOLUTION)));
+        }
+
+        final int width = getLevelSize(product.getSceneRasterWidth(), level);
+        final int height = getLevelSize(product.getSceneRasterHeight(), level);
+        setEntry(new TiffDirectoryEntry(TiffTag.IMAGE_WIDTH, new TiffUInt(width)));
+        setEntry(new TiffDirectoryEntry(TiffTag.IMAGE_LENGTH, new TiffUInt(height)));
+        setEntry(new TiffDirectoryEntry(TiffTag.COMPRESSION, new TiffShort(compression.getCode())));
+        setEntry(new TiffDirectoryEntry(TiffTag.TILE_WIDTH, new TiffUInt(tileWidth)));
+        setEntry(new TiffDirectoryEntry(TiffTag.TILE_LENGTH, new TiffUInt(tileHeight)));
+        if (!predictor) {
+            this.predictor = TiffCode.PREDICTOR_NONE;
+        } else if (ProductData.isFloatingPointType(getBandDataType())) {
+            this.predictor = TiffCode.PREDICTOR_FLOATING_POINT;
+        } else {
+            this.predictor = TiffCode.PREDICTOR_HORIZONTAL;
+        }
+        if (this.predictor != TiffCode.PREDICTOR_NONE) {
+            setEntry(new TiffDirectoryEntry(TiffTag.PREDICTOR, new TiffShort(this.predictor)));
+        }
+        final int numTilesX = (width + tileWidth - 1) / tileWidth;
+        final int numTilesY = (height + tileHeight - 1) / tileHeight;
+        final int numTiles = numTilesX * numTilesY * getNumBands(product);
+        setTileLocations(new long[numTiles], new long[numTiles]);
+    }
+
+    /**
+     * Sets the offsets and byte counts of the tiles, ordered band by band and row by row within each band.
+     */
+    public void setTileLocations(final long[] tileOffsets, final long[] tileByteCounts) {
+        Guardian.assertEquals("tileByteCounts.length", tileByteCounts.length, tileOffsets.length);
+        if (bigTiff) {
+            setEntry(new TiffDirectoryEntry(TiffTag.TILE_OFFSETS, TiffType.LONG_8, toTiffLongs(tileOffsets)));
+            setEntry(new TiffDirectoryEntry(TiffTag.TILE_BYTE_COUNTS, TiffType.LONG_8, toTiffLongs(tileByteCounts)));
+        } else {
+            setEntry(new TiffDirectoryEntry(TiffTag.TILE_OFFSETS, toTiffUInts(tileOffsets)));
+            setEntry(new TiffDirectoryEntry(TiffTag.TILE_BYTE_COUNTS, toTiffUInts(tileByteCounts)));
+        }
+    }
+
+    /**
+     * Returns the size of an image dimension at the given resolution level.
+     *
+     * @param size  the size at level 0
+     * @param level the resolution level
+     * @return the size divided by 2<sup>level</sup>, rounded up
+     */
+    public static int getLevelSize(final int size, final int level) {
+        return (int) ((size + (1L << level) - 1) >> level);
+    }
+
+    /**
+     * @return the predictor code, one of 1 (none), 2 (horizontal differencing) or 3 (floating point)
+     */
+    public int getPredictor() {
+        return predictor;
+    }
+
+    public boolean isBigTiff() {
+        return bigTiff;
+    }
+
     public void write(final ImageOutputStream ios, final long ifdOffset, final long nextIfdOffset) throws IOException {
         Guardian.assertGreaterThan("ifdOffset", ifdOffset, -1);
         computeOffsets(ifdOffset);
         ios.seek(ifdOffset);
         final TiffDirectoryEntry[] entries = entrySet.getEntries();
-        new TiffShort(entries.length).write(ios);
+        if (bigTiff) {
+            ios.writeLong(entries.length);
+        } else {
+            new TiffShort(entries.length).write(ios);
+        }
         long entryPosition = ios.getStreamPosition();
         for (TiffDirectoryEntry entry : entries) {
             ios.seek(entryPosition);
-            entry.write(ios);
-            entryPosition += TiffDirectoryEntry.BYTES_PER_ENTRY;
+            entry.write(ios, bigTiff);
+            entryPosition += getBytesPerEntry();
         }
         writeNextIfdOffset(ios, ifdOffset, nextIfdOffset);
     }
@@ -79,11 +199,27 @@ public class TiffIFD {
     private void writeNextIfdOffset(final ImageOutputStream ios, final long ifdOffset, final long nextIfdOffset) throws
             IOException {
         ios.seek(getPosForNextIfdOffset(ifdOffset));
-        new TiffLong(nextIfdOffset).write(ios);
+        if (bigTiff) {
+            ios.writeLong(nextIfdOffset);
+        } else {
+            new TiffUInt(nextIfdOffset).write(ios);
+        }
     }
 
     private long getPosForNextIfdOffset(final long ifdOffset) {
-        return ifdOffset + getRequiredIfdSize() - 4;
+        return ifdOffset + getRequiredIfdSize() - getBytesForNextIfdOffset();
+    }
+
+    private int getBytesPerEntry() {
+        return bigTiff ? TiffDirectoryEntry.BYTES_PER_BIG_TIFF_ENTRY : TiffDirectoryEntry.BYTES_PER_ENTRY;
+    }
+
+    private int getBytesForNumberOfEntries() {
+        return bigTiff ? BIG_TIFF_BYTES_FOR_NUMBER_OF_ENTRIES : BYTES_FOR_NUMBER_OF_ENTRIES;
+    }
+
+    private int getBytesForNextIfdOffset() {
+        return bigTiff ? BIG_TIFF_BYTES_FOR_NEXT_IFD_OFFSET : BYTES_FOR_NEXT_IFD_OFFSET;
     }
 
     public TiffDirectoryEntry getEntry(final TiffShort tag) {
@@ -92,14 +228,14 @@ public class TiffIFD {
 
     public long getRequiredIfdSize() {
         final TiffDirectoryEntry[] entries = entrySet.getEntries();
-        return BYTES_FOR_NUMBER_OF_ENTRIES + entries.length * TiffDirectoryEntry.BYTES_PER_ENTRY + BYTES_FOR_NEXT_IFD_OFFSET;
+        return getBytesForNumberOfEntries() + entries.length * getBytesPerEntry() + getBytesForNextIfdOffset();
     }
 
     public long getRequiredReferencedValuesSize() {
         final TiffDirectoryEntry[] entries = entrySet.getEntries();
         long size = 0;
         for (final TiffDirectoryEntry entry : entries) {
-            if (entry.mustValuesBeReferenced()) {
+            if (entry.mustValuesBeReferenced(bigTiff)) {
                 size += entry.getValuesSizeInBytes();
             }
         }
@@ -123,12 +259,14 @@ public class TiffIFD {
         final TiffDirectoryEntry[] entries = entrySet.getEntries();
         long valuesOffset = computeStartOffsetForValues(entries.length, ifdOffset);
         for (final TiffDirectoryEntry entry : entries) {
-            if (entry.mustValuesBeReferenced()) {
+            if (entry.mustValuesBeReferenced(bigTiff)) {
                 entry.setValuesOffset(valuesOffset);
                 valuesOffset += entry.getValuesSizeInBytes();
             }
         }
-        moveStripsTo(valuesOffset);
+        if (getEntry(TiffTag.STRIP_OFFSETS) != null) {
+            moveStripsTo(valuesOffset);
+        }
     }
 
     private void moveStripsTo(final long stripsStart) {
@@ -141,9 +279,8 @@ public class TiffIFD {
     }
 
     private long computeStartOffsetForValues(final int numEntries, final long ifdOffset) {
-        final short bytesPerEntry = TiffDirectoryEntry.BYTES_PER_ENTRY;
-        final int bytesForEntries = numEntries * bytesPerEntry;
-        return ifdOffset + BYTES_FOR_NUMBER_OF_ENTRIES + bytesForEntries + BYTES_FOR_NEXT_IFD_OFFSET;
+        final int bytesForEntries = numEntries * getBytesPerEntry();
+        return ifdOffset + getBytesForNumberOfEntries() + bytesForEntries + getBytesForNextIfdOffset();
     }
 
     private void setEntry(final TiffDirectoryEntry entry) {
@@ -318,6 +455,22 @@ public class TiffIFD {
         return td;
     }
 
+    private static TiffLong[] toTiffLongs(long[] a) {
+        final TiffLong[] tl = new TiffLong[a.length];
+        for (int i = 0; i < a.length; i++) {
+            tl[i] = new TiffLong(a[i]);
+        }
+        return tl;
+    }
+
+    private static TiffUInt[] toTiffUInts(long[] a) {
+        final TiffUInt[] tu = new TiffUInt[a.length];
+        for (int i = 0; i < a.length; i++) {
+            tu[i] = new TiffUInt(a[i]);
+        }
+        return tu;
+    }
+
     private static boolean isZeroArray(double[] a) {
         for (double v : a) {
             if (v != 0.0) {
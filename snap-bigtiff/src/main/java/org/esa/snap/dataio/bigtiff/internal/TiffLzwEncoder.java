@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.dataio.bigtiff.internal;
+
+import java.util.Arrays;
+
+/**
+ * An LZW encoder following the TIFF 6.0 specification: codes are written most significant bit first, with code widths
+ * from 9 to 12 bits, and the code width grows one code earlier than in the original LZW ("early change").
+ */
+class TiffLzwEncoder {
+
+    private static final int CLEAR_CODE = 256;
+    private static final int EOI_CODE = 257;
+    private static final int FIRST_CODE = 258;
+    private static final int MIN_BITS = 9;
+    private static final int MAX_CODE = 4095;
+    private static final int HASH_SIZE = 1 << 14;
+
+    private final int[] hashKeys = new int[HASH_SIZE];
+    private final short[] hashCodes = new short[HASH_SIZE];
+
+    private byte[] output;
+    private int outputLength;
+    private int bitBuffer;
+    private int bitCount;
+
+    byte[] encode(byte[] data, int length) {
+        output = new byte[Math.max(64, length / 2)];
+        outputLength = 0;
+        bitBuffer = 0;
+        bitCount = 0;
+
+        int bits = MIN_BITS;
+        int nextCode = FIRST_CODE;
+        resetTable();
+        writeCode(CLEAR_CODE, bits);
+        if (length > 0) {
+            int prefix = data[0] & 0xff;
+            for (int i = 1; i < length; i++) {
+                final int c = data[i] & 0xff;
+                final int key = (prefix << 8) | c;
+                final int code = lookup(key);
+                if (code >= 0) {
+                    prefix = code;
+                    continue;
+                }
+                writeCode(prefix, bits);
+                insert(key, nextCode++);
+                if (nextCode == MAX_CODE - 1) {
+                    writeCode(CLEAR_CODE, bits);
+                    resetTable();
+                    nextCode = FIRST_CODE;
+                    bits = MIN_BITS;
+                } else if (nextCode > (1 << bits) - 1) {
+                    bits++;
+                }
+                prefix = c;
+            }
+            writeCode(prefix, bits);
+            // the decoder adds a table entry for the last code, which may widen the code for the end of information
+            nextCode++;
+            if (nextCode == MAX_CODE - 1) {
+                writeCode(CLEAR_CODE, bits);
+                bits = MIN_BITS;
+            } else if (nextCode > (1 << bits) - 1) {
+                bits++;
+            }
+        }
+        writeCode(EOI_CODE, bits);
+        if (bitCount > 0) {
+            writeByte(bitBuffer << (8 - bitCount));
+        }
+        return Arrays.copyOf(output, outputLength);
+    }
+
+    private void resetTable() {
+        Arrays.fill(hashKeys, -1);
+    }
+
+    private int lookup(int key) {
+        int index = hash(key);
+        while (hashKeys[index] != -1) {
+            if (hashKeys[index] == key) {
+                return hashCodes[index];
+            }
+            index = (index + 1) & (HASH_SIZE - 1);
+        }
+        return -1;
+    }
+
+    private void insert(int key, int code) {
+        int index = hash(key);
+        while (hashKeys[index] != -1) {
+            index = (index + 1) & (HASH_SIZE - 1);
+        }
+        hashKeys[index] = key;
+        hashCodes[index] = (short) code;
+    }
+
+    private static int hash(int key) {
+        return (key * 0x9E3779B1 >>> 18) & (HASH_SIZE - 1);
+    }
+
+    private void writeCode(int code, int bits) {
+        bitBuffer = (bitBuffer << bits) | code;
+        bitCount += bits;
+        while (bitCount >= 8) {
+            bitCount -= 8;
+            writeByte(bitBuffer >>> bitCount);
+        }
+        bitBuffer &= (1 << bitCount) - 1;
+    }
+
+    private void writeByte(int b) {
+        if (outputLength == output.length) {
+            output = Arrays.copyOf(output, output.length * 2);
+        }
+        output[outputLength++] = (byte) b;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.dataio.bigtiff.internal;
+
+import org.esa.snap.core.datamodel.ProductData;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Encodes the samples of a single tile: applies the predictor, serializes the samples in big endian order and
+ * compresses the bytes. Instances are thread-safe, each call works on its own buffers.
+ */
+class TiffTileEncoder {
+
+    private final int dataType;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final TiffCompression compression;
+    private final int predictor;
+    private final int compressionLevel;
+
+    TiffTileEncoder(int dataType, int tileWidth, int tileHeight, TiffCompression compression, int predictor,
+                    int compressionLevel) {
+        this.dataType = dataType;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.compression = compression;
+        this.predictor = predictor;
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Encodes the samples of the tile. The samples are modified if the horizontal differencing predictor is used.
+     *
+     * @param tileData the {@code tileWidth * tileHeight} samples of the tile, of the data type of the encoder
+     * @return the encoded bytes
+     */
+    byte[] encode(ProductData tileData) {
+        if (predictor == TiffCode.PREDICTOR_HORIZONTAL) {
+            applyHorizontalDifferencing(tileData.getElems());
+        }
+        final byte[] bytes = toBytes(tileData.getElems());
+        if (predictor == TiffCode.PREDICTOR_FLOATING_POINT) {
+            applyFloatingPointPredictor(bytes, ProductData.getElemSize(dataType));
+        }
+        return compression.compress(bytes, bytes.length, compressionLevel);
+    }
+
+    private void applyHorizontalDifferencing(Object samples) {
+        for (int y = 0; y < tileHeight; y++) {
+            final int rowStart = y * tileWidth;
+            final int rowEnd = rowStart + tileWidth - 1;
+            if (samples instanceof byte[]) {
+                final byte[] values = (byte[]) samples;
+                for (int i = rowEnd; i > rowStart; i--) {
+                    values[i] = (byte) (values[i] - values[i - 1]);
+                }
+            } else if (samples instanceof short[]) {
+                final short[] values = (short[]) samples;
+                for (int i = rowEnd; i > rowStart; i--) {
+                    values[i] = (short) (values[i] - values[i - 1]);
+                }
+            } else if (samples instanceof int[]) {
+                final int[] values = (int[]) samples;
+                for (int i = rowEnd; i > rowStart; i--) {
+                    values[i] = values[i] - values[i - 1];
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the floating point predictor (TIFF predictor 3) row by row: the bytes of the samples are reordered so
+     * that the most significant bytes of all samples come first, then horizontal differencing is applied to the bytes.
+     */
+    private void applyFloatingPointPredictor(byte[] bytes, int bytesPerSample) {
+        final int rowLength = tileWidth * bytesPerSample;
+        final byte[] row = new byte[rowLength];
+        for (int y = 0; y < tileHeight; y++) {
+            final int rowStart = y * rowLength;
+            System.arraycopy(bytes, rowStart, row, 0, rowLength);
+            for (int x = 0; x < tileWidth; x++) {
+                for (int b = 0; b < bytesPerSample; b++) {
+                    bytes[rowStart + b * tileWidth + x] = row[x * bytesPerSample + b];
+                }
+            }
+            for (int i = rowStart + rowLength - 1; i > rowStart; i--) {
+                bytes[i] = (byte) (bytes[i] - bytes[i - 1]);
+            }
+        }
+    }
+
+    private byte[] toBytes(Object samples) {
+        if (samples instanceof byte[]) {
+            return (byte[]) samples;
+        }
+        final int numSamples = tileWidth * tileHeight;
+        final ByteBuffer buffer = ByteBuffer.allocate(numSamples * ProductData.getElemSize(dataType)).order(ByteOrder.BIG_ENDIAN);
+        if (samples instanceof short[]) {
+            buffer.asShortBuffer().put((short[]) samples, 0, numSamples);
+        } else if (samples instanceof int[]) {
+            buffer.asIntBuffer().put((int[]) samples, 0, numSamples);
+        } else if (samples instanceof float[]) {
+            buffer.asFloatBuffer().put((float[]) samples, 0, numSamples);
+        } else if (samples instanceof double[]) {
+            buffer.asDoubleBuffer().put((double[]) samples, 0, numSamples);
+        } else {
+            throw new IllegalArgumentException("Unsupported sample type " + samples.getClass());
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,574 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.dataio.bigtiff.internal;
+
+import com.bc.ceres.glevel.MultiLevelImage;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+
+import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Rectangle;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes the bands of a product as a tiled and compressed GeoTIFF or BigTIFF file.
+ * <p>
+ * The written regions are collected in tile buffers. As soon as a tile is complete, it is encoded on one of the
+ * worker threads. Only the reservation of the file position for the encoded bytes is serialized, the bytes themselves
+ * are written concurrently. The IFDs are placed directly behind the header; their size does not depend on the tile
+ * offsets, so they are reserved up front and written when the writer is closed.
+ * <p>
+ * Every pixel is expected to be written once. Regions of a tile which has already been encoded are ignored.
+ * Tiles which are incomplete when the writer is closed are written as they are, with the missing pixels set to zero.
+ * <p>
+ * A cloud optimized GeoTIFF (COG) additionally contains reduced resolution images (overviews), which are taken from
+ * the level images of the bands' {@link MultiLevelImage}s. The file starts with the GDAL structural metadata
+ * ("ghost area"), followed by all IFDs, the tiles of the overviews from the smallest to the largest and finally the
+ * tiles of the full resolution image. A client can therefore read all IFDs with a single ranged request and then
+ * fetch exactly the tiles of the level it needs.
+ *
+ * @since SNAP 8
+ */
+public class TiledTiffWriter implements Closeable {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int BIG_TIFF_HEADER_SIZE = 16;
+    private static final long MAX_CLASSIC_TIFF_SIZE = 0xffffffffL;
+    private static final int TILE_PENDING = 0;
+    private static final int TILE_SUBMITTED = 1;
+    // TIFF 6.0 requires the tile width and height to be multiples of 16
+    private static final int TILE_SIZE_MULTIPLE = 16;
+    private static final String GHOST_AREA_CONTENT = "LAYOUT=IFDS_BEFORE_DATA\nKNOWN_INCOMPATIBLE_EDITION=NO\n";
+
+    private final File outputFile;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final List<Level> levels;
+    private final Level fullResolution;
+    private final byte[] ghostArea;
+    private final List<Band> bands;
+    private final int dataType;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final AtomicIntegerArray tileStates;
+    private final Map<Integer, TileBuffer> tileBuffers;
+    private final TiffTileEncoder encoder;
+    private final ExecutorService executor;
+    private final int maxPendingTiles;
+    private final Semaphore pendingTiles;
+    private final AtomicLong appendPosition;
+    private final AtomicReference<Throwable> failure;
+    private boolean overviewsWritten;
+    private boolean closed;
+
+    /**
+     * Creates the writer and the output file.
+     *
+     * @param outputFile       the output file
+     * @param product          the product whose bands are written
+     * @param tileWidth        the tile width, a multiple of 16
+     * @param tileHeight       the tile height, a multiple of 16
+     * @param compression      the compression of the tiles
+     * @param predictor        whether the horizontal differencing (integer data) or floating point predictor is applied
+     * @param compressionLevel the compression level from 1 (fastest) to 9 (best)
+     * @param bigTiff          whether a BigTIFF file is written; a classic TIFF file cannot exceed 4 GB
+     * @param parallelism      the number of threads encoding the tiles
+     * @throws IOException if the file cannot be created
+     */
+    public TiledTiffWriter(File outputFile, Product product, int tileWidth, int tileHeight, TiffCompression compression,
+                           boolean predictor, int compressionLevel, boolean bigTiff, int parallelism) throws IOException {
+        this(outputFile, product, tileWidth, tileHeight, compression, predictor, compressionLevel, bigTiff, parallelism,
+             0, false);
+    }
+
+    /**
+     * Creates the writer and the output file.
+     *
+     * @param outputFile         the output file
+     * @param product            the product whose bands are written
+     * @param tileWidth          the tile width, a multiple of 16
+     * @param tileHeight         the tile height, a multiple of 16
+     * @param compression        the compression of the tiles
+     * @param predictor          whether the horizontal differencing (integer data) or floating point predictor is applied
+     * @param compressionLevel   the compression level from 1 (fastest) to 9 (best)
+     * @param bigTiff            whether a BigTIFF file is written; a classic TIFF file cannot exceed 4 GB
+     * @param parallelism        the number of threads encoding the tiles
+     * @param overviewLevelCount the number of overviews, which are written by {@link #writeOverviews()}
+     * @param cloudOptimized     whether the file starts with the structural metadata of a cloud optimized GeoTIFF
+     * @throws IOException if the file cannot be created
+     */
+    public TiledTiffWriter(File outputFile, Product product, int tileWidth, int tileHeight, TiffCompression compression,
+                           boolean predictor, int compressionLevel, boolean bigTiff, int parallelism,
+                           int overviewLevelCount, boolean cloudOptimized) throws IOException {
+        if (tileWidth <= 0 || tileWidth % TILE_SIZE_MULTIPLE != 0 || tileHeight <= 0 || tileHeight % TILE_SIZE_MULTIPLE != 0) {
+            throw new IllegalArgumentException("The tile size " + tileWidth + "x" + tileHeight + " is not a multiple of " + TILE_SIZE_MULTIPLE);
+        }
+        this.outputFile = outputFile;
+        this.bands = new ArrayList<>();
+        for (Band band : product.getBands()) {
+            if (TiffIFD.shouldWriteNode(band)) {
+                this.bands.add(band);
+            }
+        }
+        this.ghostArea = cloudOptimized ? createGhostArea() : new byte[0];
+        this.levels = new ArrayList<>();
+        long ifdOffset = (bigTiff ? BIG_TIFF_HEADER_SIZE : HEADER_SIZE) + ghostArea.length;
+        for (int level = 0; level <= overviewLevelCount; level++) {
+            final TiffIFD ifd = new TiffIFD(product, level, tileWidth, tileHeight, compression, predictor, bigTiff);
+            final Level tiffLevel = new Level(level, ifd, TiffIFD.getLevelSize(product.getSceneRasterWidth(), level),
+                                              TiffIFD.getLevelSize(product.getSceneRasterHeight(), level),
+                                              tileWidth, tileHeight, bands.size(), ifdOffset);
+            levels.add(tiffLevel);
+            ifdOffset += tiffLevel.ifdSize;
+        }
+        this.fullResolution = levels.get(0);
+        this.overviewsWritten = overviewLevelCount == 0;
+        this.dataType = fullResolution.ifd.getBandDataType();
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.tileStates = new AtomicIntegerArray(fullResolution.tileOffsets.length);
+        this.tileBuffers = new ConcurrentHashMap<>();
+        this.encoder = new TiffTileEncoder(dataType, tileWidth, tileHeight, compression,
+                                           fullResolution.ifd.getPredictor(), compressionLevel);
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            final Thread thread = new Thread(runnable, "TIFF tile encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxPendingTiles = 2 * parallelism;
+        this.pendingTiles = new Semaphore(maxPendingTiles);
+        this.failure = new AtomicReference<>();
+        this.appendPosition = new AtomicLong(ifdOffset);
+        this.randomAccessFile = new RandomAccessFile(outputFile, "rw");
+        this.randomAccessFile.setLength(0);
+        this.channel = randomAccessFile.getChannel();
+    }
+
+    /**
+     * Rounds a tile width or height up to the next multiple of 16, as required by TIFF 6.0. The tiles at the right and
+     * bottom edges of the image are padded.
+     *
+     * @param tileSize the tile width or height
+     * @return the valid tile width or height
+     */
+    public static int getValidTileSize(int tileSize) {
+        return Math.max(1, (tileSize + TILE_SIZE_MULTIPLE - 1) / TILE_SIZE_MULTIPLE) * TILE_SIZE_MULTIPLE;
+    }
+
+    /**
+     * @return the file written by this writer
+     */
+    public File getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * Writes the tiles of all overviews, from the smallest to the largest one. The samples are read from the level
+     * images of the bands' source images. The tiles are encoded concurrently, but written in their order, band by band
+     * and row by row.
+     * <p>
+     * In a cloud optimized GeoTIFF the overviews precede the full resolution image, so this method has to be called
+     * before the first call of {@link #writeBandRasterData}. Otherwise the overviews are written when the writer is
+     * closed.
+     *
+     * @throws IOException if reading, encoding or writing a tile has failed
+     */
+    public synchronized void writeOverviews() throws IOException {
+        if (overviewsWritten) {
+            return;
+        }
+        overviewsWritten = true;
+        final Deque<EncodedTile> encodedTiles = new ArrayDeque<>();
+        try {
+            for (int levelIndex = levels.size() - 1; levelIndex > 0; levelIndex--) {
+                final Level level = levels.get(levelIndex);
+                for (int bandIndex = 0; bandIndex < bands.size(); bandIndex++) {
+                    final Band band = bands.get(bandIndex);
+                    final RenderedImage levelImage = band.getSourceImage().getImage(level.level);
+                    for (int tileY = 0; tileY < level.numTilesY; tileY++) {
+                        for (int tileX = 0; tileX < level.numTilesX; tileX++) {
+                            final Rectangle tileRect = level.getTileRect(tileX, tileY, tileWidth, tileHeight);
+                            final Future<byte[]> bytes = executor.submit(
+                                    () -> encoder.encode(readTile(levelImage, band.getDataType(), tileRect)));
+                            encodedTiles.add(new EncodedTile(level, level.getTileIndex(bandIndex, tileX, tileY), bytes));
+                            if (encodedTiles.size() >= maxPendingTiles) {
+                                writeEncodedTile(encodedTiles.poll());
+                            }
+                        }
+                    }
+                }
+            }
+            while (!encodedTiles.isEmpty()) {
+                writeEncodedTile(encodedTiles.poll());
+            }
+        } finally {
+            for (EncodedTile encodedTile : encodedTiles) {
+                encodedTile.bytes.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Writes a region of a band. This method may be called concurrently for different regions and bands.
+     *
+     * @param band       the band
+     * @param regionX    the X-offset of the region in the band's raster co-ordinates
+     * @param regionY    the Y-offset of the region in the band's raster co-ordinates
+     * @param regionWidth  the width of the region
+     * @param regionHeight the height of the region
+     * @param regionData the samples of the region, line by line
+     * @throws IOException if encoding or writing a previous tile has failed, or if the writer is closed
+     */
+    public void writeBandRasterData(Band band, int regionX, int regionY, int regionWidth, int regionHeight,
+                                    ProductData regionData) throws IOException {
+        checkFailure();
+        if (closed) {
+            throw new IOException("The writer is closed");
+        }
+        final int bandIndex = bands.indexOf(band);
+        if (bandIndex < 0) {
+            throw new IllegalArgumentException("'" + band.getName() + "' is not a band written to the TIFF file");
+        }
+        final Rectangle region = new Rectangle(regionX, regionY, regionWidth, regionHeight).intersection(
+                new Rectangle(fullResolution.width, fullResolution.height));
+        if (region.isEmpty()) {
+            return;
+        }
+        final int minTileX = region.x / tileWidth;
+        final int maxTileX = (region.x + region.width - 1) / tileWidth;
+        final int minTileY = region.y / tileHeight;
+        final int maxTileY = (region.y + region.height - 1) / tileHeight;
+        for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                final int tileIndex = fullResolution.getTileIndex(bandIndex, tileX, tileY);
+                if (tileStates.get(tileIndex) == TILE_SUBMITTED) {
+                    continue;
+                }
+                final Rectangle tileRect = fullResolution.getTileRect(tileX, tileY, tileWidth, tileHeight);
+                final Rectangle part = tileRect.intersection(region);
+                final TileBuffer tileBuffer = tileBuffers.computeIfAbsent(tileIndex, index -> new TileBuffer(tileRect));
+                final boolean complete;
+                synchronized (tileBuffer) {
+                    if (tileBuffer.submitted || tileStates.get(tileIndex) == TILE_SUBMITTED) {
+                        // the tile has been submitted since the check above, discard the buffer created meanwhile
+                        tileBuffers.remove(tileIndex, tileBuffer);
+                        continue;
+                    }
+                    for (int y = part.y; y < part.y + part.height; y++) {
+                        final int sourceIndex = (y - regionY) * regionWidth + (part.x - regionX);
+                        final int targetIndex = (y - tileRect.y) * tileWidth + (part.x - tileRect.x);
+                        copySamples(regionData, sourceIndex, tileBuffer.data, targetIndex, part.width);
+                    }
+                    tileBuffer.remainingPixels -= part.width * part.height;
+                    complete = tileBuffer.remainingPixels <= 0;
+                    tileBuffer.submitted = complete;
+                }
+                if (complete) {
+                    submit(tileIndex, tileBuffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the incomplete tiles and the overviews which have not been written yet, waits until all tiles are
+     * written and writes the header and the IFDs.
+     *
+     * @throws IOException if encoding or writing a tile has failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            writeOverviews();
+            for (Integer tileIndex : tileBuffers.keySet()) {
+                final TileBuffer tileBuffer = tileBuffers.get(tileIndex);
+                if (tileBuffer == null) {
+                    continue;
+                }
+                synchronized (tileBuffer) {
+                    if (tileBuffer.submitted) {
+                        continue;
+                    }
+                    tileBuffer.submitted = true;
+                }
+                submit(tileIndex, tileBuffer);
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                checkFailure();
+            }
+            checkFailure();
+            final ImageOutputStream outputStream = new FileImageOutputStream(randomAccessFile);
+            try {
+                writeHeader(outputStream);
+                for (int i = 0; i < levels.size(); i++) {
+                    final Level level = levels.get(i);
+                    level.ifd.setTileLocations(level.tileOffsets, level.tileByteCounts);
+                    if (level.ifd.getRequiredIfdSize() + level.ifd.getRequiredReferencedValuesSize() > level.ifdSize) {
+                        throw new IllegalStateException("The size of the IFD has changed");
+                    }
+                    final long nextIfdOffset = i + 1 < levels.size() ? levels.get(i + 1).ifdOffset : 0;
+                    level.ifd.write(outputStream, level.ifdOffset, nextIfdOffset);
+                }
+                outputStream.flush();
+            } finally {
+                outputStream.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the tiles of " + outputFile);
+        } finally {
+            executor.shutdownNow();
+            randomAccessFile.close();
+        }
+    }
+
+    private void writeHeader(ImageOutputStream outputStream) throws IOException {
+        outputStream.setByteOrder(ByteOrder.BIG_ENDIAN);
+        outputStream.seek(0);
+        outputStream.writeShort(0x4D4D);
+        if (fullResolution.ifd.isBigTiff()) {
+            outputStream.writeShort(43);
+            outputStream.writeShort(8);
+            outputStream.writeShort(0);
+            outputStream.writeLong(fullResolution.ifdOffset);
+        } else {
+            outputStream.writeShort(42);
+            outputStream.writeInt((int) fullResolution.ifdOffset);
+        }
+        outputStream.write(ghostArea);
+    }
+
+    /**
+     * Creates the structural metadata of a cloud optimized GeoTIFF, in the format defined by GDAL. The metadata is
+     * padded to an even number of bytes, so that the first IFD starts on a word boundary.
+     */
+    static byte[] createGhostArea() {
+        String content = GHOST_AREA_CONTENT;
+        final String sizeLine = String.format("GDAL_STRUCTURAL_METADATA_SIZE=%06d bytes\n", content.length());
+        if ((sizeLine.length() + content.length()) % 2 != 0) {
+            content += " ";
+        }
+        return String.format("GDAL_STRUCTURAL_METADATA_SIZE=%06d bytes\n%s", content.length(), content)
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private void submit(int tileIndex, TileBuffer tileBuffer) throws IOException {
+        tileStates.set(tileIndex, TILE_SUBMITTED);
+        tileBuffers.remove(tileIndex);
+        try {
+            pendingTiles.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the tiles of " + outputFile);
+        }
+        executor.execute(() -> {
+            try {
+                writeTile(fullResolution, tileIndex, encoder.encode(tileBuffer.data));
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                pendingTiles.release();
+            }
+        });
+    }
+
+    private void writeEncodedTile(EncodedTile encodedTile) throws IOException {
+        final byte[] bytes;
+        try {
+            bytes = encodedTile.bytes.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing the overviews of " + outputFile);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to write an overview tile of " + outputFile, e.getCause());
+        }
+        writeTile(encodedTile.level, encodedTile.tileIndex, bytes);
+    }
+
+    private void writeTile(Level level, int tileIndex, byte[] bytes) throws IOException {
+        final long position = appendPosition.getAndAdd(bytes.length);
+        if (!fullResolution.ifd.isBigTiff() && position + bytes.length > MAX_CLASSIC_TIFF_SIZE) {
+            throw new IOException("The file exceeds the maximum size of a TIFF file, a BigTIFF file has to be written instead");
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+        level.tileOffsets[tileIndex] = position;
+        level.tileByteCounts[tileIndex] = bytes.length;
+    }
+
+    private void checkFailure() throws IOException {
+        final Throwable t = failure.get();
+        if (t instanceof IOException) {
+            throw (IOException) t;
+        } else if (t != null) {
+            throw new IOException("Failed to write a tile of " + outputFile, t);
+        }
+    }
+
+    private ProductData readTile(RenderedImage levelImage, int bandDataType, Rectangle tileRect) {
+        final ProductData tileData = ProductData.createInstance(dataType, tileWidth * tileHeight);
+        final Rectangle imageBounds = new Rectangle(levelImage.getMinX(), levelImage.getMinY(),
+                                                    levelImage.getWidth(), levelImage.getHeight());
+        final Rectangle rect = tileRect.intersection(imageBounds);
+        if (rect.isEmpty()) {
+            return tileData;
+        }
+        final Raster raster = levelImage.getData(rect);
+        final boolean floatingPoint = ProductData.isFloatingPointType(bandDataType);
+        final double[] doubleSamples = floatingPoint ? new double[rect.width] : null;
+        final int[] intSamples = floatingPoint ? null : new int[rect.width];
+        for (int y = rect.y; y < rect.y + rect.height; y++) {
+            final int targetIndex = (y - tileRect.y) * tileWidth + (rect.x - tileRect.x);
+            if (floatingPoint) {
+                raster.getSamples(rect.x, y, rect.width, 1, 0, doubleSamples);
+                for (int i = 0; i < rect.width; i++) {
+                    tileData.setElemDoubleAt(targetIndex + i, doubleSamples[i]);
+                }
+            } else {
+                raster.getSamples(rect.x, y, rect.width, 1, 0, intSamples);
+                for (int i = 0; i < rect.width; i++) {
+                    if (bandDataType == ProductData.TYPE_UINT32) {
+                        tileData.setElemDoubleAt(targetIndex + i, intSamples[i] & 0xffffffffL);
+                    } else {
+                        tileData.setElemIntAt(targetIndex + i, intSamples[i]);
+                    }
+                }
+            }
+        }
+        return tileData;
+    }
+
+    private void copySamples(ProductData source, int sourceIndex, ProductData target, int targetIndex, int length) {
+        if (source.getType() == target.getType()) {
+            System.arraycopy(source.getElems(), sourceIndex, target.getElems(), targetIndex, length);
+        } else if (ProductData.isFloatingPointType(target.getType())) {
+            for (int i = 0; i < length; i++) {
+                target.setElemDoubleAt(targetIndex + i, source.getElemDoubleAt(sourceIndex + i));
+            }
+        } else if (ProductData.isUIntType(target.getType())) {
+            for (int i = 0; i < length; i++) {
+                target.setElemUIntAt(targetIndex + i, source.getElemUIntAt(sourceIndex + i));
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                target.setElemIntAt(targetIndex + i, source.getElemIntAt(sourceIndex + i));
+            }
+        }
+    }
+
+    /**
+     * A resolution level: its IFD, the position reserved for the IFD and the locations of its tiles.
+     */
+    private static class Level {
+
+        private final int level;
+        private final TiffIFD ifd;
+        private final int width;
+        private final int height;
+        private final int numTilesX;
+        private final int numTilesY;
+        private final long[] tileOffsets;
+        private final long[] tileByteCounts;
+        private final long ifdOffset;
+        private final long ifdSize;
+
+        private Level(int level, TiffIFD ifd, int width, int height, int tileWidth, int tileHeight, int numBands,
+                      long ifdOffset) {
+            this.level = level;
+            this.ifd = ifd;
+            this.width = width;
+            this.height = height;
+            this.numTilesX = (width + tileWidth - 1) / tileWidth;
+            this.numTilesY = (height + tileHeight - 1) / tileHeight;
+            this.tileOffsets = new long[numTilesX * numTilesY * numBands];
+            this.tileByteCounts = new long[tileOffsets.length];
+            this.ifdOffset = ifdOffset;
+            final long size = ifd.getRequiredIfdSize() + ifd.getRequiredReferencedValuesSize();
+            // the next IFD has to start on a word boundary
+            this.ifdSize = size + (size % 2);
+        }
+
+        private int getTileIndex(int bandIndex, int tileX, int tileY) {
+            return (bandIndex * numTilesY + tileY) * numTilesX + tileX;
+        }
+
+        private Rectangle getTileRect(int tileX, int tileY, int tileWidth, int tileHeight) {
+            final int x = tileX * tileWidth;
+            final int y = tileY * tileHeight;
+            return new Rectangle(x, y, Math.min(tileWidth, width - x), Math.min(tileHeight, height - y));
+        }
+    }
+
+    private static class EncodedTile {
+
+        private final Level level;
+        private final int tileIndex;
+        private final Future<byte[]> bytes;
+
+        private EncodedTile(Level level, int tileIndex, Future<byte[]> bytes) {
+            this.level = level;
+            this.tileIndex = tileIndex;
+            this.bytes = bytes;
+        }
+    }
+
+    private class TileBuffer {
+
+        private final ProductData data;
+        private int remainingPixels;
+        private boolean submitted;
+
+        private TileBuffer(Rectangle tileRect) {
+            this.data = ProductData.createInstance(dataType, tileWidth * tileHeight);
+            this.remainingPixels = tileRect.width * tileRect.height;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package org.esa.snap.dataio.bigtiff;
+
+import com.bc.ceres.core.ProgressMonitor;
+import it.geosolutions.imageioimpl.plugins.tiff.TIFFImageReader;
+import org.esa.snap.core.dataio.EncodeQualification;
+import org.esa.snap.core.dataio.ProductWriter;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.runtime.Config;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BigGeoTiffCogProductWriterTest {
+
+    private static final int SIZE = 1024;
+
+    private File outputFile;
+
+    @Before
+    public void setUp() throws IOException {
+        outputFile = File.createTempFile("cog_test", ".tif");
+    }
+
+    @After
+    public void tearDown() {
+        outputFile.delete();
+    }
+
+    @Test
+    public void testWriteCloudOptimizedGeoTiff() throws IOException {
+        final Product product = new Product("cog_test", "test", SIZE, SIZE);
+        final Band band = product.addBand("data", ProductData.TYPE_UINT16);
+        final BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_USHORT_GRAY);
+        final WritableRaster raster = image.getRaster();
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                raster.setSample(x, y, 0, (7 * x + 3 * y) % 4096);
+            }
+        }
+        band.setSourceImage(image);
+
+        final ProductWriter writer = new BigGeoTiffCogProductWriterPlugIn().createWriterInstance();
+        writer.writeProductNodes(product, outputFile);
+        final int[] samples = raster.getSamples(0, 0, SIZE, SIZE, 0, (int[]) null);
+        final ProductData data = ProductData.createInstance(ProductData.TYPE_UINT16, samples.length);
+        for (int i = 0; i < samples.length; i++) {
+            data.setElemIntAt(i, samples[i]);
+        }
+        writer.writeBandRasterData(band, 0, 0, SIZE, SIZE, data, ProgressMonitor.NULL);
+        writer.close();
+
+        final List<long[]> tileOffsets = new ArrayList<>();
+        try (RandomAccessFile file = new RandomAccessFile(outputFile, "r")) {
+            assertEquals(0x4D4D, file.readUnsignedShort());
+            assertEquals(42, file.readUnsignedShort());
+            final long firstIfdOffset = file.readInt() & 0xffffffffL;
+            final byte[] ghostArea = new byte[(int) firstIfdOffset - 8];
+            file.readFully(ghostArea);
+            final String structuralMetadata = new String(ghostArea, StandardCharsets.US_ASCII);
+            assertTrue(structuralMetadata.startsWith("GDAL_STRUCTURAL_METADATA_SIZE="));
+            assertTrue(structuralMetadata.contains("LAYOUT=IFDS_BEFORE_DATA\n"));
+
+            long ifdOffset = firstIfdOffset;
+            while (ifdOffset != 0) {
+                tileOffsets.add(readTileOffsets(file, ifdOffset));
+                file.seek(ifdOffset);
+                file.seek(ifdOffset + 2 + 12 * file.readUnsignedShort());
+                ifdOffset = file.readInt() & 0xffffffffL;
+            }
+        }
+        // the full resolution image and one overview, which fits into a single tile of the default size
+        assertEquals(2, tileOffsets.size());
+        assertEquals(4, tileOffsets.get(0).length);
+        assertEquals(1, tileOffsets.get(1).length);
+        // the overview precedes the full resolution image
+        for (long offset : tileOffsets.get(0)) {
+            assertTrue(offset > tileOffsets.get(1)[0]);
+        }
+
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(outputFile)) {
+            final TIFFImageReader imageReader = BigGeoTiffProductReaderPlugIn.getTiffImageReader(inputStream);
+            assertEquals(2, imageReader.getNumImages(true));
+            assertRasterEquals(raster, imageReader.read(0).getRaster());
+            final Raster expectedOverview = band.getSourceImage().getImage(1).getData();
+            final Raster overview = imageReader.read(1).getRaster();
+            assertEquals(SIZE / 2, overview.getWidth());
+            assertEquals(SIZE / 2, overview.getHeight());
+            assertRasterEquals(expectedOverview, overview);
+            imageReader.dispose();
+        }
+    }
+
+    @Test
+    public void testTileSizeIsRoundedToMultipleOf16() throws IOException {
+        final int width = 300;
+        final int height = 200;
+        final Product product = new Product("cog_test", "test", width, height);
+        final Band band = product.addBand("data", ProductData.TYPE_UINT16);
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_USHORT_GRAY);
+        final WritableRaster raster = image.getRaster();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                raster.setSample(x, y, 0, x + 5 * y);
+            }
+        }
+        band.setSourceImage(image);
+
+        final ProductWriter writer;
+        try {
+            Config.instance().preferences().put("snap.dataio.bigtiff.tiling.width", "100");
+            Config.instance().preferences().put("snap.dataio.bigtiff.tiling.height", "50");
+            writer = new BigGeoTiffCogProductWriterPlugIn().createWriterInstance();
+        } finally {
+            Config.instance().preferences().remove("snap.dataio.bigtiff.tiling.width");
+            Config.instance().preferences().remove("snap.dataio.bigtiff.tiling.height");
+        }
+        writer.writeProductNodes(product, outputFile);
+        final int[] samples = raster.getSamples(0, 0, width, height, 0, (int[]) null);
+        final ProductData data = ProductData.createInstance(ProductData.TYPE_UINT16, samples.length);
+        for (int i = 0; i < samples.length; i++) {
+            data.setElemIntAt(i, samples[i]);
+        }
+        writer.writeBandRasterData(band, 0, 0, width, height, data, ProgressMonitor.NULL);
+        writer.close();
+
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(outputFile)) {
+            final TIFFImageReader imageReader = BigGeoTiffProductReaderPlugIn.getTiffImageReader(inputStream);
+            assertEquals(112, imageReader.getTileWidth(0));
+            assertEquals(64, imageReader.getTileHeight(0));
+            assertRasterEquals(raster, imageReader.read(0).getRaster());
+            imageReader.dispose();
+        }
+    }
+
+    @Test
+    public void testMultiSizeProductCannotBeWritten() throws Exception {
+        final Product product = new Product("cog_test", "test", 100, 100);
+        product.setSceneGeoCoding(new CrsGeoCoding(DefaultGeographicCRS.WGS84, 100, 100, 10.0, 50.0, 0.1, 0.1));
+        product.addBand("data", ProductData.TYPE_UINT16);
+        product.addBand(new Band("half", ProductData.TYPE_UINT16, 50, 50));
+
+        final EncodeQualification qualification = new BigGeoTiffCogProductWriterPlugIn().getEncodeQualification(product);
+        assertEquals(EncodeQualification.Preservation.UNABLE, qualification.getPreservation());
+    }
+
+    private static long[] readTileOffsets(RandomAccessFile file, long ifdOffset) throws IOException {
+        file.seek(ifdOffset);
+        final int numEntries = file.readUnsignedShort();
+        for (int i = 0; i < numEntries; i++) {
+            file.seek(ifdOffset + 2 + 12 * i);
+            final int tag = file.readUnsignedShort();
+            file.readUnsignedShort();
+            final int count = file.readInt();
+            if (tag == 324) {
+                if (count > 1) {
+                    file.seek(file.readInt() & 0xffffffffL);
+                }
+                final long[] offsets = new long[count];
+                for (int j = 0; j < count; j++) {
+                    offsets[j] = file.readInt() & 0xffffffffL;
+                }
+                return offsets;
+            }
+        }
+        fail("IFD without tile offsets");
+        return null;
+    }
+
+    private static void assertRasterEquals(Raster expected, Raster actual) {
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("x=" + x + ", y=" + y, expected.getSample(x, y, 0), actual.getSample(x, y, 0));
+            }
+        }
+    }
+}
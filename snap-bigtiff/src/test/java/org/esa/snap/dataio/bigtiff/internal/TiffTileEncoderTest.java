@@ -0,0 +1,196 @@
+package org.esa.snap.dataio.bigtiff.internal;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Inflater;
+
+import static org.junit.Assert.*;
+
+public class TiffTileEncoderTest {
+
+    private static final int TILE_WIDTH = 64;
+    private static final int TILE_HEIGHT = 48;
+
+    @Test
+    public void testEncode_uncompressed() {
+        final short[] samples = createShortSamples();
+        final TiffTileEncoder encoder = new TiffTileEncoder(ProductData.TYPE_INT16, TILE_WIDTH, TILE_HEIGHT,
+                                                            TiffCompression.NONE, TiffCode.PREDICTOR_NONE, 6);
+
+        final byte[] encoded = encoder.encode(ProductData.createInstance(samples.clone()));
+
+        assertEquals(2 * samples.length, encoded.length);
+        final ByteBuffer buffer = ByteBuffer.wrap(encoded);
+        for (short sample : samples) {
+            assertEquals(sample, buffer.getShort());
+        }
+    }
+
+    @Test
+    public void testEncode_deflateWithHorizontalPredictor() throws Exception {
+        final short[] samples = createShortSamples();
+        final TiffTileEncoder encoder = new TiffTileEncoder(ProductData.TYPE_INT16, TILE_WIDTH, TILE_HEIGHT,
+                                                            TiffCompression.DEFLATE, TiffCode.PREDICTOR_HORIZONTAL, 6);
+
+        final byte[] encoded = encoder.encode(ProductData.createInstance(samples.clone()));
+
+        assertTrue(encoded.length < 2 * samples.length);
+        final ByteBuffer buffer = ByteBuffer.wrap(inflate(encoded));
+        assertEquals(2 * samples.length, buffer.remaining());
+        for (int y = 0; y < TILE_HEIGHT; y++) {
+            short previous = 0;
+            for (int x = 0; x < TILE_WIDTH; x++) {
+                final short value = (short) (previous + buffer.getShort());
+                assertEquals(samples[y * TILE_WIDTH + x], value);
+                previous = value;
+            }
+        }
+    }
+
+    @Test
+    public void testEncode_lzw() {
+        final byte[] samples = new byte[TILE_WIDTH * TILE_HEIGHT];
+        int seed = 17;
+        for (int i = 0; i < samples.length; i++) {
+            // pseudo random values fill the code table, so that the encoder has to emit clear codes
+            seed = seed * 1103515245 + 12345;
+            samples[i] = (byte) (i < samples.length / 2 ? seed >>> 24 : i / 100);
+        }
+        final TiffTileEncoder encoder = new TiffTileEncoder(ProductData.TYPE_UINT8, TILE_WIDTH, TILE_HEIGHT,
+                                                            TiffCompression.LZW, TiffCode.PREDICTOR_NONE, 6);
+
+        final byte[] encoded = encoder.encode(ProductData.createInstance(samples.clone()));
+
+        assertArrayEquals(samples, decodeLzw(encoded));
+    }
+
+    @Test
+    public void testEncode_lzwWithFloatingPointPredictor() {
+        final float[] samples = new float[TILE_WIDTH * TILE_HEIGHT];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (float) Math.sin(i * 0.01) * 100.0F;
+        }
+        final TiffTileEncoder encoder = new TiffTileEncoder(ProductData.TYPE_FLOAT32, TILE_WIDTH, TILE_HEIGHT,
+                                                            TiffCompression.LZW, TiffCode.PREDICTOR_FLOATING_POINT, 6);
+
+        final byte[] encoded = encoder.encode(ProductData.createInstance(samples.clone()));
+
+        final byte[] bytes = decodeLzw(encoded);
+        assertEquals(4 * samples.length, bytes.length);
+        final int rowLength = 4 * TILE_WIDTH;
+        final byte[] row = new byte[rowLength];
+        for (int y = 0; y < TILE_HEIGHT; y++) {
+            final int rowStart = y * rowLength;
+            for (int i = rowStart + 1; i < rowStart + rowLength; i++) {
+                bytes[i] = (byte) (bytes[i] + bytes[i - 1]);
+            }
+            for (int x = 0; x < TILE_WIDTH; x++) {
+                for (int b = 0; b < 4; b++) {
+                    row[4 * x + b] = bytes[rowStart + b * TILE_WIDTH + x];
+                }
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(row);
+            for (int x = 0; x < TILE_WIDTH; x++) {
+                assertEquals(samples[y * TILE_WIDTH + x], buffer.getFloat(), 0.0F);
+            }
+        }
+    }
+
+    @Test
+    public void testCompressionFromName() {
+        assertSame(TiffCompression.LZW, TiffCompression.fromName("lzw"));
+        assertSame(TiffCompression.DEFLATE, TiffCompression.fromName("Deflate"));
+        assertSame(TiffCompression.NONE, TiffCompression.fromName("NONE"));
+        try {
+            TiffCompression.fromName("JPEG");
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static short[] createShortSamples() {
+        final short[] samples = new short[TILE_WIDTH * TILE_HEIGHT];
+        for (int y = 0; y < TILE_HEIGHT; y++) {
+            for (int x = 0; x < TILE_WIDTH; x++) {
+                samples[y * TILE_WIDTH + x] = (short) (1000 + 7 * x - 3 * y + (x * y) % 5);
+            }
+        }
+        return samples;
+    }
+
+    private static byte[] inflate(byte[] bytes) throws Exception {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes);
+            final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                final int count = inflater.inflate(buffer);
+                assertFalse(count == 0 && inflater.needsInput());
+                outputStream.write(buffer, 0, count);
+            }
+            return outputStream.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] decodeLzw(byte[] bytes) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        final byte[][] table = new byte[4096][];
+        int tableSize = 258;
+        int bitCount = 9;
+        byte[] previous = null;
+        long bitBuffer = 0;
+        int bitsInBuffer = 0;
+        int position = 0;
+        while (true) {
+            while (bitsInBuffer < bitCount) {
+                assertTrue("end of information code expected", position < bytes.length);
+                bitBuffer = (bitBuffer << 8) | (bytes[position++] & 0xff);
+                bitsInBuffer += 8;
+            }
+            final int code = (int) ((bitBuffer >>> (bitsInBuffer - bitCount)) & ((1 << bitCount) - 1));
+            bitsInBuffer -= bitCount;
+            if (code == 257) {
+                return outputStream.toByteArray();
+            }
+            if (code == 256) {
+                for (int i = 0; i < 256; i++) {
+                    table[i] = new byte[]{(byte) i};
+                }
+                tableSize = 258;
+                bitCount = 9;
+                previous = null;
+                continue;
+            }
+            final byte[] entry;
+            if (code < tableSize) {
+                entry = table[code];
+            } else {
+                assertEquals(tableSize, code);
+                assertNotNull(previous);
+                entry = append(previous, previous[0]);
+            }
+            outputStream.write(entry, 0, entry.length);
+            if (previous != null) {
+                table[tableSize++] = append(previous, entry[0]);
+            }
+            previous = entry;
+            // the encoder switches to the next code width one code early
+            if (tableSize + 1 >= (1 << bitCount) && bitCount < 12) {
+                bitCount++;
+            }
+        }
+    }
+
+    private static byte[] append(byte[] bytes, byte value) {
+        final byte[] result = new byte[bytes.length + 1];
+        System.arraycopy(bytes, 0, result, 0, bytes.length);
+        result[bytes.length] = value;
+        return result;
+    }
+}
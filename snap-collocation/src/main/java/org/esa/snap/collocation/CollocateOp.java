@@ -19,12 +19,12 @@ package org.esa.snap.collocation;
 import com.bc.ceres.binding.Property;
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.core.SubProgressMonitor;
+import org.esa.snap.collocation.SourcePixelCoordinateCache.SourcePixelCoordinates;
 import org.esa.snap.core.dataio.ProductIO;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.FlagCoding;
 import org.esa.snap.core.datamodel.IndexCoding;
 import org.esa.snap.core.datamodel.Mask;
-import org.esa.snap.core.datamodel.PixelPos;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.ProductNodeGroup;
@@ -139,6 +139,7 @@ public class CollocateOp extends Operator {
     // maps target bands to source bands or tie-point grids
     private transient Map<Band, RasterDataNode> sourceRasterMap;
     private Band[] collocationFlagBands;
+    private transient SourcePixelCoordinateCache sourcePixelCoordinateCache;
 
     ArrayList<Product> disposableProducts = new ArrayList<>();
 
@@ -415,6 +416,10 @@ public class CollocateOp extends Operator {
         }
 
         setAutoGrouping();
+
+        // the coordinates of the tiles in progress are kept for each source geo-coding
+        final int maximumEntryCount = 2 * Runtime.getRuntime().availableProcessors() * (slaveProducts.length + 1);
+        sourcePixelCoordinateCache = new SourcePixelCoordinateCache(masterProduct.getSceneGeoCoding(), maximumEntryCount);
     }
 
     private String getTargetBandName(RasterDataNode rasterDataNode, int productIndex) {
@@ -492,48 +497,23 @@ public class CollocateOp extends Operator {
     @Override
     public void computeTileStack(Map<Band, Tile> targetTileMap, Rectangle targetRectangle, ProgressMonitor pm) throws
             OperatorException {
-        pm.beginTask("Collocating bands...", targetProduct.getNumBands() + 1);
+        pm.beginTask("Collocating bands...", targetProduct.getNumBands() * 2);
         try {
             for (final Band targetBand : targetProduct.getBands()) {
-                RasterDataNode sourceRaster = sourceRasterMap.get(targetBand);
-                PixelPos[] sourcePixelPositions = ProductUtils.computeSourcePixelCoordinates(
-                        sourceRaster.getGeoCoding(),
-                        sourceRaster.getRasterWidth(),
-                        sourceRaster.getRasterHeight(),
-                        masterProduct.getSceneGeoCoding(),
-                        targetRectangle);
-                Rectangle sourceRectangle = getBoundingBox(
-                        sourcePixelPositions,
-                        sourceRaster.getRasterWidth(),
-                        sourceRaster.getRasterHeight());
-                pm.worked(1);
-
                 checkForCancellation();
                 final Tile targetTile = targetTileMap.get(targetBand);
-                ProgressMonitor subPM = SubProgressMonitor.create(pm, 1);
-
-                int collocationFlagId = -1;
-                for (int i = 0; i < collocationFlagBands.length; i++) {
-                    if (collocationFlagBands[i].getName().equals(targetBand.getName())) {
-                        collocationFlagId = i;
-                        break;
-                    }
-                }
+                final int collocationFlagId = getCollocationFlagId(targetBand);
                 if (collocationFlagId != -1) {
-                    sourcePixelPositions = ProductUtils.computeSourcePixelCoordinates(
-                            slaveProducts[collocationFlagId].getSceneGeoCoding(),
-                            slaveProducts[collocationFlagId].getSceneRasterWidth(),
-                            slaveProducts[collocationFlagId].getSceneRasterHeight(),
-                            masterProduct.getSceneGeoCoding(),
-                            targetRectangle);
-                    sourceRectangle = getBoundingBox(
-                            sourcePixelPositions,
-                            slaveProducts[collocationFlagId].getSceneRasterWidth(),
-                            slaveProducts[collocationFlagId].getSceneRasterHeight());
+                    SourcePixelCoordinates sourcePixelCoordinates = getSourcePixelCoordinates(
+                            slaveProducts[collocationFlagId], targetRectangle);
                     pm.worked(1);
-                    computePresenceFlag(sourceRectangle, sourcePixelPositions, targetTile, subPM);
+                    computePresenceFlag(sourcePixelCoordinates, targetTile, SubProgressMonitor.create(pm, 1));
                 } else {
-                    collocateSourceBand(sourceRaster, sourceRectangle, sourcePixelPositions, targetTile, subPM);
+                    RasterDataNode sourceRaster = sourceRasterMap.get(targetBand);
+                    SourcePixelCoordinates sourcePixelCoordinates = getSourcePixelCoordinates(
+                            sourceRaster, targetRectangle);
+                    pm.worked(1);
+                    collocateSourceBand(sourceRaster, sourcePixelCoordinates, targetTile, SubProgressMonitor.create(pm, 1));
                 }
             }
         } finally {
@@ -545,38 +525,16 @@ public class CollocateOp extends Operator {
     public void computeTile(Band targetBand, Tile targetTile, ProgressMonitor pm) throws OperatorException {
         final RasterDataNode sourceRaster = sourceRasterMap.get(targetBand);
 
-        int collocationFlagId = -1;
-        for (int i = 0; i < collocationFlagBands.length; i++) {
-            if (collocationFlagBands[i].getName().equals(targetBand.getName())) {
-                collocationFlagId = i;
-                break;
-            }
-        }
+        final int collocationFlagId = getCollocationFlagId(targetBand);
         if (collocationFlagId != -1 || sourceRaster.getProduct() != masterProduct) {
             if (collocationFlagId != -1) {
-                PixelPos[] sourcePixelPositions = ProductUtils.computeSourcePixelCoordinates(
-                        slaveProducts[collocationFlagId].getSceneGeoCoding(),
-                        slaveProducts[collocationFlagId].getSceneRasterWidth(),
-                        slaveProducts[collocationFlagId].getSceneRasterHeight(),
-                        masterProduct.getSceneGeoCoding(),
-                        targetTile.getRectangle());
-                Rectangle sourceRectangle = getBoundingBox(
-                        sourcePixelPositions,
-                        slaveProducts[collocationFlagId].getSceneRasterWidth(),
-                        slaveProducts[collocationFlagId].getSceneRasterHeight());
-                computePresenceFlag(sourceRectangle, sourcePixelPositions, targetTile, pm);
+                SourcePixelCoordinates sourcePixelCoordinates = getSourcePixelCoordinates(
+                        slaveProducts[collocationFlagId], targetTile.getRectangle());
+                computePresenceFlag(sourcePixelCoordinates, targetTile, pm);
             } else {
-                PixelPos[] sourcePixelPositions = ProductUtils.computeSourcePixelCoordinates(
-                        sourceRaster.getGeoCoding(),
-                        sourceRaster.getRasterWidth(),
-                        sourceRaster.getRasterHeight(),
-                        masterProduct.getSceneGeoCoding(),
-                        targetTile.getRectangle());
-                Rectangle sourceRectangle = getBoundingBox(
-                        sourcePixelPositions,
-                        sourceRaster.getRasterWidth(),
-                        sourceRaster.getRasterHeight());
-                collocateSourceBand(sourceRaster, sourceRectangle, sourcePixelPositions, targetTile, pm);
+                SourcePixelCoordinates sourcePixelCoordinates = getSourcePixelCoordinates(
+                        sourceRaster, targetTile.getRectangle());
+                collocateSourceBand(sourceRaster, sourcePixelCoordinates, targetTile, pm);
             }
         } else {
             targetTile.setRawSamples(getSourceTile(sourceRaster, targetTile.getRectangle()).getRawSamples());
@@ -586,14 +544,39 @@ public class CollocateOp extends Operator {
     @Override
     public void dispose() {
         sourceRasterMap = null;
+        if (sourcePixelCoordinateCache != null) {
+            sourcePixelCoordinateCache.clear();
+        }
         for (Product product : disposableProducts) {
             product.dispose();
         }
         super.dispose();
     }
 
-    private void collocateSourceBand(RasterDataNode sourceBand, Rectangle sourceRectangle,
-                                     PixelPos[] sourcePixelPositions,
+    private int getCollocationFlagId(Band targetBand) {
+        for (int i = 0; i < collocationFlagBands.length; i++) {
+            if (collocationFlagBands[i].getName().equals(targetBand.getName())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private SourcePixelCoordinates getSourcePixelCoordinates(Product sourceProduct, Rectangle targetRectangle) {
+        return sourcePixelCoordinateCache.get(sourceProduct.getSceneGeoCoding(),
+                                              sourceProduct.getSceneRasterWidth(),
+                                              sourceProduct.getSceneRasterHeight(),
+                                              targetRectangle);
+    }
+
+    private SourcePixelCoordinates getSourcePixelCoordinates(RasterDataNode sourceRaster, Rectangle targetRectangle) {
+        return sourcePixelCoordinateCache.get(sourceRaster.getGeoCoding(),
+                                              sourceRaster.getRasterWidth(),
+                                              sourceRaster.getRasterHeight(),
+                                              targetRectangle);
+    }
+
+    private void collocateSourceBand(RasterDataNode sourceBand, SourcePixelCoordinates sourcePixelCoordinates,
                                      Tile targetTile, ProgressMonitor pm) throws OperatorException {
         pm.beginTask(format("collocating band {0}", sourceBand.getName()), targetTile.getHeight());
         try {
@@ -612,16 +595,15 @@ public class CollocateOp extends Operator {
             final Resampling.Index resamplingIndex = resampling.createIndex();
             final double noDataValue = targetBand.getGeophysicalNoDataValue();
 
+            final Rectangle sourceRectangle = sourcePixelCoordinates.getSourceRectangle();
             if (sourceRectangle != null) {
                 final Tile sourceTile = getSourceTile(sourceBand, sourceRectangle);
                 final ResamplingRaster resamplingRaster = new ResamplingRaster(sourceTile);
 
                 for (int y = targetRectangle.y, index = 0; y < targetRectangle.y + targetRectangle.height; ++y) {
                     for (int x = targetRectangle.x; x < targetRectangle.x + targetRectangle.width; ++x, ++index) {
-                        final PixelPos sourcePixelPos = sourcePixelPositions[index];
-
-                        if (sourcePixelPos != null) {
-                            resampling.computeIndex(sourcePixelPos.x, sourcePixelPos.y,
+                        if (sourcePixelCoordinates.isValid(index)) {
+                            resampling.computeIndex(sourcePixelCoordinates.getX(index), sourcePixelCoordinates.getY(index),
                                                     sourceRasterWidth, sourceRasterHeight, resamplingIndex);
                             double sample;
                             if (resampling == Resampling.NEAREST_NEIGHBOUR) {
@@ -658,14 +640,14 @@ public class CollocateOp extends Operator {
         }
     }
 
-    private void computePresenceFlag(Rectangle sourceRectangle, PixelPos[] sourcePixelPositions, Tile targetTile, ProgressMonitor pm) {
+    private void computePresenceFlag(SourcePixelCoordinates sourcePixelCoordinates, Tile targetTile, ProgressMonitor pm) {
         pm.beginTask("collocating presence flag band ", targetTile.getHeight());
         try {
             final Rectangle targetRectangle = targetTile.getRectangle();
-            if (sourceRectangle != null) {
+            if (sourcePixelCoordinates.getSourceRectangle() != null) {
                 for (int y = targetRectangle.y, index = 0; y < targetRectangle.y + targetRectangle.height; ++y) {
                     for (int x = targetRectangle.x; x < targetRectangle.x + targetRectangle.width; ++x, ++index) {
-                        if (sourcePixelPositions[index] != null) {
+                        if (sourcePixelCoordinates.isValid(index)) {
                             targetTile.setSample(x, y, 1);
                         }
                     }
@@ -800,43 +782,6 @@ public class CollocateOp extends Operator {
         product.getIndexCodingGroup().add(targetIndexCoding);
     }
 
-    private static Rectangle getBoundingBox(PixelPos[] pixelPositions, int maxWidth, int maxHeight) {
-        int minX = Integer.MAX_VALUE;
-        int maxX = Integer.MIN_VALUE;
-        int minY = Integer.MAX_VALUE;
-        int maxY = Integer.MIN_VALUE;
-
-        for (final PixelPos pixelsPos : pixelPositions) {
-            if (pixelsPos != null) {
-                final int x = (int) Math.floor(pixelsPos.getX());
-                final int y = (int) Math.floor(pixelsPos.getY());
-
-                if (x < minX) {
-                    minX = x;
-                }
-                if (x > maxX) {
-                    maxX = x;
-                }
-                if (y < minY) {
-                    minY = y;
-                }
-                if (y > maxY) {
-                    maxY = y;
-                }
-            }
-        }
-        if (minX > maxX || minY > maxY) {
-            return null;
-        }
-
-        minX = Math.max(minX - 2, 0);
-        maxX = Math.min(maxX + 2, maxWidth - 1);
-        minY = Math.max(minY - 2, 0);
-        maxY = Math.min(maxY + 2, maxHeight - 1);
-
-        return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
-    }
-
     private static boolean isFlagBand(RasterDataNode sourceRaster) {
         return (sourceRaster instanceof Band && ((Band) sourceRaster).isFlagBand());
     }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+
+package org.esa.snap.collocation;
+
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.gpf.OperatorException;
+
+import java.awt.Rectangle;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Caches the source pixel coordinates of target tiles. The coordinates depend only on the geo-coding and size of
+ * the source raster and on the target rectangle, so all bands sharing a geo-coding, and the collocation flag band
+ * of their product, use the coordinates computed once for a tile. Coordinates requested by several threads at the
+ * same time are computed only once.
+ * <p>
+ * The coordinates are kept in primitive arrays. The number of cached tiles is bounded; the least recently used
+ * tiles are evicted first.
+ *
+ * @since SNAP 8
+ */
+class SourcePixelCoordinateCache {
+
+    private final GeoCoding targetGeoCoding;
+    private final int maximumEntryCount;
+    private final Map<Key, FutureTask<SourcePixelCoordinates>> entries;
+
+    SourcePixelCoordinateCache(GeoCoding targetGeoCoding, int maximumEntryCount) {
+        this.targetGeoCoding = targetGeoCoding;
+        this.maximumEntryCount = Math.max(1, maximumEntryCount);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the source pixel coordinates of the pixel centres of the given target rectangle.
+     *
+     * @param sourceGeoCoding the geo-coding of the source raster
+     * @param sourceWidth     the width of the source raster
+     * @param sourceHeight    the height of the source raster
+     * @param targetRectangle the target rectangle
+     * @return the source pixel coordinates
+     */
+    SourcePixelCoordinates get(GeoCoding sourceGeoCoding, int sourceWidth, int sourceHeight, Rectangle targetRectangle) {
+        final Key key = new Key(sourceGeoCoding, sourceWidth, sourceHeight, targetRectangle);
+        FutureTask<SourcePixelCoordinates> entry;
+        boolean computeHere = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new FutureTask<>(() -> compute(sourceGeoCoding, sourceWidth, sourceHeight, new Rectangle(targetRectangle)));
+                entries.put(key, entry);
+                computeHere = true;
+                final Iterator<FutureTask<SourcePixelCoordinates>> iterator = entries.values().iterator();
+                while (entries.size() > maximumEntryCount) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+        if (computeHere) {
+            entry.run();
+        }
+        try {
+            return entry.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperatorException("Interrupted while computing the source pixel coordinates.", e);
+        } catch (ExecutionException e) {
+            synchronized (this) {
+                entries.remove(key, entry);
+            }
+            throw new OperatorException("Failed to compute the source pixel coordinates.", e.getCause());
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    private SourcePixelCoordinates compute(GeoCoding sourceGeoCoding, int sourceWidth, int sourceHeight, Rectangle targetRectangle) {
+        final int numCoords = targetRectangle.width * targetRectangle.height;
+        final double[] lons = new double[numCoords];
+        final double[] lats = new double[numCoords];
+        final GeoPos geoPos = new GeoPos();
+        final PixelPos pixelPos = new PixelPos();
+        int coordIndex = 0;
+        for (int y = targetRectangle.y; y < targetRectangle.y + targetRectangle.height; y++) {
+            for (int x = targetRectangle.x; x < targetRectangle.x + targetRectangle.width; x++) {
+                pixelPos.x = x + 0.5;
+                pixelPos.y = y + 0.5;
+                targetGeoCoding.getGeoPos(pixelPos, geoPos);
+                lons[coordIndex] = geoPos.lon;
+                lats[coordIndex] = geoPos.lat;
+                coordIndex++;
+            }
+        }
+
+        final double[] pixelX = new double[numCoords];
+        final double[] pixelY = new double[numCoords];
+        sourceGeoCoding.getPixelPos(lons, lats, pixelX, pixelY);
+
+        final float[] sourceX = new float[numCoords];
+        final float[] sourceY = new float[numCoords];
+        final float maxX = Math.nextDown((float) sourceWidth);
+        final float maxY = Math.nextDown((float) sourceHeight);
+        int minCol = Integer.MAX_VALUE;
+        int maxCol = Integer.MIN_VALUE;
+        int minRow = Integer.MAX_VALUE;
+        int maxRow = Integer.MIN_VALUE;
+        for (int i = 0; i < numCoords; i++) {
+            if (pixelX[i] >= 0.0 && pixelX[i] < sourceWidth && pixelY[i] >= 0.0 && pixelY[i] < sourceHeight) {
+                // the rounding to float must not move a position onto the border of the source raster
+                sourceX[i] = Math.min((float) pixelX[i], maxX);
+                sourceY[i] = Math.min((float) pixelY[i], maxY);
+                final int col = (int) Math.floor(sourceX[i]);
+                final int row = (int) Math.floor(sourceY[i]);
+                minCol = Math.min(minCol, col);
+                maxCol = Math.max(maxCol, col);
+                minRow = Math.min(minRow, row);
+                maxRow = Math.max(maxRow, row);
+            } else {
+                sourceX[i] = Float.NaN;
+                sourceY[i] = Float.NaN;
+            }
+        }
+
+        Rectangle sourceRectangle = null;
+        if (minCol <= maxCol && minRow <= maxRow) {
+            minCol = Math.max(minCol - 2, 0);
+            maxCol = Math.min(maxCol + 2, sourceWidth - 1);
+            minRow = Math.max(minRow - 2, 0);
+            maxRow = Math.min(maxRow + 2, sourceHeight - 1);
+            sourceRectangle = new Rectangle(minCol, minRow, maxCol - minCol + 1, maxRow - minRow + 1);
+        }
+        return new SourcePixelCoordinates(sourceX, sourceY, sourceRectangle);
+    }
+
+    /**
+     * The source pixel coordinates of a target rectangle, in the order of the target pixels.
+     */
+    static class SourcePixelCoordinates {
+
+        private final float[] x;
+        private final float[] y;
+        private final Rectangle sourceRectangle;
+
+        SourcePixelCoordinates(float[] x, float[] y, Rectangle sourceRectangle) {
+            this.x = x;
+            this.y = y;
+            this.sourceRectangle = sourceRectangle;
+        }
+
+        /**
+         * Returns whether the target pixel at the given index lies within the source raster.
+         */
+        boolean isValid(int index) {
+            return !Float.isNaN(x[index]);
+        }
+
+        float getX(int index) {
+            return x[index];
+        }
+
+        float getY(int index) {
+            return y[index];
+        }
+
+        /**
+         * Returns the source rectangle which contains the coordinates together with a border of two pixels,
+         * or {@code null} if no target pixel lies within the source raster.
+         */
+        Rectangle getSourceRectangle() {
+            return sourceRectangle != null ? new Rectangle(sourceRectangle) : null;
+        }
+    }
+
+    private static class Key {
+
+        private final GeoCoding geoCoding;
+        private final int width;
+        private final int height;
+        private final Rectangle rectangle;
+
+        private Key(GeoCoding geoCoding, int width, int height, Rectangle rectangle) {
+            this.geoCoding = geoCoding;
+            this.width = width;
+            this.height = height;
+            this.rectangle = new Rectangle(rectangle);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (object == null || getClass() != object.getClass()) {
+                return false;
+            }
+            Key other = (Key) object;
+            // geo-codings do not implement equals, the same instance is shared by the rasters of a product
+            return geoCoding == other.geoCoding && width == other.width && height == other.height
+                   && rectangle.equals(other.rectangle);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(geoCoding), width, height, rectangle);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.collocation;
+
+import org.esa.snap.collocation.SourcePixelCoordinateCache.SourcePixelCoordinates;
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.util.ProductUtils;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SourcePixelCoordinateCacheTest {
+
+    @Test
+    public void testCoordinatesAgreeWithProductUtils() throws Exception {
+        final GeoCoding targetGeoCoding = createGeoCoding(0.0, 10.0, 0.1, 100, 100);
+        // the source covers the eastern half of the target at twice the resolution
+        final GeoCoding sourceGeoCoding = createGeoCoding(5.01, 10.01, 0.05, 100, 200);
+        final SourcePixelCoordinateCache cache = new SourcePixelCoordinateCache(targetGeoCoding, 4);
+        final Rectangle targetRectangle = new Rectangle(40, 10, 20, 5);
+
+        final SourcePixelCoordinates coordinates = cache.get(sourceGeoCoding, 100, 200, targetRectangle);
+
+        final PixelPos[] expected = ProductUtils.computeSourcePixelCoordinates(sourceGeoCoding, 100, 200,
+                                                                              targetGeoCoding, targetRectangle);
+        for (int i = 0; i < expected.length; i++) {
+            if (expected[i] == null) {
+                assertFalse(coordinates.isValid(i));
+            } else {
+                assertTrue(coordinates.isValid(i));
+                assertEquals(expected[i].x, coordinates.getX(i), 1.0e-4);
+                assertEquals(expected[i].y, coordinates.getY(i), 1.0e-4);
+            }
+        }
+        // the target columns 50 to 59 are covered, with a border of two pixels
+        assertEquals(new Rectangle(0, 19, 21, 13), coordinates.getSourceRectangle());
+    }
+
+    @Test
+    public void testCoordinatesAreSharedBySourceGeoCodingAndRectangle() throws Exception {
+        final GeoCoding targetGeoCoding = createGeoCoding(0.0, 10.0, 0.1, 100, 100);
+        final GeoCoding sourceGeoCoding = createGeoCoding(0.0, 10.0, 0.1, 100, 100);
+        final SourcePixelCoordinateCache cache = new SourcePixelCoordinateCache(targetGeoCoding, 2);
+
+        final SourcePixelCoordinates coordinates = cache.get(sourceGeoCoding, 100, 100, new Rectangle(0, 0, 10, 10));
+
+        assertSame(coordinates, cache.get(sourceGeoCoding, 100, 100, new Rectangle(0, 0, 10, 10)));
+        assertNotSame(coordinates, cache.get(sourceGeoCoding, 100, 100, new Rectangle(10, 0, 10, 10)));
+        assertNotSame(coordinates, cache.get(createGeoCoding(0.0, 10.0, 0.1, 100, 100), 100, 100, new Rectangle(0, 0, 10, 10)));
+        // the least recently used coordinates have been evicted
+        assertNotSame(coordinates, cache.get(sourceGeoCoding, 100, 100, new Rectangle(0, 0, 10, 10)));
+    }
+
+    @Test
+    public void testNoCoordinatesWithinSource() throws Exception {
+        final GeoCoding targetGeoCoding = createGeoCoding(0.0, 10.0, 0.1, 100, 100);
+        final GeoCoding sourceGeoCoding = createGeoCoding(50.0, 10.0, 0.1, 100, 100);
+        final SourcePixelCoordinateCache cache = new SourcePixelCoordinateCache(targetGeoCoding, 2);
+
+        final SourcePixelCoordinates coordinates = cache.get(sourceGeoCoding, 100, 100, new Rectangle(0, 0, 10, 10));
+
+        assertNull(coordinates.getSourceRectangle());
+        assertFalse(coordinates.isValid(0));
+    }
+
+    private static GeoCoding createGeoCoding(double easting, double northing, double pixelSize, int width, int height) throws Exception {
+        final AffineTransform i2mTransform = new AffineTransform();
+        i2mTransform.translate(easting, northing);
+        i2mTransform.scale(pixelSize, -pixelSize);
+        return new CrsGeoCoding(DefaultGeographicCRS.WGS84, new Rectangle(width, height), i2mTransform);
+    }
+}
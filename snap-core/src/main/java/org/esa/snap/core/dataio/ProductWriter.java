@@ -98,6 +98,18 @@ public interface ProductWriter {
                              ProductData sourceBuffer,
                              ProgressMonitor pm) throws IOException;
 
+    /**
+     * Returns whether {@link #writeBandRasterData} may be called concurrently for different bands. Callers
+     * must still not write to the same band concurrently.
+     * <p>The default implementation returns <code>false</code>, so callers have to serialise all calls.
+     *
+     * @return <code>true</code> if raster data of different bands can be written concurrently
+     * @since SNAP 8
+     */
+    default boolean canWriteBandsConcurrently() {
+        return false;
+    }
+
     /**
      * Writes all data in memory to the data sink(s) associated with this writer.
      *
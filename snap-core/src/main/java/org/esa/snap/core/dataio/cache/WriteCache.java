@@ -16,7 +16,7 @@ public class WriteCache {
         variableMap = new HashMap<>();
     }
 
-    public VariableCache get(Band band) {
+    public synchronized VariableCache get(Band band) {
         VariableCache variableCache = variableMap.get(band.getName());
         if (variableCache == null) {
             variableCache = new VariableCache(band);
@@ -25,7 +25,7 @@ public class WriteCache {
         return variableCache;
     }
 
-    public void flush(Map<Band, ImageOutputStream> bandOutputStreams) throws IOException {
+    public synchronized void flush(Map<Band, ImageOutputStream> bandOutputStreams) throws IOException {
         final Set<Map.Entry<Band, ImageOutputStream>> entries = bandOutputStreams.entrySet();
         for (Map.Entry<Band, ImageOutputStream> next : entries) {
             final String bandName = next.getKey().getName();
@@ -39,6 +39,7 @@ import org.esa.snap.core.util.Debug;
 import org.esa.snap.core.util.FeatureUtils;
 import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.core.util.io.FileUtils;
+import org.esa.snap.runtime.Config;
 import org.jdom.Document;
 import org.jdom.input.DOMBuilder;
 import org.opengis.feature.simple.SimpleFeatureType;
@@ -55,6 +56,7 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -72,6 +74,9 @@ import java.util.logging.Level;
  */
 public class DimapProductReader extends AbstractProductReader {
 
+    private final static String SYSPROP_USE_MAPPED_FILES = "snap.dataio.reader.dimap.useMappedFiles";
+
+    private final boolean useMappedFiles;
     private Product product;
 
     private File inputDir;
@@ -79,6 +84,7 @@ public class DimapProductReader extends AbstractProductReader {
     private Map<Band, ImageInputStream> bandInputStreams;
 
     private Map<Band, File> bandDataFiles;
+    private Map<Band, MappedBandFile> mappedBandFiles;
     private Set<ReaderExtender> readerExtenders;
 
     /**
@@ -88,6 +94,7 @@ public class DimapProductReader extends AbstractProductReader {
      */
     public DimapProductReader(ProductReaderPlugIn readerPlugIn) {
         super(readerPlugIn);
+        useMappedFiles = Config.instance().preferences().getBoolean(SYSPROP_USE_MAPPED_FILES, false);
     }
 
     public Product getProduct() {
@@ -305,6 +312,11 @@ public class DimapProductReader extends AbstractProductReader {
                                           ProgressMonitor pm) throws IOException {
 
         final File dataFile = bandDataFiles.get(destBand);
+        if (useMappedFiles) {
+            readBandRasterDataMapped(sourceOffsetX, sourceOffsetY, sourceWidth, sourceHeight, sourceStepX, sourceStepY,
+                                     destBand, destWidth, destHeight, destBuffer, dataFile, pm);
+            return;
+        }
 
         int destPos = 0;
 
@@ -348,6 +360,71 @@ public class DimapProductReader extends AbstractProductReader {
         }
     }
 
+    private void readBandRasterDataMapped(int sourceOffsetX, int sourceOffsetY,
+                                          int sourceWidth, int sourceHeight,
+                                          int sourceStepX, int sourceStepY,
+                                          Band destBand,
+                                          int destWidth, int destHeight,
+                                          ProductData destBuffer,
+                                          File dataFile,
+                                          ProgressMonitor pm) throws IOException {
+        final long rasterWidth = destBand.getRasterWidth();
+        pm.beginTask("Reading band '" + destBand.getName() + "'...", sourceHeight);
+        try {
+            final MappedBandFile mappedFile = getMappedBandFile(destBand, dataFile, destBuffer.getType());
+            if (sourceOffsetX == 0 && sourceWidth == rasterWidth && sourceStepX == 1 && sourceStepY == 1) {
+                // full-width region, the rows are contiguous in the file
+                mappedFile.read(sourceOffsetY * rasterWidth, destBuffer, 0, destWidth * destHeight);
+                pm.worked(sourceHeight);
+                return;
+            }
+            final int numElems = (sourceWidth + sourceStepX - 1) / sourceStepX;
+            int destPos = 0;
+            for (int sourceY = sourceOffsetY; sourceY < sourceOffsetY + sourceHeight; sourceY += sourceStepY) {
+                if (pm.isCanceled()) {
+                    break;
+                }
+                final long inputPos = sourceY * rasterWidth + sourceOffsetX;
+                if (sourceStepX == 1) {
+                    mappedFile.read(inputPos, destBuffer, destPos, numElems);
+                } else {
+                    mappedFile.readStrided(inputPos, sourceStepX, destBuffer, destPos, numElems);
+                }
+                destPos += numElems;
+                pm.worked(sourceStepY);
+            }
+        } catch (IOException e) {
+            throw new IOException("DimapProductReader: Unable to read file '" + dataFile + "' referenced by '"
+                                  + destBand.getName() + "'.", e);
+        } finally {
+            pm.done();
+        }
+    }
+
+    private synchronized MappedBandFile getMappedBandFile(Band band, File dataFile, int dataType) throws IOException {
+        if (mappedBandFiles == null) {
+            mappedBandFiles = new HashMap<>();
+        }
+        MappedBandFile mappedFile = mappedBandFiles.get(band);
+        if (mappedFile == null || !mappedFile.getFile().equals(dataFile)) {
+            if (mappedFile != null) {
+                mappedFile.close();
+            }
+            mappedFile = new MappedBandFile(dataFile, dataType);
+            mappedBandFiles.put(band, mappedFile);
+        }
+        return mappedFile;
+    }
+
+    private synchronized void closeMappedBandFiles() throws IOException {
+        if (mappedBandFiles != null) {
+            for (MappedBandFile mappedFile : mappedBandFiles.values()) {
+                mappedFile.close();
+            }
+            mappedBandFiles = null;
+        }
+    }
+
     @Override
     public boolean isSubsetReadingFullySupported() {
         return true;
@@ -364,6 +441,7 @@ public class DimapProductReader extends AbstractProductReader {
      */
     @Override
     public void close() throws IOException {
+        closeMappedBandFiles();
         if (bandInputStreams == null) {
             return;
         }
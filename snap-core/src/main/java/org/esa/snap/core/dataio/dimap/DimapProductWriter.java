@@ -289,6 +289,14 @@ public class DimapProductWriter extends AbstractProductWriter {
         }
     }
 
+    /**
+     * Returns <code>true</code>, each band is written to a separate file.
+     */
+    @Override
+    public boolean canWriteBandsConcurrently() {
+        return true;
+    }
+
     /**
      * Deletes the physically representation of the product from the hard disk.
      */
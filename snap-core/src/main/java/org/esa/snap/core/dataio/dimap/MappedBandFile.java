@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.core.dataio.dimap;
+
+import org.esa.snap.core.datamodel.ProductData;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Gives read access to the ENVI image file of a band by mapping it into memory. The file is mapped in windows,
+ * which are created when first accessed and shared by all subsequent reads, so a tile request neither opens the
+ * file nor copies the data through an intermediate stream buffer.
+ * <p>
+ * The mapped memory is released by the garbage collector once the file has been closed.
+ */
+final class MappedBandFile implements Closeable {
+
+    static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    private final File file;
+    private final int elemSize;
+    private final int windowSize;
+    private FileChannel channel;
+    private MappedByteBuffer[] windows;
+
+    MappedBandFile(File file, int dataType) throws IOException {
+        this(file, dataType, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param windowSize the size of the mapped windows in bytes, must be a multiple of 8
+     */
+    MappedBandFile(File file, int dataType, int windowSize) throws IOException {
+        if (windowSize <= 0 || windowSize % 8 != 0) {
+            throw new IllegalArgumentException("windowSize must be a positive multiple of 8");
+        }
+        this.file = file;
+        this.elemSize = ProductData.getElemSize(dataType);
+        this.windowSize = windowSize;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.windows = new MappedByteBuffer[0];
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * Reads consecutive elements.
+     *
+     * @param elemPos  the position of the first element in the file
+     * @param dest     the destination buffer
+     * @param destPos  the position of the first element in the destination buffer
+     * @param numElems the number of elements to read
+     */
+    void read(long elemPos, ProductData dest, int destPos, int numElems) throws IOException {
+        final Object destArray = dest.getElems();
+        long bytePos = elemPos * elemSize;
+        int remaining = numElems;
+        while (remaining > 0) {
+            final int windowOffset = (int) (bytePos % windowSize);
+            final int count = Math.min(remaining, (windowSize - windowOffset) / elemSize);
+            final ByteBuffer buffer = getBuffer(bytePos, (long) count * elemSize);
+            buffer.position(windowOffset);
+            copy(buffer, destArray, destPos, count);
+            destPos += count;
+            bytePos += (long) count * elemSize;
+            remaining -= count;
+        }
+    }
+
+    /**
+     * Reads every <code>step</code>-th element.
+     *
+     * @param elemPos  the position of the first element in the file
+     * @param step     the distance between two elements to read
+     * @param dest     the destination buffer
+     * @param destPos  the position of the first element in the destination buffer
+     * @param numElems the number of elements to read
+     */
+    void readStrided(long elemPos, int step, ProductData dest, int destPos, int numElems) throws IOException {
+        final Object destArray = dest.getElems();
+        long bytePos = elemPos * elemSize;
+        final long byteStep = (long) step * elemSize;
+        int remaining = numElems;
+        while (remaining > 0) {
+            final int windowOffset = (int) (bytePos % windowSize);
+            final int count = (int) Math.min(remaining, (windowSize - windowOffset - elemSize) / byteStep + 1);
+            final ByteBuffer buffer = getBuffer(bytePos, (count - 1) * byteStep + elemSize);
+            copyStrided(buffer, windowOffset, (int) byteStep, destArray, destPos, count);
+            destPos += count;
+            bytePos += count * byteStep;
+            remaining -= count;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            windows = null;
+        }
+    }
+
+    /**
+     * @return a big endian buffer on the window containing the given byte range
+     */
+    private synchronized ByteBuffer getBuffer(long bytePos, long byteCount) throws IOException {
+        if (channel == null) {
+            throw new IOException("File '" + file + "' has been closed");
+        }
+        final int windowIndex = (int) (bytePos / windowSize);
+        final long windowStart = (long) windowIndex * windowSize;
+        final long requiredSize = bytePos + byteCount - windowStart;
+        if (windowIndex >= windows.length) {
+            windows = Arrays.copyOf(windows, windowIndex + 1);
+        }
+        MappedByteBuffer window = windows[windowIndex];
+        if (window == null || window.capacity() < requiredSize) {
+            // the file may have been extended since the window was mapped
+            final long mappedSize = Math.min(windowSize, channel.size() - windowStart);
+            if (mappedSize < requiredSize) {
+                throw new EOFException("Unable to read " + byteCount + " bytes at position " + bytePos
+                                       + " from file '" + file + "'");
+            }
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, mappedSize);
+            windows[windowIndex] = window;
+        }
+        // ENVI image files written by DIMAP are big endian, a duplicate is big endian by default
+        final ByteBuffer buffer = window.duplicate();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        return buffer;
+    }
+
+    private static void copy(ByteBuffer buffer, Object destArray, int destPos, int count) {
+        if (destArray instanceof byte[]) {
+            buffer.get((byte[]) destArray, destPos, count);
+        } else if (destArray instanceof short[]) {
+            buffer.asShortBuffer().get((short[]) destArray, destPos, count);
+        } else if (destArray instanceof int[]) {
+            buffer.asIntBuffer().get((int[]) destArray, destPos, count);
+        } else if (destArray instanceof long[]) {
+            buffer.asLongBuffer().get((long[]) destArray, destPos, count);
+        } else if (destArray instanceof float[]) {
+            buffer.asFloatBuffer().get((float[]) destArray, destPos, count);
+        } else if (destArray instanceof double[]) {
+            buffer.asDoubleBuffer().get((double[]) destArray, destPos, count);
+        } else {
+            throw new IllegalArgumentException("Unsupported buffer type " + destArray.getClass());
+        }
+    }
+
+    private static void copyStrided(ByteBuffer buffer, int offset, int byteStep, Object destArray, int destPos, int count) {
+        if (destArray instanceof byte[]) {
+            final byte[] array = (byte[]) destArray;
+            for (int i = 0; i < count; i++) {
+                array[destPos + i] = buffer.get(offset + i * byteStep);
+            }
+        } else if (destArray instanceof short[]) {
+            final short[] array = (short[]) destArray;
+            for (int i = 0; i < count; i++) {
+                array[destPos + i] = buffer.getShort(offset + i * byteStep);
+            }
+        } else if (destArray instanceof int[]) {
+            final int[] array = (int[]) destArray;
+            for (int i = 0; i < count; i++) {
+                array[destPos + i] = buffer.getInt(offset + i * byteStep);
+            }
+        } else if (destArray instanceof long[]) {
+            final long[] array = (long[]) destArray;
+            for (int i = 0; i < count; i++) {
+                array[destPos + i] = buffer.getLong(offset + i * byteStep);
+            }
+        } else if (destArray instanceof float[]) {
+            final float[] array = (float[]) destArray;
+            for (int i = 0; i < count; i++) {
+                array[destPos + i] = buffer.getFloat(offset + i * byteStep);
+            }
+        } else if (destArray instanceof double[]) {
+            final double[] array = (double[]) destArray;
+            for (int i = 0; i < count; i++) {
+                array[destPos + i] = buffer.getDouble(offset + i * byteStep);
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported buffer type " + destArray.getClass());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.esa.snap.core.dataio.geocoding;
 
 import org.esa.snap.core.dataio.geocoding.forward.*;
 import org.esa.snap.core.dataio.geocoding.inverse.InversePlugin;
+import org.esa.snap.core.dataio.geocoding.inverse.PixelCompactGeoIndexInverse;
 import org.esa.snap.core.dataio.geocoding.inverse.PixelGeoIndexInverse;
 import org.esa.snap.core.dataio.geocoding.inverse.PixelQuadTreeInverse;
 import org.esa.snap.core.dataio.geocoding.inverse.TiePointInverse;
@@ -23,6 +24,8 @@ public class ComponentFactory {
         inversePlugins.put(PixelQuadTreeInverse.KEY_INTERPOLATING, new PixelQuadTreeInverse.Plugin(true));
         inversePlugins.put(PixelGeoIndexInverse.KEY, new PixelGeoIndexInverse.Plugin(false));
         inversePlugins.put(PixelGeoIndexInverse.KEY_INTERPOLATING, new PixelGeoIndexInverse.Plugin(true));
+        inversePlugins.put(PixelCompactGeoIndexInverse.KEY, new PixelCompactGeoIndexInverse.Plugin(false));
+        inversePlugins.put(PixelCompactGeoIndexInverse.KEY_INTERPOLATING, new PixelCompactGeoIndexInverse.Plugin(true));
         inversePlugins.put(TiePointInverse.KEY, new TiePointInverse.Plugin());
     }
 
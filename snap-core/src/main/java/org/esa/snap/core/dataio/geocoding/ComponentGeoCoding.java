@@ -17,12 +17,15 @@ import org.geotools.referencing.crs.DefaultGeographicCRS;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
+import java.util.Arrays;
 import java.util.stream.IntStream;
 
 public class ComponentGeoCoding extends AbstractGeoCoding {
 
     private static final GeoPos INVALID_GEO_POS = new GeoPos(Double.NaN, Double.NaN);
     private static final PixelPos INVALID_PIXEL_POS = new PixelPos(Double.NaN, Double.NaN);
+    // batches are split into chunks of consecutive positions, so that spatial coherence is preserved within a chunk
+    private static final int PARALLEL_CHUNK_SIZE = 16 * 1024;
 
     private final ForwardCoding forwardCoding;
     private final InverseCoding inverseCoding;
@@ -119,6 +122,38 @@ public class ComponentGeoCoding extends AbstractGeoCoding {
         return inverseCoding.getPixelPos(geoPos, pixelPos);
     }
 
+    /**
+     * Returns the pixel co-ordinates for a batch of geographical positions. Batches larger than
+     * {@value #PARALLEL_CHUNK_SIZE} positions are split into chunks which are located in parallel.
+     *
+     * @param lons   the longitudes
+     * @param lats   the latitudes
+     * @param pixelX receives the pixel x co-ordinates
+     * @param pixelY receives the pixel y co-ordinates
+     * @since SNAP 8
+     */
+    @Override
+    public void getPixelPos(double[] lons, double[] lats, double[] pixelX, double[] pixelY) {
+        final int numPositions = lons.length;
+        if (inverseCoding == null) {
+            Arrays.fill(pixelX, 0, numPositions, Double.NaN);
+            Arrays.fill(pixelY, 0, numPositions, Double.NaN);
+            return;
+        }
+
+        final int numChunks = (numPositions + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        if (numChunks <= 1) {
+            inverseCoding.getPixelPos(lons, lats, pixelX, pixelY, 0, numPositions);
+            return;
+        }
+
+        IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+            final int offset = chunk * PARALLEL_CHUNK_SIZE;
+            final int count = Math.min(PARALLEL_CHUNK_SIZE, numPositions - offset);
+            inverseCoding.getPixelPos(lons, lats, pixelX, pixelY, offset, count);
+        });
+    }
+
     @Override
     public GeoPos getGeoPos(PixelPos pixelPos, GeoPos geoPos) {
         if (forwardCoding == null) {
@@ -15,6 +15,34 @@ public interface InverseCoding {
      */
     PixelPos getPixelPos(final GeoPos geoPos, PixelPos pixelPos);
 
+    /**
+     * Returns the pixel coordinates for the geographical positions in the range <code>[offset, offset + count)</code>
+     * of the given arrays. Positions which cannot be located are returned as <code>NaN</code>. Implementations
+     * may use the result of the previous position as starting point for the search of the next one.
+     * <p>
+     * The method is called concurrently for disjoint ranges of large batches, so implementations must not
+     * modify any state shared between calls.
+     *
+     * @param lons   the longitudes
+     * @param lats   the latitudes
+     * @param pixelX receives the pixel x coordinates
+     * @param pixelY receives the pixel y coordinates
+     * @param offset the index of the first position
+     * @param count  the number of positions
+     * @since SNAP 8
+     */
+    default void getPixelPos(double[] lons, double[] lats, double[] pixelX, double[] pixelY, int offset, int count) {
+        final GeoPos geoPos = new GeoPos();
+        final PixelPos pixelPos = new PixelPos();
+        for (int i = offset; i < offset + count; i++) {
+            geoPos.setLocation(lats[i], lons[i]);
+            pixelPos.setInvalid();
+            final PixelPos result = getPixelPos(geoPos, pixelPos);
+            pixelX[i] = result.x;
+            pixelY[i] = result.y;
+        }
+    }
+
     void initialize(GeoRaster geoRaster, boolean containsAntiMeridian, PixelPos[] poleLocations);
 
     /**
@@ -0,0 +1,196 @@
+package org.esa.snap.core.dataio.geocoding.inverse;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from geo cell keys to the pixel region covered by the cell. Other than
+ * a <code>TreeMap&lt;Long, RasterRegion&gt;</code>, no objects are created per cell: keys are held in a
+ * <code>long</code> array, the slot of a key refers to the region which is stored as four consecutive
+ * <code>int</code> values (min_x, max_x, min_y, max_y) in a packed array.
+ * <p>
+ * The index is not thread-safe while being built. Once built, it may be read concurrently.
+ */
+class GeoCellIndex {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.75F;
+
+    private long[] keys;
+    private int[] regionIndexes;
+    private int[] regions;
+    private int size;
+    private int threshold;
+
+    GeoCellIndex() {
+        this(256);
+    }
+
+    GeoCellIndex(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+        regions = new int[4 * Math.max(16, expectedSize)];
+    }
+
+    /**
+     * Extends the region of the cell with the given key by the pixel x/y. Creates the cell if it
+     * does not yet exist.
+     */
+    void extend(long key, int x, int y) {
+        extend(key, x, x, y, y);
+    }
+
+    /**
+     * @return the index of the region of the cell with the given key or -1 if there is no such cell
+     */
+    int find(long key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            final long slotKey = keys[slot];
+            if (slotKey == key) {
+                return regionIndexes[slot];
+            }
+            if (slotKey == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    int getMinX(int region) {
+        return regions[4 * region];
+    }
+
+    int getMaxX(int region) {
+        return regions[4 * region + 1];
+    }
+
+    int getMinY(int region) {
+        return regions[4 * region + 2];
+    }
+
+    int getMaxY(int region) {
+        return regions[4 * region + 3];
+    }
+
+    boolean isPoint(int region) {
+        final int offset = 4 * region;
+        return regions[offset] == regions[offset + 1] && regions[offset + 2] == regions[offset + 3];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Merges all cells of the other index into this index, cells contained in both are united.
+     */
+    void merge(GeoCellIndex other) {
+        final long[] otherKeys = other.keys;
+        for (int slot = 0; slot < otherKeys.length; slot++) {
+            if (otherKeys[slot] != EMPTY) {
+                final int offset = 4 * other.regionIndexes[slot];
+                final int[] otherRegions = other.regions;
+                extend(otherKeys[slot], otherRegions[offset], otherRegions[offset + 1],
+                       otherRegions[offset + 2], otherRegions[offset + 3]);
+            }
+        }
+    }
+
+    /**
+     * Releases the unused part of the region array.
+     */
+    void trim() {
+        if (regions.length > 4 * size) {
+            regions = Arrays.copyOf(regions, 4 * size);
+        }
+    }
+
+    /**
+     * @return the approximate heap size of the index in bytes
+     */
+    long getMemorySize() {
+        return 8L * keys.length + 4L * regionIndexes.length + 4L * regions.length;
+    }
+
+    private void extend(long key, int minX, int maxX, int minY, int maxY) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (true) {
+            final long slotKey = keys[slot];
+            if (slotKey == key) {
+                final int offset = 4 * regionIndexes[slot];
+                if (minX < regions[offset]) {
+                    regions[offset] = minX;
+                }
+                if (maxX > regions[offset + 1]) {
+                    regions[offset + 1] = maxX;
+                }
+                if (minY < regions[offset + 2]) {
+                    regions[offset + 2] = minY;
+                }
+                if (maxY > regions[offset + 3]) {
+                    regions[offset + 3] = maxY;
+                }
+                return;
+            }
+            if (slotKey == EMPTY) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        final int offset = 4 * size;
+        if (offset + 4 > regions.length) {
+            regions = Arrays.copyOf(regions, 2 * regions.length);
+        }
+        regions[offset] = minX;
+        regions[offset + 1] = maxX;
+        regions[offset + 2] = minY;
+        regions[offset + 3] = maxY;
+        keys[slot] = key;
+        regionIndexes[slot] = size;
+        size++;
+        if (size > threshold) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        final long[] oldKeys = keys;
+        final int[] oldRegionIndexes = regionIndexes;
+        allocate(2 * oldKeys.length);
+        final int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            final long key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                regionIndexes[slot] = oldRegionIndexes[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        regionIndexes = new int[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(long key) {
+        // finalizer of MurmurHash3, the cell keys are far from uniformly distributed
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,238 @@
+package org.esa.snap.core.dataio.geocoding.inverse;
+
+import org.esa.snap.core.dataio.geocoding.GeoRaster;
+import org.esa.snap.core.dataio.geocoding.InverseCoding;
+import org.esa.snap.core.dataio.geocoding.util.InterpolationContext;
+import org.esa.snap.core.dataio.geocoding.util.InverseDistanceWeightingInterpolator;
+import org.esa.snap.core.dataio.geocoding.util.XYInterpolator;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.util.math.RsMathUtils;
+import org.esa.snap.core.util.math.SphericalDistance;
+
+import java.util.stream.IntStream;
+
+/**
+ * A pixel based inverse coding which uses the same geo cell index as the {@link PixelGeoIndexInverse}, but
+ * stores it in primitive arrays (see {@link GeoCellIndex}) instead of a <code>TreeMap</code> of region objects.
+ * The index is built in parallel for bands of rows, which are merged afterwards.
+ *
+ * @since SNAP 8
+ */
+public class PixelCompactGeoIndexInverse implements InverseCoding {
+
+    public static final String KEY = "INV_PIXEL_COMPACT_GEO_INDEX";
+    public static final String KEY_INTERPOLATING = "INV_PIXEL_COMPACT_GEO_INDEX_INTERPOLATING";
+
+    private static final int MIN_ROWS_PER_BAND = 64;
+
+    private final boolean fractionalAccuracy;
+    private final XYInterpolator interpolator;
+
+    private GeoCellIndex cellIndex;
+    private double offsetX;
+    private double offsetY;
+    private double multiplicator;
+    private double[] longitudes;
+    private double[] latitudes;
+    private int width;
+    private int height;
+    private double epsilon;
+
+    PixelCompactGeoIndexInverse() {
+        this(false);
+    }
+
+    PixelCompactGeoIndexInverse(boolean fractionalAccuracy) {
+        this.fractionalAccuracy = fractionalAccuracy;
+        if (fractionalAccuracy) {
+            interpolator = new InverseDistanceWeightingInterpolator();
+        } else {
+            interpolator = null;
+        }
+    }
+
+    @Override
+    public PixelPos getPixelPos(GeoPos geoPos, PixelPos pixelPos) {
+        if (pixelPos == null) {
+            pixelPos = new PixelPos();
+        }
+
+        pixelPos.setInvalid();
+        if (!geoPos.isValid()) {
+            return pixelPos;
+        }
+
+        final int region = cellIndex.find(toIndex(geoPos.lon, geoPos.lat));
+        if (region < 0) {
+            return pixelPos;
+        }
+
+        if (cellIndex.isPoint(region)) {
+            pixelPos.x = cellIndex.getMinX(region);
+            pixelPos.y = cellIndex.getMinY(region);
+        } else {
+            getMinimumDistancePixel(pixelPos, geoPos, region);
+        }
+
+        final SphericalDistance sphericalDistance = new SphericalDistance(geoPos.lon, geoPos.lat);
+        final int location = (int) (pixelPos.y) * width + (int) (pixelPos.x);
+        final double distance = sphericalDistance.distance(longitudes[location], latitudes[location]) * RsMathUtils.MEAN_EARTH_RADIUS;
+        if (distance < epsilon) {
+            if (fractionalAccuracy) {
+                final InterpolationContext context = InterpolationContext.extract((int) pixelPos.x, (int) pixelPos.y, longitudes, latitudes, width, height);
+                //noinspection ConstantConditions
+                pixelPos = interpolator.interpolate(geoPos, pixelPos, context);
+            }
+
+            pixelPos.x = pixelPos.x + offsetX;
+            pixelPos.y = pixelPos.y + offsetY;
+        } else {
+            pixelPos.setInvalid();
+        }
+
+        return pixelPos;
+    }
+
+    @Override
+    public void initialize(GeoRaster geoRaster, boolean containsAntiMeridian, PixelPos[] poleLocations) {
+        offsetX = geoRaster.getOffsetX();
+        offsetY = geoRaster.getOffsetY();
+
+        multiplicator = PixelGeoIndexInverse.getMultiplicator(geoRaster.getRasterResolutionInKm());
+        width = geoRaster.getSceneWidth();
+        height = geoRaster.getSceneHeight();
+
+        longitudes = geoRaster.getLongitudes();
+        latitudes = geoRaster.getLatitudes();
+
+        final int numBands = getNumBands(height);
+        final int rowsPerBand = (height + numBands - 1) / Math.max(1, numBands);
+        final GeoCellIndex[] bandIndexes = IntStream.range(0, numBands)
+                .parallel()
+                .mapToObj(band -> createBandIndex(band * rowsPerBand, Math.min(height, (band + 1) * rowsPerBand)))
+                .toArray(GeoCellIndex[]::new);
+
+        if (bandIndexes.length == 0) {
+            cellIndex = new GeoCellIndex();
+        } else {
+            cellIndex = bandIndexes[0];
+            for (int i = 1; i < bandIndexes.length; i++) {
+                cellIndex.merge(bandIndexes[i]);
+            }
+        }
+        cellIndex.trim();
+
+        epsilon = geoRaster.getRasterResolutionInKm() * 1000 / Math.sqrt(2.0);
+    }
+
+    @Override
+    public String getKey() {
+        if (fractionalAccuracy) {
+            return KEY_INTERPOLATING;
+        } else {
+            return KEY;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        // the index is shared with clones, so it is released but not cleared
+        cellIndex = null;
+        longitudes = null;
+        latitudes = null;
+    }
+
+    @Override
+    public InverseCoding clone() {
+        final PixelCompactGeoIndexInverse clone = new PixelCompactGeoIndexInverse(fractionalAccuracy);
+
+        // the index is not modified after initialisation and can safely be shared
+        clone.cellIndex = cellIndex;
+        clone.multiplicator = multiplicator;
+        clone.offsetX = offsetX;
+        clone.offsetY = offsetY;
+        clone.longitudes = longitudes;
+        clone.latitudes = latitudes;
+        clone.width = width;
+        clone.height = height;
+        clone.epsilon = epsilon;
+
+        return clone;
+    }
+
+    /**
+     * @return the approximate heap size of the index and of the geo-locations referenced by this inverse coding in bytes
+     */
+    long getMemorySize() {
+        long memorySize = cellIndex != null ? cellIndex.getMemorySize() : 0L;
+        if (longitudes != null) {
+            memorySize += 8L * (longitudes.length + latitudes.length);
+        }
+        return memorySize;
+    }
+
+    long toIndex(double lon, double lat) {
+        int lon_idx = (int) Math.floor((lon + 180.0) * multiplicator);
+        int lat_idx = (int) Math.floor((lat + 90.0) * multiplicator);
+
+        return 100000L * lon_idx + lat_idx;
+    }
+
+    static int getNumBands(int height) {
+        final int numProcessors = Runtime.getRuntime().availableProcessors();
+        return Math.max(Math.min(height / MIN_ROWS_PER_BAND, 4 * numProcessors), Math.min(height, 1));
+    }
+
+    private GeoCellIndex createBandIndex(int y_start, int y_end) {
+        final GeoCellIndex bandIndex = new GeoCellIndex();
+        for (int y = y_start; y < y_end; y++) {
+            final int y_offset = y * width;
+            for (int x = 0; x < width; x++) {
+                final double lon = longitudes[y_offset + x];
+                final double lat = latitudes[y_offset + x];
+                if (Double.isNaN(lon) || Double.isNaN(lat)) {
+                    continue;
+                }
+
+                bandIndex.extend(toIndex(lon, lat), x, y);
+            }
+        }
+        return bandIndex;
+    }
+
+    private void getMinimumDistancePixel(PixelPos pixelPos, GeoPos geoPos, int region) {
+        final Result result = new Result();
+
+        final int max_y = cellIndex.getMaxY(region);
+        final int min_x = cellIndex.getMinX(region);
+        final int max_x = cellIndex.getMaxX(region);
+        for (int y = cellIndex.getMinY(region); y <= max_y; y++) {
+            final int offset = y * width;
+            for (int x = min_x; x <= max_x; x++) {
+                final double dLon = longitudes[offset + x] - geoPos.lon;
+                final double dLat = latitudes[offset + x] - geoPos.lat;
+                final double squareDistance = dLon * dLon + dLat * dLat;
+
+                result.update(x, y, squareDistance);
+            }
+        }
+
+        pixelPos.x = result.x;
+        pixelPos.y = result.y;
+    }
+
+    public static class Plugin implements InversePlugin {
+
+        private final boolean fractionalAccuracy;
+
+        public Plugin(boolean fractionalAccuracy) {
+            this.fractionalAccuracy = fractionalAccuracy;
+        }
+
+        @Override
+        public InverseCoding create() {
+            return new PixelCompactGeoIndexInverse(fractionalAccuracy);
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class PixelQuadTreeInverse implements InverseCoding {
 
     private static final double TO_DEG = 180.0 / Math.PI;
     private static final double ANGLE_THRESHOLD = 330.0;
+    private static final int MAX_DESCENT_STEPS = 32;
 
     private final boolean fractionalAccuracy;
     private final XYInterpolator interpolator;
@@ -110,27 +111,60 @@ public class PixelQuadTreeInverse implements InverseCoding {
                                             result);
 
         if (pixelFound) {
-            final GeoPos resultGeoPos = new GeoPos();
-            getGeoPos(result.x, result.y, resultGeoPos);
-            final double absLon = Math.abs(resultGeoPos.lon - geoPos.lon);
-            final double absLat = Math.abs(resultGeoPos.lat - geoPos.lat);
-            final double distance = Math.max(absLat, absLon);
-
-            if (distance < epsilon) {
-                if (fractionalAccuracy) {
-                    final InterpolationContext context = InterpolationContext.extract(result.x, result.y, longitudes, latitudes, rasterWidth, rasterHeight);
-                    //noinspection ConstantConditions
-                    pixelPos = interpolator.interpolate(geoPos, pixelPos, context);
-                    pixelPos.setLocation(pixelPos.x + offsetX, pixelPos.y + offsetY);
-                } else {
-                    pixelPos.setLocation(result.x + offsetX, result.y + offsetY);
-                }
-            }
+            pixelPos = toPixelPos(geoPos, result, pixelPos);
         }
 
         return pixelPos;
     }
 
+    /**
+     * Locates the positions of the batch one after another. The search for a position starts with a descent
+     * from the pixel found for the previous position towards the nearest pixel, which for grids of positions
+     * only takes a few steps. The full quad-tree search is used for the first position, whenever the descent
+     * does not end up within the pixel distance threshold and for rasters crossing the anti-meridian.
+     */
+    @Override
+    public void getPixelPos(double[] lons, double[] lats, double[] pixelX, double[] pixelY, int offset, int count) {
+        final GeoPos geoPos = new GeoPos();
+        PixelPos pixelPos = new PixelPos();
+        int lastX = -1;
+        int lastY = -1;
+        for (int i = offset; i < offset + count; i++) {
+            geoPos.setLocation(lats[i], lons[i]);
+            pixelPos.setInvalid();
+
+            boolean pixelFound = false;
+            if (geoPos.isValid()) {
+                Result result = null;
+                if (lastX >= 0 && !isCrossingMeridian && isInsideRange(geoPos.lat, geoPos.lon)) {
+                    result = new Result();
+                    if (descend(geoPos.lat, geoPos.lon, lastX, lastY, result)) {
+                        pixelPos = toPixelPos(geoPos, result, pixelPos);
+                        pixelFound = pixelPos.isValid();
+                    }
+                }
+                if (!pixelFound) {
+                    result = new Result();
+                    if (quadTreeSearch(0, geoPos.lat, geoPos.lon, 0, 0, rasterWidth, rasterHeight, result)) {
+                        pixelPos = toPixelPos(geoPos, result, pixelPos);
+                        pixelFound = pixelPos.isValid();
+                    }
+                }
+                if (pixelFound) {
+                    lastX = result.x;
+                    lastY = result.y;
+                }
+            }
+            if (!pixelFound) {
+                lastX = -1;
+                lastY = -1;
+            }
+
+            pixelX[i] = pixelPos.x;
+            pixelY[i] = pixelPos.y;
+        }
+    }
+
     @Override
     public void initialize(GeoRaster geoRaster, boolean containsAntiMeridian, PixelPos[] poleLocations) {
         this.rasterWidth = geoRaster.getSceneWidth();
@@ -200,6 +234,73 @@ public class PixelQuadTreeInverse implements InverseCoding {
         return TO_DEG * angle * 2.0;
     }
 
+    private PixelPos toPixelPos(GeoPos geoPos, Result result, PixelPos pixelPos) {
+        final GeoPos resultGeoPos = new GeoPos();
+        getGeoPos(result.x, result.y, resultGeoPos);
+        final double absLon = Math.abs(resultGeoPos.lon - geoPos.lon);
+        final double absLat = Math.abs(resultGeoPos.lat - geoPos.lat);
+        final double distance = Math.max(absLat, absLon);
+
+        if (distance < epsilon) {
+            if (fractionalAccuracy) {
+                final InterpolationContext context = InterpolationContext.extract(result.x, result.y, longitudes, latitudes, rasterWidth, rasterHeight);
+                //noinspection ConstantConditions
+                pixelPos = interpolator.interpolate(geoPos, pixelPos, context);
+                pixelPos.setLocation(pixelPos.x + offsetX, pixelPos.y + offsetY);
+            } else {
+                pixelPos.setLocation(result.x + offsetX, result.y + offsetY);
+            }
+        } else {
+            pixelPos.setInvalid();
+        }
+        return pixelPos;
+    }
+
+    // package access for testing only
+    boolean descend(final double lat, final double lon, int x, int y, final Result result) {
+        final double f = Math.cos(lat * MathUtils.DTOR);
+        double minDistance = getSquareDistance(lat, lon, f, x, y);
+        if (Double.isNaN(minDistance)) {
+            return false;
+        }
+
+        for (int step = 0; step < MAX_DESCENT_STEPS; step++) {
+            int minX = x;
+            int minY = y;
+            // the wider neighbourhood is only searched when the direct one does not improve, it gets
+            // the descent across duplicated rows or columns of geo-locations
+            for (int radius = 1; radius <= 2 && minX == x && minY == y; radius++) {
+                for (int j = Math.max(0, y - radius); j <= Math.min(rasterHeight - 1, y + radius); j++) {
+                    for (int i = Math.max(0, x - radius); i <= Math.min(rasterWidth - 1, x + radius); i++) {
+                        final double distance = getSquareDistance(lat, lon, f, i, j);
+                        if (distance < minDistance) {
+                            minDistance = distance;
+                            minX = i;
+                            minY = j;
+                        }
+                    }
+                }
+            }
+            if (minX == x && minY == y) {
+                result.update(x, y, minDistance);
+                return true;
+            }
+            x = minX;
+            y = minY;
+        }
+        return false;
+    }
+
+    // the same bounds check as on the top level of the quad-tree search
+    private boolean isInsideRange(double lat, double lon) {
+        return lat >= latRange.getMin() && lat <= latRange.getMax() && lon >= lonRange.getMin() && lon <= lonRange.getMax();
+    }
+
+    private double getSquareDistance(double lat, double lon, double f, int x, int y) {
+        final int index = y * rasterWidth + x;
+        return sq(lat - latitudes[index], f * (lon - longitudes[index]));
+    }
+
     @SuppressWarnings("UnnecessaryLocalVariable")
     private boolean quadTreeSearch(final int depth,
                                    final double lat,
@@ -65,6 +65,31 @@ public interface GeoCoding {
      */
     PixelPos getPixelPos(final GeoPos geoPos, PixelPos pixelPos);
 
+    /**
+     * Returns the pixel co-ordinates for a batch of geographical positions. Implementations may exploit that
+     * neighbouring positions are usually close to each other, e.g. when the positions form a grid. Positions
+     * which cannot be located are returned as <code>NaN</code>.
+     * <p>
+     * The default implementation calls {@link #getPixelPos(GeoPos, PixelPos)} for each position.
+     *
+     * @param lons   the longitudes in the coordinate system determined by {@link #getGeoCRS()}
+     * @param lats   the latitudes in the coordinate system determined by {@link #getGeoCRS()}
+     * @param pixelX receives the pixel x co-ordinates, must have at least the length of <code>lons</code>
+     * @param pixelY receives the pixel y co-ordinates, must have at least the length of <code>lons</code>
+     * @since SNAP 8
+     */
+    default void getPixelPos(double[] lons, double[] lats, double[] pixelX, double[] pixelY) {
+        final GeoPos geoPos = new GeoPos();
+        final PixelPos pixelPos = new PixelPos();
+        for (int i = 0; i < lons.length; i++) {
+            geoPos.setLocation(lats[i], lons[i]);
+            pixelPos.setInvalid();
+            final PixelPos result = getPixelPos(geoPos, pixelPos);
+            pixelX[i] = result.x;
+            pixelY[i] = result.y;
+        }
+    }
+
     /**
      * Returns the latitude and longitude value for a given pixel co-ordinate.
      *
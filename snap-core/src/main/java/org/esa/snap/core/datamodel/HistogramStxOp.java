@@ -16,6 +16,7 @@
 
 package org.esa.snap.core.datamodel;
 
+import com.bc.ceres.core.Assert;
 import org.esa.snap.core.util.math.DoubleList;
 
 import javax.media.jai.Histogram;
@@ -48,6 +49,23 @@ final public class HistogramStxOp extends StxOp {
         return histogram;
     }
 
+    /**
+     * Adds the bins of another operator, e.g. one accumulated from other tiles, to the bins of this one.
+     *
+     * @param other an operator having the same bins
+     * @since SNAP 8
+     */
+    public void merge(HistogramStxOp other) {
+        final int[] bins = histogram.getBins(0);
+        final int[] otherBins = other.histogram.getBins(0);
+        Assert.argument(bins.length == otherBins.length
+                        && histogram.getLowValue(0) == other.histogram.getLowValue(0)
+                        && histogram.getHighValue(0) == other.histogram.getHighValue(0), "other histogram has different bins");
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] += otherBins[i];
+        }
+    }
+
     @Override
     public void accumulateData(UnpackedImageData dataPixels,
                                UnpackedImageData maskPixels) {
@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+
+package org.esa.snap.core.datamodel;
+
+import com.bc.ceres.core.Assert;
+import org.esa.snap.core.util.math.DoubleList;
+
+import javax.media.jai.Histogram;
+import javax.media.jai.UnpackedImageData;
+
+/**
+ * A mergeable sketch of the distribution of image samples, from which the histogram, the median and the percentiles
+ * are derived without knowing the value range in advance. Sketches accumulated from different tiles, e.g. in parallel,
+ * can be merged into one.
+ * <p>
+ * The (optionally log-scaled) samples are counted in the cells of a regular grid with a cell width of a power of two,
+ * aligned to zero. The sketch keeps at most {@code capacity} consecutive cells. Whenever the value range does not fit
+ * into them anymore, the cell width is doubled by combining each two neighbouring cells. Since the grids of all
+ * sketches are aligned, merging two sketches does not lose any further precision.
+ * <p>
+ * The cell width is less than {@code 2 * (maximum - minimum) / (capacity - 2)} of the values seen, or the resolution
+ * of a double at the magnitude of the values, whichever is larger. A sample is attributed to a value of its cell, so
+ * if the capacity is at least {@link #CELLS_PER_BIN} times the bin count of a histogram derived from the sketch, each
+ * sample ends up at most one bin away from its bin in the exact histogram, and the median and the percentiles
+ * derived from the histogram deviate by at most one bin width from the exact histogram's ones.
+ *
+ * @since SNAP 8
+ */
+final public class QuantileSketchStxOp extends StxOp {
+
+    /**
+     * The number of cells per histogram bin, which keeps the samples within one bin of their exact histogram bin.
+     */
+    public static final int CELLS_PER_BIN = 16;
+    /**
+     * The maximum capacity of a sketch.
+     */
+    public static final int MAX_CAPACITY = 1 << 20;
+
+    private static final int SIGNIFICAND_BITS = 52;
+
+    private final int capacity;
+    private final Scaling scaling;
+    private long[] counts;
+    private int exponent;
+    private long firstCell;
+    private double minimum;
+    private double maximum;
+    private long sampleCount;
+
+    /**
+     * @param capacity     the maximum number of cells
+     * @param logHistogram whether the logarithms of the samples are counted
+     */
+    public QuantileSketchStxOp(int capacity, boolean logHistogram) {
+        super("Quantile Sketch");
+        Assert.argument(capacity >= 2 && capacity <= MAX_CAPACITY, "capacity");
+        this.capacity = capacity;
+        this.scaling = Stx.getHistogramScaling(logHistogram);
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Returns an estimate of a quantile, which deviates from the exact quantile by less than the cell width.
+     *
+     * @param p the probability in the interval [0..1]
+     * @return the quantile, {@link Double#NaN} if no samples have been accumulated
+     */
+    public double getQuantile(double p) {
+        if (sampleCount == 0) {
+            return Double.NaN;
+        }
+        final double rank = Math.max(1.0, Math.ceil(p * sampleCount));
+        long cumulativeCount = 0;
+        for (int i = 0; i < capacity; i++) {
+            cumulativeCount += counts[i];
+            if (counts[i] > 0 && cumulativeCount >= rank) {
+                return scaling.scaleInverse(getCellValue(firstCell + i, false));
+            }
+        }
+        return scaling.scaleInverse(maximum);
+    }
+
+    /**
+     * Creates a histogram from the sketch. Samples outside of the range of the histogram are not counted.
+     *
+     * @param binCount     the number of bins
+     * @param minimum      the minimum of the (unscaled) samples
+     * @param maximum      the maximum of the (unscaled) samples
+     * @param intHistogram whether the samples are integers
+     * @return the histogram
+     */
+    public Histogram createHistogram(int binCount, double minimum, double maximum, boolean intHistogram) {
+        // the same bounds as those of the HistogramStxOp
+        if (Double.isNaN(minimum) || Double.isInfinite(minimum)) {
+            minimum = 0.0;
+        }
+        if (Double.isNaN(maximum) || Double.isInfinite(maximum)) {
+            maximum = minimum;
+        }
+        final Histogram histogram = StxFactory.createHistogram(binCount, minimum, maximum, scaling == Stx.LOG10_SCALING, intHistogram);
+        if (sampleCount == 0) {
+            return histogram;
+        }
+        final int[] bins = histogram.getBins(0);
+        final double lowValue = histogram.getLowValue(0);
+        final double highValue = histogram.getHighValue(0);
+        final double binWidth = (highValue - lowValue) / bins.length;
+        for (int i = 0; i < capacity; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            // integer samples are at the lower bound of their cell, as long as the cell width is not greater than one
+            final double value = getCellValue(firstCell + i, intHistogram);
+            if (value >= lowValue && value <= highValue) {
+                int binIndex = (int) ((value - lowValue) / binWidth);
+                if (binIndex == bins.length) {
+                    binIndex--;
+                }
+                bins[binIndex] += (int) counts[i];
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Adds the samples of another sketch to this one.
+     *
+     * @param other a sketch having the same capacity and scaling
+     */
+    public void merge(QuantileSketchStxOp other) {
+        Assert.argument(other.capacity == capacity && other.scaling == scaling, "other sketch is not compatible");
+        if (other.sampleCount == 0) {
+            return;
+        }
+        if (sampleCount == 0) {
+            counts = other.counts.clone();
+            exponent = other.exponent;
+            firstCell = other.firstCell;
+            minimum = other.minimum;
+            maximum = other.maximum;
+            sampleCount = other.sampleCount;
+            return;
+        }
+        final double newMinimum = Math.min(minimum, other.minimum);
+        final double newMaximum = Math.max(maximum, other.maximum);
+        if (other.exponent > exponent || !isInWindow(newMinimum) || !isInWindow(newMaximum)) {
+            resize(newMinimum, newMaximum, Math.max(exponent, other.exponent), false);
+        }
+        final int shift = exponent - other.exponent;
+        for (int i = 0; i < capacity; i++) {
+            if (other.counts[i] != 0) {
+                counts[(int) (coarsen(other.firstCell + i, shift) - firstCell)] += other.counts[i];
+            }
+        }
+        minimum = newMinimum;
+        maximum = newMaximum;
+        sampleCount += other.sampleCount;
+    }
+
+    @Override
+    public void accumulateData(UnpackedImageData dataPixels,
+                               UnpackedImageData maskPixels) {
+
+        // Do not change this code block without doing the same changes in HistogramStxOp.java and SummaryStxOp.java
+        // {{ Block Start
+
+        final DoubleList values = asDoubleList(dataPixels);
+
+        final int dataPixelStride = dataPixels.pixelStride;
+        final int dataLineStride = dataPixels.lineStride;
+        final int dataBandOffset = dataPixels.bandOffsets[0];
+
+        byte[] mask = null;
+        int maskPixelStride = 0;
+        int maskLineStride = 0;
+        int maskBandOffset = 0;
+        if (maskPixels != null) {
+            mask = maskPixels.getByteData(0);
+            maskPixelStride = maskPixels.pixelStride;
+            maskLineStride = maskPixels.lineStride;
+            maskBandOffset = maskPixels.bandOffsets[0];
+        }
+
+        final int width = dataPixels.rect.width;
+        final int height = dataPixels.rect.height;
+
+        int dataLineOffset = dataBandOffset;
+        int maskLineOffset = maskBandOffset;
+
+        // }} Block End
+
+        for (int y = 0; y < height; y++) {
+            int dataPixelOffset = dataLineOffset;
+            int maskPixelOffset = maskLineOffset;
+            for (int x = 0; x < width; x++) {
+                if (mask == null || mask[maskPixelOffset] != 0) {
+                    add(scaling.scale(values.getDouble(dataPixelOffset)));
+                }
+                dataPixelOffset += dataPixelStride;
+                maskPixelOffset += maskPixelStride;
+            }
+            dataLineOffset += dataLineStride;
+            maskLineOffset += maskLineStride;
+        }
+    }
+
+    void add(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+        if (sampleCount == 0) {
+            // start with cells as fine as the resolution of the value
+            exponent = Math.getExponent(value) - SIGNIFICAND_BITS;
+            counts = new long[capacity];
+            firstCell = cell(value, exponent) - capacity / 2;
+            minimum = value;
+            maximum = value;
+        } else if (value < minimum || value > maximum) {
+            if (!isInWindow(value)) {
+                // leave the free cells on the side the range is growing to
+                resize(Math.min(value, minimum), Math.max(value, maximum), exponent, value < minimum);
+            }
+            minimum = Math.min(value, minimum);
+            maximum = Math.max(value, maximum);
+        }
+        counts[(int) (cell(value, exponent) - firstCell)]++;
+        sampleCount++;
+    }
+
+    private boolean isInWindow(double value) {
+        if (Math.getExponent(value) - exponent > SIGNIFICAND_BITS) {
+            return false;
+        }
+        final long cell = cell(value, exponent);
+        return cell >= firstCell && cell - firstCell < capacity;
+    }
+
+    private void resize(double newMinimum, double newMaximum, int minExponent, boolean growDown) {
+        int newExponent = Math.max(minExponent, Math.max(Math.getExponent(newMinimum), Math.getExponent(newMaximum)) - SIGNIFICAND_BITS);
+        while (cell(newMaximum, newExponent) - cell(newMinimum, newExponent) >= capacity) {
+            newExponent++;
+        }
+        final long newFirstCell = growDown ? cell(newMaximum, newExponent) - capacity + 1 : cell(newMinimum, newExponent);
+        final long[] newCounts = new long[capacity];
+        final int shift = newExponent - exponent;
+        for (int i = 0; i < capacity; i++) {
+            if (counts[i] != 0) {
+                newCounts[(int) (coarsen(firstCell + i, shift) - newFirstCell)] += counts[i];
+            }
+        }
+        counts = newCounts;
+        exponent = newExponent;
+        firstCell = newFirstCell;
+    }
+
+    private double getCellValue(long cell, boolean lowerBound) {
+        double value = Math.scalb((double) cell, exponent);
+        if (!lowerBound) {
+            value += Math.scalb(0.5, exponent);
+        }
+        return Math.min(Math.max(value, minimum), maximum);
+    }
+
+    private static long cell(double value, int exponent) {
+        return (long) Math.floor(Math.scalb(value, -exponent));
+    }
+
+    private static long coarsen(long cell, int shift) {
+        if (shift >= Long.SIZE - 1) {
+            return cell < 0 ? -1 : 0;
+        }
+        return cell >> shift;
+    }
+}
@@ -24,6 +24,16 @@ import java.awt.image.RenderedImage;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
 
 /**
  * The factory for {@link Stx} instances.
@@ -34,6 +44,10 @@ import java.util.concurrent.CancellationException;
 public class StxFactory {
 
     public static final int DEFAULT_BIN_COUNT = 512;
+    /**
+     * The preference key of the default of {@link #withParallelComputation(boolean)}.
+     */
+    public static final String PROPERTY_KEY_PARALLEL_COMPUTATION = "snap.stx.parallelComputation";
 
     private Number minimum;
     private Number maximum;
@@ -48,6 +62,7 @@ public class StxFactory {
     private Boolean intHistogram;
     private Boolean logHistogram;
     private int[] histogramBins;
+    private Boolean parallelComputation;
 
     private Number coefficientOfVariation;
     private Number enl;
@@ -124,6 +139,22 @@ public class StxFactory {
         return this;
     }
 
+    /**
+     * If set, the tiles are accumulated in parallel. If neither the minimum and maximum nor the histogram are given,
+     * all statistics are computed in a single pass, with the histogram being derived from a
+     * {@link QuantileSketchStxOp}: its median and percentiles deviate by at most one bin width from those of the
+     * histogram computed in a second pass. If not set, the preference {@link #PROPERTY_KEY_PARALLEL_COMPUTATION}
+     * is used, which is {@code false} by default.
+     *
+     * @param parallelComputation whether the tiles are accumulated in parallel
+     * @return This instance.
+     * @since SNAP 8
+     */
+    public StxFactory withParallelComputation(boolean parallelComputation) {
+        this.parallelComputation = parallelComputation;
+        return this;
+    }
+
     /**
      * Creates an {@code Stx} instance.
      *
@@ -149,6 +180,9 @@ public class StxFactory {
         boolean logHistogram = this.logHistogram != null ? this.logHistogram : false;
         boolean intHistogram = this.intHistogram != null ? this.intHistogram : false;
         int level = this.resolutionLevel != null ? this.resolutionLevel : 0;
+        int binCount = this.histogramBinCount != null ? this.histogramBinCount : DEFAULT_BIN_COUNT;
+        boolean parallel = this.parallelComputation != null ? this.parallelComputation :
+                           Config.instance("snap").preferences().getBoolean(PROPERTY_KEY_PARALLEL_COMPUTATION, false);
 
         double coeffOfVariation = this.coefficientOfVariation != null ? this.coefficientOfVariation.doubleValue() : Double.NaN;
         double enl = this.enl != null ? this.enl.doubleValue() : Double.NaN;
@@ -194,12 +228,38 @@ public class StxFactory {
             try {
                 pm.beginTask("Computing statistics", mustComputeSummaryStx && mustComputeHistogramStx ? 100 : 50);
 
-                if (mustComputeSummaryStx) {
-                    final SummaryStxOp meanOp = new SummaryStxOp();
-                    for (int i = 0; i < filteredRasters.length; i++) {
-                        final RasterDataNode rasterDataNode = filteredRasters[i];
-                        accumulate(rasterDataNode, level, roiImages[i], roiShapes[i], meanOp, SubProgressMonitor.create(pm, 50));
+                QuantileSketchStxOp sketchOp = null;
+                SummaryStxOp meanOp = null;
+                if (parallel && mustComputeSummaryStx && mustComputeHistogramStx
+                    && binCount <= QuantileSketchStxOp.MAX_CAPACITY / QuantileSketchStxOp.CELLS_PER_BIN) {
+                    // a single pass, the bounds of the histogram are not needed in advance by the sketch
+                    final int sketchCapacity = binCount * QuantileSketchStxOp.CELLS_PER_BIN;
+                    final SummaryAndSketchStxOp summaryAndSketchOp = accumulateInParallel(
+                            filteredRasters, level, roiImages, roiShapes,
+                            () -> new SummaryAndSketchStxOp(sketchCapacity, logHistogram),
+                            (op1, op2) -> {
+                                op1.merge(op2);
+                                return op1;
+                            }, SubProgressMonitor.create(pm, 100));
+                    meanOp = summaryAndSketchOp.summaryOp;
+                    sketchOp = summaryAndSketchOp.sketchOp;
+                } else if (mustComputeSummaryStx) {
+                    if (parallel) {
+                        meanOp = accumulateInParallel(filteredRasters, level, roiImages, roiShapes, SummaryStxOp::new,
+                                                      (op1, op2) -> {
+                                                          op1.merge(op2);
+                                                          return op1;
+                                                      }, SubProgressMonitor.create(pm, 50));
+                    } else {
+                        meanOp = new SummaryStxOp();
+                        for (int i = 0; i < filteredRasters.length; i++) {
+                            final RasterDataNode rasterDataNode = filteredRasters[i];
+                            accumulate(rasterDataNode, level, roiImages[i], roiShapes[i], meanOp, SubProgressMonitor.create(pm, 50));
+                        }
                     }
+                }
+
+                if (meanOp != null) {
                     if (this.minimum == null) {
                         minimum = meanOp.getMinimum();
                     }
@@ -220,12 +280,26 @@ public class StxFactory {
                     }
                 }
 
-                if (mustComputeHistogramStx) {
-                    int binCount = histogramBinCount != null ? histogramBinCount : DEFAULT_BIN_COUNT;
-                    final HistogramStxOp histogramOp = new HistogramStxOp(binCount, minimum, maximum, intHistogram, logHistogram);
-                    for (int i = 0; i < filteredRasters.length; i++) {
-                        final RasterDataNode rasterDataNode = filteredRasters[i];
-                        accumulate(rasterDataNode, level, roiImages[i], roiShapes[i], histogramOp, SubProgressMonitor.create(pm, 50));
+                if (sketchOp != null) {
+                    histogram = sketchOp.createHistogram(binCount, minimum, maximum, intHistogram);
+                } else if (mustComputeHistogramStx) {
+                    final HistogramStxOp histogramOp;
+                    if (parallel) {
+                        final double histogramMinimum = minimum;
+                        final double histogramMaximum = maximum;
+                        final boolean histogramOfInts = intHistogram;
+                        histogramOp = accumulateInParallel(filteredRasters, level, roiImages, roiShapes,
+                                                           () -> new HistogramStxOp(binCount, histogramMinimum, histogramMaximum, histogramOfInts, logHistogram),
+                                                           (op1, op2) -> {
+                                                               op1.merge(op2);
+                                                               return op1;
+                                                           }, SubProgressMonitor.create(pm, 50));
+                    } else {
+                        histogramOp = new HistogramStxOp(binCount, minimum, maximum, intHistogram, logHistogram);
+                        for (int i = 0; i < filteredRasters.length; i++) {
+                            final RasterDataNode rasterDataNode = filteredRasters[i];
+                            accumulate(rasterDataNode, level, roiImages[i], roiShapes[i], histogramOp, SubProgressMonitor.create(pm, 50));
+                        }
                     }
                     histogram = histogramOp.getHistogram();
                 }
@@ -342,6 +416,72 @@ public class StxFactory {
         }
     }
 
+    /**
+     * Accumulates the tiles of the given rasters in parallel. Each task accumulates its tiles into an operator of its
+     * own, and the operators of the tasks are merged.
+     */
+    private static <T extends StxOp> T accumulateInParallel(RasterDataNode[] rasters, int level,
+                                                            RenderedImage[] roiImages, Shape[] roiShapes,
+                                                            Supplier<T> opFactory, BinaryOperator<T> merger,
+                                                            ProgressMonitor pm) {
+        final List<TileRef> tiles = new ArrayList<>();
+        for (int i = 0; i < rasters.length; i++) {
+            Assert.argument(roiImages[i] == null || level == 0, "level");
+            final PlanarImage dataImage = ImageManager.getInstance().getGeophysicalImage(rasters[i], level);
+            if (dataImage.getSampleModel().getNumBands() != 1) {
+                throw new IllegalStateException("dataImage.sampleModel.numBands != 1");
+            }
+            final PlanarImage maskImage = getEffectiveMaskImage(rasters[i], level, roiImages[i]);
+            if (maskImage != null) {
+                ensureImageCompatibility(dataImage, maskImage);
+            }
+            final Shape maskShape = getEffectiveShape(rasters[i], roiShapes[i]);
+            for (int tileY = dataImage.getMinTileY(); tileY <= dataImage.getMaxTileY(); tileY++) {
+                for (int tileX = dataImage.getMinTileX(); tileX <= dataImage.getMaxTileX(); tileX++) {
+                    if (maskShape == null || maskShape.intersects(dataImage.getTileRect(tileX, tileY))) {
+                        tiles.add(new TileRef(dataImage, maskImage, tileX, tileY));
+                    }
+                }
+            }
+        }
+
+        final int leafTileCount = Math.max(1, tiles.size() / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        final AtomicInteger accumulatedTileCount = new AtomicInteger();
+        final AtomicBoolean canceled = new AtomicBoolean();
+        final ForkJoinTask<T> task = ForkJoinPool.commonPool().submit(
+                new TileAccumulationTask<>(tiles, 0, tiles.size(), leafTileCount, opFactory, merger, accumulatedTileCount, canceled));
+        try {
+            pm.beginTask("Computing statistics", tiles.size());
+            int reportedTileCount = 0;
+            while (true) {
+                try {
+                    final T op = task.get(100, TimeUnit.MILLISECONDS);
+                    pm.worked(tiles.size() - reportedTileCount);
+                    return op;
+                } catch (TimeoutException e) {
+                    final int tileCount = accumulatedTileCount.get();
+                    pm.worked(tileCount - reportedTileCount);
+                    reportedTileCount = tileCount;
+                    if (pm.isCanceled()) {
+                        throw new CancellationException("Process terminated by user."); /*I18N*/
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Process interrupted.");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Failed to compute statistics", cause);
+        } finally {
+            canceled.set(true);
+            pm.done();
+        }
+    }
+
     static void accumulateTile(StxOp op,
                                PlanarImage dataImage,
                                PlanarImage maskImage,
@@ -484,4 +624,102 @@ public class StxFactory {
         final double binMaxValue = histogram.getBinLowValue(bandIndex, binIndex + 1);
         return (binLowValue + binMaxValue) / 2;
     }
+
+    private static class TileRef {
+
+        private final PlanarImage dataImage;
+        private final PlanarImage maskImage;
+        private final int tileX;
+        private final int tileY;
+
+        private TileRef(PlanarImage dataImage, PlanarImage maskImage, int tileX, int tileY) {
+            this.dataImage = dataImage;
+            this.maskImage = maskImage;
+            this.tileX = tileX;
+            this.tileY = tileY;
+        }
+
+        private void accumulate(StxOp op) {
+            final PixelAccessor dataAccessor = new PixelAccessor(dataImage.getSampleModel(), null);
+            final PixelAccessor maskAccessor = maskImage != null ? new PixelAccessor(maskImage.getSampleModel(), null) : null;
+            accumulateTile(op, dataImage, maskImage, dataAccessor, maskAccessor, tileX, tileY);
+        }
+    }
+
+    private static class TileAccumulationTask<T extends StxOp> extends RecursiveTask<T> {
+
+        private final List<TileRef> tiles;
+        private final int startIndex;
+        private final int endIndex;
+        private final int leafTileCount;
+        private final Supplier<T> opFactory;
+        private final BinaryOperator<T> merger;
+        private final AtomicInteger accumulatedTileCount;
+        private final AtomicBoolean canceled;
+
+        private TileAccumulationTask(List<TileRef> tiles, int startIndex, int endIndex, int leafTileCount,
+                                     Supplier<T> opFactory, BinaryOperator<T> merger,
+                                     AtomicInteger accumulatedTileCount, AtomicBoolean canceled) {
+            this.tiles = tiles;
+            this.startIndex = startIndex;
+            this.endIndex = endIndex;
+            this.leafTileCount = leafTileCount;
+            this.opFactory = opFactory;
+            this.merger = merger;
+            this.accumulatedTileCount = accumulatedTileCount;
+            this.canceled = canceled;
+        }
+
+        @Override
+        protected T compute() {
+            if (endIndex - startIndex <= leafTileCount) {
+                final T op = opFactory.get();
+                for (int i = startIndex; i < endIndex; i++) {
+                    if (canceled.get()) {
+                        throw new CancellationException("Process terminated by user."); /*I18N*/
+                    }
+                    tiles.get(i).accumulate(op);
+                    accumulatedTileCount.incrementAndGet();
+                }
+                return op;
+            }
+            final int middleIndex = (startIndex + endIndex) >>> 1;
+            final TileAccumulationTask<T> lowerTask = createSubtask(startIndex, middleIndex);
+            final TileAccumulationTask<T> upperTask = createSubtask(middleIndex, endIndex);
+            lowerTask.fork();
+            final T upperOp = upperTask.compute();
+            return merger.apply(lowerTask.join(), upperOp);
+        }
+
+        private TileAccumulationTask<T> createSubtask(int startIndex, int endIndex) {
+            return new TileAccumulationTask<>(tiles, startIndex, endIndex, leafTileCount, opFactory, merger,
+                                              accumulatedTileCount, canceled);
+        }
+    }
+
+    /**
+     * Accumulates the summary statistics and the quantile sketch in the same pass.
+     */
+    private static class SummaryAndSketchStxOp extends StxOp {
+
+        private final SummaryStxOp summaryOp;
+        private final QuantileSketchStxOp sketchOp;
+
+        private SummaryAndSketchStxOp(int sketchCapacity, boolean logHistogram) {
+            super("Summary and Quantile Sketch");
+            this.summaryOp = new SummaryStxOp();
+            this.sketchOp = new QuantileSketchStxOp(sketchCapacity, logHistogram);
+        }
+
+        private void merge(SummaryAndSketchStxOp other) {
+            summaryOp.merge(other.summaryOp);
+            sketchOp.merge(other.sketchOp);
+        }
+
+        @Override
+        public void accumulateData(UnpackedImageData dataPixels, UnpackedImageData maskPixels) {
+            summaryOp.accumulateData(dataPixels, maskPixels);
+            sketchOp.accumulateData(dataPixels, maskPixels);
+        }
+    }
 }
@@ -105,6 +105,29 @@ final public class SummaryStxOp extends StxOp {
         return enl;
     }
 
+    /**
+     * Adds the statistics of another operator, e.g. one accumulated from other tiles, to this one.
+     *
+     * @param other the other operator
+     * @since SNAP 8
+     */
+    public void merge(SummaryStxOp other) {
+        if (other.sampleCount == 0) {
+            return;
+        }
+        final long mergedSampleCount = this.sampleCount + other.sampleCount;
+        final double delta = other.mean - this.mean;
+        this.mean += delta * other.sampleCount / mergedSampleCount;
+        this.meanSqr += other.meanSqr + delta * delta * ((double) this.sampleCount * other.sampleCount / mergedSampleCount);
+        this.sampleCount = mergedSampleCount;
+        this.minimum = Math.min(this.minimum, other.minimum);
+        this.maximum = Math.max(this.maximum, other.maximum);
+
+        this.valueSum += other.valueSum;
+        this.sqrSum += other.sqrSum;
+        this.power4Sum += other.power4Sum;
+    }
+
     @Override
     public void accumulateData(UnpackedImageData dataPixels,
                                UnpackedImageData maskPixels) {
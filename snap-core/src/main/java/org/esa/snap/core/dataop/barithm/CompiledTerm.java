@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.snap.core.dataop.barithm;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.jexp.EvalException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * A band maths term compiled by the {@link TermCompiler}. Instances are bound to the
+ * {@link RasterDataSymbol}s of the term they have been compiled from, they must therefore be
+ * used by one thread only.
+ *
+ * @since SNAP 8
+ */
+public final class CompiledTerm {
+
+    private final Method kernel;
+    private final RasterDataSymbol[] symbols;
+    private final boolean pixelCoordinatesUsed;
+
+    CompiledTerm(Method kernel, RasterDataSymbol[] symbols, boolean pixelCoordinatesUsed) {
+        this.kernel = kernel;
+        this.symbols = symbols;
+        this.pixelCoordinatesUsed = pixelCoordinatesUsed;
+    }
+
+    /**
+     * Evaluates the term for all pixels of the raster region given by the evaluation environment.
+     *
+     * @param env          The evaluation environment providing the raster region.
+     * @param target       The target data, its type must be the one the term has been compiled for.
+     * @param targetOffset The index of the first target element.
+     * @param targetStride The number of target elements between two consecutive lines.
+     * @param fillValue    The value used to replace invalid values, only used if the term has been compiled so.
+     * @throws EvalException if the evaluation fails
+     */
+    public void eval(RasterDataEvalEnv env, ProductData target, int targetOffset, int targetStride, double fillValue) {
+        final int width = env.getRegionWidth();
+        final int height = env.getRegionHeight();
+        final Object[] sourceArrays = new Object[symbols.length];
+        for (int i = 0; i < symbols.length; i++) {
+            sourceArrays[i] = symbols[i].data.getElems();
+        }
+        int[] sourceX = null;
+        int[] sourceY = null;
+        if (pixelCoordinatesUsed) {
+            sourceX = new int[width];
+            sourceY = new int[height];
+            for (int x = 0; x < width; x++) {
+                env.setElemIndex(x);
+                sourceX[x] = env.getPixelX();
+            }
+            for (int y = 0; y < height; y++) {
+                env.setElemIndex(y * width);
+                sourceY[y] = env.getPixelY();
+            }
+        }
+        try {
+            kernel.invoke(null, sourceArrays, sourceX, sourceY, width, height,
+                          target.getElems(), targetOffset, targetStride, fillValue);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new EvalException(cause.getMessage(), cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -19,6 +19,9 @@ import org.esa.snap.core.image.LevelImageSupport;
 import org.esa.snap.core.image.ResolutionLevel;
 import org.esa.snap.core.jexp.EvalEnv;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 /**
  * Represents an evaluation environment for {@link org.esa.snap.core.jexp.Term Terms} which are operating on raster data.
  * <p>The evaluation environment is passed to the {@link org.esa.snap.core.jexp.Term#evalB(org.esa.snap.core.jexp.EvalEnv) evalB},
@@ -37,6 +40,7 @@ public class RasterDataEvalEnv implements EvalEnv {
     private final int regionHeight;
     private int elemIndex;
     private LevelImageSupport levelImageSupport;
+    private final Deque<double[]> buffers = new ArrayDeque<>();
 
     /**
      * Constructs a new environment for the given raster data region.
@@ -144,4 +148,27 @@ public class RasterDataEvalEnv implements EvalEnv {
     public void setElemIndex(int elemIndex) {
         this.elemIndex = elemIndex;
     }
+
+    /**
+     * Gets a temporary buffer for the block evaluation methods. Released buffers are reused, so that evaluating
+     * the lines of a region one after the other does not allocate new buffers.
+     *
+     * @param length the minimum length of the buffer
+     * @return the buffer, its content is undefined
+     */
+    @Override
+    public double[] acquireBuffer(int length) {
+        final double[] buffer = buffers.pollLast();
+        return (buffer != null && buffer.length >= length) ? buffer : new double[length];
+    }
+
+    /**
+     * Releases a buffer obtained from {@link #acquireBuffer(int)}, so that it can be reused.
+     *
+     * @param buffer the buffer
+     */
+    @Override
+    public void releaseBuffer(double[] buffer) {
+        buffers.addLast(buffer);
+    }
 }
@@ -145,6 +145,75 @@ public class RasterDataSymbol implements Symbol, Cloneable {
         return data.getElemDoubleAt(elemIndex);
     }
 
+    @Override
+    public void evalD(final EvalEnv env, final double[] out, final int offset, final int length) throws EvalException {
+        if (getClass() != RasterDataSymbol.class) {
+            // subclasses may have overridden the element-wise evaluation
+            Symbol.super.evalD(env, out, offset, length);
+            return;
+        }
+        final int elemIndex = env.getElemIndex();
+        final Object elems = data.getElems();
+        switch (data.getType()) {
+            case ProductData.TYPE_INT8: {
+                final byte[] array = (byte[]) elems;
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = array[elemIndex + i];
+                }
+                break;
+            }
+            case ProductData.TYPE_UINT8: {
+                final byte[] array = (byte[]) elems;
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = array[elemIndex + i] & 0xff;
+                }
+                break;
+            }
+            case ProductData.TYPE_INT16: {
+                final short[] array = (short[]) elems;
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = array[elemIndex + i];
+                }
+                break;
+            }
+            case ProductData.TYPE_UINT16: {
+                final short[] array = (short[]) elems;
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = array[elemIndex + i] & 0xffff;
+                }
+                break;
+            }
+            case ProductData.TYPE_INT32: {
+                final int[] array = (int[]) elems;
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = array[elemIndex + i];
+                }
+                break;
+            }
+            case ProductData.TYPE_UINT32: {
+                final int[] array = (int[]) elems;
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = array[elemIndex + i] & 0xffffffffL;
+                }
+                break;
+            }
+            case ProductData.TYPE_FLOAT32: {
+                final float[] array = (float[]) elems;
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = array[elemIndex + i];
+                }
+                break;
+            }
+            case ProductData.TYPE_FLOAT64:
+                System.arraycopy(elems, elemIndex, out, offset, length);
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] = data.getElemDoubleAt(elemIndex + i);
+                }
+        }
+    }
+
     @Override
     public String evalS(EvalEnv env) throws EvalException {
         final double value = evalD(env);
@@ -86,6 +86,14 @@ public final class SingleFlagSymbol extends RasterDataSymbol {
         return (data.getElemIntAt(elemIndex) & flagMask) == flagValue ? 1.0 : 0.0;
     }
 
+    @Override
+    public final void evalD(final EvalEnv env, final double[] out, final int offset, final int length) throws EvalException {
+        final int elemIndex = ((RasterDataEvalEnv) env).getElemIndex();
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = (data.getElemIntAt(elemIndex + i) & flagMask) == flagValue ? 1.0 : 0.0;
+        }
+    }
+
     @Override
     public SingleFlagSymbol clone() {
         return (SingleFlagSymbol) super.clone();
@@ -0,0 +1,639 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.snap.core.dataop.barithm;
+
+import com.bc.ceres.compiler.CodeCompiler;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.jexp.Function;
+import org.esa.snap.core.jexp.Symbol;
+import org.esa.snap.core.jexp.Term;
+import org.esa.snap.core.jexp.impl.Functions;
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.core.util.io.FileUtils;
+import org.esa.snap.runtime.Config;
+
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Compiles band maths {@link Term}s into Java classes which evaluate the term for a whole raster region
+ * within a single, type-specialised loop. Compared to the interpreted evaluation via
+ * {@link Term#evalD(org.esa.snap.core.jexp.EvalEnv)}, no virtual calls are made per term node and pixel.
+ * <p>
+ * The generated code is specialised for the data types of the raster data currently assigned to the
+ * {@link RasterDataSymbol}s of the term and for the target data type. The most recently used kernels are cached,
+ * so a term is usually compiled only once per JVM for each combination of data types.
+ * <p>
+ * Only a subset of terms can be compiled: references to {@link RasterDataSymbol}s, {@link SingleFlagSymbol}s,
+ * the pixel symbols {@code X} and {@code Y} and constant symbols, all operators except assignments and the
+ * functions from {@link Functions} which are backed by {@link Math}. For all other terms
+ * {@link #compile(Term, int, boolean, boolean)} returns {@code null} and callers are expected to fall back to the
+ * interpreted evaluation.
+ * <p>
+ * The compiler is disabled by default and can be enabled by setting the configuration property
+ * {@link #PROPERTY_KEY_COMPILE_TERMS} to {@code true}. It requires a Java compiler to be available at runtime.
+ *
+ * @since SNAP 8
+ */
+public class TermCompiler {
+
+    /**
+     * Configuration property used to enable the compilation of band maths terms.
+     */
+    public static final String PROPERTY_KEY_COMPILE_TERMS = "snap.bandMaths.compileTerms";
+
+    private static final String KERNEL_PACKAGE_NAME = TermCompiler.class.getPackage().getName() + ".kernels";
+    private static final String KERNEL_CLASS_NAME_PREFIX = "TermKernel";
+    private static final String KERNEL_METHOD_NAME = "eval";
+    private static final int MAX_KERNEL_COUNT = 256;
+
+    private static final Map<Function, String> D_FUNCTIONS = new HashMap<>();
+    private static final Map<Function, String> I_FUNCTIONS = new HashMap<>();
+    private static final Map<Function, String> B_FUNCTIONS = new HashMap<>();
+
+    static {
+        D_FUNCTIONS.put(Functions.SQRT, "Math.sqrt({0})");
+        D_FUNCTIONS.put(Functions.LOG, "Math.log({0})");
+        D_FUNCTIONS.put(Functions.LOG10, "Math.log10({0})");
+        D_FUNCTIONS.put(Functions.ATAN2, "Math.atan2({0}, {1})");
+        D_FUNCTIONS.put(Functions.SQ, "sq({0})");
+        D_FUNCTIONS.put(Functions.MIN_D, "Math.min({0}, {1})");
+        D_FUNCTIONS.put(Functions.MAX_D, "Math.max({0}, {1})");
+        D_FUNCTIONS.put(Functions.FLOOR, "Math.floor({0})");
+        D_FUNCTIONS.put(Functions.CEIL, "Math.ceil({0})");
+        D_FUNCTIONS.put(Functions.ROUND, "((double) Math.round({0}))");
+        D_FUNCTIONS.put(Functions.ABS_D, "Math.abs({0})");
+        D_FUNCTIONS.put(Functions.SIGN_D, "sign({0})");
+        D_FUNCTIONS.put(Functions.DEG, "Math.toDegrees({0})");
+        D_FUNCTIONS.put(Functions.RAD, "Math.toRadians({0})");
+        D_FUNCTIONS.put(Functions.AMPL, "Math.sqrt(sq({0}) + sq({1}))");
+        D_FUNCTIONS.put(Functions.PHASE, "Math.atan2({1}, {0})");
+        D_FUNCTIONS.put(Functions.SINH, "Math.sinh({0})");
+        D_FUNCTIONS.put(Functions.COSH, "Math.cosh({0})");
+        D_FUNCTIONS.put(Functions.TANH, "Math.tanh({0})");
+
+        I_FUNCTIONS.put(Functions.MIN_I, "Math.min({0}, {1})");
+        I_FUNCTIONS.put(Functions.MAX_I, "Math.max({0}, {1})");
+        I_FUNCTIONS.put(Functions.ABS_I, "Math.abs({0})");
+        I_FUNCTIONS.put(Functions.SIGN_I, "sign({0})");
+
+        // bit_set() evaluates its arguments as int, the remaining ones as double
+        B_FUNCTIONS.put(Functions.BIT_SET, "(({0} & (1L << {1})) != 0)");
+        B_FUNCTIONS.put(Functions.INF, "Double.isInfinite({0})");
+        B_FUNCTIONS.put(Functions.NAN, "Double.isNaN({0})");
+        B_FUNCTIONS.put(Functions.FEQ, "feq({0}, {1}, 1e-6)");
+        B_FUNCTIONS.put(Functions.FNEQ, "!feq({0}, {1}, 1e-6)");
+        B_FUNCTIONS.put(Functions.FEQ_EPS, "feq({0}, {1}, {2})");
+        B_FUNCTIONS.put(Functions.FNEQ_EPS, "!feq({0}, {1}, {2})");
+    }
+
+    private static final String KERNEL_HELPERS = "" +
+            "    private static double sq(double v) {\n" +
+            "        return v * v;\n" +
+            "    }\n" +
+            "\n" +
+            "    private static double sign(double v) {\n" +
+            "        return Double.isNaN(v) ? Double.NaN : v == 0.0 ? 0.0 : (v < 0.0 ? -1.0 : 1.0);\n" +
+            "    }\n" +
+            "\n" +
+            "    private static int sign(int v) {\n" +
+            "        return v == 0 ? 0 : (v < 0 ? -1 : 1);\n" +
+            "    }\n" +
+            "\n" +
+            "    private static boolean feq(double v1, double v2, double eps) {\n" +
+            "        return v1 == v2 || Math.abs(v1 - v2) <= eps;\n" +
+            "    }\n";
+
+    private static final boolean JAVA_COMPILER_AVAILABLE = ToolProvider.getSystemJavaCompiler() != null;
+    private static final TermCompiler INSTANCE = new TermCompiler();
+
+    private final Map<String, Kernel> kernelCache = new LinkedHashMap<String, Kernel>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Kernel> eldest) {
+            return size() > MAX_KERNEL_COUNT;
+        }
+    };
+    private final AtomicInteger kernelCount = new AtomicInteger();
+
+    /**
+     * @return The shared instance of the term compiler.
+     */
+    public static TermCompiler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return {@code true}, if the compilation of band maths terms is enabled by the configuration property
+     * {@link #PROPERTY_KEY_COMPILE_TERMS} and a Java compiler is available at runtime.
+     */
+    public static boolean isEnabled() {
+        return Config.instance().preferences().getBoolean(PROPERTY_KEY_COMPILE_TERMS, false)
+               && JAVA_COMPILER_AVAILABLE;
+    }
+
+    /**
+     * Compiles the given term. All {@link RasterDataSymbol}s referred to by the term must already have
+     * been provided with their data, because the generated code is specialised for the data types.
+     *
+     * @param term             The term to be compiled.
+     * @param targetDataType   The data type of the target data, one of the {@code ProductData.TYPE_}X constants.
+     * @param mask             If {@code true}, the term is evaluated as a boolean and {@code 255} or {@code 0}
+     *                         is written to the target data.
+     * @param replaceInvalid   If {@code true}, NaN and infinite values are replaced by the fill value passed to
+     *                         {@link CompiledTerm#eval(RasterDataEvalEnv, ProductData, int, int, double)}.
+     * @return The compiled term or {@code null} if the term cannot be compiled.
+     */
+    public CompiledTerm compile(Term term, int targetDataType, boolean mask, boolean replaceInvalid) {
+        final KernelCodeGenerator generator = new KernelCodeGenerator();
+        final String body;
+        try {
+            body = generator.generateBody(term, targetDataType, mask, replaceInvalid);
+        } catch (UnsupportedTermException e) {
+            return null;
+        }
+        final Kernel kernel = getKernel(body);
+        if (kernel.method == null) {
+            return null;
+        }
+        return new CompiledTerm(kernel.method,
+                                generator.symbols.toArray(new RasterDataSymbol[generator.symbols.size()]),
+                                generator.pixelCoordinatesUsed);
+    }
+
+    private Kernel getKernel(String body) {
+        // kernels are compiled one after the other, so that a term is not compiled by several tiles at once
+        synchronized (kernelCache) {
+            Kernel kernel = kernelCache.get(body);
+            if (kernel == null) {
+                kernel = compileKernel(body);
+                kernelCache.put(body, kernel);
+            }
+            return kernel;
+        }
+    }
+
+    private Kernel compileKernel(String body) {
+        final String className = KERNEL_CLASS_NAME_PREFIX + kernelCount.incrementAndGet();
+        final String code = "package " + KERNEL_PACKAGE_NAME + ";\n" +
+                            "\n" +
+                            "public final class " + className + " {\n" +
+                            "\n" +
+                            body +
+                            "\n" +
+                            KERNEL_HELPERS +
+                            "}\n";
+        File outputDir = null;
+        try {
+            // the class is defined when it is loaded, so the class file is not needed any more afterwards
+            outputDir = Files.createTempDirectory("snap-band-maths").toFile();
+            final CodeCompiler codeCompiler = new CodeCompiler(outputDir, new File[]{outputDir});
+            final Class<?> kernelClass = codeCompiler.compile(KERNEL_PACKAGE_NAME, className, code);
+            final Method method = kernelClass.getMethod(KERNEL_METHOD_NAME,
+                                                        Object[].class, int[].class, int[].class,
+                                                        int.class, int.class,
+                                                        Object.class, int.class, int.class, double.class);
+            return new Kernel(method);
+        } catch (Exception | LinkageError e) {
+            SystemUtils.LOG.log(Level.WARNING, "Failed to compile band maths term, falling back to interpreter", e);
+            return new Kernel(null);
+        } finally {
+            if (outputDir != null) {
+                FileUtils.deleteTree(outputDir);
+            }
+        }
+    }
+
+    private static final class Kernel {
+        private final Method method;
+
+        private Kernel(Method method) {
+            this.method = method;
+        }
+    }
+
+    private static final class UnsupportedTermException extends Exception {
+        private UnsupportedTermException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Generates the body of a kernel class. The body only depends on the structure of the term
+     * and the data types, it is therefore used as key for the kernel cache.
+     */
+    private static final class KernelCodeGenerator {
+
+        private final List<RasterDataSymbol> symbols = new ArrayList<>();
+        private final Map<RasterDataSymbol, Integer> symbolIndexes = new IdentityHashMap<>();
+        private boolean pixelCoordinatesUsed;
+
+        String generateBody(Term term, int targetDataType, boolean mask, boolean replaceInvalid) throws UnsupportedTermException {
+            checkTerm(term);
+            final String targetArrayType = getArrayType(targetDataType);
+            final String statement;
+            if (mask) {
+                if (targetDataType != ProductData.TYPE_UINT8 && targetDataType != ProductData.TYPE_INT8) {
+                    throw new UnsupportedTermException("mask target type");
+                }
+                statement = "d[k] = (" + genB(term) + ") ? (byte) 255 : (byte) 0;";
+            } else if (replaceInvalid) {
+                statement = "final double v = " + genD(term) + ";\n" +
+                            "                d[k] = " + store(targetDataType, "(Double.isNaN(v) || Double.isInfinite(v) ? fv : v)") + ";";
+            } else {
+                statement = "final double v = " + genD(term) + ";\n" +
+                            "                d[k] = " + store(targetDataType, "v") + ";";
+            }
+
+            final StringBuilder sb = new StringBuilder();
+            sb.append("    public static void " + KERNEL_METHOD_NAME + "(Object[] src, int[] sx, int[] sy, int w, int h, " +
+                      "Object dst, int dstOffset, int dstStride, double fv) {\n");
+            for (int i = 0; i < symbols.size(); i++) {
+                final String arrayType = getArrayType(symbols.get(i).data.getType());
+                sb.append("        final ").append(arrayType).append(" s").append(i)
+                        .append(" = (").append(arrayType).append(") src[").append(i).append("];\n");
+            }
+            sb.append("        final ").append(targetArrayType).append(" d = (").append(targetArrayType).append(") dst;\n");
+            sb.append("        for (int y = 0, i = 0; y < h; y++) {\n");
+            sb.append("            for (int x = 0, k = dstOffset + y * dstStride; x < w; x++, i++, k++) {\n");
+            sb.append("                ").append(statement).append("\n");
+            sb.append("            }\n");
+            sb.append("        }\n");
+            sb.append("    }\n");
+            return sb.toString();
+        }
+
+        private static void checkTerm(Term term) throws UnsupportedTermException {
+            if (term instanceof Term.ConstS || term instanceof Term.Assign) {
+                throw new UnsupportedTermException(term.toString());
+            }
+            for (Term child : term.getChildren()) {
+                checkTerm(child);
+            }
+        }
+
+        private String genB(Term term) throws UnsupportedTermException {
+            if (term instanceof Term.Const) {
+                return term.evalB(null) ? "true" : "false";
+            } else if (term instanceof Term.Ref) {
+                return genRef((Term.Ref) term, Term.TYPE_B);
+            } else if (term instanceof Term.Call) {
+                return genCall((Term.Call) term, Term.TYPE_B);
+            } else if (term instanceof Term.Cond) {
+                return genCond((Term.Cond) term, Term.TYPE_B);
+            } else if (term instanceof Term.UnaryB || term instanceof Term.BinaryB) {
+                return genNaturalB(term);
+            } else if (term instanceof Term.UnaryI || term instanceof Term.BinaryI) {
+                return "(" + genNaturalI(term) + " != 0)";
+            } else if (term instanceof Term.UnaryN) {
+                return "(" + genD(term) + " != 0.0)";
+            } else if (term instanceof Term.BinaryN) {
+                return term.isI() ? "(" + genI(term) + " != 0)" : "(" + genD(term) + " != 0.0)";
+            }
+            throw new UnsupportedTermException(term.toString());
+        }
+
+        private String genI(Term term) throws UnsupportedTermException {
+            if (term instanceof Term.Const) {
+                return "(" + term.evalI(null) + ")";
+            } else if (term instanceof Term.Ref) {
+                return genRef((Term.Ref) term, Term.TYPE_I);
+            } else if (term instanceof Term.Call) {
+                return genCall((Term.Call) term, Term.TYPE_I);
+            } else if (term instanceof Term.Cond) {
+                return genCond((Term.Cond) term, Term.TYPE_I);
+            } else if (term instanceof Term.UnaryB || term instanceof Term.BinaryB) {
+                return "(" + genNaturalB(term) + " ? 1 : 0)";
+            } else if (term instanceof Term.UnaryI || term instanceof Term.BinaryI) {
+                return genNaturalI(term);
+            } else if (term instanceof Term.Neg) {
+                return "(-" + genI(((Term.Neg) term).getArg()) + ")";
+            } else if (term instanceof Term.BinaryN) {
+                final Term.Binary binary = (Term.Binary) term;
+                return "(" + genI(binary.getArg(0)) + " " + getOperator(binary) + " " + genI(binary.getArg(1)) + ")";
+            }
+            throw new UnsupportedTermException(term.toString());
+        }
+
+        private String genD(Term term) throws UnsupportedTermException {
+            if (term instanceof Term.Const) {
+                return toLiteral(term.evalD(null));
+            } else if (term instanceof Term.Ref) {
+                return genRef((Term.Ref) term, Term.TYPE_D);
+            } else if (term instanceof Term.Call) {
+                return genCall((Term.Call) term, Term.TYPE_D);
+            } else if (term instanceof Term.Cond) {
+                return genCond((Term.Cond) term, Term.TYPE_D);
+            } else if (term instanceof Term.UnaryB || term instanceof Term.BinaryB) {
+                return "(" + genNaturalB(term) + " ? 1.0 : 0.0)";
+            } else if (term instanceof Term.UnaryI || term instanceof Term.BinaryI) {
+                return "((double) " + genNaturalI(term) + ")";
+            } else if (term instanceof Term.Neg) {
+                return "(-" + genD(((Term.Neg) term).getArg()) + ")";
+            } else if (term instanceof Term.BinaryN) {
+                final Term.Binary binary = (Term.Binary) term;
+                return "(" + genD(binary.getArg(0)) + " " + getOperator(binary) + " " + genD(binary.getArg(1)) + ")";
+            }
+            throw new UnsupportedTermException(term.toString());
+        }
+
+        private String genNaturalB(Term term) throws UnsupportedTermException {
+            if (term instanceof Term.NotB) {
+                return "(!" + genB(((Term.NotB) term).getArg()) + ")";
+            }
+            final Term.Binary binary = (Term.Binary) term;
+            final Term arg1 = binary.getArg(0);
+            final Term arg2 = binary.getArg(1);
+            if (term instanceof Term.AndB) {
+                return "(" + genB(arg1) + " && " + genB(arg2) + ")";
+            } else if (term instanceof Term.OrB) {
+                return "(" + genB(arg1) + " || " + genB(arg2) + ")";
+            } else if (term instanceof Term.EqB) {
+                return "(" + genB(arg1) + " == " + genB(arg2) + ")";
+            } else if (term instanceof Term.NEqB) {
+                return "(" + genB(arg1) + " != " + genB(arg2) + ")";
+            } else if (term instanceof Term.EqI) {
+                return "(" + genI(arg1) + " == " + genI(arg2) + ")";
+            } else if (term instanceof Term.NEqI) {
+                return "(" + genI(arg1) + " != " + genI(arg2) + ")";
+            } else if (term instanceof Term.LtI) {
+                return "(" + genI(arg1) + " < " + genI(arg2) + ")";
+            } else if (term instanceof Term.LeI) {
+                return "(" + genI(arg1) + " <= " + genI(arg2) + ")";
+            } else if (term instanceof Term.GtI) {
+                return "(" + genI(arg1) + " > " + genI(arg2) + ")";
+            } else if (term instanceof Term.GeI) {
+                return "(" + genI(arg1) + " >= " + genI(arg2) + ")";
+            } else if (term instanceof Term.EqD) {
+                return "(" + genD(arg1) + " == " + genD(arg2) + ")";
+            } else if (term instanceof Term.NEqD) {
+                return "(" + genD(arg1) + " != " + genD(arg2) + ")";
+            } else if (term instanceof Term.LtD) {
+                return "(" + genD(arg1) + " < " + genD(arg2) + ")";
+            } else if (term instanceof Term.LeD) {
+                return "(" + genD(arg1) + " <= " + genD(arg2) + ")";
+            } else if (term instanceof Term.GtD) {
+                return "(" + genD(arg1) + " > " + genD(arg2) + ")";
+            } else if (term instanceof Term.GeD) {
+                return "(" + genD(arg1) + " >= " + genD(arg2) + ")";
+            }
+            throw new UnsupportedTermException(term.toString());
+        }
+
+        private String genNaturalI(Term term) throws UnsupportedTermException {
+            if (term instanceof Term.NotI) {
+                return "(~" + genI(((Term.NotI) term).getArg()) + ")";
+            }
+            final Term.Binary binary = (Term.Binary) term;
+            final Term arg1 = binary.getArg(0);
+            final Term arg2 = binary.getArg(1);
+            if (term instanceof Term.AndI) {
+                return "(" + genI(arg1) + " & " + genI(arg2) + ")";
+            } else if (term instanceof Term.OrI) {
+                return "(" + genI(arg1) + " | " + genI(arg2) + ")";
+            } else if (term instanceof Term.XOrI) {
+                return "(" + genI(arg1) + " ^ " + genI(arg2) + ")";
+            }
+            throw new UnsupportedTermException(term.toString());
+        }
+
+        private String genCond(Term.Cond term, int type) throws UnsupportedTermException {
+            return "(" + genB(term.getArg(0)) + " ? " + gen(term.getArg(1), type) + " : " + gen(term.getArg(2), type) + ")";
+        }
+
+        private String gen(Term term, int type) throws UnsupportedTermException {
+            switch (type) {
+                case Term.TYPE_B:
+                    return genB(term);
+                case Term.TYPE_I:
+                    return genI(term);
+                default:
+                    return genD(term);
+            }
+        }
+
+        private String genCall(Term.Call term, int type) throws UnsupportedTermException {
+            final Function function = term.getFunction();
+            final String code;
+            final int naturalType;
+            if (D_FUNCTIONS.containsKey(function)) {
+                code = formatCall(D_FUNCTIONS.get(function), term, Term.TYPE_D);
+                naturalType = Term.TYPE_D;
+            } else if (I_FUNCTIONS.containsKey(function)) {
+                code = formatCall(I_FUNCTIONS.get(function), term, Term.TYPE_I);
+                naturalType = Term.TYPE_I;
+            } else if (B_FUNCTIONS.containsKey(function)) {
+                code = formatCall(B_FUNCTIONS.get(function), term, function == Functions.BIT_SET ? Term.TYPE_I : Term.TYPE_D);
+                naturalType = Term.TYPE_B;
+            } else {
+                throw new UnsupportedTermException(function.getName());
+            }
+            return convert(code, naturalType, type);
+        }
+
+        private String formatCall(String pattern, Term.Call term, int argType) throws UnsupportedTermException {
+            String code = pattern;
+            for (int i = 0; i < term.getArgCount(); i++) {
+                code = code.replace("{" + i + "}", gen(term.getArg(i), argType));
+            }
+            return code;
+        }
+
+        private String genRef(Term.Ref term, int type) throws UnsupportedTermException {
+            final Symbol symbol = term.getSymbol();
+            if (symbol.isConst()) {
+                switch (type) {
+                    case Term.TYPE_B:
+                        return symbol.evalB(null) ? "true" : "false";
+                    case Term.TYPE_I:
+                        return "(" + symbol.evalI(null) + ")";
+                    default:
+                        return toLiteral(symbol.evalD(null));
+                }
+            } else if (symbol instanceof ProductNamespaceExtenderImpl.PixelXSymbol) {
+                pixelCoordinatesUsed = true;
+                return convert("(sx[x] + 0.5)", Term.TYPE_D, type);
+            } else if (symbol instanceof ProductNamespaceExtenderImpl.PixelYSymbol) {
+                pixelCoordinatesUsed = true;
+                return convert("(sy[y] + 0.5)", Term.TYPE_D, type);
+            } else if (symbol.getClass() == RasterDataSymbol.class) {
+                final String var = getSymbolVariable((RasterDataSymbol) symbol);
+                final int dataType = ((RasterDataSymbol) symbol).data.getType();
+                if (type == Term.TYPE_I) {
+                    return getElemInt(var, dataType);
+                }
+                final String d = getElemDouble(var, dataType);
+                return type == Term.TYPE_B ? "(" + d + " != 0.0)" : d;
+            } else if (symbol.getClass() == SingleFlagSymbol.class) {
+                final SingleFlagSymbol flagSymbol = (SingleFlagSymbol) symbol;
+                final String var = getSymbolVariable(flagSymbol);
+                final String b = "((" + getElemInt(var, flagSymbol.data.getType()) + " & " + flagSymbol.getFlagMask() + ") == "
+                                 + flagSymbol.getFlagValue() + ")";
+                return convert(b, Term.TYPE_B, type);
+            }
+            throw new UnsupportedTermException(symbol.getName());
+        }
+
+        private String getSymbolVariable(RasterDataSymbol symbol) throws UnsupportedTermException {
+            if (symbol.data == null) {
+                throw new UnsupportedTermException(symbol.getName());
+            }
+            // check that the data type is supported
+            getArrayType(symbol.data.getType());
+            Integer index = symbolIndexes.get(symbol);
+            if (index == null) {
+                index = symbols.size();
+                symbols.add(symbol);
+                symbolIndexes.put(symbol, index);
+            }
+            return "s" + index + "[i]";
+        }
+
+        private static String convert(String code, int naturalType, int type) {
+            if (naturalType == type) {
+                return code;
+            }
+            switch (naturalType) {
+                case Term.TYPE_B:
+                    return type == Term.TYPE_I ? "(" + code + " ? 1 : 0)" : "(" + code + " ? 1.0 : 0.0)";
+                case Term.TYPE_I:
+                    return type == Term.TYPE_B ? "(" + code + " != 0)" : "((double) " + code + ")";
+                default:
+                    return type == Term.TYPE_B ? "(" + code + " != 0.0)" : "((int) " + code + ")";
+            }
+        }
+
+        private static String getOperator(Term.Binary term) throws UnsupportedTermException {
+            if (term instanceof Term.Add) {
+                return "+";
+            } else if (term instanceof Term.Sub) {
+                return "-";
+            } else if (term instanceof Term.Mul) {
+                return "*";
+            } else if (term instanceof Term.Div) {
+                return "/";
+            } else if (term instanceof Term.Mod) {
+                return "%";
+            }
+            throw new UnsupportedTermException(term.toString());
+        }
+
+        // Mirrors ProductData.getElemIntAt(int) of the respective data types
+        private static String getElemInt(String var, int dataType) throws UnsupportedTermException {
+            switch (dataType) {
+                case ProductData.TYPE_INT8:
+                case ProductData.TYPE_INT16:
+                case ProductData.TYPE_INT32:
+                case ProductData.TYPE_UINT32:
+                    return "((int) " + var + ")";
+                case ProductData.TYPE_UINT8:
+                    return "(" + var + " & 0xff)";
+                case ProductData.TYPE_UINT16:
+                    return "(" + var + " & 0xffff)";
+                case ProductData.TYPE_INT64:
+                    return "((int) " + var + ")";
+                case ProductData.TYPE_FLOAT32:
+                    return "Math.round(" + var + ")";
+                case ProductData.TYPE_FLOAT64:
+                    return "((int) Math.round(" + var + "))";
+            }
+            throw new UnsupportedTermException("data type " + dataType);
+        }
+
+        // Mirrors ProductData.getElemDoubleAt(int) of the respective data types
+        private static String getElemDouble(String var, int dataType) throws UnsupportedTermException {
+            switch (dataType) {
+                case ProductData.TYPE_INT8:
+                case ProductData.TYPE_INT16:
+                case ProductData.TYPE_INT32:
+                case ProductData.TYPE_INT64:
+                case ProductData.TYPE_FLOAT32:
+                case ProductData.TYPE_FLOAT64:
+                    return "((double) " + var + ")";
+                case ProductData.TYPE_UINT8:
+                    return "((double) (" + var + " & 0xff))";
+                case ProductData.TYPE_UINT16:
+                    return "((double) (" + var + " & 0xffff))";
+                case ProductData.TYPE_UINT32:
+                    return "((double) (" + var + " & 0xffffffffL))";
+            }
+            throw new UnsupportedTermException("data type " + dataType);
+        }
+
+        // Mirrors ProductData.setElemDoubleAt(int, double) of the respective data types
+        private static String store(int dataType, String value) throws UnsupportedTermException {
+            switch (dataType) {
+                case ProductData.TYPE_INT8:
+                case ProductData.TYPE_UINT8:
+                    return "(byte) Math.round(" + value + ")";
+                case ProductData.TYPE_INT16:
+                case ProductData.TYPE_UINT16:
+                    return "(short) Math.round(" + value + ")";
+                case ProductData.TYPE_INT32:
+                case ProductData.TYPE_UINT32:
+                    return "(int) Math.round(" + value + ")";
+                case ProductData.TYPE_INT64:
+                    return "Math.round(" + value + ")";
+                case ProductData.TYPE_FLOAT32:
+                    return "(float) " + value;
+                case ProductData.TYPE_FLOAT64:
+                    return value;
+            }
+            throw new UnsupportedTermException("data type " + dataType);
+        }
+
+        private static String getArrayType(int dataType) throws UnsupportedTermException {
+            switch (dataType) {
+                case ProductData.TYPE_INT8:
+                case ProductData.TYPE_UINT8:
+                    return "byte[]";
+                case ProductData.TYPE_INT16:
+                case ProductData.TYPE_UINT16:
+                    return "short[]";
+                case ProductData.TYPE_INT32:
+                case ProductData.TYPE_UINT32:
+                    return "int[]";
+                case ProductData.TYPE_INT64:
+                    return "long[]";
+                case ProductData.TYPE_FLOAT32:
+                    return "float[]";
+                case ProductData.TYPE_FLOAT64:
+                    return "double[]";
+            }
+            throw new UnsupportedTermException("data type " + dataType);
+        }
+
+        private static String toLiteral(double value) {
+            if (Double.isNaN(value)) {
+                return "Double.NaN";
+            } else if (value == Double.POSITIVE_INFINITY) {
+                return "Double.POSITIVE_INFINITY";
+            } else if (value == Double.NEGATIVE_INFINITY) {
+                return "Double.NEGATIVE_INFINITY";
+            }
+            return "(" + Double.toString(value) + ")";
+        }
+    }
+}
@@ -20,8 +20,10 @@ import org.esa.snap.core.dataio.ProductReaderPlugIn;
 import org.esa.snap.core.datamodel.GeoPos;
 import org.esa.snap.core.datamodel.PixelPos;
 import org.esa.snap.core.dataop.resamp.Resampling;
+import org.esa.snap.runtime.Config;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -44,6 +46,11 @@ public abstract class BaseElevationModel implements ElevationModel, Resampling.R
     protected final Resampling resampling;
     private final Resampling.Raster resamplingRaster;
 
+    private final ElevationTileStore tileStore;
+    private final boolean geoidCorrected;
+    private final ElevationTile[][] storedTiles;
+    private final boolean[][] storedTilesLookedUp;
+
     private final List<ElevationTile> elevationTileCache = new ArrayList<>(20);
     private int maxCacheSize = 60;
 
@@ -68,6 +75,11 @@ public abstract class BaseElevationModel implements ElevationModel, Resampling.R
         DEGREE_RES_BY_NUM_PIXELS_PER_TILE = DEGREE_RES / (double) NUM_PIXELS_PER_TILE;
         DEGREE_RES_BY_NUM_PIXELS_PER_TILEinv = 1.0 / DEGREE_RES_BY_NUM_PIXELS_PER_TILE;
 
+        tileStore = ElevationTileStore.getInstance();
+        geoidCorrected = Config.instance().preferences().getBoolean("snap.useDEMGravitationalModel", true);
+        storedTiles = tileStore != null ? new ElevationTile[NUM_X_TILES][NUM_Y_TILES] : null;
+        storedTilesLookedUp = tileStore != null ? new boolean[NUM_X_TILES][NUM_Y_TILES] : null;
+
         elevationFiles = createElevationFiles();    // must be last
     }
 
@@ -101,6 +113,23 @@ public abstract class BaseElevationModel implements ElevationModel, Resampling.R
         return Double.isNaN(elevation) ? NO_DATA_VALUE : elevation;
     }
 
+    @Override
+    public void getElevations(final double[] lats, final double[] lons, final double[] elevations) throws Exception {
+        final GeoPos geoPos = new GeoPos();
+        final Resampling.Index index = resampling.createIndex();
+        for (int i = 0; i < lats.length; i++) {
+            geoPos.setLocation(lats[i], lons[i] > 180 ? lons[i] - 360 : lons[i]);
+            final double pixelY = getIndexY(geoPos);
+            if (pixelY < 0 || Double.isNaN(pixelY)) {
+                elevations[i] = NO_DATA_VALUE;
+                continue;
+            }
+            resampling.computeCornerBasedIndex(getIndexX(geoPos), pixelY, RASTER_WIDTH, RASTER_HEIGHT, index);
+            final double elevation = resampling.resample(resamplingRaster, index);
+            elevations[i] = Double.isNaN(elevation) ? NO_DATA_VALUE : elevation;
+        }
+    }
+
     public abstract double getIndexX(final GeoPos geoPos);
 
     public abstract double getIndexY(final GeoPos geoPos);
@@ -137,7 +166,7 @@ public abstract class BaseElevationModel implements ElevationModel, Resampling.R
     public final double getSample(final double pixelX, final double pixelY) throws Exception {
         final int tileXIndex = (int) (pixelX * NUM_PIXELS_PER_TILEinv);
         final int tileYIndex = (int) (pixelY * NUM_PIXELS_PER_TILEinv);
-        final ElevationTile tile = elevationFiles[tileXIndex][tileYIndex].getTile();
+        final ElevationTile tile = getTile(tileXIndex, tileYIndex);
         if (tile == null) {
             return Double.NaN;
         }
@@ -158,7 +187,7 @@ public abstract class BaseElevationModel implements ElevationModel, Resampling.R
             for (int x : xArray) {
                 final int tileXIndex = (int) (x * NUM_PIXELS_PER_TILEinv);
 
-                final ElevationTile tile = elevationFiles[tileXIndex][tileYIndex].getTile();
+                final ElevationTile tile = getTile(tileXIndex, tileYIndex);
                 if (tile == null) {
                     samples[i][j] = Double.NaN;
                     allValid = false;
@@ -178,6 +207,24 @@ public abstract class BaseElevationModel implements ElevationModel, Resampling.R
         return allValid;
     }
 
+    private ElevationTile getTile(final int tileXIndex, final int tileYIndex) throws IOException {
+        final ElevationFile elevationFile = elevationFiles[tileXIndex][tileYIndex];
+        if (storedTiles != null) {
+            // the stored tiles are shared by all models, a race only looks up the same tile twice
+            ElevationTile tile = storedTiles[tileXIndex][tileYIndex];
+            if (tile == null && !storedTilesLookedUp[tileXIndex][tileYIndex]) {
+                tile = tileStore.getTile(descriptor, geoidCorrected, tileXIndex, tileYIndex, NUM_PIXELS_PER_TILE,
+                                         elevationFile::getTile);
+                storedTiles[tileXIndex][tileYIndex] = tile;
+                storedTilesLookedUp[tileXIndex][tileYIndex] = true;
+            }
+            if (tile != null) {
+                return tile;
+            }
+        }
+        return elevationFile.getTile();
+    }
+
     public void dispose() {
         synchronized (elevationTileCache) {
             for (ElevationTile tile : elevationTileCache) {
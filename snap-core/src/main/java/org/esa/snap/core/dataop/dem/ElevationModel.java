@@ -41,6 +41,24 @@ public interface ElevationModel {
      */
     double getElevation(GeoPos geoPos) throws Exception;
 
+    /**
+     * Gets the elevations at many geographical coordinates in meters. The default implementation calls
+     * {@link #getElevation(GeoPos)} for each coordinate.
+     *
+     * @param lats       the latitudes of the coordinates
+     * @param lons       the longitudes of the coordinates
+     * @param elevations receives the elevations in meters, or the special value returned by {@link ElevationModelDescriptor#getNoDataValue()} if an elevation is not available
+     * @throws Exception if a non-runtime error occurs, e.g I/O error
+     * @since SNAP 8
+     */
+    default void getElevations(double[] lats, double[] lons, double[] elevations) throws Exception {
+        final GeoPos geoPos = new GeoPos();
+        for (int i = 0; i < lats.length; i++) {
+            geoPos.setLocation(lats[i], lons[i]);
+            elevations[i] = getElevation(geoPos);
+        }
+    }
+
     /**
      * Gets the pixel index in the DEM reference system at the geographical coordinate in meters.
      *
@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.core.dataop.dem;
+
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.runtime.Config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Level;
+
+/**
+ * A persistent store of DEM tiles on the local disk. A tile is converted once from the source files of its DEM into
+ * a file of float samples, which already contain the geoid correction, and is memory-mapped afterwards. The mapped
+ * tiles are shared by all elevation models and threads of the JVM, so a tile is neither decoded again nor corrected
+ * again for another model of the same DEM, nor by another run.
+ * <p>
+ * The store is enabled with the {@code snap.dem.tileStore.enabled} preference. Its directory is set with the
+ * {@code snap.dem.tileStore.dir} preference and defaults to the folder {@code dem-tiles} in the SNAP cache directory.
+ * Mapped tiles are kept until the JVM exits.
+ *
+ * @since SNAP 8
+ */
+public class ElevationTileStore {
+
+    public static final String PROPERTY_KEY_ENABLED = "snap.dem.tileStore.enabled";
+    public static final String PROPERTY_KEY_DIR = "snap.dem.tileStore.dir";
+
+    static final String FILE_EXTENSION = ".dem";
+    private static final int MAGIC = 0x44454d31; // "DEM1"
+    private static final int HEADER_SIZE = 16;
+
+    private static ElevationTileStore instance;
+
+    private final Path storeDir;
+    private final Map<String, FutureTask<ElevationTile>> tiles;
+
+    ElevationTileStore(Path storeDir) {
+        this.storeDir = storeDir;
+        this.tiles = new HashMap<>();
+    }
+
+    /**
+     * Returns the store of the JVM.
+     *
+     * @return the store or {@code null} if the store is not enabled
+     */
+    public static synchronized ElevationTileStore getInstance() {
+        if (instance == null && Config.instance().preferences().getBoolean(PROPERTY_KEY_ENABLED, false)) {
+            final String storeDirPath = Config.instance().preferences().get(PROPERTY_KEY_DIR, null);
+            final Path storeDir = storeDirPath != null ? Paths.get(storeDirPath) : SystemUtils.getCacheDir().toPath().resolve("dem-tiles");
+            instance = new ElevationTileStore(storeDir);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a stored tile, converting it from the source tile if it has not been stored yet.
+     *
+     * @param descriptor     the descriptor of the DEM
+     * @param geoidCorrected whether the samples of the source tiles are corrected by the geoid
+     * @param tileX          the x index of the tile
+     * @param tileY          the y index of the tile
+     * @param tileSize       the width and height of the tile in pixels
+     * @param source         provides the source tile
+     * @return the stored tile or {@code null} if there is no source tile or the tile cannot be stored
+     */
+    public ElevationTile getTile(ElevationModelDescriptor descriptor, boolean geoidCorrected, int tileX, int tileY,
+                                 int tileSize, TileSource source) {
+        final Path tileFile = getTileFile(descriptor, geoidCorrected, tileX, tileY);
+        final String key = tileFile.toString();
+        FutureTask<ElevationTile> entry;
+        boolean loadHere = false;
+        synchronized (this) {
+            entry = tiles.get(key);
+            if (entry == null) {
+                entry = new FutureTask<>(() -> loadTile(tileFile, tileSize, descriptor.getNoDataValue(), source));
+                tiles.put(key, entry);
+                loadHere = true;
+            }
+        }
+        if (loadHere) {
+            entry.run();
+        }
+        try {
+            // a missing or failed tile is remembered as null, the models then read the source tile
+            return entry.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            SystemUtils.LOG.log(Level.WARNING, "Failed to store the DEM tile " + tileFile + ".", e.getCause());
+            return null;
+        }
+    }
+
+    Path getTileFile(ElevationModelDescriptor descriptor, boolean geoidCorrected, int tileX, int tileY) {
+        final String demDirName = descriptor.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        return storeDir.resolve(demDirName)
+                .resolve(geoidCorrected ? "egm96" : "raw")
+                .resolve(tileX + "_" + tileY + FILE_EXTENSION);
+    }
+
+    private static ElevationTile loadTile(Path tileFile, int tileSize, float noDataValue, TileSource source) throws Exception {
+        if ((long) tileSize * tileSize * Float.BYTES > Integer.MAX_VALUE) {
+            return null;
+        }
+        if (Files.isRegularFile(tileFile)) {
+            final ElevationTile tile = mapTile(tileFile, tileSize);
+            if (tile != null) {
+                return tile;
+            }
+        }
+        final ElevationTile sourceTile = source.getTile();
+        if (sourceTile == null) {
+            return null;
+        }
+        try {
+            writeTile(tileFile, sourceTile, tileSize, noDataValue);
+        } finally {
+            // the source samples are not needed anymore, they are read from the stored tile
+            sourceTile.clearCache();
+        }
+        return mapTile(tileFile, tileSize);
+    }
+
+    static void writeTile(Path tileFile, ElevationTile sourceTile, int tileSize, float noDataValue) throws Exception {
+        Files.createDirectories(tileFile.getParent());
+        // the tile is written to a temporary file first, so that other processes never map a partial tile
+        final Path tempFile = Files.createTempFile(tileFile.getParent(), tileFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(tileSize).putInt(tileSize).putFloat(noDataValue).flip();
+                writeFully(channel, header);
+                final ByteBuffer line = ByteBuffer.allocate(tileSize * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (int y = 0; y < tileSize; y++) {
+                    line.clear();
+                    for (int x = 0; x < tileSize; x++) {
+                        line.putFloat(sourceTile.getSample(x, y));
+                    }
+                    line.flip();
+                    writeFully(channel, line);
+                }
+            }
+            try {
+                Files.move(tempFile, tileFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, tileFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    static ElevationTile mapTile(Path tileFile, int tileSize) throws IOException {
+        final long dataSize = (long) tileSize * tileSize * Float.BYTES;
+        try (FileChannel channel = FileChannel.open(tileFile, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + dataSize) {
+                return null;
+            }
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != tileSize || header.getInt() != tileSize) {
+                return null;
+            }
+            // the mapping stays valid after the channel is closed
+            final FloatBuffer samples = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, dataSize)
+                    .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            return new StoredElevationTile(samples, tileSize);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Provides the source tile of a stored tile.
+     */
+    public interface TileSource {
+
+        /**
+         * @return the source tile or {@code null} if there is no source tile
+         * @throws IOException if the source tile cannot be read
+         */
+        ElevationTile getTile() throws IOException;
+    }
+
+    /**
+     * A memory-mapped tile. It is shared and immutable, so clearing and disposing it has no effect.
+     */
+    private static final class StoredElevationTile implements ElevationTile {
+
+        private final FloatBuffer samples;
+        private final int width;
+
+        private StoredElevationTile(FloatBuffer samples, int width) {
+            this.samples = samples;
+            this.width = width;
+        }
+
+        @Override
+        public float getSample(int pixelX, int pixelY) {
+            return samples.get(pixelY * width + pixelX);
+        }
+
+        @Override
+        public void clearCache() {
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
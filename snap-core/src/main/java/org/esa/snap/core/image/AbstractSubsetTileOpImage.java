@@ -1,5 +1,6 @@
 package org.esa.snap.core.image;
 
+import com.bc.ceres.jai.tilescheduler.IoBoundImage;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.util.ImageUtils;
 import org.esa.snap.core.util.jai.JAIUtils;
@@ -15,7 +16,7 @@ import java.awt.image.*;
 /**
  * Created by jcoravu on 11/12/2019.
  */
-public abstract class AbstractSubsetTileOpImage extends SourcelessOpImage {
+public abstract class AbstractSubsetTileOpImage extends SourcelessOpImage implements IoBoundImage {
 
     private final ImageReadBoundsSupport imageBoundsSupport;
     private final int levelTileOffsetFromReadBoundsX;
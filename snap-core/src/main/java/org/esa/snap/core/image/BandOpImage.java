@@ -18,6 +18,7 @@ package org.esa.snap.core.image;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.glevel.MultiLevelImage;
+import com.bc.ceres.jai.tilescheduler.IoBoundImage;
 import org.esa.snap.core.dataio.AbstractProductReader;
 import org.esa.snap.core.dataio.ProductIO;
 import org.esa.snap.core.datamodel.Band;
@@ -38,7 +39,7 @@ import java.util.Objects;
  * An {@code OpImage} which retrieves its data from the product reader associated with the
  * given {@code RasterDataNode} at a given pyramid level.
  */
-public class BandOpImage extends RasterDataNodeOpImage {
+public class BandOpImage extends RasterDataNodeOpImage implements IoBoundImage {
 
     public static boolean prefetchTiles;
 
@@ -17,6 +17,7 @@
 package org.esa.snap.core.image;
 
 import com.bc.ceres.core.VirtualDir;
+import com.bc.ceres.jai.tilescheduler.IoBoundImage;
 import com.sun.media.jai.codec.SeekableStream;
 import org.esa.snap.core.util.io.FileUtils;
 
@@ -52,7 +53,7 @@ import java.util.Properties;
 import java.util.stream.Stream;
 
 
-public class TiledFileOpImage extends SourcelessOpImage {
+public class TiledFileOpImage extends SourcelessOpImage implements IoBoundImage {
 
     private Path imageDir;
     private ImageInputStreamFactory inputStreamFactory;
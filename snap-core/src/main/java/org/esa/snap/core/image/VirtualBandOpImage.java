@@ -22,9 +22,11 @@ import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.RasterDataNode;
 import org.esa.snap.core.dataop.barithm.BandArithmetic;
+import org.esa.snap.core.dataop.barithm.CompiledTerm;
 import org.esa.snap.core.dataop.barithm.RasterDataEvalEnv;
 import org.esa.snap.core.dataop.barithm.RasterDataSymbol;
 import org.esa.snap.core.dataop.barithm.RasterDataSymbolReplacer;
+import org.esa.snap.core.dataop.barithm.TermCompiler;
 import org.esa.snap.core.jexp.ParseException;
 import org.esa.snap.core.jexp.Term;
 import org.esa.snap.core.jexp.impl.TermDecompiler;
@@ -262,6 +264,14 @@ public class VirtualBandOpImage extends SingleBandedOpImage {
                                                             colCount, rowCount,
                                                             getLevelImageSupport());
 
+        if (TermCompiler.isEnabled()) {
+            final CompiledTerm compiledTerm = TermCompiler.getInstance().compile(effectiveTerm, dataType, mask, fillValue != null);
+            if (compiledTerm != null) {
+                compiledTerm.eval(env, productData, w * y + x, w, fillValue != null ? fillValue.doubleValue() : Double.NaN);
+                return;
+            }
+        }
+
         if (mask) {
             for (int i = 0, k = w * y; i < pixelCount; i += colCount, k += w) {
                 for (int j = 0, l = x; j < colCount; j++, l++) {
@@ -271,10 +281,12 @@ public class VirtualBandOpImage extends SingleBandedOpImage {
             }
         } else if (fillValue != null) {
             final double fv = fillValue.doubleValue();
+            final double[] values = new double[colCount];
             for (int i = 0, k = w * y; i < pixelCount; i += colCount, k += w) {
+                env.setElemIndex(i);
+                effectiveTerm.evalD(env, values, 0, colCount);
                 for (int j = 0, l = x; j < colCount; j++, l++) {
-                    env.setElemIndex(i + j);
-                    final double v = effectiveTerm.evalD(env);
+                    final double v = values[j];
                     if (Double.isNaN(v) || Double.isInfinite(v)) {
                         productData.setElemDoubleAt(k + l, fv);
                     } else {
@@ -283,10 +295,12 @@ public class VirtualBandOpImage extends SingleBandedOpImage {
                 }
             }
         } else {
+            final double[] values = new double[colCount];
             for (int i = 0, k = w * y; i < pixelCount; i += colCount, k += w) {
+                env.setElemIndex(i);
+                effectiveTerm.evalD(env, values, 0, colCount);
                 for (int j = 0, l = x; j < colCount; j++, l++) {
-                    env.setElemIndex(i + j);
-                    productData.setElemDoubleAt(k + l, effectiveTerm.evalD(env));
+                    productData.setElemDoubleAt(k + l, values[j]);
                 }
             }
         }
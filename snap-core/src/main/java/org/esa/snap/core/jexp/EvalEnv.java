@@ -18,8 +18,8 @@ package org.esa.snap.core.jexp;
 
 /**
  * Represents an application dependant evaluation environment.
- * This interface has no operation. It is up to application
- * how it is to be interpreted.
+ * Apart from the index of the current data element, this interface has no operation.
+ * It is up to application how it is to be interpreted.
  *
  * <p>An object of this type is passed to the <code>eval</code>X methods
  * of the <code>{@link org.esa.snap.core.jexp.Term}</code> class. Special implementations
@@ -31,4 +31,48 @@ package org.esa.snap.core.jexp;
  */
 public interface EvalEnv {
 
+    /**
+     * Gets the index of the current data element. Used by the block evaluation methods such as
+     * {@link Term#evalD(EvalEnv, double[], int, int)} which evaluate consecutive data elements.
+     * The default implementation returns zero.
+     *
+     * @return the index of the current data element
+     * @since SNAP 8
+     */
+    default int getElemIndex() {
+        return 0;
+    }
+
+    /**
+     * Sets the index of the current data element. The default implementation does nothing,
+     * it is suitable for environments which do not distinguish data elements.
+     *
+     * @param elemIndex the index of the current data element
+     * @since SNAP 8
+     */
+    default void setElemIndex(int elemIndex) {
+    }
+
+    /**
+     * Gets a temporary buffer for the block evaluation methods such as {@link Term#evalD(EvalEnv, double[], int, int)}.
+     * Buffers must be released by {@link #releaseBuffer(double[])} in the reverse order of their acquisition.
+     * The default implementation creates a new buffer.
+     *
+     * @param length the minimum length of the buffer
+     * @return the buffer, its content is undefined
+     * @since SNAP 8
+     */
+    default double[] acquireBuffer(int length) {
+        return new double[length];
+    }
+
+    /**
+     * Releases a buffer obtained from {@link #acquireBuffer(int)}, so that it can be reused.
+     * The default implementation does nothing.
+     *
+     * @param buffer the buffer
+     * @since SNAP 8
+     */
+    default void releaseBuffer(double[] buffer) {
+    }
 }
@@ -66,6 +66,30 @@ public interface Symbol {
      */
     double evalD(EvalEnv env) throws EvalException;
 
+    /**
+     * Evaluates this symbol to <code>double</code> values for a block of consecutive data elements,
+     * starting at the {@link EvalEnv#getElemIndex() current element} of the given environment.
+     * The current element of the environment is the same before and after the call.
+     * <p>The default implementation calls {@link #evalD(EvalEnv)} for each element.
+     * @param env the application dependant environment.
+     * @param out the array receiving the values
+     * @param offset the index of the first value in <code>out</code>
+     * @param length the number of elements to be evaluated
+     * @throws EvalException if the evaluation fails
+     * @since SNAP 8
+     */
+    default void evalD(EvalEnv env, double[] out, int offset, int length) throws EvalException {
+        final int elemIndex = env.getElemIndex();
+        try {
+            for (int i = 0; i < length; i++) {
+                env.setElemIndex(elemIndex + i);
+                out[offset + i] = evalD(env);
+            }
+        } finally {
+            env.setElemIndex(elemIndex);
+        }
+    }
+
     /**
      * Evaluates this symbol to a <code>String</code> value.
      * @param env the application dependant environment.
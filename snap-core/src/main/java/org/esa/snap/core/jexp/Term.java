@@ -16,6 +16,7 @@
 
 package org.esa.snap.core.jexp;
 
+import java.util.Arrays;
 
 /**
  * The abstract <code>Term</code> class is an in-memory representation of an
@@ -104,6 +105,32 @@ public abstract class Term {
      */
     public abstract double evalD(EvalEnv env);
 
+    /**
+     * Evaluates this term to <code>double</code> values for a block of consecutive data elements,
+     * starting at the {@link EvalEnv#getElemIndex() current element} of the given environment.
+     * The current element of the environment is the same before and after the call.
+     * <p>The default implementation calls {@link #evalD(EvalEnv)} for each element. Subclasses may override
+     * in order to process the whole block at once.
+     *
+     * @param env    the application dependant environment.
+     * @param out    the array receiving the values
+     * @param offset the index of the first value in <code>out</code>
+     * @param length the number of elements to be evaluated
+     * @throws EvalException if the evaluation fails
+     * @since SNAP 8
+     */
+    public void evalD(EvalEnv env, double[] out, int offset, int length) {
+        final int elemIndex = env.getElemIndex();
+        try {
+            for (int i = 0; i < length; i++) {
+                env.setElemIndex(elemIndex + i);
+                out[offset + i] = evalD(env);
+            }
+        } finally {
+            env.setElemIndex(elemIndex);
+        }
+    }
+
     /**
      * Visitor support.
      *
@@ -325,6 +352,11 @@ public abstract class Term {
 
         protected abstract double toD();
 
+        @Override
+        public void evalD(final EvalEnv env, final double[] out, final int offset, final int length) {
+            Arrays.fill(out, offset, offset + length, toD());
+        }
+
         @Override
         public String evalS(final EvalEnv env) {
             return toS();
@@ -672,6 +704,11 @@ public abstract class Term {
             return symbol.evalD(env);
         }
 
+        @Override
+        public void evalD(final EvalEnv env, final double[] out, final int offset, final int length) {
+            symbol.evalD(env, out, offset, length);
+        }
+
         @Override
         public String evalS(EvalEnv env) {
             return symbol.evalS(env);
@@ -1393,6 +1430,14 @@ public abstract class Term {
             return -arg.evalD(env);
         }
 
+        @Override
+        public void evalD(final EvalEnv env, final double[] out, final int offset, final int length) {
+            arg.evalD(env, out, offset, length);
+            for (int i = offset; i < offset + length; i++) {
+                out[i] = -out[i];
+            }
+        }
+
         @Override
         public <T> T accept(TermVisitor<T> visitor) {
             return visitor.visit(this);
@@ -1429,6 +1474,20 @@ public abstract class Term {
             return arg1.evalD(env) + arg2.evalD(env);
         }
 
+        @Override
+        public void evalD(final EvalEnv env, final double[] out, final int offset, final int length) {
+            final double[] values2 = env.acquireBuffer(length);
+            try {
+                arg1.evalD(env, out, offset, length);
+                arg2.evalD(env, values2, 0, length);
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] += values2[i];
+                }
+            } finally {
+                env.releaseBuffer(values2);
+            }
+        }
+
         @Override
         public <T> T accept(TermVisitor<T> visitor) {
             return visitor.visit(this);
@@ -1468,6 +1527,20 @@ public abstract class Term {
             return arg1.evalD(env) - arg2.evalD(env);
         }
 
+        @Override
+        public void evalD(final EvalEnv env, final double[] out, final int offset, final int length) {
+            final double[] values2 = env.acquireBuffer(length);
+            try {
+                arg1.evalD(env, out, offset, length);
+                arg2.evalD(env, values2, 0, length);
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] -= values2[i];
+                }
+            } finally {
+                env.releaseBuffer(values2);
+            }
+        }
+
         @Override
         public <T> T accept(TermVisitor<T> visitor) {
             return visitor.visit(this);
@@ -1507,6 +1580,20 @@ public abstract class Term {
             return arg1.evalD(env) * arg2.evalD(env);
         }
 
+        @Override
+        public void evalD(final EvalEnv env, final double[] out, final int offset, final int length) {
+            final double[] values2 = env.acquireBuffer(length);
+            try {
+                arg1.evalD(env, out, offset, length);
+                arg2.evalD(env, values2, 0, length);
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] *= values2[i];
+                }
+            } finally {
+                env.releaseBuffer(values2);
+            }
+        }
+
         @Override
         public <T> T accept(TermVisitor<T> visitor) {
             return visitor.visit(this);
@@ -1546,6 +1633,20 @@ public abstract class Term {
             return arg1.evalD(env) / arg2.evalD(env);
         }
 
+        @Override
+        public void evalD(final EvalEnv env, final double[] out, final int offset, final int length) {
+            final double[] values2 = env.acquireBuffer(length);
+            try {
+                arg1.evalD(env, out, offset, length);
+                arg2.evalD(env, values2, 0, length);
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] /= values2[i];
+                }
+            } finally {
+                env.releaseBuffer(values2);
+            }
+        }
+
         @Override
         public <T> T accept(TermVisitor<T> visitor) {
             return visitor.visit(this);
@@ -1585,6 +1686,20 @@ public abstract class Term {
             return arg1.evalD(env) % arg2.evalD(env);
         }
 
+        @Override
+        public void evalD(final EvalEnv env, final double[] out, final int offset, final int length) {
+            final double[] values2 = env.acquireBuffer(length);
+            try {
+                arg1.evalD(env, out, offset, length);
+                arg2.evalD(env, values2, 0, length);
+                for (int i = 0; i < length; i++) {
+                    out[offset + i] %= values2[i];
+                }
+            } finally {
+                env.releaseBuffer(values2);
+            }
+        }
+
         @Override
         public <T> T accept(TermVisitor<T> visitor) {
             return visitor.visit(this);
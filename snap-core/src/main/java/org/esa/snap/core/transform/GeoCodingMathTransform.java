@@ -150,18 +150,23 @@ public class GeoCodingMathTransform extends AbstractMathTransform implements Mat
                               double[] dstPts, int dstOff,
                               int numPts) throws TransformException {
             try {
-                GeoPos geoPos = new GeoPos();
-                PixelPos pixelPos = new PixelPos();
+                // the points are located as a batch, which lets the geo-coding exploit their spatial coherence
+                final double[] lons = new double[numPts];
+                final double[] lats = new double[numPts];
                 for (int i = 0; i < numPts; i++) {
                     final int firstIndex = (DIMS * i);
-                    final int secondIndex = firstIndex + 1;
-                    geoPos.lon = srcPts[srcOff + firstIndex];
-                    geoPos.lat = srcPts[srcOff + secondIndex];
+                    lons[i] = srcPts[srcOff + firstIndex];
+                    lats[i] = srcPts[srcOff + firstIndex + 1];
+                }
 
-                    geoCoding.getPixelPos(geoPos, pixelPos);
+                final double[] pixelX = new double[numPts];
+                final double[] pixelY = new double[numPts];
+                geoCoding.getPixelPos(lons, lats, pixelX, pixelY);
 
-                    dstPts[dstOff + firstIndex] = pixelPos.x;
-                    dstPts[dstOff + secondIndex] = pixelPos.y;
+                for (int i = 0; i < numPts; i++) {
+                    final int firstIndex = (DIMS * i);
+                    dstPts[dstOff + firstIndex] = pixelX[i];
+                    dstPts[dstOff + firstIndex + 1] = pixelY[i];
                 }
             } catch (Exception e) {
                 final TransformException transformException = new TransformException();
@@ -1670,7 +1670,9 @@ public class ProductUtils {
         final int maxX = minX + destArea.width - 1;
         final int maxY = minY + destArea.height - 1;
 
-        final PixelPos[] pixelCoords = new PixelPos[destArea.width * destArea.height];
+        final int numCoords = destArea.width * destArea.height;
+        final double[] lons = new double[numCoords];
+        final double[] lats = new double[numCoords];
         final GeoPos geoPos = new GeoPos();
         final PixelPos pixelPos = new PixelPos();
 
@@ -1680,16 +1682,24 @@ public class ProductUtils {
                 pixelPos.x = x + 0.5;
                 pixelPos.y = y + 0.5;
                 destGeoCoding.getGeoPos(pixelPos, geoPos);
-                sourceGeoCoding.getPixelPos(geoPos, pixelPos);
-                if (pixelPos.x >= 0.0 && pixelPos.x < sourceWidth
-                        && pixelPos.y >= 0.0 && pixelPos.y < sourceHeight) {
-                    pixelCoords[coordIndex] = new PixelPos(pixelPos.x, pixelPos.y);
-                } else {
-                    pixelCoords[coordIndex] = null;
-                }
+                lons[coordIndex] = geoPos.lon;
+                lats[coordIndex] = geoPos.lat;
                 coordIndex++;
             }
         }
+
+        // the grid of positions is located as a batch, which lets the geo-coding exploit its spatial coherence
+        final double[] pixelX = new double[numCoords];
+        final double[] pixelY = new double[numCoords];
+        sourceGeoCoding.getPixelPos(lons, lats, pixelX, pixelY);
+
+        final PixelPos[] pixelCoords = new PixelPos[numCoords];
+        for (int i = 0; i < numCoords; i++) {
+            if (pixelX[i] >= 0.0 && pixelX[i] < sourceWidth
+                    && pixelY[i] >= 0.0 && pixelY[i] < sourceHeight) {
+                pixelCoords[i] = new PixelPos(pixelX[i], pixelY[i]);
+            }
+        }
         return pixelCoords;
     }
 
@@ -30,6 +30,7 @@ import org.esa.snap.core.datamodel.RasterDataNode;
 import org.esa.snap.core.datamodel.TiePointGrid;
 import org.esa.snap.core.util.ObjectUtils;
 import org.esa.snap.core.util.BeamConstants;
+import org.esa.snap.runtime.Config;
 
 import java.awt.geom.AffineTransform;
 import java.io.File;
@@ -97,6 +98,22 @@ public class DimapWriteAndReadTest extends TestCase {
         assertEquals("", compareProducts(_product, currentProduct));
     }
 
+    public void testWriteAndReadProductNodes_withMappedFiles() throws IOException {
+        final File file = new File(_ioDir, "testproduct" + DimapProductConstants.DIMAP_HEADER_FILE_EXTENSION);
+        _writer.writeProductNodes(_product, file);
+        writeAllBandRasterDataFully();
+
+        Config.instance().preferences().putBoolean("snap.dataio.reader.dimap.useMappedFiles", true);
+        try {
+            _reader = new DimapProductReader(_readerPlugIn);
+        } finally {
+            Config.instance().preferences().remove("snap.dataio.reader.dimap.useMappedFiles");
+        }
+        Product currentProduct = _reader.readProductNodes(file, null);
+
+        assertEquals("", compareProducts(_product, currentProduct));
+    }
+
 ///////////////////////////////////////////////////////////////////////////////////////////
 ///////////////////           E N D     O F     P U B L I C              //////////////////
 ///////////////////////////////////////////////////////////////////////////////////////////
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.core.dataio.dimap;
+
+import org.esa.snap.core.datamodel.ProductData;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class MappedBandFileTest {
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("MappedBandFileTest", ".img");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testReadAcrossWindows() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < 100; i++) {
+                out.writeShort(i - 50);
+            }
+        }
+
+        // a window holds 8 shorts, so most reads span several windows
+        try (MappedBandFile mappedFile = new MappedBandFile(file, ProductData.TYPE_INT16, 16)) {
+            final ProductData data = ProductData.createInstance(ProductData.TYPE_INT16, 40);
+            mappedFile.read(5, data, 2, 30);
+            for (int i = 0; i < 30; i++) {
+                assertEquals(5 + i - 50, data.getElemIntAt(2 + i));
+            }
+
+            mappedFile.readStrided(3, 7, data, 0, 14);
+            for (int i = 0; i < 14; i++) {
+                assertEquals(3 + 7 * i - 50, data.getElemIntAt(i));
+            }
+        }
+    }
+
+    @Test
+    public void testReadAllTypes() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < 16; i++) {
+                out.writeDouble(i + 0.5);
+            }
+        }
+
+        try (MappedBandFile mappedFile = new MappedBandFile(file, ProductData.TYPE_FLOAT64, 64)) {
+            final ProductData data = ProductData.createInstance(ProductData.TYPE_FLOAT64, 4);
+            mappedFile.readStrided(1, 4, data, 0, 4);
+            assertArrayEquals(new double[]{1.5, 5.5, 9.5, 13.5}, (double[]) data.getElems(), 0.0);
+        }
+        try (MappedBandFile mappedFile = new MappedBandFile(file, ProductData.TYPE_UINT8)) {
+            final ProductData data = ProductData.createInstance(ProductData.TYPE_UINT8, 8);
+            mappedFile.read(0, data, 0, 8);
+            // the big endian bytes of 0.5
+            assertEquals(0x3f, data.getElemIntAt(0));
+            assertEquals(0xe0, data.getElemIntAt(1));
+        }
+        try (MappedBandFile mappedFile = new MappedBandFile(file, ProductData.TYPE_INT64, 32)) {
+            final ProductData data = ProductData.createInstance(ProductData.TYPE_INT64, 3);
+            mappedFile.read(13, data, 0, 3);
+            assertEquals(Double.doubleToLongBits(13.5), data.getElemLongAt(0));
+            assertEquals(Double.doubleToLongBits(15.5), data.getElemLongAt(2));
+        }
+    }
+
+    @Test
+    public void testReadBeyondEndOfFile() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < 10; i++) {
+                out.writeFloat(i);
+            }
+        }
+
+        try (MappedBandFile mappedFile = new MappedBandFile(file, ProductData.TYPE_FLOAT32)) {
+            final ProductData data = ProductData.createInstance(ProductData.TYPE_FLOAT32, 12);
+            mappedFile.read(0, data, 0, 10);
+            assertEquals(9.0f, data.getElemFloatAt(9), 0.0f);
+            try {
+                mappedFile.read(0, data, 0, 12);
+                fail("EOFException expected");
+            } catch (EOFException expected) {
+                // ok
+            }
+
+            // the file has been extended after the window was mapped
+            try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+                out.writeFloat(10);
+                out.writeFloat(11);
+            }
+            mappedFile.read(0, data, 0, 12);
+            assertEquals(11.0f, data.getElemFloatAt(11), 0.0f);
+        }
+    }
+}
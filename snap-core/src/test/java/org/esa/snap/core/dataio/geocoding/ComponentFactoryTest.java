@@ -4,6 +4,7 @@ import org.esa.snap.core.dataio.geocoding.forward.PixelForward;
 import org.esa.snap.core.dataio.geocoding.forward.PixelInterpolatingForward;
 import org.esa.snap.core.dataio.geocoding.forward.TiePointBilinearForward;
 import org.esa.snap.core.dataio.geocoding.forward.TiePointSplineForward;
+import org.esa.snap.core.dataio.geocoding.inverse.PixelCompactGeoIndexInverse;
 import org.esa.snap.core.dataio.geocoding.inverse.PixelGeoIndexInverse;
 import org.esa.snap.core.dataio.geocoding.inverse.PixelQuadTreeInverse;
 import org.esa.snap.core.dataio.geocoding.inverse.TiePointInverse;
@@ -52,6 +53,12 @@ public class ComponentFactoryTest {
         inverseCoding = ComponentFactory.getInverse("INV_PIXEL_GEO_INDEX_INTERPOLATING");
         assertTrue(inverseCoding instanceof PixelGeoIndexInverse);
 
+        inverseCoding = ComponentFactory.getInverse("INV_PIXEL_COMPACT_GEO_INDEX");
+        assertTrue(inverseCoding instanceof PixelCompactGeoIndexInverse);
+
+        inverseCoding = ComponentFactory.getInverse("INV_PIXEL_COMPACT_GEO_INDEX_INTERPOLATING");
+        assertTrue(inverseCoding instanceof PixelCompactGeoIndexInverse);
+
         inverseCoding = ComponentFactory.getInverse("INV_TIE_POINT");
         assertTrue(inverseCoding instanceof TiePointInverse);
     }
@@ -198,6 +198,45 @@ public class ComponentGeoCodingTest {
         verifyNoMoreInteractions(inverseCoding);
     }
 
+    @Test
+    public void testGetPixelPos_batch_noInverseCoding() {
+        final ComponentGeoCoding geoCoding = new ComponentGeoCoding(null, null, null);
+
+        final double[] pixelX = new double[2];
+        final double[] pixelY = new double[2];
+        geoCoding.getPixelPos(new double[]{28.243, 28.3}, new double[]{4.09, 4.1}, pixelX, pixelY);
+        assertEquals(Double.NaN, pixelX[0], 1e-8);
+        assertEquals(Double.NaN, pixelY[1], 1e-8);
+    }
+
+    @Test
+    public void testGetPixelPos_batch_parallel() {
+        final GeoRaster geoRaster = TestData.get_OLCI();
+        final InverseCoding inverse = ComponentFactory.getInverse("INV_PIXEL_GEO_INDEX");
+        inverse.initialize(geoRaster, false, new PixelPos[0]);
+        final ComponentGeoCoding geoCoding = new ComponentGeoCoding(geoRaster, null, inverse);
+
+        // large enough to be split into several chunks
+        final double[] longitudes = geoRaster.getLongitudes();
+        final double[] latitudes = geoRaster.getLatitudes();
+        final int numPositions = 50000;
+        final double[] lons = new double[numPositions];
+        final double[] lats = new double[numPositions];
+        for (int i = 0; i < numPositions; i++) {
+            lons[i] = longitudes[i % longitudes.length] + 0.0001;
+            lats[i] = latitudes[i % latitudes.length] - 0.0001;
+        }
+        final double[] pixelX = new double[numPositions];
+        final double[] pixelY = new double[numPositions];
+        geoCoding.getPixelPos(lons, lats, pixelX, pixelY);
+
+        for (int i = 0; i < numPositions; i += 7) {
+            final PixelPos expected = geoCoding.getPixelPos(new GeoPos(lats[i], lons[i]), null);
+            assertEquals(expected.x, pixelX[i], 1e-8);
+            assertEquals(expected.y, pixelY[i], 1e-8);
+        }
+    }
+
     @Test
     public void testGetImageToMapTransform_default() {
         final ComponentGeoCoding geoCoding = new ComponentGeoCoding(null, null, null);
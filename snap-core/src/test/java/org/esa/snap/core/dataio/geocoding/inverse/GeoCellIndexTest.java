@@ -0,0 +1,64 @@
+package org.esa.snap.core.dataio.geocoding.inverse;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GeoCellIndexTest {
+
+    @Test
+    public void testExtendAndFind() {
+        final GeoCellIndex index = new GeoCellIndex();
+        assertEquals(-1, index.find(12L));
+
+        index.extend(12L, 100, 200);
+        final int region = index.find(12L);
+        assertEquals(0, region);
+        assertTrue(index.isPoint(region));
+
+        index.extend(12L, 98, 202);
+        index.extend(12L, 101, 199);
+        assertEquals(98, index.getMinX(region));
+        assertEquals(101, index.getMaxX(region));
+        assertEquals(199, index.getMinY(region));
+        assertEquals(202, index.getMaxY(region));
+        assertFalse(index.isPoint(region));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void testGrowth() {
+        final GeoCellIndex index = new GeoCellIndex(4);
+        for (int i = 0; i < 10000; i++) {
+            index.extend(100000L * i + 17, i, 2 * i);
+        }
+        assertEquals(10000, index.size());
+        for (int i = 0; i < 10000; i++) {
+            final int region = index.find(100000L * i + 17);
+            assertEquals(i, index.getMinX(region));
+            assertEquals(2 * i, index.getMinY(region));
+        }
+        assertEquals(-1, index.find(16L));
+    }
+
+    @Test
+    public void testMerge() {
+        final GeoCellIndex index = new GeoCellIndex();
+        index.extend(1L, 10, 10);
+        index.extend(2L, 20, 20);
+        final GeoCellIndex other = new GeoCellIndex();
+        other.extend(2L, 21, 25);
+        other.extend(3L, 30, 30);
+
+        index.merge(other);
+        index.trim();
+
+        assertEquals(3, index.size());
+        final int region = index.find(2L);
+        assertEquals(20, index.getMinX(region));
+        assertEquals(21, index.getMaxX(region));
+        assertEquals(20, index.getMinY(region));
+        assertEquals(25, index.getMaxY(region));
+        assertEquals(30, index.getMinX(index.find(3L)));
+    }
+}
@@ -0,0 +1,212 @@
+package org.esa.snap.core.dataio.geocoding.inverse;
+
+import org.esa.snap.core.dataio.geocoding.GeoRaster;
+import org.esa.snap.core.dataio.geocoding.InverseCoding;
+import org.esa.snap.core.dataio.geocoding.TestData;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PixelCompactGeoIndexInverseTest {
+
+    private PixelCompactGeoIndexInverse inverse;
+
+    @Before
+    public void setUp() {
+        inverse = new PixelCompactGeoIndexInverse(false);
+    }
+
+    @Test
+    public void testGetPixelPos_AMSRE() {
+        final GeoRaster geoRaster = TestData.get_AMSRE();
+
+        inverse.initialize(geoRaster, false, new PixelPos[0]);
+
+        PixelPos pixelPos = inverse.getPixelPos(new GeoPos(-0.9204868, 18.683336), null);
+        assertEquals(0.5, pixelPos.x, 1e-8);
+        assertEquals(0.5, pixelPos.y, 1e-8);
+
+        pixelPos = inverse.getPixelPos(new GeoPos(0.045474913, 17.999533), null);
+        assertEquals(21.5, pixelPos.x, 1e-8);
+        assertEquals(4.5, pixelPos.y, 1e-8);
+
+        pixelPos = inverse.getPixelPos(new GeoPos(1.9302529, 17.523684), null);
+        assertEquals(24.5, pixelPos.x, 1e-8);
+        assertEquals(24.5, pixelPos.y, 1e-8);
+
+        pixelPos = inverse.getPixelPos(new GeoPos(-0.83, 18.54), null);
+        assertEquals(Double.NaN, pixelPos.x, 1e-8);
+        assertEquals(Double.NaN, pixelPos.y, 1e-8);
+    }
+
+    @Test
+    public void testGetPixelPos_OLCI() {
+        final GeoRaster geoRaster = TestData.get_OLCI();
+
+        inverse.initialize(geoRaster, false, new PixelPos[0]);
+
+        PixelPos pixelPos = inverse.getPixelPos(new GeoPos(66.52871, -24.182217), null);
+        assertEquals(0.5, pixelPos.x, 1e-8);
+        assertEquals(0.5, pixelPos.y, 1e-8);
+
+        pixelPos = inverse.getPixelPos(new GeoPos(66.42491, -24.046906), null);
+        assertEquals(31.5, pixelPos.x, 1e-8);
+        assertEquals(35.5, pixelPos.y, 1e-8);
+
+        pixelPos = inverse.getPixelPos(new GeoPos(Double.NaN, -24.046906), null);
+        assertEquals(Double.NaN, pixelPos.x, 1e-8);
+        assertEquals(Double.NaN, pixelPos.y, 1e-8);
+    }
+
+    @Test
+    public void testGetPixelPos_SYN_AOD_fillValues() {
+        final GeoRaster geoRaster = TestData.get_SYN_AOD();
+
+        inverse.initialize(geoRaster, false, new PixelPos[0]);
+
+        PixelPos pixelPos = inverse.getPixelPos(new GeoPos(59.2421, -136.13405), null);
+        assertEquals(9.5, pixelPos.x, 1e-8);
+        assertEquals(1.5, pixelPos.y, 1e-8);
+
+        pixelPos = inverse.getPixelPos(new GeoPos(58.28423, -136.32547), null);
+        assertEquals(9.5, pixelPos.x, 1e-8);
+        assertEquals(26.5, pixelPos.y, 1e-8);
+    }
+
+    @Test
+    public void testGetPixelPos_AMSRE_interpolating() {
+        final GeoRaster geoRaster = TestData.get_AMSRE();
+
+        inverse = new PixelCompactGeoIndexInverse(true);
+        inverse.initialize(geoRaster, false, new PixelPos[0]);
+
+        PixelPos pixelPos = inverse.getPixelPos(new GeoPos(-0.7698271, 18.5773755), null);
+        assertEquals(3.9999678930515468, pixelPos.x, 1e-8);
+        assertEquals(1.0000318067920972, pixelPos.y, 1e-8);
+
+        pixelPos = inverse.getPixelPos(new GeoPos(0.249989, 18.321519), null);
+        assertEquals(6.089020455253739, pixelPos.x, 1e-8);
+        assertEquals(11.728944031938612, pixelPos.y, 1e-8);
+    }
+
+    @Test
+    public void testGetPixelPos_sameAsPixelGeoIndexInverse() {
+        assertSameAsPixelGeoIndexInverse(TestData.get_OLCI(), false);
+        assertSameAsPixelGeoIndexInverse(TestData.get_OLCI(), true);
+        assertSameAsPixelGeoIndexInverse(TestData.get_SYN_AOD(), false);
+        assertSameAsPixelGeoIndexInverse(TestData.get_SYN_AOD(), true);
+        assertSameAsPixelGeoIndexInverse(TestData.get_AMSUB(), true);
+    }
+
+    @Test
+    public void testGetPixelPos_parallelBuild() {
+        final GeoRaster geoRaster = createSwath(300, 1000);
+        assertTrue(PixelCompactGeoIndexInverse.getNumBands(1000) > 1);
+
+        assertSameAsPixelGeoIndexInverse(geoRaster, false);
+    }
+
+    @Test
+    public void testGetNumBands() {
+        assertEquals(0, PixelCompactGeoIndexInverse.getNumBands(0));
+        assertEquals(1, PixelCompactGeoIndexInverse.getNumBands(1));
+        assertEquals(1, PixelCompactGeoIndexInverse.getNumBands(127));
+        assertEquals(2, PixelCompactGeoIndexInverse.getNumBands(128));
+        assertTrue(PixelCompactGeoIndexInverse.getNumBands(1000000) <= 4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    @Test
+    public void testGetKey() {
+        assertEquals("INV_PIXEL_COMPACT_GEO_INDEX", inverse.getKey());
+        assertEquals("INV_PIXEL_COMPACT_GEO_INDEX_INTERPOLATING", new PixelCompactGeoIndexInverse(true).getKey());
+    }
+
+    @Test
+    public void testDispose() {
+        // un-initialized
+        inverse.dispose();
+
+        final GeoRaster geoRaster = TestData.get_AMSRE();
+        inverse.initialize(geoRaster, false, new PixelPos[0]);
+        inverse.dispose();
+    }
+
+    @Test
+    public void testClone_disposeOriginal() {
+        final GeoRaster geoRaster = TestData.get_OLCI();
+
+        inverse.initialize(geoRaster, false, new PixelPos[0]);
+
+        final GeoPos geoPos = new GeoPos(66.51111, -24.15865);
+
+        PixelPos pixelPos = inverse.getPixelPos(geoPos, null);
+        assertEquals(5.5, pixelPos.x, 1e-8);
+        assertEquals(6.5, pixelPos.y, 1e-8);
+
+        final InverseCoding clone = inverse.clone();
+        inverse.dispose();
+
+        pixelPos = clone.getPixelPos(geoPos, null);
+        assertEquals(5.5, pixelPos.x, 1e-8);
+        assertEquals(6.5, pixelPos.y, 1e-8);
+    }
+
+    @Test
+    public void testToIndex_5km() {
+        final GeoRaster geoRaster = new GeoRaster(new double[0], new double[0], null, null, 0, 0,
+                5.0);
+        inverse.initialize(geoRaster, false, new PixelPos[0]);
+
+        assertEquals(120000600L, inverse.toIndex(0.0, 0.0));
+        assertEquals(0L, inverse.toIndex(-180.0, -90.0));
+        assertEquals(110300600L, inverse.toIndex(-14.53, 0.0));
+    }
+
+    @Test
+    public void testPlugin_create() {
+        InverseCoding inverseCoding = new PixelCompactGeoIndexInverse.Plugin(false).create();
+        assertTrue(inverseCoding instanceof PixelCompactGeoIndexInverse);
+
+        inverseCoding = new PixelCompactGeoIndexInverse.Plugin(true).create();
+        assertTrue(inverseCoding instanceof PixelCompactGeoIndexInverse);
+    }
+
+    private static void assertSameAsPixelGeoIndexInverse(GeoRaster geoRaster, boolean interpolating) {
+        final PixelGeoIndexInverse expectedInverse = new PixelGeoIndexInverse(interpolating);
+        expectedInverse.initialize(geoRaster, false, new PixelPos[0]);
+        final PixelCompactGeoIndexInverse actualInverse = new PixelCompactGeoIndexInverse(interpolating);
+        actualInverse.initialize(geoRaster, false, new PixelPos[0]);
+
+        final double[] longitudes = geoRaster.getLongitudes();
+        final double[] latitudes = geoRaster.getLatitudes();
+        int numCompared = 0;
+        for (int i = 0; i < longitudes.length; i += 3) {
+            // slightly off the pixel centres, so that the minimum distance search is involved
+            final GeoPos geoPos = new GeoPos(latitudes[i] + 1e-4, longitudes[i] - 1e-4);
+            final PixelPos expected = expectedInverse.getPixelPos(geoPos, null);
+            final PixelPos actual = actualInverse.getPixelPos(geoPos, null);
+            if (!expected.isValid()) {
+                continue;
+            }
+            numCompared++;
+            assertEquals(expected.x, actual.x, 1e-8);
+            assertEquals(expected.y, actual.y, 1e-8);
+        }
+        assertTrue(numCompared > 0);
+    }
+
+    static GeoRaster createSwath(int width, int height) {
+        final double[] longitudes = new double[width * height];
+        final double[] latitudes = new double[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                longitudes[y * width + x] = -10.0 + 0.004 * x + 0.0006 * y;
+                latitudes[y * width + x] = 50.0 - 0.0027 * y + 0.0004 * x;
+            }
+        }
+        return new GeoRaster(longitudes, latitudes, null, null, width, height, 0.3);
+    }
+}
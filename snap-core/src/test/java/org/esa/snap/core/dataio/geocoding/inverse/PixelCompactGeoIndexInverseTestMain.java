@@ -0,0 +1,64 @@
+package org.esa.snap.core.dataio.geocoding.inverse;
+
+import org.esa.snap.core.dataio.geocoding.GeoRaster;
+import org.esa.snap.core.dataio.geocoding.InverseCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+
+/**
+ * Compares the build time, the heap size and the lookup latency of the {@link PixelGeoIndexInverse} and the
+ * {@link PixelCompactGeoIndexInverse} for a synthetic swath.
+ * <p>
+ * Usage: {@code PixelCompactGeoIndexInverseTestMain [width [height [numLookups]]]}
+ */
+public class PixelCompactGeoIndexInverseTestMain {
+
+    public static void main(String[] args) {
+        final int width = args.length > 0 ? Integer.parseInt(args[0]) : 1200;
+        final int height = args.length > 1 ? Integer.parseInt(args[1]) : 1200;
+        final int numLookups = args.length > 2 ? Integer.parseInt(args[2]) : 200000;
+
+        final GeoRaster geoRaster = PixelCompactGeoIndexInverseTest.createSwath(width, height);
+        final GeoPos[] geoPositions = new GeoPos[numLookups];
+        for (int i = 0; i < numLookups; i++) {
+            final int location = (int) ((i * 7919L) % geoRaster.getLongitudes().length);
+            geoPositions[i] = new GeoPos(geoRaster.getLatitudes()[location] + 0.0004,
+                                         geoRaster.getLongitudes()[location] - 0.0004);
+        }
+
+        System.out.println("Inverse coding\tBuild [ms]\tHeap [MB]\tLookup [ns]\tValid");
+        measure("PixelGeoIndexInverse", new PixelGeoIndexInverse(false), geoRaster, geoPositions);
+        measure("PixelCompactGeoIndexInverse", new PixelCompactGeoIndexInverse(false), geoRaster, geoPositions);
+    }
+
+    private static void measure(String name, InverseCoding inverseCoding, GeoRaster geoRaster, GeoPos[] geoPositions) {
+        // the geo-locations are referenced by the geo raster already, so only the index is measured
+        final long m0 = getUsedMemory();
+        final long t0 = System.nanoTime();
+        inverseCoding.initialize(geoRaster, false, new PixelPos[0]);
+        final long t1 = System.nanoTime();
+        final long m1 = getUsedMemory();
+
+        final PixelPos pixelPos = new PixelPos();
+        int numValid = 0;
+        final long t2 = System.nanoTime();
+        for (GeoPos geoPos : geoPositions) {
+            if (inverseCoding.getPixelPos(geoPos, pixelPos).isValid()) {
+                numValid++;
+            }
+        }
+        final long t3 = System.nanoTime();
+
+        System.out.printf("%s\t%.1f\t%.1f\t%.0f\t%d%n", name, (t1 - t0) * 1.0e-6, (m1 - m0) / (1024.0 * 1024.0),
+                          (t3 - t2) / (double) geoPositions.length, numValid);
+        inverseCoding.dispose();
+    }
+
+    private static long getUsedMemory() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
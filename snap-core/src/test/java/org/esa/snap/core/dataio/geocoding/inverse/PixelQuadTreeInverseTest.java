@@ -527,6 +527,90 @@ public class PixelQuadTreeInverseTest {
         assertEquals(0.5, pixelPos.y, 1e-8);
     }
 
+    @Test
+    public void testGetPixelPos_batch_sameAsSingle() {
+        assertBatchSameAsSingle(new PixelQuadTreeInverse(false), get_SLSTR_OL(), false);
+        assertBatchSameAsSingle(new PixelQuadTreeInverse(false), TestData.get_OLCI(), false);
+        assertBatchSameAsSingle(new PixelQuadTreeInverse(true), TestData.get_OLCI(), false);
+        assertBatchSameAsSingle(new PixelQuadTreeInverse(false), TestData.get_SYN_AOD(), false);
+        assertBatchSameAsSingle(new PixelQuadTreeInverse(true), TestData.get_AMSRE(), false);
+        assertBatchSameAsSingle(new PixelQuadTreeInverse(false), TestData.get_AMSR_2_anti_meridian(), true);
+    }
+
+    @Test
+    public void testGetPixelPos_batch_invalidAndOutside() {
+        inverse.initialize(TestData.get_OLCI(), false, new PixelPos[0]);
+
+        final double[] lons = {-24.182217, NaN, -24.001337, 12.0, -24.046906};
+        final double[] lats = {66.52871, 66.52871, 66.51401, 40.0, 66.42491};
+        final double[] pixelX = new double[7];
+        final double[] pixelY = new double[7];
+        inverse.getPixelPos(lons, lats, pixelX, pixelY, 0, lons.length);
+
+        assertEquals(0.5, pixelX[0], 1e-8);
+        assertEquals(0.5, pixelY[0], 1e-8);
+        assertEquals(NaN, pixelX[1], 1e-8);
+        assertEquals(NaN, pixelY[1], 1e-8);
+        assertEquals(31.5, pixelX[2], 1e-8);
+        assertEquals(0.5, pixelY[2], 1e-8);
+        assertEquals(NaN, pixelX[3], 1e-8);
+        assertEquals(NaN, pixelY[3], 1e-8);
+        assertEquals(31.5, pixelX[4], 1e-8);
+        assertEquals(35.5, pixelY[4], 1e-8);
+    }
+
+    @Test
+    public void testDescend() {
+        final GeoRaster geoRaster = TestData.get_OLCI();
+        inverse.initialize(geoRaster, false, new PixelPos[0]);
+
+        Result result = new Result();
+        assertTrue(inverse.descend(66.42491, -24.046906, 24, 28, result));
+        assertEquals(31, result.x);
+        assertEquals(35, result.y);
+
+        result = new Result();
+        assertTrue(inverse.descend(66.52871, -24.182217, 2, 2, result));
+        assertEquals(0, result.x);
+        assertEquals(0, result.y);
+
+        // from the upper left to the lower right corner is too far for the maximum number of steps
+        result = new Result();
+        assertFalse(inverse.descend(66.42491, -24.046906, 0, 0, result));
+    }
+
+    private static void assertBatchSameAsSingle(PixelQuadTreeInverse inverse, GeoRaster geoRaster, boolean containsAntiMeridian) {
+        inverse.initialize(geoRaster, containsAntiMeridian, new PixelPos[0]);
+
+        // positions slightly off the pixel centres, in raster order
+        final double[] longitudes = geoRaster.getLongitudes();
+        final double[] latitudes = geoRaster.getLatitudes();
+        final double[] lons = new double[longitudes.length];
+        final double[] lats = new double[latitudes.length];
+        for (int i = 0; i < lons.length; i++) {
+            lons[i] = longitudes[i] + 0.0003;
+            lats[i] = latitudes[i] - 0.0002;
+        }
+        final double[] pixelX = new double[lons.length];
+        final double[] pixelY = new double[lons.length];
+        inverse.getPixelPos(lons, lats, pixelX, pixelY, 0, lons.length);
+
+        final int width = geoRaster.getSceneWidth();
+        for (int i = 0; i < lons.length; i++) {
+            final PixelPos expected = inverse.getPixelPos(new GeoPos(lats[i], lons[i]), null);
+            if (!expected.isValid() || inverse.getKey().equals(PixelQuadTreeInverse.KEY_INTERPOLATING)) {
+                assertEquals(expected.x, pixelX[i], 1e-8);
+                assertEquals(expected.y, pixelY[i], 1e-8);
+            } else {
+                // pixels with duplicated geo-locations are equally close, either of them may be found
+                final int expectedIndex = (int) expected.y * width + (int) expected.x;
+                final int actualIndex = (int) pixelY[i] * width + (int) pixelX[i];
+                assertEquals(longitudes[expectedIndex], longitudes[actualIndex], 1e-12);
+                assertEquals(latitudes[expectedIndex], latitudes[actualIndex], 1e-12);
+            }
+        }
+    }
+
     @Test
     public void testPlugin_create() {
         final PixelQuadTreeInverse.Plugin plugin = new PixelQuadTreeInverse.Plugin(false);
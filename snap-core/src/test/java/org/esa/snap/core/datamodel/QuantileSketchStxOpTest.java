@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+
+package org.esa.snap.core.datamodel;
+
+import org.junit.Test;
+
+import javax.media.jai.Histogram;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuantileSketchStxOpTest {
+
+    @Test
+    public void testIntegerSamples() throws Exception {
+        final QuantileSketchStxOp op = new QuantileSketchStxOp(16 * 8, false);
+        for (int value = 1; value <= 100; value++) {
+            op.add(value);
+        }
+
+        assertEquals(100, op.getSampleCount());
+        final Histogram histogram = op.createHistogram(8, 1, 100, true);
+        assertEquals(1.0, histogram.getLowValue(0), 1e-10);
+        assertEquals(101.0, histogram.getHighValue(0), 1e-10);
+        assertArrayEquals(new int[]{13, 12, 13, 12, 13, 12, 13, 12}, histogram.getBins(0));
+        assertEquals(50.5, op.getQuantile(0.5), 0.5);
+    }
+
+    @Test
+    public void testNaNAndInfinityAreIgnored() throws Exception {
+        final QuantileSketchStxOp op = new QuantileSketchStxOp(128, false);
+        op.add(Double.NaN);
+        op.add(Double.POSITIVE_INFINITY);
+        assertEquals(0, op.getSampleCount());
+        assertTrue(Double.isNaN(op.getQuantile(0.5)));
+
+        op.add(2.5);
+        assertEquals(1, op.getSampleCount());
+        assertEquals(2.5, op.getQuantile(0.5), 0.0);
+    }
+
+    @Test
+    public void testMergedSketchesAreWithinOneBinOfExactHistogram() throws Exception {
+        final Random random = new Random(42);
+        final double[] values = new double[100000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 250.0 + 40.0 * random.nextGaussian();
+        }
+        // the range grows in both directions while accumulating
+        final QuantileSketchStxOp op = new QuantileSketchStxOp(16 * 512, false);
+        for (int part = 0; part < 4; part++) {
+            final QuantileSketchStxOp partOp = new QuantileSketchStxOp(16 * 512, false);
+            for (int i = part; i < values.length; i += 4) {
+                partOp.add(values[i]);
+            }
+            op.merge(partOp);
+        }
+
+        final double minimum = Arrays.stream(values).min().getAsDouble();
+        final double maximum = Arrays.stream(values).max().getAsDouble();
+        final int[] expectedBins = new int[512];
+        final double binWidth = (maximum - minimum) / 512;
+        for (double value : values) {
+            expectedBins[Math.min(511, (int) ((value - minimum) / binWidth))]++;
+        }
+        final int[] actualBins = op.createHistogram(512, minimum, maximum, false).getBins(0);
+
+        assertEquals(values.length, op.getSampleCount());
+        long expectedCount = 0;
+        long actualCount = 0;
+        for (int i = 0; i < 512; i++) {
+            final long previousExpectedCount = expectedCount;
+            expectedCount += expectedBins[i];
+            actualCount += actualBins[i];
+            final long nextExpectedCount = i < 511 ? expectedCount + expectedBins[i + 1] : expectedCount;
+            assertTrue(actualCount >= previousExpectedCount && actualCount <= nextExpectedCount);
+        }
+        assertEquals(values.length, actualCount);
+
+        final double[] sortedValues = values.clone();
+        Arrays.sort(sortedValues);
+        assertEquals(sortedValues[values.length / 2 - 1], op.getQuantile(0.5), binWidth);
+        assertEquals(sortedValues[values.length * 9 / 10 - 1], op.getQuantile(0.9), binWidth);
+    }
+
+    @Test
+    public void testLogScaledSamples() throws Exception {
+        final QuantileSketchStxOp op = new QuantileSketchStxOp(16 * 4, true);
+        op.add(Stx.LOG10_SCALING.scale(1.0));
+        op.add(Stx.LOG10_SCALING.scale(10.0));
+        op.add(Stx.LOG10_SCALING.scale(100.0));
+        op.add(Stx.LOG10_SCALING.scale(1000.0));
+
+        final Histogram histogram = op.createHistogram(4, 1.0, 1000.0, false);
+        assertEquals(0.0, histogram.getLowValue(0), 1e-10);
+        assertEquals(3.0, histogram.getHighValue(0), 1e-10);
+        assertArrayEquals(new int[]{1, 1, 1, 1}, histogram.getBins(0));
+        assertEquals(10.0, op.getQuantile(0.5), 1.0);
+    }
+}
@@ -285,6 +285,40 @@ public class StxFactoryTest {
 
     }
 
+    @Test
+    public void testParallelComputationAgreesWithSequentialComputation() throws Exception {
+        final Band band = createTestBand(ProductData.TYPE_FLOAT32, 100, 120);
+        band.getProduct().setPreferredTileSize(32, 32);
+        final Stx expected = new StxFactory().withParallelComputation(false).create(band, ProgressMonitor.NULL);
+        final Stx actual = new StxFactory().withParallelComputation(true).create(band, ProgressMonitor.NULL);
+
+        assertEquals(expected.getMinimum(), actual.getMinimum(), 0.0);
+        assertEquals(expected.getMaximum(), actual.getMaximum(), 0.0);
+        assertEquals(expected.getMean(), actual.getMean(), 1.0e-6);
+        assertEquals(expected.getStandardDeviation(), actual.getStandardDeviation(), 1.0e-6);
+        assertEquals(expected.getSampleCount(), actual.getSampleCount());
+        assertEquals(expected.getHistogramBinCount(), actual.getHistogramBinCount());
+        // the histogram is derived from a quantile sketch, within one bin
+        assertEquals(expected.getMedian(), actual.getMedian(), expected.getHistogramBinWidth());
+        assertEquals(expected.getHistogram().getPTileThreshold(0.9)[0], actual.getHistogram().getPTileThreshold(0.9)[0],
+                     expected.getHistogramBinWidth());
+    }
+
+    @Test
+    public void testParallelComputationWithIntHistogramAndRoiMask() throws Exception {
+        final Band band = createTestBand(ProductData.TYPE_INT16, 100, 120);
+        band.getProduct().setPreferredTileSize(32, 32);
+        final Mask roiMask = band.getProduct().addMask("roi", "X < 50", "roi", Color.gray, Double.NaN);
+        final Stx expected = new StxFactory().withRoiMask(roiMask).withParallelComputation(false).create(band, ProgressMonitor.NULL);
+        final Stx actual = new StxFactory().withRoiMask(roiMask).withParallelComputation(true).create(band, ProgressMonitor.NULL);
+
+        assertEquals(expected.getMinimum(), actual.getMinimum(), 0.0);
+        assertEquals(expected.getMaximum(), actual.getMaximum(), 0.0);
+        assertEquals(expected.getMean(), actual.getMean(), 1.0e-6);
+        assertEquals(expected.getSampleCount(), actual.getSampleCount());
+        assertEquals(expected.getMedian(), actual.getMedian(), expected.getHistogramBinWidth());
+    }
+
     private Band createFloatTestBand(int w, int h, float min, float max) {
         final Product product = createTestProduct(w, h);
         final Band band = product.addBand("float", ProductData.TYPE_FLOAT32);
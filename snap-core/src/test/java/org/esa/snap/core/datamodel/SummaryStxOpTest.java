@@ -175,6 +175,25 @@ public class SummaryStxOpTest {
         assertEquals(0.33166247, op.getStandardDeviation(), 1.0e-8);
     }
 
+    @Test
+    public void testMerge() throws Exception {
+        double[] data1 = new double[]{18.6, 18.7, 18.8, 18.9};
+        double[] data2 = new double[]{19.0, 19.1, 19.2, 19.3, 19.4, 19.5, 19.6};
+
+        SummaryStxOp op = new SummaryStxOp();
+        op.accumulateData(getPixels(new DataBufferDouble(data1, data1.length)), null);
+        SummaryStxOp otherOp = new SummaryStxOp();
+        otherOp.accumulateData(getPixels(new DataBufferDouble(data2, data2.length)), null);
+        op.merge(otherOp);
+        op.merge(new SummaryStxOp());
+
+        assertEquals(18.6, op.getMinimum(), 1.0e-8);
+        assertEquals(19.6, op.getMaximum(), 1.0e-8);
+        assertEquals(19.1, op.getMean(), 1.0e-8);
+        assertEquals(0.11, op.getVariance(), 1.0e-8);
+        assertEquals(0.33166247, op.getStandardDeviation(), 1.0e-8);
+    }
+
     private UnpackedImageData getPixels(DataBuffer dataBuffer) {
         return getPixels(new BufferedOpImage(dataBuffer));
     }
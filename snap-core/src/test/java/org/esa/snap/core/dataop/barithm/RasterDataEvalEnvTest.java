@@ -63,4 +63,18 @@ public class RasterDataEvalEnvTest extends TestCase {
         assertEquals(50 + 110, env.getPixelX());
         assertEquals(20 + 70, env.getPixelY());
     }
+
+    public void testBuffersAreReused() {
+        final RasterDataEvalEnv env = new RasterDataEvalEnv(0, 0, 10, 10);
+
+        final double[] buffer1 = env.acquireBuffer(10);
+        final double[] buffer2 = env.acquireBuffer(10);
+        assertNotSame(buffer1, buffer2);
+        env.releaseBuffer(buffer2);
+        env.releaseBuffer(buffer1);
+
+        assertSame(buffer1, env.acquireBuffer(10));
+        assertSame(buffer2, env.acquireBuffer(5));
+        assertEquals(20, env.acquireBuffer(20).length);
+    }
 }
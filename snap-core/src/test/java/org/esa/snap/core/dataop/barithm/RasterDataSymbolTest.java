@@ -20,6 +20,8 @@ import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.RasterDataNode;
 import org.esa.snap.core.jexp.Term;
+import org.esa.snap.core.jexp.impl.DefaultNamespace;
+import org.esa.snap.core.jexp.impl.ParserImpl;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -65,6 +67,32 @@ public class RasterDataSymbolTest {
         test(siraw.clone(), "siraw", Term.TYPE_I, scaledIntBand, RasterDataSymbol.Source.RAW);
     }
 
+    @Test
+    public void testBlockEvalD() throws Exception {
+        final Band uintBand = new Band("uintBand", ProductData.TYPE_UINT16, 4, 1);
+        final RasterDataSymbol uraw = new RasterDataSymbol("uraw", uintBand, RasterDataSymbol.Source.RAW);
+        uraw.setData(ProductData.createInstance(ProductData.TYPE_UINT16, new short[]{1, -1, 3, -4}));
+        fgeo.setData(new float[]{0.5f, 1.5f, 2.5f, 3.5f});
+
+        final RasterDataEvalEnv env = new RasterDataEvalEnv(0, 0, 4, 1);
+        env.setElemIndex(1);
+        final double[] out = new double[4];
+        uraw.evalD(env, out, 1, 3);
+        assertArrayEquals(new double[]{0.0, 65535.0, 3.0, 65532.0}, out, 0.0);
+        assertEquals(1, env.getElemIndex());
+
+        final DefaultNamespace namespace = new DefaultNamespace();
+        namespace.registerSymbol(uraw);
+        namespace.registerSymbol(fgeo);
+        final Term term = new ParserImpl(namespace, false).parse("(uraw - fgeo) / (uraw + fgeo) + (fgeo > 1 ? -uraw : 2)");
+        env.setElemIndex(0);
+        term.evalD(env, out, 0, 4);
+        for (int i = 0; i < 4; i++) {
+            env.setElemIndex(i);
+            assertEquals(term.evalD(env), out[i], 0.0);
+        }
+    }
+
     static void test(RasterDataSymbol sym,
                      String expName,
                      int expType,
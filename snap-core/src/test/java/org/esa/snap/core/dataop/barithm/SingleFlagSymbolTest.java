@@ -53,6 +53,16 @@ public class SingleFlagSymbolTest {
         test(sy.clone(), "s.y", 0x03, 3, intBand);
     }
 
+    @Test
+    public void testBlockEvalD() throws Exception {
+        sy.setData(ProductData.createInstance(new short[]{0, 1, 2, 3, 7}));
+        final RasterDataEvalEnv env = new RasterDataEvalEnv(0, 0, 5, 1);
+        env.setElemIndex(1);
+        final double[] out = new double[4];
+        sy.evalD(env, out, 0, 4);
+        assertArrayEquals(new double[]{0.0, 0.0, 1.0, 1.0}, out, 0.0);
+    }
+
     static void test(SingleFlagSymbol sym,
                      String expName,
                      int expMask,
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.snap.core.dataop.barithm;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.jexp.ParseException;
+import org.esa.snap.core.jexp.Term;
+import org.esa.snap.core.jexp.impl.DefaultNamespace;
+import org.esa.snap.core.jexp.impl.ParserImpl;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.ToolProvider;
+
+import static org.junit.Assert.*;
+
+public class TermCompilerTest {
+
+    private static final int W = 256;
+    private static final int H = 128;
+
+    private DefaultNamespace namespace;
+
+    @Before
+    public void setUp() {
+        Assume.assumeNotNull(ToolProvider.getSystemJavaCompiler());
+
+        final Band flags = new Band("flags", ProductData.TYPE_UINT8, W, H);
+        final Band red = new Band("red", ProductData.TYPE_FLOAT32, W, H);
+        final Band nir = new Band("nir", ProductData.TYPE_FLOAT32, W, H);
+        final Band counts = new Band("counts", ProductData.TYPE_INT16, W, H);
+
+        final byte[] flagsData = new byte[W * H];
+        final float[] redData = new float[W * H];
+        final float[] nirData = new float[W * H];
+        final short[] countsData = new short[W * H];
+        for (int i = 0; i < W * H; i++) {
+            flagsData[i] = (byte) i;
+            redData[i] = (i % 17) * 0.01f;
+            nirData[i] = (i % 23) * 0.02f;
+            countsData[i] = (short) (i % 1000 - 500);
+        }
+
+        final RasterDataSymbol flagsSymbol = new RasterDataSymbol("flags", flags, RasterDataSymbol.RAW);
+        final SingleFlagSymbol water = new SingleFlagSymbol("flags.WATER", flags, 0x01);
+        final SingleFlagSymbol land = new SingleFlagSymbol("flags.LAND", flags, 0x02);
+        final SingleFlagSymbol cloud = new SingleFlagSymbol("flags.CLOUD", flags, 0x84, 0x80);
+        final RasterDataSymbol redSymbol = new RasterDataSymbol("red", red, RasterDataSymbol.GEOPHYSICAL);
+        final RasterDataSymbol nirSymbol = new RasterDataSymbol("nir", nir, RasterDataSymbol.GEOPHYSICAL);
+        final RasterDataSymbol countsSymbol = new RasterDataSymbol("counts", counts, RasterDataSymbol.RAW);
+        flagsSymbol.setData(ProductData.createInstance(ProductData.TYPE_UINT8, flagsData));
+        water.setData(ProductData.createInstance(ProductData.TYPE_UINT8, flagsData));
+        land.setData(ProductData.createInstance(ProductData.TYPE_UINT8, flagsData));
+        cloud.setData(ProductData.createInstance(ProductData.TYPE_UINT8, flagsData));
+        redSymbol.setData(redData);
+        nirSymbol.setData(nirData);
+        countsSymbol.setData(ProductData.createInstance(countsData));
+
+        namespace = new DefaultNamespace();
+        namespace.registerSymbol(flagsSymbol);
+        namespace.registerSymbol(water);
+        namespace.registerSymbol(land);
+        namespace.registerSymbol(cloud);
+        namespace.registerSymbol(redSymbol);
+        namespace.registerSymbol(nirSymbol);
+        namespace.registerSymbol(countsSymbol);
+    }
+
+    @Test
+    public void testNdvi() throws ParseException {
+        assertCompiledEqualsInterpreted("(nir - red) / (nir + red)", ProductData.TYPE_FLOAT32);
+        assertCompiledEqualsInterpreted("(nir - red) / (nir + red)", ProductData.TYPE_FLOAT64);
+        assertCompiledEqualsInterpreted("100 * (nir - red) / (nir + red)", ProductData.TYPE_INT16);
+    }
+
+    @Test
+    public void testFlagExpressions() throws ParseException {
+        assertCompiledEqualsInterpreted("(flags.WATER || flags.LAND) && !flags.CLOUD", ProductData.TYPE_UINT8);
+        assertCompiledEqualsInterpreted("flags.WATER ? nir : flags.LAND ? red : NaN", ProductData.TYPE_FLOAT32);
+        assertCompiledEqualsInterpreted("(flags & 0x0F) == 3 || bit_set(flags, 7)", ProductData.TYPE_INT32);
+    }
+
+    @Test
+    public void testFunctionsAndIntegerArithmetic() throws ParseException {
+        assertCompiledEqualsInterpreted("sqrt(abs(counts)) + min(counts, 10) - max(3, counts % 7)", ProductData.TYPE_FLOAT64);
+        assertCompiledEqualsInterpreted("counts / 3 + ~counts ^ 5", ProductData.TYPE_INT32);
+        assertCompiledEqualsInterpreted("nan(log(counts)) ? -1 : sign(counts) * sq(red)", ProductData.TYPE_FLOAT32);
+        assertCompiledEqualsInterpreted("feq(red, nir, 0.01) ? PI : round(counts * 0.5)", ProductData.TYPE_FLOAT64);
+    }
+
+    @Test
+    public void testMask() throws ParseException {
+        final Term term = parse("flags.WATER && counts > 0");
+        final CompiledTerm compiledTerm = TermCompiler.getInstance().compile(term, ProductData.TYPE_UINT8, true, false);
+        assertNotNull(compiledTerm);
+        final ProductData actual = ProductData.createInstance(ProductData.TYPE_UINT8, W * H);
+        final RasterDataEvalEnv env = new RasterDataEvalEnv(0, 0, W, H);
+        compiledTerm.eval(env, actual, 0, W, Double.NaN);
+        for (int i = 0; i < W * H; i++) {
+            env.setElemIndex(i);
+            assertEquals(term.evalB(env) ? 255 : 0, actual.getElemIntAt(i));
+        }
+    }
+
+    @Test
+    public void testReplaceInvalid() throws ParseException {
+        final Term term = parse("log(counts)");
+        final CompiledTerm compiledTerm = TermCompiler.getInstance().compile(term, ProductData.TYPE_FLOAT32, false, true);
+        assertNotNull(compiledTerm);
+        final ProductData actual = ProductData.createInstance(ProductData.TYPE_FLOAT32, W * H);
+        final RasterDataEvalEnv env = new RasterDataEvalEnv(0, 0, W, H);
+        compiledTerm.eval(env, actual, 0, W, -999.0);
+        for (int i = 0; i < W * H; i++) {
+            env.setElemIndex(i);
+            final double v = term.evalD(env);
+            assertEquals(Double.isNaN(v) || Double.isInfinite(v) ? -999.0 : v, actual.getElemDoubleAt(i), 1e-6);
+        }
+    }
+
+    @Test
+    public void testUnsupportedTermsAreNotCompiled() throws ParseException {
+        assertNull(TermCompiler.getInstance().compile(parse("sin(red)"), ProductData.TYPE_FLOAT32, false, false));
+        assertNull(TermCompiler.getInstance().compile(parse("avg(red, nir)"), ProductData.TYPE_FLOAT32, false, false));
+    }
+
+    @Test
+    public void testConditionalFlagExpression() throws ParseException {
+        assertCompiledEqualsInterpreted("(flags.WATER || flags.LAND) && !flags.CLOUD ? sq(nir - 0.2 * red) / sq(nir + 0.4 * red) : NaN",
+                                        ProductData.TYPE_FLOAT32);
+    }
+
+    private void assertCompiledEqualsInterpreted(String expression, int targetDataType) throws ParseException {
+        final Term term = parse(expression);
+        final CompiledTerm compiledTerm = TermCompiler.getInstance().compile(term, targetDataType, false, false);
+        assertNotNull(expression, compiledTerm);
+
+        final ProductData expected = ProductData.createInstance(targetDataType, W * H);
+        final ProductData actual = ProductData.createInstance(targetDataType, W * H);
+        final RasterDataEvalEnv env = new RasterDataEvalEnv(0, 0, W, H);
+        for (int i = 0; i < W * H; i++) {
+            env.setElemIndex(i);
+            expected.setElemDoubleAt(i, term.evalD(env));
+        }
+        compiledTerm.eval(env, actual, 0, W, Double.NaN);
+        for (int i = 0; i < W * H; i++) {
+            assertEquals(expression + " at index " + i, expected.getElemDoubleAt(i), actual.getElemDoubleAt(i), 0.0);
+        }
+    }
+
+    private Term parse(String expression) throws ParseException {
+        return new ParserImpl(namespace, true).parse(expression);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+package org.esa.snap.core.dataop.barithm;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.jexp.Term;
+import org.esa.snap.core.jexp.impl.DefaultNamespace;
+import org.esa.snap.core.jexp.impl.ParserImpl;
+
+/**
+ * Compares the interpreted and the compiled evaluation of an NDVI and a flag expression over a tile.
+ * <p>
+ * Usage: {@code TermCompilerTestMain [tileSize [numLoops]]}
+ */
+public class TermCompilerTestMain {
+
+    private static final String[] EXPRESSIONS = {
+            "(nir - red) / (nir + red)",
+            "(flags.WATER || flags.LAND) && !flags.CLOUD ? sq(nir - 0.2 * red) / sq(nir + 0.4 * red) : NaN",
+    };
+
+    public static void main(String[] args) throws Exception {
+        final int tileSize = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        final int numLoops = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int numPixels = tileSize * tileSize;
+
+        final Band flags = new Band("flags", ProductData.TYPE_UINT8, tileSize, tileSize);
+        final Band red = new Band("red", ProductData.TYPE_FLOAT32, tileSize, tileSize);
+        final Band nir = new Band("nir", ProductData.TYPE_FLOAT32, tileSize, tileSize);
+        final byte[] flagsData = new byte[numPixels];
+        final float[] redData = new float[numPixels];
+        final float[] nirData = new float[numPixels];
+        for (int i = 0; i < numPixels; i++) {
+            flagsData[i] = (byte) i;
+            redData[i] = (i % 17) * 0.01f;
+            nirData[i] = (i % 23) * 0.02f;
+        }
+        final ProductData flagsProductData = ProductData.createInstance(ProductData.TYPE_UINT8, flagsData);
+        final SingleFlagSymbol water = new SingleFlagSymbol("flags.WATER", flags, 0x01);
+        final SingleFlagSymbol land = new SingleFlagSymbol("flags.LAND", flags, 0x02);
+        final SingleFlagSymbol cloud = new SingleFlagSymbol("flags.CLOUD", flags, 0x04);
+        final RasterDataSymbol redSymbol = new RasterDataSymbol("red", red, RasterDataSymbol.GEOPHYSICAL);
+        final RasterDataSymbol nirSymbol = new RasterDataSymbol("nir", nir, RasterDataSymbol.GEOPHYSICAL);
+        water.setData(flagsProductData);
+        land.setData(flagsProductData);
+        cloud.setData(flagsProductData);
+        redSymbol.setData(redData);
+        nirSymbol.setData(nirData);
+        final DefaultNamespace namespace = new DefaultNamespace();
+        namespace.registerSymbol(water);
+        namespace.registerSymbol(land);
+        namespace.registerSymbol(cloud);
+        namespace.registerSymbol(redSymbol);
+        namespace.registerSymbol(nirSymbol);
+
+        final RasterDataEvalEnv env = new RasterDataEvalEnv(0, 0, tileSize, tileSize);
+        final ProductData target = ProductData.createInstance(ProductData.TYPE_FLOAT32, numPixels);
+        System.out.println("Expression\tInterpreted [ns/pixel]\tCompiled [ns/pixel]\tGain");
+        for (String expression : EXPRESSIONS) {
+            final Term term = new ParserImpl(namespace, true).parse(expression);
+            final CompiledTerm compiledTerm = TermCompiler.getInstance().compile(term, ProductData.TYPE_FLOAT32, false, false);
+            if (compiledTerm == null) {
+                System.out.println(expression + "\tnot compiled");
+                continue;
+            }
+            // warm up both code paths before measuring
+            measureInterpreted(term, env, target, numPixels, numLoops / 5 + 1);
+            measureCompiled(compiledTerm, env, target, tileSize, numLoops / 5 + 1);
+            final double interpreted = measureInterpreted(term, env, target, numPixels, numLoops) / numPixels;
+            final double compiled = measureCompiled(compiledTerm, env, target, tileSize, numLoops) / numPixels;
+            System.out.printf("%s\t%.2f\t%.2f\t%.2f%n", expression, interpreted, compiled, interpreted / compiled);
+        }
+    }
+
+    private static double measureInterpreted(Term term, RasterDataEvalEnv env, ProductData target, int numPixels, int numLoops) {
+        final long t0 = System.nanoTime();
+        for (int n = 0; n < numLoops; n++) {
+            for (int i = 0; i < numPixels; i++) {
+                env.setElemIndex(i);
+                target.setElemDoubleAt(i, term.evalD(env));
+            }
+        }
+        return (System.nanoTime() - t0) / (double) numLoops;
+    }
+
+    private static double measureCompiled(CompiledTerm compiledTerm, RasterDataEvalEnv env, ProductData target, int tileSize, int numLoops) {
+        final long t0 = System.nanoTime();
+        for (int n = 0; n < numLoops; n++) {
+            compiledTerm.eval(env, target, 0, tileSize, Double.NaN);
+        }
+        return (System.nanoTime() - t0) / (double) numLoops;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.core.dataop.dem;
+
+import org.esa.snap.core.dataop.resamp.Resampling;
+import org.esa.snap.core.util.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ElevationTileStoreTest {
+
+    private static final int TILE_SIZE = 8;
+
+    private Path storeDir;
+    private ElevationModelDescriptor descriptor;
+
+    @Before
+    public void setUp() throws Exception {
+        storeDir = Files.createTempDirectory("dem-tiles");
+        descriptor = new DescriptorMock();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteTree(storeDir.toFile());
+    }
+
+    @Test
+    public void testTileIsConvertedOnceAndShared() throws Exception {
+        final ElevationTileStore store = new ElevationTileStore(storeDir);
+        final TileMock sourceTile = new TileMock();
+        final AtomicInteger sourceCount = new AtomicInteger();
+        final ElevationTileStore.TileSource source = () -> {
+            sourceCount.incrementAndGet();
+            return sourceTile;
+        };
+
+        final ElevationTile tile = store.getTile(descriptor, true, 2, 3, TILE_SIZE, source);
+        assertNotNull(tile);
+        assertSame(tile, store.getTile(descriptor, true, 2, 3, TILE_SIZE, source));
+        assertEquals(1, sourceCount.get());
+        assertTrue(sourceTile.cleared);
+        assertTrue(Files.isRegularFile(store.getTileFile(descriptor, true, 2, 3)));
+        for (int y = 0; y < TILE_SIZE; y++) {
+            for (int x = 0; x < TILE_SIZE; x++) {
+                assertEquals(sourceTile.getSample(x, y), tile.getSample(x, y), 0.0f);
+            }
+        }
+
+        // the geoid correction is part of the key
+        assertNotNull(store.getTile(descriptor, false, 2, 3, TILE_SIZE, source));
+        assertEquals(2, sourceCount.get());
+    }
+
+    @Test
+    public void testStoredTileIsReadWithoutSource() throws Exception {
+        new ElevationTileStore(storeDir).getTile(descriptor, true, 0, 0, TILE_SIZE, TileMock::new);
+
+        final ElevationTile tile = new ElevationTileStore(storeDir).getTile(descriptor, true, 0, 0, TILE_SIZE, () -> {
+            fail("the stored tile must be used");
+            return null;
+        });
+        assertNotNull(tile);
+        assertEquals(new TileMock().getSample(5, 7), tile.getSample(5, 7), 0.0f);
+    }
+
+    @Test
+    public void testMissingSourceTile() throws Exception {
+        final ElevationTileStore store = new ElevationTileStore(storeDir);
+
+        assertNull(store.getTile(descriptor, true, 1, 1, TILE_SIZE, () -> null));
+        assertFalse(Files.exists(store.getTileFile(descriptor, true, 1, 1)));
+    }
+
+    private static class TileMock implements ElevationTile {
+
+        private boolean cleared;
+
+        @Override
+        public float getSample(int pixelX, int pixelY) {
+            return pixelX == pixelY ? -32768.0f : 10.5f * pixelY + pixelX;
+        }
+
+        @Override
+        public void clearCache() {
+            cleared = true;
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+
+    private static class DescriptorMock implements ElevationModelDescriptor {
+
+        @Override
+        public String getName() {
+            return "Test DEM";
+        }
+
+        @Override
+        public float getNoDataValue() {
+            return -32768.0f;
+        }
+
+        @Override
+        public int getRasterWidth() {
+            return 4 * TILE_SIZE;
+        }
+
+        @Override
+        public int getRasterHeight() {
+            return 4 * TILE_SIZE;
+        }
+
+        @Override
+        public int getTileWidthInDegrees() {
+            return 90;
+        }
+
+        @Override
+        public int getTileWidth() {
+            return TILE_SIZE;
+        }
+
+        @Override
+        public int getNumXTiles() {
+            return 4;
+        }
+
+        @Override
+        public int getNumYTiles() {
+            return 4;
+        }
+
+        @Override
+        public ElevationModel createDem(Resampling resampling) {
+            return null;
+        }
+
+        @Override
+        public boolean canBeDownloaded() {
+            return false;
+        }
+
+        @Override
+        public File getDemInstallDir() {
+            return null;
+        }
+    }
+}
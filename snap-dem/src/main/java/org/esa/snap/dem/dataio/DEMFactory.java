@@ -160,36 +160,36 @@ public class DEMFactory {
         final int maxY = y0 + tileHeight + 1;
         final int maxX = x0 + tileWidth + 1;
         final GeoPos geoPos = new GeoPos();
+        final int rowWidth = maxX - x0 + 1;
+        final double[] lats = new double[rowWidth];
+        final double[] lons = new double[rowWidth];
+        final double[] alts = new double[rowWidth];
 
-        Double alt;
         boolean valid = false;
         final double[][] v = new double[4][4];
         for (int y = y0 - 1; y < maxY; y++) {
             final int yy = y - y0 + 1;
 
+            // the elevations are looked up for a whole row at once
             for (int x = x0 - 1; x < maxX; x++) {
                 tileGeoRef.getGeoPos(x, y, geoPos);
-                /*if(!geoPos.isValid()) {
-                    localDEM[yy][x - x0 + 1] = demNoDataValue;
-                    continue;
-                }
-                if (geoPos.lon > 180) {
-                    geoPos.lon -= 360;
-                } else if (geoPos.lon < -180) {
-                    geoPos.lon += 360;
-                }    */
-
-                alt = dem.getElevation(geoPos);
+                final int xx = x - x0 + 1;
+                lats[xx] = geoPos.lat;
+                lons[xx] = geoPos.lon > 180 ? geoPos.lon - 360 : geoPos.lon;
+            }
+            dem.getElevations(lats, lons, alts);
 
-                if (alt.equals(demNoDataValue) && !nodataValueAtSea) {
-                    alt = (double)EarthGravitationalModel96.instance().getEGM(geoPos.lat, geoPos.lon, v);
+            for (int xx = 0; xx < rowWidth; xx++) {
+                double alt = alts[xx];
+                if (alt == demNoDataValue && !nodataValueAtSea) {
+                    alt = EarthGravitationalModel96.instance().getEGM(lats[xx], lons[xx], v);
                 }
 
-                if (!valid && !alt.equals(demNoDataValue)) {
+                if (!valid && alt != demNoDataValue) {
                     valid = true;
                 }
 
-                localDEM[yy][x - x0 + 1] = alt;
+                localDEM[yy][xx] = alt;
             }
         }
         return valid;
@@ -200,6 +200,14 @@ public class EnviProductWriter extends AbstractProductWriter {
         }
     }
 
+    /**
+     * Returns <code>true</code>, each band is written to a separate file.
+     */
+    @Override
+    public boolean canWriteBandsConcurrently() {
+        return true;
+    }
+
     /**
      * Deletes the physically representation of the product from the hard disk.
      */
@@ -216,7 +224,7 @@ public class EnviProductWriter extends AbstractProductWriter {
      *
      * @throws java.io.IOException on failure
      */
-    public void flush() throws IOException {
+    public synchronized void flush() throws IOException {
         if (_bandOutputStreams == null) {
             return;
         }
@@ -233,7 +241,7 @@ public class EnviProductWriter extends AbstractProductWriter {
      *
      * @throws java.io.IOException on failure
      */
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
         if (_bandOutputStreams == null) {
             return;
         }
@@ -248,7 +256,7 @@ public class EnviProductWriter extends AbstractProductWriter {
      * Returns the data output stream associated with the given <code>Band</code>. If no stream exists, one is created
      * and fed into the hash map
      */
-    private ImageOutputStream getOrCreateImageOutputStream(Band band) throws IOException {
+    private synchronized ImageOutputStream getOrCreateImageOutputStream(Band band) throws IOException {
         ImageOutputStream outputStream = getImageOutputStream(band);
         if (outputStream == null) {
             outputStream = createImageOutputStream(band);
@@ -260,7 +268,7 @@ public class EnviProductWriter extends AbstractProductWriter {
         return outputStream;
     }
 
-    private ImageOutputStream getImageOutputStream(Band band) {
+    private synchronized ImageOutputStream getImageOutputStream(Band band) {
         if (_bandOutputStreams != null) {
             return (ImageOutputStream) _bandOutputStreams.get(band);
         }
@@ -0,0 +1,125 @@
+package org.esa.snap.dataio.geotiff;
+
+import java.awt.image.Raster;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.FutureTask;
+
+/**
+ * A LRU cache of decoded blocks of TIFF files, shared by the tile readers of all opened files. The cache is bounded
+ * by the total number of bytes of the cached blocks; a block is identified by its tile reader and its index.
+ *
+ * @since SNAP 8
+ */
+class GeoTiffBlockCache {
+
+    private final long maximumSize;
+    private final Map<BlockKey, CachedBlock> blocks;
+    private long size;
+
+    /**
+     * @param maximumSize the maximum number of bytes of the cached blocks
+     */
+    GeoTiffBlockCache(long maximumSize) {
+        this.maximumSize = maximumSize;
+        this.blocks = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the task decoding a block. If the block is not cached, the given task is added and returned; the caller
+     * must then run it.
+     *
+     * @param owner      the tile reader of the block
+     * @param blockIndex the index of the block in the image
+     * @param blockSize  the number of bytes of the decoded block
+     * @param newTask    the task decoding the block, added if the block is not cached
+     * @return the cached task, or {@code newTask}
+     */
+    synchronized FutureTask<Raster> getOrAdd(Object owner, long blockIndex, long blockSize, FutureTask<Raster> newTask) {
+        BlockKey key = new BlockKey(owner, blockIndex);
+        CachedBlock cachedBlock = this.blocks.get(key);
+        if (cachedBlock != null) {
+            return cachedBlock.task;
+        }
+        this.blocks.put(key, new CachedBlock(newTask, blockSize));
+        this.size += blockSize;
+        // evict the least recently used blocks, but keep the new one
+        Iterator<CachedBlock> iterator = this.blocks.values().iterator();
+        while (this.size > this.maximumSize && this.blocks.size() > 1) {
+            this.size -= iterator.next().size;
+            iterator.remove();
+        }
+        return newTask;
+    }
+
+    /**
+     * Removes a block if it is still decoded by the given task, e.g. after the task failed.
+     */
+    synchronized void remove(Object owner, long blockIndex, FutureTask<Raster> task) {
+        BlockKey key = new BlockKey(owner, blockIndex);
+        CachedBlock cachedBlock = this.blocks.get(key);
+        if (cachedBlock != null && cachedBlock.task == task) {
+            this.blocks.remove(key);
+            this.size -= cachedBlock.size;
+        }
+    }
+
+    /**
+     * Removes all blocks of a tile reader.
+     */
+    synchronized void removeAll(Object owner) {
+        Iterator<Map.Entry<BlockKey, CachedBlock>> iterator = this.blocks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<BlockKey, CachedBlock> entry = iterator.next();
+            if (entry.getKey().owner == owner) {
+                this.size -= entry.getValue().size;
+                iterator.remove();
+            }
+        }
+    }
+
+    synchronized long getSize() {
+        return this.size;
+    }
+
+    synchronized int getBlockCount() {
+        return this.blocks.size();
+    }
+
+    private static class BlockKey {
+
+        private final Object owner;
+        private final long blockIndex;
+
+        private BlockKey(Object owner, long blockIndex) {
+            this.owner = owner;
+            this.blockIndex = blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof BlockKey)) {
+                return false;
+            }
+            BlockKey other = (BlockKey) object;
+            return this.owner == other.owner && this.blockIndex == other.blockIndex;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.owner) + Long.hashCode(this.blockIndex);
+        }
+    }
+
+    private static class CachedBlock {
+
+        private final FutureTask<Raster> task;
+        private final long size;
+
+        private CachedBlock(FutureTask<Raster> task, long size) {
+            this.task = task;
+            this.size = size;
+        }
+    }
+}
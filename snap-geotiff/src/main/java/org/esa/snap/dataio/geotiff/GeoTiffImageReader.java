@@ -10,6 +10,7 @@ import org.esa.snap.engine_utilities.util.FileSystemUtils;
 import org.esa.snap.engine_utilities.util.FindChildFileVisitor;
 import org.esa.snap.engine_utilities.util.NotRegularFileException;
 import org.esa.snap.engine_utilities.util.ZipFileSystemBuilder;
+import org.esa.snap.runtime.Config;
 import org.geotools.coverage.grid.io.imageio.geotiff.GeoTiffConstants;
 import org.geotools.coverage.grid.io.imageio.geotiff.GeoTiffException;
 import org.geotools.coverage.grid.io.imageio.geotiff.GeoTiffIIOMetadataDecoder;
@@ -47,6 +48,7 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.GZIPInputStream;
@@ -61,26 +63,40 @@ public class GeoTiffImageReader implements Closeable, GeoTiffRasterRegion {
     private static final int BUFFER_SIZE = 1024 * 1024;
     private static final byte FIRST_IMAGE = 0;
 
+    // the number of further image readers decoding tiles concurrently, for all opened files
+    private static final String PARAM_READER_POOL_SIZE = "snap.dataio.geotiff.reader.pool.size";   // integer, default is the number of processors
+    // the memory used for caching decoded tiles, for all opened files
+    private static final String PARAM_TILE_CACHE_SIZE = "snap.dataio.geotiff.tile.cache.size";   // integer value in MB, default 32
+    private static final int TILE_CACHE_SIZE_DEFAULT = 32;
+
+    private static Semaphore readerPermits;
+    private static GeoTiffBlockCache blockCache;
+
     private final TIFFImageReader imageReader;
     private final Closeable closeable;
+    private final GeoTiffTileReader.ImageReaderFactory imageReaderFactory;
 
     private RenderedImage swappedSubsampledImage;
     private Rectangle rectangle;
     private ImageReadParam readParam;
+    private volatile GeoTiffTileReader tileReader;
 
     public GeoTiffImageReader(ImageInputStream imageInputStream) throws IOException {
         this.imageReader = findImageReader(imageInputStream);
         this.closeable = null;
+        this.imageReaderFactory = null;
     }
 
     public GeoTiffImageReader(File file) throws IOException {
         this.imageReader = buildImageReader(file);
         this.closeable = null;
+        this.imageReaderFactory = () -> buildImageReader(file);
     }
 
     public GeoTiffImageReader(InputStream inputStream, Closeable closeable) throws IOException {
         this.imageReader = buildImageReader(inputStream);
         this.closeable = closeable;
+        this.imageReaderFactory = null;
     }
 
     @Override
@@ -93,6 +109,9 @@ public class GeoTiffImageReader implements Closeable, GeoTiffRasterRegion {
     @Override
     public void close() {
         try {
+            if (this.tileReader != null) {
+                this.tileReader.close();
+            }
             ImageInputStream imageInputStream = (ImageInputStream) this.imageReader.getInput();
             try {
                 imageInputStream.close();
@@ -117,34 +136,76 @@ public class GeoTiffImageReader implements Closeable, GeoTiffRasterRegion {
         return (TIFFImageMetadata) this.imageReader.getImageMetadata(FIRST_IMAGE);
     }
 
+    /**
+     * Reads a rectangle of the optionally subsampled image. The rectangle is assembled from the decoded native tiles
+     * of the file, this method may be called concurrently.
+     */
     @Override
     public Raster readRect(boolean isGlobalShifted180, int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
                            int destOffsetX, int destOffsetY, int destWidth, int destHeight)
                            throws IOException {
 
-        if (this.readParam == null) {
-            this.readParam = this.imageReader.getDefaultReadParam();
-        }
-        if (this.rectangle == null) {
-            this.rectangle = new Rectangle();
+        if (isGlobalShifted180) {
+            return readShiftedRect(sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destOffsetX, destOffsetY, destWidth, destHeight);
         }
         int subsamplingXOffset = sourceOffsetX % sourceStepX;
         int subsamplingYOffset = sourceOffsetY % sourceStepY;
-        this.readParam.setSourceSubsampling(sourceStepX, sourceStepY, subsamplingXOffset, subsamplingYOffset);
-        RenderedImage subsampledImage = this.imageReader.readAsRenderedImage(FIRST_IMAGE, this.readParam);
-        try {
-            this.rectangle.setBounds(destOffsetX, destOffsetY, destWidth, destHeight);
-            if (isGlobalShifted180) {
+        Rectangle destRectangle = new Rectangle(destOffsetX, destOffsetY, destWidth, destHeight);
+        return getTileReader().readRect(sourceStepX, sourceStepY, subsamplingXOffset, subsamplingYOffset, destRectangle);
+    }
+
+    private GeoTiffTileReader getTileReader() throws IOException {
+        GeoTiffTileReader reader = this.tileReader;
+        if (reader == null) {
+            synchronized (this) {
+                reader = this.tileReader;
+                if (reader == null) {
+                    reader = createTileReader(this.imageReader, this.imageReaderFactory);
+                    this.tileReader = reader;
+                }
+            }
+        }
+        return reader;
+    }
+
+    private static synchronized GeoTiffTileReader createTileReader(TIFFImageReader imageReader, GeoTiffTileReader.ImageReaderFactory imageReaderFactory)
+                                                                   throws IOException {
+
+        if (readerPermits == null) {
+            int poolSize = Config.instance().preferences().getInt(PARAM_READER_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+            long cacheSize = Config.instance().preferences().getInt(PARAM_TILE_CACHE_SIZE, TILE_CACHE_SIZE_DEFAULT) * 1024L * 1024L;
+            readerPermits = new Semaphore(Math.max(0, poolSize));
+            blockCache = new GeoTiffBlockCache(cacheSize);
+        }
+        return new GeoTiffTileReader(imageReader, imageReaderFactory, readerPermits, blockCache);
+    }
+
+    private Raster readShiftedRect(int sourceOffsetX, int sourceOffsetY, int sourceStepX, int sourceStepY,
+                                   int destOffsetX, int destOffsetY, int destWidth, int destHeight)
+                                   throws IOException {
+
+        // the reader of the file may also decode blocks for the tile reader
+        synchronized (this.imageReader) {
+            if (this.readParam == null) {
+                this.readParam = this.imageReader.getDefaultReadParam();
+            }
+            if (this.rectangle == null) {
+                this.rectangle = new Rectangle();
+            }
+            int subsamplingXOffset = sourceOffsetX % sourceStepX;
+            int subsamplingYOffset = sourceOffsetY % sourceStepY;
+            this.readParam.setSourceSubsampling(sourceStepX, sourceStepY, subsamplingXOffset, subsamplingYOffset);
+            RenderedImage subsampledImage = this.imageReader.readAsRenderedImage(FIRST_IMAGE, this.readParam);
+            try {
+                this.rectangle.setBounds(destOffsetX, destOffsetY, destWidth, destHeight);
                 if (this.swappedSubsampledImage == null) {
                     this.swappedSubsampledImage = horizontalMosaic(getHalfImages(subsampledImage));
                 }
                 return this.swappedSubsampledImage.getData(this.rectangle);
-            } else {
-                return subsampledImage.getData(this.rectangle);
+            } finally {
+                WeakReference<RenderedImage> referenceImage = new WeakReference<>(subsampledImage);
+                referenceImage.clear();
             }
-        } finally {
-            WeakReference<RenderedImage> referenceImage = new WeakReference<>(subsampledImage);
-            referenceImage.clear();
         }
     }
 
@@ -50,14 +50,18 @@ public class GeoTiffMatrixCell implements MosaicMatrix.MatrixCell, GeoTiffRaster
                            int destOffsetX, int destOffsetY, int destWidth, int destHeight)
                            throws Exception {
 
+        return getGeoTiffImageReader().readRect(isGlobalShifted180, sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destOffsetX, destOffsetY, destWidth, destHeight);
+    }
+
+    private synchronized GeoTiffImageReader getGeoTiffImageReader() throws Exception {
         if (this.geoTiffImageReader == null) {
             this.geoTiffImageReader = GeoTiffImageReader.buildGeoTiffImageReader(this.imageParentPath, this.imageRelativeFilePath);
         }
-        return this.geoTiffImageReader.readRect(isGlobalShifted180, sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destOffsetX, destOffsetY, destWidth, destHeight);
+        return this.geoTiffImageReader;
     }
 
     @Override
-    public void close() throws IOException {
+    public synchronized void close() throws IOException {
         if (this.geoTiffImageReader != null) {
             this.geoTiffImageReader.close();
             this.geoTiffImageReader = null;
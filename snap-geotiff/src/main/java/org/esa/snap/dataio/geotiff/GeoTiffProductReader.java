@@ -171,10 +171,7 @@ public class GeoTiffProductReader extends AbstractProductReader {
 
         DefaultMultiLevelImage defaultMultiLevelImage = (DefaultMultiLevelImage)destBand.getSourceImage();
         GeoTiffMultiLevelSource geoTiffMultiLevelSource = (GeoTiffMultiLevelSource)defaultMultiLevelImage.getSource();
-        Raster data;
-        synchronized (this.geoTiffImageReader) {
-            data = this.geoTiffImageReader.readRect(geoTiffMultiLevelSource.isGlobalShifted180(), sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destOffsetX, destOffsetY, destWidth, destHeight);
-        }
+        Raster data = this.geoTiffImageReader.readRect(geoTiffMultiLevelSource.isGlobalShifted180(), sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destOffsetX, destOffsetY, destWidth, destHeight);
         DataBuffer dataBuffer = data.getDataBuffer();
         SampleModel sampleModel = data.getSampleModel();
         int dataBufferType = dataBuffer.getDataType();
@@ -46,8 +46,7 @@ public class GeoTiffTileOpImage extends AbstractSubsetTileOpImage {
         int sourceStepY = 1;
         int sourceOffsetX = sourceStepX * destOffsetX;
         int sourceOffsetY = sourceStepY * destOffsetY;
-        synchronized (this.geoTiffImageReader) {
-            return this.geoTiffImageReader.readRect(this.geoTiffBandSource.isGlobalShifted180(), sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destOffsetX, destOffsetY, destWidth, destHeight);
-        }
+        // the reader assembles the rectangle from its cache of decoded tiles, the tiles of the image are read concurrently
+        return this.geoTiffImageReader.readRect(this.geoTiffBandSource.isGlobalShifted180(), sourceOffsetX, sourceOffsetY, sourceStepX, sourceStepY, destOffsetX, destOffsetY, destWidth, destHeight);
     }
 }
@@ -0,0 +1,253 @@
+package org.esa.snap.dataio.geotiff;
+
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads rectangles of the first image of a TIFF file by decoding the native tiles of the file, instead of building a
+ * rendered image for each request.
+ * <p>
+ * The image is divided into blocks: a block is a native tile, or a group of strips covering at least
+ * {@link #MIN_BLOCK_PIXEL_COUNT} pixels if the image is organized in strips. The decoded blocks are kept in a
+ * {@link GeoTiffBlockCache} shared by all files, so that requested rectangles overlapping the same block do not decode
+ * it twice. A block requested by several threads at the same time is decoded only once.
+ * <p>
+ * The blocks are decoded by a pool of image readers, each with its own input stream, so that several blocks can be
+ * decoded concurrently. Each further reader takes a permit from a semaphore shared by all files, which limits the
+ * number of open readers. If no reader is idle and no permit is available, the block is decoded by the given reader.
+ *
+ * @since SNAP 8
+ */
+class GeoTiffTileReader implements Closeable {
+
+    static final int MIN_BLOCK_PIXEL_COUNT = 256 * 256;
+    private static final int FIRST_IMAGE = 0;
+
+    private final ImageReader imageReader;
+    private final ImageReaderFactory readerFactory;
+    private final Semaphore readerPermits;
+    private final Queue<ImageReader> idleReaders;
+    private final List<ImageReader> createdReaders;
+    private final GeoTiffBlockCache blockCache;
+    private final SampleModel sampleModel;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final int blockWidth;
+    private final int blockHeight;
+    private final int numBlocksX;
+    private final long blockSize;
+    private boolean closed;
+
+    /**
+     * @param imageReader   the reader of the file, used while holding its lock if no further reader is available
+     * @param readerFactory creates further readers of the same file, may be {@code null}
+     * @param readerPermits the permits for creating further readers, shared by all files
+     * @param blockCache    the cache of the decoded blocks, shared by all files
+     * @throws IOException if the layout of the image cannot be read
+     */
+    GeoTiffTileReader(ImageReader imageReader, ImageReaderFactory readerFactory, Semaphore readerPermits, GeoTiffBlockCache blockCache)
+            throws IOException {
+        this.imageReader = imageReader;
+        this.readerFactory = readerFactory;
+        this.readerPermits = readerPermits;
+        this.idleReaders = new ConcurrentLinkedQueue<>();
+        this.createdReaders = new ArrayList<>();
+        this.blockCache = blockCache;
+        ImageTypeSpecifier imageType = imageReader.getImageTypes(FIRST_IMAGE).next();
+        this.sampleModel = imageType.getSampleModel();
+        this.imageWidth = imageReader.getWidth(FIRST_IMAGE);
+        this.imageHeight = imageReader.getHeight(FIRST_IMAGE);
+        int tileWidth = Math.min(imageReader.getTileWidth(FIRST_IMAGE), this.imageWidth);
+        int tileHeight = Math.min(imageReader.getTileHeight(FIRST_IMAGE), this.imageHeight);
+        this.blockWidth = tileWidth;
+        if (tileWidth == this.imageWidth) {
+            // strips, decode several of them at once
+            int stripCount = Math.max(1, MIN_BLOCK_PIXEL_COUNT / (tileWidth * tileHeight));
+            this.blockHeight = (int) Math.min((long) stripCount * tileHeight, this.imageHeight);
+        } else {
+            this.blockHeight = tileHeight;
+        }
+        this.numBlocksX = (this.imageWidth + this.blockWidth - 1) / this.blockWidth;
+
+        this.blockSize = (long) this.blockWidth * this.blockHeight * this.sampleModel.getNumBands()
+                         * Math.max(1, DataBuffer.getDataTypeSize(this.sampleModel.getDataType()) / 8);
+    }
+
+    /**
+     * Reads a rectangle of the optionally subsampled image. The returned raster contains all bands of the image and
+     * has the sample model of the image; its origin is the origin of the rectangle.
+     *
+     * @param sourceStepX        the subsampling in X direction
+     * @param sourceStepY        the subsampling in Y direction
+     * @param subsamplingXOffset the X coordinate of the first source pixel of the subsampled image
+     * @param subsamplingYOffset the Y coordinate of the first source pixel of the subsampled image
+     * @param destRectangle      the rectangle in the coordinates of the subsampled image
+     * @return the raster
+     * @throws IOException if a block cannot be decoded
+     */
+    Raster readRect(int sourceStepX, int sourceStepY, int subsamplingXOffset, int subsamplingYOffset, Rectangle destRectangle)
+                    throws IOException {
+
+        SampleModel destSampleModel = this.sampleModel.createCompatibleSampleModel(destRectangle.width, destRectangle.height);
+        WritableRaster destRaster = Raster.createWritableRaster(destSampleModel, new Point(destRectangle.x, destRectangle.y));
+        int sourceMinX = subsamplingXOffset + destRectangle.x * sourceStepX;
+        int sourceMinY = subsamplingYOffset + destRectangle.y * sourceStepY;
+        int sourceMaxX = Math.min(sourceMinX + (destRectangle.width - 1) * sourceStepX, this.imageWidth - 1);
+        int sourceMaxY = Math.min(sourceMinY + (destRectangle.height - 1) * sourceStepY, this.imageHeight - 1);
+        if (sourceMinX > sourceMaxX || sourceMinY > sourceMaxY) {
+            return destRaster;
+        }
+        Object pixel = null;
+        for (int blockY = sourceMinY / this.blockHeight; blockY <= sourceMaxY / this.blockHeight; blockY++) {
+            int blockMinY = blockY * this.blockHeight;
+            // the first and last rows of the destination, whose source rows are in this block
+            int destMinRow = ceilDiv(Math.max(blockMinY, sourceMinY) - sourceMinY, sourceStepY);
+            int destMaxRow = (Math.min(blockMinY + this.blockHeight - 1, sourceMaxY) - sourceMinY) / sourceStepY;
+            for (int blockX = sourceMinX / this.blockWidth; blockX <= sourceMaxX / this.blockWidth; blockX++) {
+                int blockMinX = blockX * this.blockWidth;
+                int destMinColumn = ceilDiv(Math.max(blockMinX, sourceMinX) - sourceMinX, sourceStepX);
+                int destMaxColumn = (Math.min(blockMinX + this.blockWidth - 1, sourceMaxX) - sourceMinX) / sourceStepX;
+                if (destMinRow > destMaxRow || destMinColumn > destMaxColumn) {
+                    continue;
+                }
+                Raster block = getBlock(blockX, blockY);
+                if (sourceStepX == 1 && sourceStepY == 1) {
+                    int width = destMaxColumn - destMinColumn + 1;
+                    int height = destMaxRow - destMinRow + 1;
+                    Object data = block.getDataElements(sourceMinX + destMinColumn - blockMinX, sourceMinY + destMinRow - blockMinY, width, height, null);
+                    destRaster.setDataElements(destRectangle.x + destMinColumn, destRectangle.y + destMinRow, width, height, data);
+                } else {
+                    for (int row = destMinRow; row <= destMaxRow; row++) {
+                        int blockRow = sourceMinY + row * sourceStepY - blockMinY;
+                        for (int column = destMinColumn; column <= destMaxColumn; column++) {
+                            pixel = block.getDataElements(sourceMinX + column * sourceStepX - blockMinX, blockRow, pixel);
+                            destRaster.setDataElements(destRectangle.x + column, destRectangle.y + row, pixel);
+                        }
+                    }
+                }
+            }
+        }
+        return destRaster;
+    }
+
+    @Override
+    public void close() {
+        List<ImageReader> readersToClose;
+        synchronized (this) {
+            this.closed = true;
+            readersToClose = new ArrayList<>(this.createdReaders);
+            this.createdReaders.clear();
+        }
+        this.blockCache.removeAll(this);
+        this.readerPermits.release(readersToClose.size());
+        for (ImageReader imageReader : readersToClose) {
+            ImageInputStream imageInputStream = (ImageInputStream) imageReader.getInput();
+            imageReader.dispose();
+            if (imageInputStream != null) {
+                try {
+                    imageInputStream.close();
+                } catch (IOException ignore) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private Raster getBlock(int blockX, int blockY) throws IOException {
+        long blockIndex = (long) blockY * this.numBlocksX + blockX;
+        FutureTask<Raster> newTask = new FutureTask<>(() -> decodeBlock(blockX, blockY));
+        FutureTask<Raster> decodeTask = this.blockCache.getOrAdd(this, blockIndex, this.blockSize, newTask);
+        if (decodeTask == newTask) {
+            decodeTask.run();
+        }
+        try {
+            return decodeTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decoding the block " + blockX + ", " + blockY + ".");
+        } catch (ExecutionException e) {
+            this.blockCache.remove(this, blockIndex, decodeTask);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to decode the block " + blockX + ", " + blockY + ".", cause);
+        }
+    }
+
+    private Raster decodeBlock(int blockX, int blockY) throws IOException {
+        int x = blockX * this.blockWidth;
+        int y = blockY * this.blockHeight;
+        Rectangle blockRectangle = new Rectangle(x, y, Math.min(this.blockWidth, this.imageWidth - x), Math.min(this.blockHeight, this.imageHeight - y));
+        ImageReader pooledReader = acquireReader();
+        if (pooledReader == null) {
+            synchronized (this.imageReader) {
+                return decodeRectangle(this.imageReader, blockRectangle);
+            }
+        }
+        try {
+            return decodeRectangle(pooledReader, blockRectangle);
+        } finally {
+            this.idleReaders.add(pooledReader);
+        }
+    }
+
+    /**
+     * Returns an idle reader of the pool or a new reader, or {@code null} if the reader of the file must be used.
+     */
+    private ImageReader acquireReader() throws IOException {
+        ImageReader pooledReader = this.idleReaders.poll();
+        if (pooledReader != null || this.readerFactory == null || !this.readerPermits.tryAcquire()) {
+            return pooledReader;
+        }
+        try {
+            synchronized (this) {
+                if (this.closed) {
+                    throw new IOException("The reader is closed.");
+                }
+                pooledReader = this.readerFactory.createImageReader();
+                this.createdReaders.add(pooledReader);
+                return pooledReader;
+            }
+        } catch (IOException | RuntimeException e) {
+            this.readerPermits.release();
+            throw e;
+        }
+    }
+
+    private static Raster decodeRectangle(ImageReader imageReader, Rectangle rectangle) throws IOException {
+        ImageReadParam readParam = imageReader.getDefaultReadParam();
+        readParam.setSourceRegion(rectangle);
+        return imageReader.read(FIRST_IMAGE, readParam).getRaster();
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    /**
+     * Creates a new reader of the TIFF file, with its own input stream.
+     */
+    interface ImageReaderFactory {
+
+        ImageReader createImageReader() throws IOException;
+    }
+}
@@ -0,0 +1,202 @@
+package org.esa.snap.dataio.geotiff;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test: reading rectangles of a TIFF file from the decoded native tiles.
+ */
+public class GeoTiffTileReaderTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 250;
+
+    private File file;
+    private ImageReader imageReader;
+    private Raster image;
+
+    @Before
+    public void setUp() throws IOException {
+        BufferedImage bufferedImage = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_USHORT_GRAY);
+        WritableRaster raster = bufferedImage.getRaster();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                raster.setSample(x, y, 0, 7 * x + 11 * y);
+            }
+        }
+        this.image = raster;
+        this.file = File.createTempFile("tile_reader_test", ".tif");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (this.imageReader != null) {
+            ImageInputStream imageInputStream = (ImageInputStream) this.imageReader.getInput();
+            this.imageReader.dispose();
+            imageInputStream.close();
+        }
+        this.file.delete();
+    }
+
+    @Test
+    public void testReadRectFromTiles() throws IOException {
+        writeTiff(true);
+        GeoTiffTileReader tileReader = new GeoTiffTileReader(this.imageReader, null, new Semaphore(0), new GeoTiffBlockCache(1024 * 1024));
+
+        assertRectEquals(tileReader, 1, 1, new Rectangle(0, 0, WIDTH, HEIGHT));
+        assertRectEquals(tileReader, 1, 1, new Rectangle(10, 20, 100, 90));
+        assertRectEquals(tileReader, 1, 1, new Rectangle(WIDTH - 7, HEIGHT - 5, 7, 5));
+    }
+
+    @Test
+    public void testReadRectFromStrips() throws IOException {
+        writeTiff(false);
+        GeoTiffTileReader tileReader = new GeoTiffTileReader(this.imageReader, null, new Semaphore(0), new GeoTiffBlockCache(1024 * 1024));
+
+        assertRectEquals(tileReader, 1, 1, new Rectangle(0, 0, WIDTH, HEIGHT));
+        assertRectEquals(tileReader, 1, 1, new Rectangle(10, 20, 30, 40));
+        assertRectEquals(tileReader, 1, 1, new Rectangle(WIDTH - 7, HEIGHT - 5, 7, 5));
+    }
+
+    @Test
+    public void testReadSubsampledRect() throws IOException {
+        writeTiff(true);
+        GeoTiffTileReader tileReader = new GeoTiffTileReader(this.imageReader, null, new Semaphore(0), new GeoTiffBlockCache(1024 * 1024));
+
+        assertRectEquals(tileReader, 2, 3, new Rectangle(0, 0, WIDTH / 2, HEIGHT / 3));
+        assertRectEquals(tileReader, 3, 2, new Rectangle(5, 7, 20, 25));
+    }
+
+    @Test
+    public void testConcurrentReadsWithReaderPool() throws Exception {
+        writeTiff(true);
+        // a cache of half the image, so that blocks are evicted and decoded again
+        GeoTiffBlockCache blockCache = new GeoTiffBlockCache((long) WIDTH * HEIGHT);
+        Semaphore readerPermits = new Semaphore(3);
+        AtomicInteger createdReaderCount = new AtomicInteger();
+        GeoTiffTileReader tileReader = new GeoTiffTileReader(this.imageReader, () -> {
+            createdReaderCount.incrementAndGet();
+            return createImageReader(this.file);
+        }, readerPermits, blockCache);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                Random random = new Random(i);
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        int x = random.nextInt(WIDTH - 1);
+                        int y = random.nextInt(HEIGHT - 1);
+                        int width = 1 + random.nextInt(WIDTH - x);
+                        int height = 1 + random.nextInt(HEIGHT - y);
+                        assertRectEquals(tileReader, 1, 1, new Rectangle(x, y, width, height));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            tileReader.close();
+        }
+        assertTrue(createdReaderCount.get() >= 1);
+        assertTrue(createdReaderCount.get() <= 3);
+        assertEquals(3, readerPermits.availablePermits());
+        assertEquals(0, blockCache.getBlockCount());
+    }
+
+    @Test
+    public void testCacheIsSharedByTileReaders() throws IOException {
+        writeTiff(true);
+        // the blocks have 64 x 48 pixels of 2 bytes, the cache holds 10 of them
+        GeoTiffBlockCache blockCache = new GeoTiffBlockCache(10 * 64 * 48 * 2);
+        Semaphore readerPermits = new Semaphore(1);
+        GeoTiffTileReader tileReader1 = new GeoTiffTileReader(this.imageReader, () -> createImageReader(this.file), readerPermits, blockCache);
+        ImageReader imageReader2 = createImageReader(this.file);
+        GeoTiffTileReader tileReader2 = new GeoTiffTileReader(imageReader2, () -> createImageReader(this.file), readerPermits, blockCache);
+        try {
+            // 5 x 6 blocks each, the second reader has no permit and decodes with its own reader
+            assertRectEquals(tileReader1, 1, 1, new Rectangle(0, 0, WIDTH, HEIGHT));
+            assertRectEquals(tileReader2, 1, 1, new Rectangle(0, 0, WIDTH, HEIGHT));
+            assertEquals(0, readerPermits.availablePermits());
+            assertEquals(10, blockCache.getBlockCount());
+            assertEquals(10 * 64 * 48 * 2, blockCache.getSize());
+
+            tileReader2.close();
+            assertEquals(0, blockCache.getBlockCount());
+            assertEquals(0, readerPermits.availablePermits());
+
+            tileReader1.close();
+            assertEquals(1, readerPermits.availablePermits());
+        } finally {
+            tileReader1.close();
+            tileReader2.close();
+            ImageInputStream imageInputStream = (ImageInputStream) imageReader2.getInput();
+            imageReader2.dispose();
+            imageInputStream.close();
+        }
+    }
+
+    private void assertRectEquals(GeoTiffTileReader tileReader, int stepX, int stepY, Rectangle destRectangle) throws IOException {
+        Raster raster = tileReader.readRect(stepX, stepY, 0, 0, destRectangle);
+        assertEquals(destRectangle, raster.getBounds());
+        for (int y = destRectangle.y; y < destRectangle.y + destRectangle.height; y++) {
+            for (int x = destRectangle.x; x < destRectangle.x + destRectangle.width; x++) {
+                assertEquals(this.image.getSample(x * stepX, y * stepY, 0), raster.getSample(x, y, 0));
+            }
+        }
+    }
+
+    private void writeTiff(boolean tiled) throws IOException {
+        ImageWriter imageWriter = ImageIO.getImageWritersByFormatName("tiff").next();
+        ImageWriteParam writeParam = imageWriter.getDefaultWriteParam();
+        if (tiled) {
+            writeParam.setTilingMode(ImageWriteParam.MODE_EXPLICIT);
+            writeParam.setTiling(64, 48, 0, 0);
+        }
+        BufferedImage bufferedImage = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_USHORT_GRAY);
+        bufferedImage.setData(this.image);
+        try (ImageOutputStream outputStream = ImageIO.createImageOutputStream(this.file)) {
+            imageWriter.setOutput(outputStream);
+            imageWriter.write(null, new IIOImage(bufferedImage, null, null), writeParam);
+        } finally {
+            imageWriter.dispose();
+        }
+        this.imageReader = createImageReader(this.file);
+    }
+
+    private static ImageReader createImageReader(File file) throws IOException {
+        ImageInputStream imageInputStream = ImageIO.createImageInputStream(file);
+        ImageReader reader = ImageIO.getImageReaders(imageInputStream).next();
+        reader.setInput(imageInputStream);
+        return reader;
+    }
+}
@@ -60,7 +60,13 @@ public class GPF {
 
     public static final String DISABLE_TILE_CACHE_PROPERTY = "snap.gpf.disableTileCache";
     public static final String USE_FILE_TILE_CACHE_PROPERTY = "snap.gpf.useFileTileCache";
+    public static final String USE_CONCURRENT_FILE_TILE_CACHE_PROPERTY = "snap.gpf.useConcurrentFileTileCache";
+    public static final String USE_OFF_HEAP_TILE_CACHE_PROPERTY = "snap.gpf.useOffHeapTileCache";
+    public static final String OFF_HEAP_TILE_CACHE_SIZE_PROPERTY = "snap.gpf.offHeapTileCacheSize";
     public static final String TILE_COMPUTATION_OBSERVER_PROPERTY = "snap.gpf.tileComputationObserver";
+    public static final String PROFILE_FILE_PROPERTY = "snap.gpf.profileFile";
+    public static final String TILE_ORDER_PROPERTY = "snap.gpf.tileOrder";
+    public static final String TILE_LOOK_AHEAD_PROPERTY = "snap.gpf.tileLookAhead";
     public static final String BEEP_AFTER_PROCESSING_PROPERTY = "snap.gpf.beepAfterProcessing";
     public static final String SNAP_GPF_ALLOW_AUXDATA_DOWNLOAD = "snap.gpf.allowAuxdataDownload";
 
@@ -23,9 +23,11 @@ import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.datamodel.RasterDataNode;
 import org.esa.snap.core.dataop.barithm.BandArithmetic;
+import org.esa.snap.core.dataop.barithm.CompiledTerm;
 import org.esa.snap.core.dataop.barithm.ProductNamespacePrefixProvider;
 import org.esa.snap.core.dataop.barithm.RasterDataEvalEnv;
 import org.esa.snap.core.dataop.barithm.RasterDataSymbol;
+import org.esa.snap.core.dataop.barithm.TermCompiler;
 import org.esa.snap.core.gpf.Operator;
 import org.esa.snap.core.gpf.OperatorException;
 import org.esa.snap.core.gpf.OperatorSpi;
@@ -343,21 +345,33 @@ public class BandMathsOp extends Operator {
             if (band.isNoDataValueUsed()) {
                 fv = (float) band.getNoDataValue();
             }
+            if (TermCompiler.isEnabled()) {
+                final CompiledTerm compiledTerm = TermCompiler.getInstance().compile(term, ProductData.TYPE_FLOAT64, false, true);
+                if (compiledTerm != null) {
+                    final double[] samples = new double[rect.width * rect.height];
+                    compiledTerm.eval(env, ProductData.createInstance(samples), 0, rect.width, fv);
+                    targetTile.setSamples(samples);
+                    pm.worked(rect.height);
+                    return;
+                }
+            }
+            final double[] values = new double[rect.width];
             int pixelIndex = 0;
             for (int y = rect.y; y < rect.y + rect.height; y++) {
                 if (pm.isCanceled()) {
                     break;
                 }
-                for (int x = rect.x; x < rect.x + rect.width; x++) {
-                    env.setElemIndex(pixelIndex);
-                    final double v = term.evalD(env);
+                env.setElemIndex(pixelIndex);
+                term.evalD(env, values, 0, rect.width);
+                for (int x = rect.x, i = 0; x < rect.x + rect.width; x++, i++) {
+                    final double v = values[i];
                     if (Double.isNaN(v) || Double.isInfinite(v)) {
                         targetTile.setSample(x, y, fv);
                     } else {
                         targetTile.setSample(x, y, v);
                     }
-                    pixelIndex++;
                 }
+                pixelIndex += rect.width;
                 pm.worked(1);
             }
         } finally {
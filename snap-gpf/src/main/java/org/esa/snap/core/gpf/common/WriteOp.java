@@ -49,6 +49,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
 /**
  * This standard operator is used to store a data product to a specified file location.
@@ -123,7 +125,10 @@ public class WriteOp extends Operator {
             description = "If true, the internal tile cache is cleared after a tile row has been written. Ignored if writeEntireTileRows=false.")
     private boolean clearCacheAfterRowWrite;
 
-    private boolean[][][] tilesWritten;
+    private AtomicIntegerArray[] tilesWritten;
+    private AtomicIntegerArray tileRowsRemaining;
+    private AtomicInteger tilesRemaining;
+    private Object[] bandWriteLocks;
     private final Map<Row, Tile[]> writeCache = new HashMap<>();
     private Dimension[] tileSizes;
     private int[] tileCountsX;
@@ -288,7 +293,10 @@ public class WriteOp extends Operator {
         try {
             tileSizes = new Dimension[writableBands.size()];
             tileCountsX = new int[writableBands.size()];
-            tilesWritten = new boolean[writableBands.size()][][];
+            tilesWritten = new AtomicIntegerArray[writableBands.size()];
+            bandWriteLocks = new Object[writableBands.size()];
+            int[] tileCountsY = new int[writableBands.size()];
+            int totalTileCount = 0;
             for (int i = 0; i < writableBands.size(); i++) {
                 Band writableBand = writableBands.get(i);
                 Dimension tileSize = determineTileSize(writableBand);
@@ -297,13 +305,28 @@ public class WriteOp extends Operator {
                 int tileCountX = MathUtils.ceilInt(writableBand.getRasterWidth() / (double) tileSize.width);
                 tileCountsX[i] = tileCountX;
                 int tileCountY = MathUtils.ceilInt(writableBand.getRasterHeight() / (double) tileSize.height);
-                tilesWritten[i] = new boolean[tileCountY][tileCountX];
+                tileCountsY[i] = tileCountY;
+                tilesWritten[i] = new AtomicIntegerArray(tileCountY * tileCountX);
+                totalTileCount += tileCountY * tileCountX;
+                // writers able to write bands concurrently get a separate lane for each band
+                bandWriteLocks[i] = productWriter.canWriteBandsConcurrently() ? new Object() : productWriter;
 
                 if (writeEntireTileRows && i > 0 && !tileSize.equals(tileSizes[0])) {
                     writeEntireTileRows = false;        // don't writeEntireTileRows for multisize bands
                 }
                 pm.worked(1);
             }
+            tilesRemaining = new AtomicInteger(totalTileCount);
+            int maxTileCountY = 0;
+            for (int tileCountY : tileCountsY) {
+                maxTileCountY = Math.max(maxTileCountY, tileCountY);
+            }
+            tileRowsRemaining = new AtomicIntegerArray(maxTileCountY);
+            for (int i = 0; i < writableBands.size(); i++) {
+                for (int tileY = 0; tileY < tileCountsY[i]; tileY++) {
+                    tileRowsRemaining.addAndGet(tileY, tileCountsX[i]);
+                }
+            }
             if (writableBands.size() > 0) {
                 if (writeEntireTileRows) {
                     targetProduct.setPreferredTileSize(tileSizes[0]);
@@ -334,13 +357,16 @@ public class WriteOp extends Operator {
             int tileCountX = tileCountsX[bandIndex];
             int tileX = MathUtils.floorInt(targetTile.getMinX() / (double) tileSize.width);
             int tileY = MathUtils.floorInt(targetTile.getMinY() / (double) tileSize.height);
+            final boolean productWrittenCompletely;
             if (writeEntireTileRows) {
                 Row row = new Row(targetBand, tileY);
                 Tile[] tileRowToWrite = updateTileRow(row, tileX, targetTile, tileCountX);
                 if (tileRowToWrite != null) {
-                    writeTileRow(targetBand, tileRowToWrite);
+                    synchronized (bandWriteLocks[bandIndex]) {
+                        writeTileRow(targetBand, tileRowToWrite);
+                    }
                 }
-                markTileAsHandled(targetBand, tileX, tileY);
+                productWrittenCompletely = markTileAsHandled(bandIndex, tileX, tileY);
                 if (clearCacheAfterRowWrite && tileRowToWrite != null && isRowWrittenCompletely(tileY)) {
                     TileCache tileCache = JAI.getDefaultInstance().getTileCache();
                     if (tileCache != null) {
@@ -349,13 +375,13 @@ public class WriteOp extends Operator {
                 }
             } else {
                 final ProductData rawSamples = targetTile.getRawSamples();
-                synchronized (productWriter) {
+                synchronized (bandWriteLocks[bandIndex]) {
                     productWriter.writeBandRasterData(targetBand, rect.x, rect.y, rect.width, rect.height, rawSamples,
                             pm);
                 }
-                markTileAsHandled(targetBand, tileX, tileY);
+                productWrittenCompletely = markTileAsHandled(bandIndex, tileX, tileY);
             }
-            if (productWriter instanceof DimapProductWriter && isProductWrittenCompletely()) {
+            if (productWriter instanceof DimapProductWriter && productWrittenCompletely) {
                 // If we get here all tiles are written
                 // we can update the header only for DIMAP, so rewrite it, to handle intermediate changes
                 synchronized (productWriter) {
@@ -431,33 +457,21 @@ public class WriteOp extends Operator {
         productWriter.writeBandRasterData(band, 0, cacheLine[0].getMinY(), lineWidth, cacheLine[0].getHeight(), productData, ProgressMonitor.NULL);
     }
 
-    private void markTileAsHandled(Band targetBand, int tileX, int tileY) {
-        int bandIndex = writableBands.indexOf(targetBand);
-        tilesWritten[bandIndex][tileY][tileX] = true;
-    }
-
-    private boolean isRowWrittenCompletely(int rowNumber) {
-        for (int bandIndex = 0; bandIndex < writableBands.size(); bandIndex++) {
-            for (boolean aYTileWritten : tilesWritten[bandIndex][rowNumber]) {
-                if (!aYTileWritten) {
-                    return false;
-                }
-            }
+    /**
+     * Marks the given tile as written.
+     *
+     * @return {@code true} if this has been the last tile of the product which was not yet written
+     */
+    private boolean markTileAsHandled(int bandIndex, int tileX, int tileY) {
+        if (tilesWritten[bandIndex].compareAndSet(tileY * tileCountsX[bandIndex] + tileX, 0, 1)) {
+            tileRowsRemaining.decrementAndGet(tileY);
+            return tilesRemaining.decrementAndGet() == 0;
         }
-        return true;
+        return false;
     }
 
-    private boolean isProductWrittenCompletely() {
-        for (int bandIndex = 0; bandIndex < writableBands.size(); bandIndex++) {
-            for (boolean[] aXTileWritten : tilesWritten[bandIndex]) {
-                for (boolean aYTileWritten : aXTileWritten) {
-                    if (!aYTileWritten) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+    private boolean isRowWrittenCompletely(int rowNumber) {
+        return tileRowsRemaining.get(rowNumber) == 0;
     }
 
     @Override
@@ -16,15 +16,19 @@
 
 package org.esa.snap.core.gpf.graph;
 
+import com.bc.ceres.core.Assert;
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.core.SubProgressMonitor;
+import com.bc.ceres.jai.tilescheduler.SplitPoolTileScheduler;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.gpf.GPF;
 import org.esa.snap.core.gpf.OperatorException;
 import org.esa.snap.core.gpf.internal.OperatorContext;
 import org.esa.snap.core.gpf.internal.ProductSetHandler;
 import org.esa.snap.core.util.SystemUtils;
 import org.esa.snap.core.util.math.MathUtils;
+import org.esa.snap.runtime.Config;
 
 import javax.media.jai.*;
 import javax.media.jai.util.ImagingListener;
@@ -33,6 +37,7 @@ import java.awt.image.Raster;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -49,6 +54,8 @@ public class GraphProcessor {
 
     private List<GraphProcessingObserver> observerList;
     private Logger logger;
+    private TileOrder tileOrder;
+    private int tileLookAhead;
     private volatile OperatorException error = null;
 
 
@@ -58,6 +65,8 @@ public class GraphProcessor {
     public GraphProcessor() {
         observerList = new ArrayList<>(3);
         logger = SystemUtils.LOG;
+        tileOrder = getConfiguredTileOrder(logger);
+        tileLookAhead = Math.max(1, Config.instance().preferences().getInt(GPF.TILE_LOOK_AHEAD_PROPERTY, 1));
     }
 
     /**
@@ -78,6 +87,53 @@ public class GraphProcessor {
         this.logger = logger;
     }
 
+    /**
+     * Gets the order in which the tiles of the output products are computed.
+     *
+     * @return the tile order
+     * @since SNAP 8
+     */
+    public TileOrder getTileOrder() {
+        return tileOrder;
+    }
+
+    /**
+     * Sets the order in which the tiles of the output products are computed. The default is given by the
+     * configuration property {@link GPF#TILE_ORDER_PROPERTY}, which is the name of a {@link StandardTileOrder}.
+     *
+     * @param tileOrder the tile order
+     * @since SNAP 8
+     */
+    public void setTileOrder(TileOrder tileOrder) {
+        Assert.notNull(tileOrder, "tileOrder");
+        this.tileOrder = tileOrder;
+    }
+
+    /**
+     * Gets the number of consecutive tiles which are requested together from the tile scheduler.
+     *
+     * @return the tile look-ahead
+     * @since SNAP 8
+     */
+    public int getTileLookAhead() {
+        return tileLookAhead;
+    }
+
+    /**
+     * Sets the number of consecutive tiles which are requested together from the tile scheduler. The tiles of
+     * such a batch are computed concurrently, so that source tiles shared by neighbouring target tiles are
+     * still in the tile cache when they are needed. The look-ahead is bounded by the parallelism of the tile
+     * scheduler. The default is given by the configuration property {@link GPF#TILE_LOOK_AHEAD_PROPERTY},
+     * which defaults to one.
+     *
+     * @param tileLookAhead the tile look-ahead, must be greater than zero
+     * @since SNAP 8
+     */
+    public void setTileLookAhead(int tileLookAhead) {
+        Assert.argument(tileLookAhead > 0, "tileLookAhead > 0");
+        this.tileLookAhead = tileLookAhead;
+    }
+
     /**
      * Adds an observer to this graph popcessor. {@link GraphProcessingObserver}s are informed about
      * processing steps of the currently running processing graph.
@@ -167,7 +223,7 @@ public class GraphProcessor {
         JAI.getDefaultInstance().setImagingListener(new GPFImagingListener());
 
         final TileScheduler tileScheduler = JAI.getDefaultInstance().getTileScheduler();
-        final int parallelism = tileScheduler.getParallelism();
+        final int parallelism = SplitPoolTileScheduler.getTileRequestParallelism(tileScheduler);
         final Semaphore semaphore = new Semaphore(parallelism, true);
         final TileComputationListener tcl = new GraphTileComputationListener(semaphore, parallelism);
         final TileComputationListener[] listeners = new TileComputationListener[]{tcl};
@@ -189,66 +245,73 @@ public class GraphProcessor {
                 outputNodeContext.getOperator().execute(SubProgressMonitor.create(pm, 1));
             }
             pm.setTaskName("Computing raster data...");
+            // tiles are requested in batches of consecutive tiles, the batch size must not exceed the number
+            // of permits, otherwise the acquisition would never succeed
+            final int batchSize = Math.min(tileLookAhead, parallelism);
             for (Dimension dimension : dimList) {
                 List<NodeContext> nodeContextList = tileDimMap.get(dimension);
-                final int numXTiles = dimension.width;
-                final int numYTiles = dimension.height;
                 Dimension tileSize = nodeContextList.get(0).getTargetProduct().getPreferredTileSize();
-                for (int tileY = 0; tileY < numYTiles; tileY++) {
-                    for (int tileX = 0; tileX < numXTiles; tileX++) {
-                        if (pm.isCanceled()) {
-                            // todo - check: throw exception here? (nf, 2010.10.21)
-                            return graphContext.getOutputProducts();
-                        }
-                        Rectangle tileRectangle = new Rectangle(tileX * tileSize.width,
-                                tileY * tileSize.height,
-                                tileSize.width,
-                                tileSize.height);
-                        fireTileStarted(graphContext, tileRectangle);
-                        for (NodeContext nodeContext : nodeContextList) {
-                            Product targetProduct = nodeContext.getTargetProduct();
-                            if (canComputeTileStack) {
-                                // (1) Pull tile from first OperatorImage we find. This will trigger pulling
-                                // tiles of all other OperatorImage computed stack-wise.
-                                //
-                                for (Band band : targetProduct.getBands()) {
-                                    PlanarImage image = nodeContext.getTargetImage(band);
-                                    if (image != null) {
-                                        forceTileComputation(image, tileX, tileY, semaphore, tileScheduler, listeners,
-                                                parallelism);
-
-                                        break;
-                                    }
+                final Point[] tileIndices = tileOrder.getTileIndices(dimension.width, dimension.height);
+                for (int batchStart = 0; batchStart < tileIndices.length; batchStart += batchSize) {
+                    if (pm.isCanceled()) {
+                        // todo - check: throw exception here? (nf, 2010.10.21)
+                        return graphContext.getOutputProducts();
+                    }
+                    final Point[] tiles = Arrays.copyOfRange(tileIndices, batchStart,
+                                                             Math.min(tileIndices.length, batchStart + batchSize));
+                    final Rectangle[] tileRectangles = new Rectangle[tiles.length];
+                    for (int i = 0; i < tiles.length; i++) {
+                        tileRectangles[i] = new Rectangle(tiles[i].x * tileSize.width,
+                                                          tiles[i].y * tileSize.height,
+                                                          tileSize.width,
+                                                          tileSize.height);
+                        fireTileStarted(graphContext, tileRectangles[i]);
+                    }
+                    for (NodeContext nodeContext : nodeContextList) {
+                        Product targetProduct = nodeContext.getTargetProduct();
+                        if (canComputeTileStack) {
+                            // (1) Pull tile from first OperatorImage we find. This will trigger pulling
+                            // tiles of all other OperatorImage computed stack-wise.
+                            //
+                            for (Band band : targetProduct.getBands()) {
+                                PlanarImage image = nodeContext.getTargetImage(band);
+                                if (image != null) {
+                                    forceTileComputation(image, tiles, semaphore, tileScheduler, listeners,
+                                            parallelism);
+
+                                    break;
                                 }
+                            }
 
-                                // (2) Pull tile from source images of other regular bands.
-                                //
-                                for (Band band : targetProduct.getBands()) {
-                                    PlanarImage image = nodeContext.getTargetImage(band);
-                                    if (image == null) {
-                                        if (OperatorContext.isRegularBand(band) && band.isSourceImageSet()) {
-                                            forceTileComputation(band.getSourceImage(), tileX, tileY, semaphore,
-                                                    tileScheduler, listeners, parallelism);
-                                        }
-                                    }
-                                }
-                            } else {
-                                // Simply pull tile from source images of regular bands.
-                                //
-                                for (Band band : targetProduct.getBands()) {
-                                    PlanarImage image = nodeContext.getTargetImage(band);
-                                    if (image != null) {
-                                        forceTileComputation(image, tileX, tileY, semaphore, tileScheduler, listeners,
-                                                parallelism);
-                                    } else if (OperatorContext.isRegularBand(band) && band.isSourceImageSet()) {
-                                        forceTileComputation(band.getSourceImage(), tileX, tileY, semaphore,
+                            // (2) Pull tile from source images of other regular bands.
+                            //
+                            for (Band band : targetProduct.getBands()) {
+                                PlanarImage image = nodeContext.getTargetImage(band);
+                                if (image == null) {
+                                    if (OperatorContext.isRegularBand(band) && band.isSourceImageSet()) {
+                                        forceTileComputation(band.getSourceImage(), tiles, semaphore,
                                                 tileScheduler, listeners, parallelism);
                                     }
                                 }
                             }
-
-                            pm.worked(1);
+                        } else {
+                            // Simply pull tile from source images of regular bands.
+                            //
+                            for (Band band : targetProduct.getBands()) {
+                                PlanarImage image = nodeContext.getTargetImage(band);
+                                if (image != null) {
+                                    forceTileComputation(image, tiles, semaphore, tileScheduler, listeners,
+                                            parallelism);
+                                } else if (OperatorContext.isRegularBand(band) && band.isSourceImageSet()) {
+                                    forceTileComputation(band.getSourceImage(), tiles, semaphore,
+                                            tileScheduler, listeners, parallelism);
+                                }
+                            }
                         }
+
+                        pm.worked(tiles.length);
+                    }
+                    for (Rectangle tileRectangle : tileRectangles) {
                         fireTileStopped(graphContext, tileRectangle);
                     }
                 }
@@ -282,11 +345,10 @@ public class GraphProcessor {
         return tileSizeMap;
     }
 
-    private void forceTileComputation(PlanarImage image, int tileX, int tileY, Semaphore semaphore,
+    private void forceTileComputation(PlanarImage image, Point[] points, Semaphore semaphore,
                                       TileScheduler tileScheduler, TileComputationListener[] listeners,
                                       int parallelism) {
-        Point[] points = new Point[]{new Point(tileX, tileY)};
-        acquirePermits(semaphore, 1);
+        acquirePermits(semaphore, points.length);
         if (error != null) {
             semaphore.release(parallelism);
             throw error;
@@ -300,6 +362,19 @@ public class GraphProcessor {
         /////////////////////////////////////////////////////////////////////
     }
 
+    private static TileOrder getConfiguredTileOrder(Logger logger) {
+        final String tileOrderName = Config.instance().preferences().get(GPF.TILE_ORDER_PROPERTY, null);
+        if (tileOrderName != null) {
+            try {
+                return StandardTileOrder.valueOf(tileOrderName.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                logger.log(Level.WARNING, String.format("Unknown tile order '%s', using %s", tileOrderName,
+                                                        StandardTileOrder.ROW_MAJOR));
+            }
+        }
+        return StandardTileOrder.ROW_MAJOR;
+    }
+
     private static void acquirePermits(Semaphore semaphore, int permits) {
         try {
             semaphore.acquire(permits);
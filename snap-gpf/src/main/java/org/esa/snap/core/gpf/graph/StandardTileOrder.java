@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.core.gpf.graph;
+
+import java.awt.Point;
+
+/**
+ * The tile orders provided by GPF. The order used by the {@link GraphProcessor} can be set by the
+ * configuration property {@link org.esa.snap.core.gpf.GPF#TILE_ORDER_PROPERTY}.
+ *
+ * @since SNAP 8
+ */
+public enum StandardTileOrder implements TileOrder {
+
+    /**
+     * Row by row, each from left to right. This is the default order.
+     */
+    ROW_MAJOR {
+        @Override
+        public Point[] getTileIndices(int numXTiles, int numYTiles) {
+            final Point[] tileIndices = new Point[numXTiles * numYTiles];
+            int index = 0;
+            for (int tileY = 0; tileY < numYTiles; tileY++) {
+                for (int tileX = 0; tileX < numXTiles; tileX++) {
+                    tileIndices[index++] = new Point(tileX, tileY);
+                }
+            }
+            return tileIndices;
+        }
+    },
+
+    /**
+     * Row by row, alternating from left to right and from right to left. Rows are completed one after
+     * another as with {@link #ROW_MAJOR}, which suits writers expecting complete tile rows, but the first
+     * tile of a row is the neighbour of the last tile of the previous row.
+     */
+    ROW_SWEEP {
+        @Override
+        public Point[] getTileIndices(int numXTiles, int numYTiles) {
+            final Point[] tileIndices = new Point[numXTiles * numYTiles];
+            int index = 0;
+            for (int tileY = 0; tileY < numYTiles; tileY++) {
+                for (int i = 0; i < numXTiles; i++) {
+                    final int tileX = tileY % 2 == 0 ? i : numXTiles - 1 - i;
+                    tileIndices[index++] = new Point(tileX, tileY);
+                }
+            }
+            return tileIndices;
+        }
+    },
+
+    /**
+     * Along the Z-order (Morton) curve. Tiles close in the order are close in the image in both directions,
+     * but tile rows are only completed in blocks.
+     */
+    Z_ORDER {
+        @Override
+        public Point[] getTileIndices(int numXTiles, int numYTiles) {
+            final Point[] tileIndices = new Point[numXTiles * numYTiles];
+            final int size = getEnclosingPowerOfTwo(numXTiles, numYTiles);
+            int index = 0;
+            for (long d = 0; index < tileIndices.length && d < (long) size * size; d++) {
+                final int tileX = compactBits(d);
+                final int tileY = compactBits(d >>> 1);
+                if (tileX < numXTiles && tileY < numYTiles) {
+                    tileIndices[index++] = new Point(tileX, tileY);
+                }
+            }
+            return tileIndices;
+        }
+    },
+
+    /**
+     * Along the Hilbert curve. Consecutive tiles are always neighbours, but tile rows are only completed
+     * in blocks.
+     */
+    HILBERT {
+        @Override
+        public Point[] getTileIndices(int numXTiles, int numYTiles) {
+            final Point[] tileIndices = new Point[numXTiles * numYTiles];
+            final int size = getEnclosingPowerOfTwo(numXTiles, numYTiles);
+            int index = 0;
+            for (long d = 0; index < tileIndices.length && d < (long) size * size; d++) {
+                final Point point = hilbertToPoint(size, d);
+                if (point.x < numXTiles && point.y < numYTiles) {
+                    tileIndices[index++] = point;
+                }
+            }
+            return tileIndices;
+        }
+    };
+
+    static int getEnclosingPowerOfTwo(int numXTiles, int numYTiles) {
+        int size = 1;
+        while (size < numXTiles || size < numYTiles) {
+            size <<= 1;
+        }
+        return size;
+    }
+
+    // collects the even bits of the given value
+    private static int compactBits(long value) {
+        long x = value & 0x5555555555555555L;
+        x = (x | (x >>> 1)) & 0x3333333333333333L;
+        x = (x | (x >>> 2)) & 0x0f0f0f0f0f0f0f0fL;
+        x = (x | (x >>> 4)) & 0x00ff00ff00ff00ffL;
+        x = (x | (x >>> 8)) & 0x0000ffff0000ffffL;
+        x = (x | (x >>> 16)) & 0x00000000ffffffffL;
+        return (int) x;
+    }
+
+    // maps the distance along the Hilbert curve filling a size x size square to the point
+    private static Point hilbertToPoint(int size, long d) {
+        int x = 0;
+        int y = 0;
+        long t = d;
+        for (int s = 1; s < size; s <<= 1) {
+            final int rx = (int) (1 & (t / 2));
+            final int ry = (int) (1 & (t ^ rx));
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = s - 1 - x;
+                    y = s - 1 - y;
+                }
+                final int tmp = x;
+                x = y;
+                y = tmp;
+            }
+            x += s * rx;
+            y += s * ry;
+            t /= 4;
+        }
+        return new Point(x, y);
+    }
+}
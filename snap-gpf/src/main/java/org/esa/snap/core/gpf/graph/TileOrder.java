@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.core.gpf.graph;
+
+import java.awt.Point;
+
+/**
+ * Determines the order in which the {@link GraphProcessor} requests the tiles of the output products.
+ * The order affects how long the source tiles used for neighbouring target tiles stay in the tile cache.
+ *
+ * @see StandardTileOrder
+ * @see GraphProcessor#setTileOrder(TileOrder)
+ * @since SNAP 8
+ */
+public interface TileOrder {
+
+    /**
+     * Gets the indices of all tiles of a tile grid in the order in which they shall be computed.
+     *
+     * @param numXTiles the number of tiles in x direction
+     * @param numYTiles the number of tiles in y direction
+     * @return the tile indices, each tile of the grid must be contained exactly once
+     */
+    Point[] getTileIndices(int numXTiles, int numYTiles);
+}
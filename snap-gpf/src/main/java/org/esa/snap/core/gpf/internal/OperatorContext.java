@@ -30,7 +30,10 @@ import com.bc.ceres.binding.dom.XppDomElement;
 import com.bc.ceres.core.Assert;
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.glevel.MultiLevelImage;
+import com.bc.ceres.jai.tilecache.ConcurrentSwapSpace;
+import com.bc.ceres.jai.tilecache.ConcurrentSwappingTileCache;
 import com.bc.ceres.jai.tilecache.DefaultSwapSpace;
+import com.bc.ceres.jai.tilecache.OffHeapTileCache;
 import com.bc.ceres.jai.tilecache.SwappingTileCache;
 import org.esa.snap.core.dataio.ProductIO;
 import org.esa.snap.core.dataio.ProductReader;
@@ -73,6 +76,7 @@ import javax.media.jai.TileCache;
 import java.awt.Dimension;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.image.DataBuffer;
 import java.awt.image.Raster;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
@@ -91,6 +95,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
@@ -135,6 +140,7 @@ public class OperatorContext {
     private boolean initialising;
     private boolean requiresAllBands;
     private AtomicBoolean executed;
+    private final AtomicLong tileRequestCount = new AtomicLong();
 
     public OperatorContext(Operator operator) {
         if (operator == null) {
@@ -168,7 +174,8 @@ public class OperatorContext {
 
 
     /**
-     * Makes sure that the given JAI OpImage has a valid tile cache (see System property {@link GPF#USE_FILE_TILE_CACHE_PROPERTY}),
+     * Makes sure that the given JAI OpImage has a valid tile cache (see System properties {@link GPF#USE_FILE_TILE_CACHE_PROPERTY},
+     * {@link GPF#USE_CONCURRENT_FILE_TILE_CACHE_PROPERTY} and {@link GPF#USE_OFF_HEAP_TILE_CACHE_PROPERTY}),
      * or makes sure that it has none (see System property {@link GPF#DISABLE_TILE_CACHE_PROPERTY}).
      *
      * @param image Any JAI OpImage.
@@ -193,8 +200,18 @@ public class OperatorContext {
 
     private static synchronized TileCache getTileCache() {
         if (tileCache == null) {
+            boolean useOffHeapTileCache = Config.instance().preferences().getBoolean(GPF.USE_OFF_HEAP_TILE_CACHE_PROPERTY, false);
             boolean useFileTileCache = Config.instance().preferences().getBoolean(GPF.USE_FILE_TILE_CACHE_PROPERTY, false);
-            if (useFileTileCache) {
+            boolean useConcurrentFileTileCache = Config.instance().preferences().getBoolean(GPF.USE_CONCURRENT_FILE_TILE_CACHE_PROPERTY, false);
+            if (useOffHeapTileCache) {
+                long defaultSize = JAI.getDefaultInstance().getTileCache().getMemoryCapacity() / (1024L * 1024L);
+                long offHeapTileCacheSize = Config.instance().preferences().getLong(GPF.OFF_HEAP_TILE_CACHE_SIZE_PROPERTY, defaultSize);
+                tileCache = new OffHeapTileCache(offHeapTileCacheSize * 1024L * 1024L);
+            } else if (useFileTileCache && useConcurrentFileTileCache) {
+                tileCache = new ConcurrentSwappingTileCache(JAI.getDefaultInstance().getTileCache().getMemoryCapacity(),
+                                                            new ConcurrentSwapSpace(SwappingTileCache.DEFAULT_SWAP_DIR,
+                                                                                    SystemUtils.LOG));
+            } else if (useFileTileCache) {
                 tileCache = new SwappingTileCache(JAI.getDefaultInstance().getTileCache().getMemoryCapacity(),
                                                   new DefaultSwapSpace(SwappingTileCache.DEFAULT_SWAP_DIR,
                                                                        SystemUtils.LOG));
@@ -451,6 +468,9 @@ public class OperatorContext {
         //
         /////////////////////////////////////////////////////////////////////
         resumeWatch();
+        if (tileComputationObserver != null) {
+            nettoWatch.get().addSourceTile(getByteSize(awtRaster));
+        }
         return new TileImpl(rasterDataNode, awtRaster);
     }
 
@@ -1224,12 +1244,43 @@ public class OperatorContext {
             long endNanos = System.nanoTime();
             int tileX = operatorImage.XToTileX(destRect.x);
             int tileY = operatorImage.YToTileY(destRect.y);
-            long nettoNanos = getNettoTime();
+            SuspendableStopWatch watch = nettoWatch.get();
+            long nettoNanos = watch.getTime();
+            long targetBytes = (long) destRect.width * destRect.height
+                               * DataBuffer.getDataTypeSize(operatorImage.getSampleModel().getDataType()) / 8;
             tileComputationObserver.tileComputed(
-                    new TileComputationEvent(operatorImage, tileX, tileY, startNanos, endNanos, nettoNanos));
+                    new TileComputationEvent(operatorImage, tileX, tileY, startNanos, endNanos, nettoNanos,
+                                             watch.suspendedTime, watch.sourceTileCount, watch.sourceBytes, targetBytes));
+            // the source tiles of a tile stack are reported with the first band only
+            watch.resetSourceTiles();
+        }
+    }
+
+    /**
+     * Counts a request for a tile of one of the target images, if tile computations are observed.
+     * Together with the number of computed tiles this gives the tile cache hits and misses.
+     *
+     * @since SNAP 8
+     */
+    public void countTileRequest() {
+        if (tileComputationObserver != null) {
+            tileRequestCount.incrementAndGet();
         }
     }
 
+    /**
+     * @return The number of requests for tiles of the target images counted by {@link #countTileRequest()}.
+     * @since SNAP 8
+     */
+    public long getTileRequestCount() {
+        return tileRequestCount.get();
+    }
+
+    private static long getByteSize(Raster raster) {
+        return (long) raster.getWidth() * raster.getHeight() * raster.getNumBands()
+               * DataBuffer.getDataTypeSize(raster.getTransferType()) / 8;
+    }
+
     /////////////////////////////////////////////////////////////////////////////////////
     private final ThreadLocal<SuspendableStopWatch> nettoWatch = new ThreadLocal<SuspendableStopWatch>() {
         @Override
@@ -1307,6 +1358,9 @@ public class OperatorContext {
 
         private long startTime = -1;
         private long stopTime = -1;
+        private long suspendedTime;
+        private long sourceTileCount;
+        private long sourceBytes;
 
         public void start() {
             this.stopTime = -1;
@@ -1322,10 +1376,23 @@ public class OperatorContext {
         }
 
         public void resume() {
-            this.startTime += (System.nanoTime() - this.stopTime);
+            final long suspendedNanos = System.nanoTime() - this.stopTime;
+            this.startTime += suspendedNanos;
+            this.suspendedTime += suspendedNanos;
             this.stopTime = -1;
         }
 
+        void addSourceTile(long bytes) {
+            this.sourceTileCount++;
+            this.sourceBytes += bytes;
+        }
+
+        void resetSourceTiles() {
+            this.suspendedTime = 0;
+            this.sourceTileCount = 0;
+            this.sourceBytes = 0;
+        }
+
         public long getTime() {
             return this.stopTime - this.startTime;
         }
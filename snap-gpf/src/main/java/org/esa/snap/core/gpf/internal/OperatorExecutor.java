@@ -17,6 +17,7 @@ package org.esa.snap.core.gpf.internal;
 
 import com.bc.ceres.core.ProgressMonitor;
 import com.bc.ceres.core.SubProgressMonitor;
+import com.bc.ceres.jai.tilescheduler.SplitPoolTileScheduler;
 import org.esa.snap.core.datamodel.Band;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.gpf.Operator;
@@ -79,12 +80,13 @@ public class OperatorExecutor {
     private boolean scheduleRowsSeparate = false;
 
     private OperatorExecutor(Operator operator) {
-        this(new OperatorImagesProvider(operator), JAI.getDefaultInstance().getTileScheduler().getParallelism());
+        this(new OperatorImagesProvider(operator),
+                SplitPoolTileScheduler.getTileRequestParallelism(JAI.getDefaultInstance().getTileScheduler()));
     }
 
     public OperatorExecutor(PlanarImage[] images, int tileCountX, int tileCountY) {
         this(new SimpleImagesProvider(images, tileCountX, tileCountY),
-                JAI.getDefaultInstance().getTileScheduler().getParallelism());
+                SplitPoolTileScheduler.getTileRequestParallelism(JAI.getDefaultInstance().getTileScheduler()));
     }
 
     public OperatorExecutor(PlanarImage[] images, int tileCountX, int tileCountY, int parallelism) {
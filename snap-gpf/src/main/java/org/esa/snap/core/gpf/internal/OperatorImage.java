@@ -27,6 +27,7 @@ import javax.media.jai.ImageLayout;
 import javax.media.jai.PlanarImage;
 import javax.media.jai.SourcelessOpImage;
 import java.awt.Rectangle;
+import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 
 public class OperatorImage extends SourcelessOpImage {
@@ -60,6 +61,12 @@ public class OperatorImage extends SourcelessOpImage {
     }
 
 
+    @Override
+    public Raster getTile(int tileX, int tileY) {
+        operatorContext.countTileRequest();
+        return super.getTile(tileX, tileY);
+    }
+
     @Override
     protected void computeRect(PlanarImage[] ignored, WritableRaster tile, Rectangle destRect) {
         GPF.getDefaultInstance().executeOperator(operatorContext.getOperator());
@@ -73,6 +73,7 @@ public class CommandLineArgs {
 
     private long tileCacheCapacity;
     private int tileSchedulerParallelism;
+    private int ioParallelism;
 
     public static CommandLineArgs parseArgs(String... args) throws Exception {
         CommandLineArgs lineArgs = new CommandLineArgs(args);
@@ -91,6 +92,7 @@ public class CommandLineArgs {
         systemPropertiesMap = new HashMap<>();
         tileCacheCapacity = getDefaultTileCacheSize();
         tileSchedulerParallelism = getDefaultTileSchedulerParallelism();
+        ioParallelism = getDefaultIoParallelism();
         stackTraceDump = isStackTraceDumpEnabled(args);
     }
 
@@ -144,6 +146,9 @@ public class CommandLineArgs {
                 } else if (arg.equals("-q")) {
                     tileSchedulerParallelism = parseOptionArgumentInt(arg, i);
                     i++;
+                } else if (arg.equals("--io-parallelism")) {
+                    ioParallelism = parseOptionArgumentInt(arg, i);
+                    i++;
                 } else if (arg.equals("-c")) {
                     tileCacheCapacity = parseOptionArgumentBytes(arg, i);
                     i++;
@@ -247,6 +252,24 @@ public class CommandLineArgs {
         return tileSchedulerParallelism;
     }
 
+    /**
+     * @return The default number of threads used for I/O-bound tile computations, zero if the JAI default
+     * tile scheduler shall be used.
+     * @since SNAP 8
+     */
+    public static int getDefaultIoParallelism() {
+        return Config.instance().load().preferences().getInt("snap.jai.ioParallelism", 0);
+    }
+
+    /**
+     * @return The number of threads used for I/O-bound tile computations, zero if the JAI default
+     * tile scheduler shall be used.
+     * @since SNAP 8
+     */
+    public int getIoParallelism() {
+        return ioParallelism;
+    }
+
     public boolean isClearCacheAfterRowWrite() {
         return clearCacheAfterRowWrite;
     }
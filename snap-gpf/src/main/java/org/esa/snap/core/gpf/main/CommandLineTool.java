@@ -25,6 +25,7 @@ import com.bc.ceres.binding.dom.DefaultDomElement;
 import com.bc.ceres.binding.dom.DomElement;
 import com.bc.ceres.binding.dom.XppDomElement;
 import com.bc.ceres.core.PrintWriterConciseProgressMonitor;
+import com.bc.ceres.jai.tilescheduler.SplitPoolTileScheduler;
 import com.bc.ceres.metadata.MetadataResourceEngine;
 import com.bc.ceres.resource.Resource;
 import com.thoughtworks.xstream.io.copy.HierarchicalStreamCopier;
@@ -56,6 +57,7 @@ import org.esa.snap.core.util.io.FileUtils;
 import org.xmlpull.mxp1.MXParser;
 
 import javax.media.jai.JAI;
+import javax.media.jai.TileScheduler;
 import java.awt.Rectangle;
 import java.io.File;
 import java.io.IOException;
@@ -206,6 +208,16 @@ public class CommandLineTool implements GraphProcessingObserver {
             JAI.getDefaultInstance().getTileCache().setMemoryCapacity(0L);
             JAI.disableDefaultTileCache();
         }
+        int ioParallelism = commandLineArgs.getIoParallelism();
+        if (ioParallelism > 0) {
+            TileScheduler tileScheduler = JAI.getDefaultInstance().getTileScheduler();
+            if (tileScheduler instanceof SplitPoolTileScheduler) {
+                ((SplitPoolTileScheduler) tileScheduler).setIoParallelism(ioParallelism);
+            } else {
+                JAI.getDefaultInstance().setTileScheduler(new SplitPoolTileScheduler(tileScheduler.getParallelism(), ioParallelism));
+            }
+            commandLineContext.getLogger().fine(MessageFormat.format("JAI tile scheduler I/O parallelism is {0}", ioParallelism));
+        }
         if (tileSchedulerParallelism > 0) {
             JAI.getDefaultInstance().getTileScheduler().setParallelism(tileSchedulerParallelism);
         }
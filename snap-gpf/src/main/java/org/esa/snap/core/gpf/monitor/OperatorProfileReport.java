@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.core.gpf.monitor;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.gpf.GPF;
+import org.esa.snap.core.gpf.internal.OperatorContext;
+import org.esa.snap.core.gpf.internal.OperatorImage;
+import org.esa.snap.core.gpf.internal.OperatorImageTileStack;
+import org.esa.snap.runtime.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Writes a machine-readable profile of the tile computations of all operators to a JSON file.
+ * May be used as a value for the 'snap.config' variable 'snap.gpf.tileComputationObserver', the
+ * file is given by {@value GPF#PROFILE_FILE_PROPERTY} and defaults to {@value #DEFAULT_PROFILE_FILE}.
+ * <p>
+ * The profile has the following schema (version {@value #SCHEMA_VERSION}), all times are given in nanoseconds:
+ * <pre>
+ * {
+ *   "schemaVersion": 1,
+ *   "startTime": "2020-06-01T12:00:00Z",
+ *   "wallTimeNanos": 0,
+ *   "netTimeNanos": 0,
+ *   "nodes": [
+ *     {
+ *       "nodeId": "...",             the node ID in the graph, a generated ID otherwise
+ *       "operatorAlias": "...",
+ *       "operatorClass": "...",
+ *       "computationType": "TILE",   "TILE" or "STACK"
+ *       "bandCount": 0,              the number of target bands computed
+ *       "tileCount": 0,              the number of tile computations, a tile stack counts once
+ *       "wallTimeNanos": 0,          the summed wall time of the tile computations
+ *       "netTimeNanos": 0,           the summed time spent in the operator itself
+ *       "sourceWaitNanos": 0,        the summed time spent waiting for source tiles
+ *       "sourceTileCount": 0,        the number of source tiles requested
+ *       "cacheHits": 0,              the number of target tile requests served from the tile cache
+ *       "cacheMisses": 0,            the number of target tiles computed
+ *       "bytesRead": 0,              the size of the requested source tiles
+ *       "bytesWritten": 0            the size of the computed target tiles
+ *     }
+ *   ]
+ * }
+ * </pre>
+ * The nodes are sorted by decreasing net time.
+ *
+ * @since SNAP 8
+ */
+public class OperatorProfileReport extends TileComputationObserver {
+
+    public static final int SCHEMA_VERSION = 1;
+    public static final String DEFAULT_PROFILE_FILE = "gpf-profile.json";
+
+    private final Map<OperatorContext, NodeStats> nodeStatsMap = new ConcurrentHashMap<>();
+    private long startMillis;
+
+    @Override
+    public void start() {
+        startMillis = System.currentTimeMillis();
+        nodeStatsMap.clear();
+    }
+
+    @Override
+    public void tileComputed(TileComputationEvent event) {
+        final OperatorContext operatorContext = event.getImage().getOperatorContext();
+        final NodeStats nodeStats = nodeStatsMap.computeIfAbsent(operatorContext, NodeStats::new);
+        nodeStats.add(event);
+    }
+
+    @Override
+    public void stop() {
+        final File file = new File(Config.instance().preferences().get(GPF.PROFILE_FILE_PROPERTY, DEFAULT_PROFILE_FILE));
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writeProfile(writer);
+            if (getLogger() != null) {
+                getLogger().info("Operator profile written to " + file.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            if (getLogger() != null) {
+                getLogger().log(Level.WARNING, "Failed to write operator profile to " + file.getAbsolutePath(), e);
+            }
+        }
+    }
+
+    void writeProfile(Writer writer) throws IOException {
+        final List<NodeStats> nodes = new ArrayList<>(nodeStatsMap.values());
+        nodes.sort((n1, n2) -> Long.compare(n2.nettoNanos, n1.nettoNanos));
+
+        long startNanosMin = Long.MAX_VALUE;
+        long endNanosMax = Long.MIN_VALUE;
+        long totalNettoNanos = 0L;
+        for (NodeStats node : nodes) {
+            startNanosMin = Math.min(startNanosMin, node.startNanosMin);
+            endNanosMax = Math.max(endNanosMax, node.endNanosMax);
+            totalNettoNanos += node.nettoNanos;
+        }
+
+        writer.write("{\n");
+        writeField(writer, "  ", "schemaVersion", SCHEMA_VERSION, true);
+        writeField(writer, "  ", "startTime", Instant.ofEpochMilli(startMillis).toString(), true);
+        writeField(writer, "  ", "wallTimeNanos", nodes.isEmpty() ? 0L : endNanosMax - startNanosMin, true);
+        writeField(writer, "  ", "netTimeNanos", totalNettoNanos, true);
+        writer.write("  \"nodes\": [");
+        for (int i = 0; i < nodes.size(); i++) {
+            writer.write(i == 0 ? "\n" : ",\n");
+            nodes.get(i).write(writer, "    ");
+        }
+        writer.write(nodes.isEmpty() ? "]\n" : "\n  ]\n");
+        writer.write("}\n");
+    }
+
+    private static void writeField(Writer writer, String indent, String name, Object value, boolean more) throws IOException {
+        writer.write(indent);
+        writer.write(quote(name));
+        writer.write(": ");
+        if (value == null || value instanceof Number) {
+            writer.write(String.valueOf(value));
+        } else {
+            writer.write(quote(value.toString()));
+        }
+        writer.write(more ? ",\n" : "\n");
+    }
+
+    static String quote(String value) {
+        final StringBuilder sb = new StringBuilder(value.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+
+    private static final class NodeStats {
+
+        private final OperatorContext operatorContext;
+        private final Set<String> bandNames = new HashSet<>();
+        private Band firstStackBand;
+        private boolean stack;
+        private long tileCount;
+        private long computedTileCount;
+        private long startNanosMin = Long.MAX_VALUE;
+        private long endNanosMax = Long.MIN_VALUE;
+        private long bruttoNanos;
+        private long nettoNanos;
+        private long sourceWaitNanos;
+        private long sourceTileCount;
+        private long sourceBytes;
+        private long targetBytes;
+
+        NodeStats(OperatorContext operatorContext) {
+            this.operatorContext = operatorContext;
+        }
+
+        synchronized void add(TileComputationEvent event) {
+            final OperatorImage image = event.getImage();
+            final Band targetBand = image.getTargetBand();
+            boolean addTime = true;
+            if (image instanceof OperatorImageTileStack) {
+                // all bands of a tile stack are computed at once and report the same times
+                stack = true;
+                if (firstStackBand == null) {
+                    firstStackBand = targetBand;
+                }
+                addTime = targetBand == firstStackBand;
+            }
+            if (targetBand != null) {
+                bandNames.add(targetBand.getName());
+            }
+            if (addTime) {
+                tileCount++;
+                bruttoNanos += event.getEndNanos() - event.getStartNanos();
+                nettoNanos += event.getNettoNanos();
+            }
+            computedTileCount++;
+            startNanosMin = Math.min(startNanosMin, event.getStartNanos());
+            endNanosMax = Math.max(endNanosMax, event.getEndNanos());
+            sourceWaitNanos += event.getSourceWaitNanos();
+            sourceTileCount += event.getSourceTileCount();
+            sourceBytes += event.getSourceBytes();
+            targetBytes += event.getTargetBytes();
+        }
+
+        synchronized void write(Writer writer, String indent) throws IOException {
+            final String alias = operatorContext.getOperatorSpi().getOperatorDescriptor().getAlias();
+            final long cacheHits = Math.max(0L, operatorContext.getTileRequestCount() - computedTileCount);
+            final String fieldIndent = indent + "  ";
+            writer.write(indent);
+            writer.write("{\n");
+            writeField(writer, fieldIndent, "nodeId", operatorContext.getId(), true);
+            writeField(writer, fieldIndent, "operatorAlias", alias, true);
+            writeField(writer, fieldIndent, "operatorClass", operatorContext.getOperator().getClass().getName(), true);
+            writeField(writer, fieldIndent, "computationType", stack ? "STACK" : "TILE", true);
+            writeField(writer, fieldIndent, "bandCount", bandNames.size(), true);
+            writeField(writer, fieldIndent, "tileCount", tileCount, true);
+            writeField(writer, fieldIndent, "wallTimeNanos", bruttoNanos, true);
+            writeField(writer, fieldIndent, "netTimeNanos", nettoNanos, true);
+            writeField(writer, fieldIndent, "sourceWaitNanos", sourceWaitNanos, true);
+            writeField(writer, fieldIndent, "sourceTileCount", sourceTileCount, true);
+            writeField(writer, fieldIndent, "cacheHits", cacheHits, true);
+            writeField(writer, fieldIndent, "cacheMisses", computedTileCount, true);
+            writeField(writer, fieldIndent, "bytesRead", sourceBytes, true);
+            writeField(writer, fieldIndent, "bytesWritten", targetBytes, false);
+            writer.write(indent);
+            writer.write("}");
+        }
+    }
+}
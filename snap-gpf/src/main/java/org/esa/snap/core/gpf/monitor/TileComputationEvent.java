@@ -32,10 +32,26 @@ public class TileComputationEvent {
     private final long endNanos;
     private final String threadName;
     private final long nettoNanos;
+    private final long sourceWaitNanos;
+    private final long sourceTileCount;
+    private final long sourceBytes;
+    private final long targetBytes;
 
     static int ids = 0;
 
     public TileComputationEvent(OperatorImage image, int tileX, int tileY, long startNanos, long endNanos, long nettoNanos) {
+        this(image, tileX, tileY, startNanos, endNanos, nettoNanos, 0L, 0L, 0L, 0L);
+    }
+
+    /**
+     * @param sourceWaitNanos The time spent waiting for source tiles.
+     * @param sourceTileCount The number of source tiles requested.
+     * @param sourceBytes     The size of the requested source tiles in bytes.
+     * @param targetBytes     The size of the computed tile in bytes.
+     * @since SNAP 8
+     */
+    public TileComputationEvent(OperatorImage image, int tileX, int tileY, long startNanos, long endNanos, long nettoNanos,
+                                long sourceWaitNanos, long sourceTileCount, long sourceBytes, long targetBytes) {
         this.id = ++ids;
         this.image = image;
         this.tileX = tileX;
@@ -44,6 +60,10 @@ public class TileComputationEvent {
         this.endNanos = endNanos;
         this.threadName = Thread.currentThread().getName();
         this.nettoNanos = nettoNanos;
+        this.sourceWaitNanos = sourceWaitNanos;
+        this.sourceTileCount = sourceTileCount;
+        this.sourceBytes = sourceBytes;
+        this.targetBytes = targetBytes;
     }
 
     public int getId() {
@@ -77,4 +97,32 @@ public class TileComputationEvent {
     public String getThreadName() {
         return threadName;
     }
+
+    /**
+     * @since SNAP 8
+     */
+    public long getSourceWaitNanos() {
+        return sourceWaitNanos;
+    }
+
+    /**
+     * @since SNAP 8
+     */
+    public long getSourceTileCount() {
+        return sourceTileCount;
+    }
+
+    /**
+     * @since SNAP 8
+     */
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    /**
+     * @since SNAP 8
+     */
+    public long getTargetBytes() {
+        return targetBytes;
+    }
 }
@@ -203,6 +203,40 @@ public class WriteOpTest {
         productOnDisk.dispose();
     }
 
+    @Test
+    public void testWrite_ConcurrentBandWrites() throws Exception {
+        final int width = 64;
+        final int height = 48;
+        Product product = new Product("concurrent", "TEST", width, height);
+        product.setPreferredTileSize(16, 16);
+        for (int i = 0; i < 6; i++) {
+            final int[] data = new int[width * height];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = 1000 * i + j;
+            }
+            product.addBand("band_" + i, ProductData.TYPE_INT32).setRasterData(ProductData.createInstance(data));
+        }
+
+        WriteOp writeOp = new WriteOp(product, outputFile, "BEAM-DIMAP");
+        assertTrue(ProductIO.getProductWriter("BEAM-DIMAP").canWriteBandsConcurrently());
+        writeOp.writeProduct(ProgressMonitor.NULL);
+
+        Product productOnDisk = ProductIO.readProduct(outputFile);
+        assertNotNull(productOnDisk);
+        try {
+            assertEquals(6, productOnDisk.getNumBands());
+            for (int i = 0; i < 6; i++) {
+                final Band band = productOnDisk.getBandAt(i);
+                final int[] pixels = band.readPixels(0, 0, width, height, (int[]) null);
+                for (int j = 0; j < pixels.length; j++) {
+                    assertEquals(band.getName() + " at " + j, 1000 * i + j, pixels[j]);
+                }
+            }
+        } finally {
+            productOnDisk.dispose();
+        }
+    }
+
     /**
      * Some algorithm.
      */
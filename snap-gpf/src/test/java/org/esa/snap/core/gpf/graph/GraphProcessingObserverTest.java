@@ -34,6 +34,7 @@ import org.junit.Test;
 import javax.media.jai.JAI;
 import javax.media.jai.TileScheduler;
 import java.awt.Dimension;
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.util.ArrayList;
 
@@ -92,6 +93,30 @@ public class GraphProcessingObserverTest {
         assertEquals("graph [test-graph] stopped", observerMock.entries.get(5));
     }
 
+    @Test
+    public void testTileOrderAndLookAhead() throws GraphException {
+        JAI.getDefaultInstance().getTileScheduler().setParallelism(2);
+
+        GraphProcessor processor = new GraphProcessor();
+        processor.setTileOrder((numXTiles, numYTiles) -> new Point[]{new Point(0, 1), new Point(0, 0)});
+        processor.setTileLookAhead(2);
+        GraphProcessingObserverMock observerMock = new GraphProcessingObserverMock();
+        processor.addObserver(observerMock);
+
+        Graph graph = new Graph("test-graph");
+        graph.addNode(new Node("a", OpMock.Spi.class.getName()));
+
+        processor.executeGraph(graph, ProgressMonitor.NULL);
+
+        assertEquals(6, observerMock.entries.size());
+        assertEquals("graph [test-graph] started", observerMock.entries.get(0));
+        assertEquals("tile java.awt.Rectangle[x=0,y=5,width=10,height=5] started", observerMock.entries.get(1));
+        assertEquals("tile java.awt.Rectangle[x=0,y=0,width=10,height=5] started", observerMock.entries.get(2));
+        assertEquals("tile java.awt.Rectangle[x=0,y=5,width=10,height=5] stopped", observerMock.entries.get(3));
+        assertEquals("tile java.awt.Rectangle[x=0,y=0,width=10,height=5] stopped", observerMock.entries.get(4));
+        assertEquals("graph [test-graph] stopped", observerMock.entries.get(5));
+    }
+
     @OperatorMetadata(alias = "OpMock")
     public static class OpMock extends Operator {
         @TargetProduct
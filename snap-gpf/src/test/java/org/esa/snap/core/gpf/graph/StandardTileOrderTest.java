@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.core.gpf.graph;
+
+import org.junit.Test;
+
+import java.awt.Point;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class StandardTileOrderTest {
+
+    @Test
+    public void testAllTilesOnce() {
+        final int[][] gridSizes = {{1, 1}, {1, 7}, {7, 1}, {4, 4}, {5, 3}, {13, 22}};
+        for (StandardTileOrder tileOrder : StandardTileOrder.values()) {
+            for (int[] gridSize : gridSizes) {
+                final Point[] tileIndices = tileOrder.getTileIndices(gridSize[0], gridSize[1]);
+                assertEquals(tileOrder.name(), gridSize[0] * gridSize[1], tileIndices.length);
+                final Set<Point> tiles = new HashSet<>();
+                for (Point tileIndex : tileIndices) {
+                    assertNotNull(tileOrder.name(), tileIndex);
+                    assertTrue(tileOrder.name(), tileIndex.x >= 0 && tileIndex.x < gridSize[0]);
+                    assertTrue(tileOrder.name(), tileIndex.y >= 0 && tileIndex.y < gridSize[1]);
+                    assertTrue(tileOrder.name(), tiles.add(tileIndex));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRowMajor() {
+        final Point[] tileIndices = StandardTileOrder.ROW_MAJOR.getTileIndices(3, 2);
+        assertEquals(new Point(0, 0), tileIndices[0]);
+        assertEquals(new Point(2, 0), tileIndices[2]);
+        assertEquals(new Point(0, 1), tileIndices[3]);
+        assertEquals(new Point(2, 1), tileIndices[5]);
+    }
+
+    @Test
+    public void testRowSweep() {
+        final Point[] tileIndices = StandardTileOrder.ROW_SWEEP.getTileIndices(3, 3);
+        assertEquals(new Point(0, 0), tileIndices[0]);
+        assertEquals(new Point(2, 0), tileIndices[2]);
+        assertEquals(new Point(2, 1), tileIndices[3]);
+        assertEquals(new Point(0, 1), tileIndices[5]);
+        assertEquals(new Point(0, 2), tileIndices[6]);
+        assertConsecutiveTilesAreNeighbours(tileIndices);
+    }
+
+    @Test
+    public void testZOrder() {
+        final Point[] tileIndices = StandardTileOrder.Z_ORDER.getTileIndices(4, 4);
+        assertEquals(new Point(0, 0), tileIndices[0]);
+        assertEquals(new Point(1, 0), tileIndices[1]);
+        assertEquals(new Point(0, 1), tileIndices[2]);
+        assertEquals(new Point(1, 1), tileIndices[3]);
+        assertEquals(new Point(2, 0), tileIndices[4]);
+        assertEquals(new Point(3, 3), tileIndices[15]);
+    }
+
+    @Test
+    public void testHilbert() {
+        final Point[] tileIndices = StandardTileOrder.HILBERT.getTileIndices(4, 4);
+        assertEquals(new Point(0, 0), tileIndices[0]);
+        assertEquals(new Point(3, 0), tileIndices[15]);
+        assertConsecutiveTilesAreNeighbours(tileIndices);
+        assertConsecutiveTilesAreNeighbours(StandardTileOrder.HILBERT.getTileIndices(32, 32));
+    }
+
+    @Test
+    public void testGetEnclosingPowerOfTwo() {
+        assertEquals(1, StandardTileOrder.getEnclosingPowerOfTwo(1, 1));
+        assertEquals(4, StandardTileOrder.getEnclosingPowerOfTwo(3, 4));
+        assertEquals(8, StandardTileOrder.getEnclosingPowerOfTwo(5, 2));
+        assertEquals(32, StandardTileOrder.getEnclosingPowerOfTwo(13, 22));
+    }
+
+    private static void assertConsecutiveTilesAreNeighbours(Point[] tileIndices) {
+        for (int i = 1; i < tileIndices.length; i++) {
+            final int distance = Math.abs(tileIndices[i].x - tileIndices[i - 1].x)
+                                 + Math.abs(tileIndices[i].y - tileIndices[i - 1].y);
+            assertEquals(1, distance);
+        }
+    }
+}
@@ -242,6 +242,12 @@ public class CommandLineArgsTest {
         assertEquals(0, lineArgs.getTileCacheCapacity());
         assertEquals(10, lineArgs.getTileSchedulerParallelism());
 
+        // test I/O parallelism
+        assertEquals(getDefaultIoParallelism(), lineArgs.getIoParallelism());
+        lineArgs = parseArgs("Reproject", "source.dim", "-q", "4", "--io-parallelism", "32");
+        assertEquals(4, lineArgs.getTileSchedulerParallelism());
+        assertEquals(32, lineArgs.getIoParallelism());
+
         // test zero or less
         try {
             parseArgs("Reproject", "source.dim", "-c", "-6");
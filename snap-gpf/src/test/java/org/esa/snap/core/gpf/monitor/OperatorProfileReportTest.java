@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.core.gpf.monitor;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.gpf.GPF;
+import org.esa.snap.core.gpf.Operator;
+import org.esa.snap.core.gpf.OperatorSpi;
+import org.esa.snap.core.gpf.Tile;
+import org.esa.snap.core.gpf.annotations.OperatorMetadata;
+import org.esa.snap.core.gpf.annotations.SourceProduct;
+import org.esa.snap.core.gpf.annotations.TargetProduct;
+import org.esa.snap.runtime.Config;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class OperatorProfileReportTest {
+
+    private File profileFile;
+
+    @Before
+    public void setUp() throws Exception {
+        profileFile = File.createTempFile("OperatorProfileReportTest", ".json");
+        Config.instance().preferences().put(GPF.TILE_COMPUTATION_OBSERVER_PROPERTY, OperatorProfileReport.class.getName());
+        Config.instance().preferences().put(GPF.PROFILE_FILE_PROPERTY, profileFile.getPath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Config.instance().preferences().remove(GPF.TILE_COMPUTATION_OBSERVER_PROPERTY);
+        Config.instance().preferences().remove(GPF.PROFILE_FILE_PROPERTY);
+        profileFile.delete();
+    }
+
+    @Test
+    public void testProfileIsWritten() throws Exception {
+        final Product sourceProduct = new Product("source", "type", 16, 16);
+        sourceProduct.addBand("x", "X + Y", ProductData.TYPE_FLOAT32);
+
+        final ProfiledOp operator = new ProfiledOp();
+        operator.setSourceProduct(sourceProduct);
+        try {
+            final Band targetBand = operator.getTargetProduct().getBand("y");
+            targetBand.getSourceImage().getData();
+        } finally {
+            operator.stopTileComputationObservation();
+        }
+
+        final String profile = new String(Files.readAllBytes(profileFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(profile, profile.contains("\"schemaVersion\": 1,"));
+        assertTrue(profile, profile.contains("\"operatorAlias\": \"ProfiledOp\","));
+        assertTrue(profile, profile.contains("\"operatorClass\": \"" + ProfiledOp.class.getName() + "\","));
+        assertTrue(profile, profile.contains("\"computationType\": \"TILE\","));
+        assertTrue(profile, profile.contains("\"tileCount\": 4,"));
+        assertTrue(profile, profile.contains("\"cacheMisses\": 4,"));
+        assertTrue(profile, profile.contains("\"sourceTileCount\": 4,"));
+        assertTrue(profile, profile.contains("\"bytesRead\": 1024,"));
+        assertTrue(profile, profile.contains("\"bytesWritten\": 1024\n"));
+    }
+
+    @Test
+    public void testQuote() {
+        assertEquals("\"abc\"", OperatorProfileReport.quote("abc"));
+        assertEquals("\"a\\\"b\\\\c\\n\\u0001\"", OperatorProfileReport.quote("a\"b\\c\n\u0001"));
+    }
+
+    @OperatorMetadata(alias = "ProfiledOp")
+    public static class ProfiledOp extends Operator {
+
+        @SourceProduct
+        private Product sourceProduct;
+
+        @TargetProduct
+        private Product targetProduct;
+
+        @Override
+        public void initialize() {
+            targetProduct = new Product("target", "type", 16, 16);
+            targetProduct.addBand("y", ProductData.TYPE_FLOAT32);
+            targetProduct.setPreferredTileSize(new Dimension(8, 8));
+        }
+
+        @Override
+        public void computeTile(Band band, Tile targetTile, ProgressMonitor pm) {
+            final Tile sourceTile = getSourceTile(sourceProduct.getBand("x"), targetTile.getRectangle());
+            for (Tile.Pos pos : targetTile) {
+                targetTile.setSample(pos.x, pos.y, 2 * sourceTile.getSampleFloat(pos.x, pos.y));
+            }
+        }
+
+        public static class Spi extends OperatorSpi {
+
+            public Spi() {
+                super(ProfiledOp.class);
+            }
+        }
+    }
+}
@@ -16,7 +16,7 @@ public class JP2ImageFile {
         this.localFile = localFile;
     }
 
-    public Path getLocalFile() throws IOException {
+    public synchronized Path getLocalFile() throws IOException {
         if (this.file == null) {
             this.file = this.localFile.getLocalFile();
             if (this.file == null) {
@@ -0,0 +1,214 @@
+package org.esa.snap.jp2.reader.internal;
+
+import org.esa.snap.lib.openjpeg.dataio.OpenJP2Decoder;
+import org.esa.snap.runtime.Config;
+
+import java.awt.Dimension;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Decodes the tiles of JP2 files in process with the OpenJP2 library and keeps the decoded tiles in a memory cache
+ * bounded by size. A decoded tile contains all the components of the image, so the bands of a multi-band file are
+ * served by decoding each tile once. A tile requested by several threads at the same time is decoded only once.
+ * <p>
+ * The number of tiles decoded at the same time is limited by a pool of decoder permits, because each decoder holds
+ * the native buffers of a whole tile.
+ *
+ * @since SNAP 8
+ */
+class JP2DecodedTileCache {
+
+    static final String PARAM_DECODER_POOL_SIZE = "snap.jp2.reader.decoder.pool.size";
+    static final String PARAM_TILE_CACHE_SIZE = "snap.jp2.reader.tile.cache.size";
+    private static final int TILE_CACHE_SIZE_DEFAULT = 256; // MB
+
+    private static JP2DecodedTileCache instance;
+
+    private final Semaphore decoderPermits;
+    private final long maximumSize;
+    private final Map<TileKey, CacheEntry> tiles;
+    private long size;
+
+    JP2DecodedTileCache(int decoderCount, long maximumSize) {
+        this.decoderPermits = new Semaphore(Math.max(1, decoderCount));
+        this.maximumSize = maximumSize;
+        this.tiles = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    static synchronized JP2DecodedTileCache getInstance() {
+        if (instance == null) {
+            int decoderCount = Config.instance("s2tbx").preferences().getInt(PARAM_DECODER_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+            int cacheSize = Config.instance("s2tbx").preferences().getInt(PARAM_TILE_CACHE_SIZE, TILE_CACHE_SIZE_DEFAULT);
+            instance = new JP2DecodedTileCache(decoderCount, cacheSize * 1024L * 1024L);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the decoded tile, decoding it if it is not in the cache.
+     *
+     * @param localCacheFolder the cache folder of the file
+     * @param imageFile        the JP2 file
+     * @param dataType         the data buffer type of the decoded samples
+     * @param level            the resolution level to decode
+     * @param layer            the number of quality layers to decode
+     * @param tileIndex        the index of the tile to decode
+     * @return the decoded tile
+     * @throws IOException if the tile cannot be decoded
+     */
+    DecodedTile getTile(Path localCacheFolder, Path imageFile, int dataType, int level, int layer, int tileIndex) throws IOException {
+        // the modification time is part of the key, so that the tiles of a replaced file are decoded again
+        TileKey key = new TileKey(imageFile, Files.getLastModifiedTime(imageFile).toMillis(), dataType, level, tileIndex);
+        CacheEntry entry;
+        boolean decodeHere = false;
+        synchronized (this) {
+            entry = this.tiles.get(key);
+            if (entry == null) {
+                entry = new CacheEntry(new FutureTask<>(() -> decodeTile(localCacheFolder, imageFile, dataType, level, layer, tileIndex)));
+                this.tiles.put(key, entry);
+                decodeHere = true;
+            }
+        }
+        if (decodeHere) {
+            entry.task.run();
+        }
+        try {
+            DecodedTile tile = entry.task.get();
+            if (decodeHere) {
+                addSize(key, entry, tile.getSize());
+            }
+            return tile;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while decoding the tile " + tileIndex + " of the file '" + imageFile + "'.");
+        } catch (ExecutionException e) {
+            synchronized (this) {
+                this.tiles.remove(key, entry);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to decode the tile " + tileIndex + " at level " + level + " of the file '" + imageFile + "'.", cause);
+        }
+    }
+
+    private synchronized void addSize(TileKey key, CacheEntry entry, long tileSize) {
+        if (this.tiles.get(key) != entry) {
+            return; // the entry has already been removed
+        }
+        entry.size = tileSize;
+        this.size += tileSize;
+        Iterator<CacheEntry> iterator = this.tiles.values().iterator();
+        while (this.size > this.maximumSize && iterator.hasNext()) {
+            CacheEntry eldest = iterator.next();
+            if (eldest.size > 0) {
+                // only the decoded tiles are evicted, the pending ones are still waited for
+                iterator.remove();
+                this.size -= eldest.size;
+            }
+        }
+    }
+
+    private DecodedTile decodeTile(Path localCacheFolder, Path imageFile, int dataType, int level, int layer, int tileIndex)
+                                   throws IOException, InterruptedException {
+
+        this.decoderPermits.acquire();
+        try (OpenJP2Decoder decoder = new OpenJP2Decoder(localCacheFolder, imageFile, 0, dataType, level, layer, tileIndex)) {
+            Dimension levelImageSize = decoder.getImageDimensions();
+            return new DecodedTile(levelImageSize, decoder.readBands());
+        } finally {
+            this.decoderPermits.release();
+        }
+    }
+
+    /**
+     * A tile of a JP2 file, decoded at a resolution level.
+     */
+    static class DecodedTile {
+
+        private final Dimension levelImageSize;
+        private final Raster raster;
+
+        DecodedTile(Dimension levelImageSize, Raster raster) {
+            this.levelImageSize = levelImageSize;
+            this.raster = raster;
+        }
+
+        /**
+         * Returns the size of the whole image at the decoded level.
+         */
+        Dimension getLevelImageSize() {
+            return this.levelImageSize;
+        }
+
+        /**
+         * Returns the decoded tile, having a band for each component of the image.
+         */
+        Raster getRaster() {
+            return this.raster;
+        }
+
+        long getSize() {
+            int sampleSize = Math.max(1, DataBuffer.getDataTypeSize(this.raster.getTransferType()) / 8);
+            return Math.max(1L, (long) this.raster.getWidth() * this.raster.getHeight() * this.raster.getNumBands() * sampleSize);
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final FutureTask<DecodedTile> task;
+        private long size;
+
+        private CacheEntry(FutureTask<DecodedTile> task) {
+            this.task = task;
+        }
+    }
+
+    private static class TileKey {
+
+        private final Path imageFile;
+        private final long lastModifiedTime;
+        private final int dataType;
+        private final int level;
+        private final int tileIndex;
+
+        private TileKey(Path imageFile, long lastModifiedTime, int dataType, int level, int tileIndex) {
+            this.imageFile = imageFile;
+            this.lastModifiedTime = lastModifiedTime;
+            this.dataType = dataType;
+            this.level = level;
+            this.tileIndex = tileIndex;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (object == null || getClass() != object.getClass()) {
+                return false;
+            }
+            TileKey other = (TileKey) object;
+            return this.lastModifiedTime == other.lastModifiedTime && this.dataType == other.dataType && this.level == other.level
+                   && this.tileIndex == other.tileIndex && this.imageFile.equals(other.imageFile);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.imageFile, this.lastModifiedTime, this.dataType, this.level, this.tileIndex);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package org.esa.snap.jp2.reader.internal;
+
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.lib.openjpeg.dataio.Utils;
+import org.esa.snap.runtime.Config;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A store of decompressed JP2 tiles on the local disk, shared by all the readers and by all the processes of a node.
+ * <p>
+ * Each tile is saved in a compact container (a small header followed by the deflated samples of all the bands),
+ * written to a temporary file and published by an atomic rename, so that a concurrent process never reads a partially
+ * written tile. The modification time of a container is its last access time: when the store exceeds its size, the
+ * least recently used containers are deleted, and containers older than the maximum age are deleted anyway.
+ *
+ * @since SNAP 8
+ */
+class JP2TileDiskCache {
+
+    static final String PARAM_DISK_CACHE_SIZE = "snap.jp2.reader.disk.cache.size";
+    static final String PARAM_DISK_CACHE_MAX_AGE = "snap.jp2.reader.disk.cache.max.age";
+    private static final int DISK_CACHE_SIZE_DEFAULT = 10240; // MB
+    private static final int DISK_CACHE_MAX_AGE_DEFAULT = 30; // days
+
+    static final String ENTRY_EXTENSION = ".jp2tile";
+    private static final String TEMP_EXTENSION = ".tmp";
+    private static final int MAGIC = 0x4A325443; // "J2TC"
+    private static final int FORMAT_VERSION = 1;
+    // the store is reduced below its size when evicting, so that it is not scanned again after each new tile
+    private static final double LOW_WATER_MARK = 0.9;
+    private static final long SCAN_INTERVAL = TimeUnit.HOURS.toMillis(1);
+
+    private static final Logger logger = Logger.getLogger(JP2TileDiskCache.class.getName());
+
+    private static JP2TileDiskCache instance;
+
+    private final Path folder;
+    private final long maximumSize;
+    private final long maximumAge;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong evictedCount;
+    private long estimatedSize;
+    private long lastScanTime;
+
+    JP2TileDiskCache(Path folder, long maximumSize, long maximumAge) {
+        this.folder = folder;
+        this.maximumSize = maximumSize;
+        this.maximumAge = maximumAge;
+        this.hitCount = new AtomicLong();
+        this.missCount = new AtomicLong();
+        this.evictedCount = new AtomicLong();
+    }
+
+    static synchronized JP2TileDiskCache getInstance() {
+        if (instance == null) {
+            int cacheSize = Config.instance("s2tbx").preferences().getInt(PARAM_DISK_CACHE_SIZE, DISK_CACHE_SIZE_DEFAULT);
+            int maximumAge = Config.instance("s2tbx").preferences().getInt(PARAM_DISK_CACHE_MAX_AGE, DISK_CACHE_MAX_AGE_DEFAULT);
+            Path folder = SystemUtils.getCacheDir().toPath().resolve("snap").resolve("jp2-reader").resolve("tiles");
+            instance = new JP2TileDiskCache(folder, cacheSize * 1024L * 1024L, TimeUnit.DAYS.toMillis(maximumAge));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the decompressed tile of the image at the given level.
+     *
+     * @param imageFile the JP2 file
+     * @param tileIndex the index of the tile
+     * @param level     the resolution level
+     * @return the tile, having a band for each component of the image, or {@code null} if it is not in the store
+     * @throws IOException if the image file cannot be accessed
+     */
+    Raster get(Path imageFile, int tileIndex, int level) throws IOException {
+        Path entryFile = getEntryFile(imageFile, tileIndex, level);
+        Raster raster = null;
+        try {
+            raster = readEntry(entryFile);
+            // the modification time is the access time used for the eviction
+            Files.setLastModifiedTime(entryFile, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // not in the store, or evicted by another process
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Failed to read the cached tile '" + entryFile + "'.", e);
+            deleteQuietly(entryFile);
+            raster = null;
+        }
+        if (raster == null) {
+            this.missCount.incrementAndGet();
+        } else {
+            this.hitCount.incrementAndGet();
+        }
+        return raster;
+    }
+
+    /**
+     * Saves the decompressed tile of the image at the given level.
+     *
+     * @param imageFile the JP2 file
+     * @param tileIndex the index of the tile
+     * @param level     the resolution level
+     * @param raster    the tile, having a band for each component of the image
+     * @throws IOException if the tile cannot be saved
+     */
+    void put(Path imageFile, int tileIndex, int level, Raster raster) throws IOException {
+        Path entryFile = getEntryFile(imageFile, tileIndex, level);
+        Files.createDirectories(this.folder);
+        Path tempFile = Files.createTempFile(this.folder, "." + entryFile.getFileName().toString(), TEMP_EXTENSION);
+        long entrySize;
+        try {
+            writeEntry(tempFile, raster);
+            entrySize = Files.size(tempFile);
+            try {
+                Files.move(tempFile, entryFile, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, entryFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            deleteQuietly(tempFile);
+        }
+        addSize(entrySize);
+    }
+
+    Statistics getStatistics() {
+        return new Statistics(this.hitCount.get(), this.missCount.get(), this.evictedCount.get());
+    }
+
+    private synchronized void addSize(long entrySize) throws IOException {
+        this.estimatedSize += entrySize;
+        long time = System.currentTimeMillis();
+        // the first scan of the process computes the size written by the other processes
+        if (this.lastScanTime == 0 || this.estimatedSize > this.maximumSize || time - this.lastScanTime > SCAN_INTERVAL) {
+            evict(time);
+        }
+    }
+
+    private void evict(long time) throws IOException {
+        List<StoredEntry> entries = new ArrayList<>();
+        long size = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.folder)) {
+            for (Path file : stream) {
+                String fileName = file.getFileName().toString();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue; // deleted by another process
+                }
+                long age = time - attributes.lastModifiedTime().toMillis();
+                if (fileName.endsWith(TEMP_EXTENSION)) {
+                    if (age > SCAN_INTERVAL) {
+                        deleteQuietly(file); // left behind by a process which has been stopped
+                    }
+                } else if (fileName.endsWith(ENTRY_EXTENSION)) {
+                    if (age > this.maximumAge) {
+                        deleteEntry(file);
+                    } else {
+                        entries.add(new StoredEntry(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                        size += attributes.size();
+                    }
+                }
+            }
+        }
+        if (size > this.maximumSize) {
+            entries.sort(Comparator.comparingLong(entry -> entry.lastAccessTime));
+            long lowWaterMark = (long) (this.maximumSize * LOW_WATER_MARK);
+            for (int i = 0; i < entries.size() && size > lowWaterMark; i++) {
+                deleteEntry(entries.get(i).file);
+                size -= entries.get(i).size;
+            }
+        }
+        this.estimatedSize = size;
+        this.lastScanTime = time;
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("The JP2 tile store '" + this.folder + "' has " + size + " bytes: " + getStatistics() + ".");
+        }
+    }
+
+    private void deleteEntry(Path entryFile) {
+        if (deleteQuietly(entryFile)) {
+            this.evictedCount.incrementAndGet();
+        }
+    }
+
+    private Path getEntryFile(Path imageFile, int tileIndex, int level) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(imageFile, BasicFileAttributes.class);
+        // the size and the modification time are part of the name, so that the tiles of a replaced file are not used
+        String imageKey = imageFile.toAbsolutePath().toString() + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+        return this.folder.resolve(Utils.getMD5sum(imageKey) + "_" + tileIndex + "_" + level + ENTRY_EXTENSION);
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // the file may be open in another process
+            return false;
+        }
+    }
+
+    static void writeEntry(Path file, Raster raster) throws IOException {
+        int dataType = raster.getSampleModel().getDataType();
+        if (dataType != DataBuffer.TYPE_BYTE && dataType != DataBuffer.TYPE_USHORT && dataType != DataBuffer.TYPE_SHORT && dataType != DataBuffer.TYPE_INT) {
+            throw new IOException("The data type " + dataType + " is not supported.");
+        }
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        int bandCount = raster.getNumBands();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+            DataOutputStream headerStream = new DataOutputStream(outputStream);
+            headerStream.writeInt(MAGIC);
+            headerStream.writeInt(FORMAT_VERSION);
+            headerStream.writeInt(dataType);
+            headerStream.writeInt(width);
+            headerStream.writeInt(height);
+            headerStream.writeInt(bandCount);
+            DeflaterOutputStream deflaterStream = new DeflaterOutputStream(outputStream, deflater, 65536);
+            DataOutputStream dataStream = new DataOutputStream(new BufferedOutputStream(deflaterStream, 65536));
+            int[] samples = new int[width];
+            for (int band = 0; band < bandCount; band++) {
+                for (int y = 0; y < height; y++) {
+                    raster.getSamples(raster.getMinX(), raster.getMinY() + y, width, 1, band, samples);
+                    for (int sample : samples) {
+                        if (dataType == DataBuffer.TYPE_BYTE) {
+                            dataStream.writeByte(sample);
+                        } else if (dataType == DataBuffer.TYPE_INT) {
+                            dataStream.writeInt(sample);
+                        } else {
+                            dataStream.writeShort(sample);
+                        }
+                    }
+                }
+            }
+            dataStream.flush();
+            deflaterStream.finish();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static Raster readEntry(Path file) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+            DataInputStream headerStream = new DataInputStream(inputStream);
+            if (headerStream.readInt() != MAGIC || headerStream.readInt() != FORMAT_VERSION) {
+                throw new IOException("The file '" + file + "' is not a tile container of version " + FORMAT_VERSION + ".");
+            }
+            int dataType = headerStream.readInt();
+            int width = headerStream.readInt();
+            int height = headerStream.readInt();
+            int bandCount = headerStream.readInt();
+            SampleModel sampleModel = new BandedSampleModel(dataType, width, height, bandCount);
+            DataBuffer buffer = sampleModel.createDataBuffer();
+            DataInputStream dataStream = new DataInputStream(new BufferedInputStream(new InflaterInputStream(inputStream), 65536));
+            int pixelCount = width * height;
+            for (int band = 0; band < bandCount; band++) {
+                for (int i = 0; i < pixelCount; i++) {
+                    int sample;
+                    if (dataType == DataBuffer.TYPE_BYTE) {
+                        sample = dataStream.readUnsignedByte();
+                    } else if (dataType == DataBuffer.TYPE_INT) {
+                        sample = dataStream.readInt();
+                    } else if (dataType == DataBuffer.TYPE_USHORT) {
+                        sample = dataStream.readUnsignedShort();
+                    } else {
+                        sample = dataStream.readShort();
+                    }
+                    buffer.setElem(band, i, sample);
+                }
+            }
+            return Raster.createRaster(sampleModel, buffer, null);
+        }
+    }
+
+    private static class StoredEntry {
+
+        private final Path file;
+        private final long size;
+        private final long lastAccessTime;
+
+        private StoredEntry(Path file, long size, long lastAccessTime) {
+            this.file = file;
+            this.size = size;
+            this.lastAccessTime = lastAccessTime;
+        }
+    }
+
+    /**
+     * The hits and misses of the tile store since the start of the process.
+     */
+    static class Statistics {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long evictedCount;
+
+        Statistics(long hitCount, long missCount, long evictedCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictedCount = evictedCount;
+        }
+
+        long getHitCount() {
+            return this.hitCount;
+        }
+
+        long getMissCount() {
+            return this.missCount;
+        }
+
+        long getEvictedCount() {
+            return this.evictedCount;
+        }
+
+        double getHitRate() {
+            long requestCount = this.hitCount + this.missCount;
+            return (requestCount == 0) ? 0.0d : (double) this.hitCount / requestCount;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + this.hitCount + ", misses=" + this.missCount + ", hit rate=" + String.format("%.3f", getHitRate())
+                   + ", evicted=" + this.evictedCount;
+        }
+    }
+}
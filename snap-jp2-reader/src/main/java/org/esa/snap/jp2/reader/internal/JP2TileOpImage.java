@@ -1,10 +1,10 @@
 package org.esa.snap.jp2.reader.internal;
 
+import com.bc.ceres.jai.tilescheduler.IoBoundImage;
 import it.geosolutions.imageioimpl.plugins.tiff.TIFFImageReader;
 import org.esa.snap.core.image.DecompressedImageSupport;
 import org.esa.snap.core.util.ImageUtils;
 import org.esa.snap.engine_utilities.util.PathUtils;
-import org.esa.snap.lib.openjpeg.dataio.OpenJP2Decoder;
 import org.esa.snap.lib.openjpeg.dataio.Utils;
 import org.esa.snap.lib.openjpeg.utils.OpenJpegExecRetriever;
 import org.esa.snap.runtime.Config;
@@ -23,6 +23,7 @@ import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
 import java.io.File;
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
@@ -35,7 +36,7 @@ import java.util.logging.Logger;
  *
  * @author Cosmin Cara
  */
-public class JP2TileOpImage extends SourcelessOpImage {
+public class JP2TileOpImage extends SourcelessOpImage implements IoBoundImage {
 
     private static final Logger logger = Logger.getLogger(JP2TileOpImage.class.getName());
 
@@ -50,6 +51,7 @@ public class JP2TileOpImage extends SourcelessOpImage {
     private int tileOffsetFromDecompressedImageY;
     private int tileOffsetFromImageX;
     private int tileOffsetFromImageY;
+    private SoftReference<Raster> decompressedTile;
 
     public JP2TileOpImage(JP2BandSource bandSource, JP2BandData bandData, DecompressedImageSupport decompressedImageSupport,
                           int tileWidth, int tileHeight, int tileOffsetFromDecompressedImageX, int tileOffsetFromDecompressedImageY,
@@ -69,7 +71,7 @@ public class JP2TileOpImage extends SourcelessOpImage {
         this.tileOffsetFromDecompressedImageY = tileOffsetFromDecompressedImageY;
 
         String openJp2 = OpenJpegExecRetriever.getOpenJp2();
-        this.useOpenJp2Jna = openJp2 != null && this.bandData.getBandCount() == 1 && Boolean.parseBoolean(Config.instance("s2tbx").preferences().get("use.openjp2.jna", "false"));
+        this.useOpenJp2Jna = openJp2 != null && Boolean.parseBoolean(Config.instance("s2tbx").preferences().get("use.openjp2.jna", "true"));
     }
 
     private JP2TileOpImage(ImageLayout layout) {
@@ -90,7 +92,7 @@ public class JP2TileOpImage extends SourcelessOpImage {
     }
 
     @Override
-    protected synchronized void computeRect(PlanarImage[] sources, WritableRaster levelDestinationRaster, Rectangle levelDestinationRectangle) {
+    protected void computeRect(PlanarImage[] sources, WritableRaster levelDestinationRaster, Rectangle levelDestinationRectangle) {
         try {
             if (this.useOpenJp2Jna) {
                 computeRectDirect(levelDestinationRaster, levelDestinationRectangle);
@@ -107,35 +109,60 @@ public class JP2TileOpImage extends SourcelessOpImage {
     }
 
     private void computeRectDirect(WritableRaster levelDestinationRaster, Rectangle levelDestinationRectangle) throws IOException {
-        if (this.bandSource.getBandIndex() != 0) {
-            throw new IllegalStateException("The OpenJP2Decoder API can be used to the band count is 1 and band index is 0.");
-        }
         int level = getLevel();
         Path localCacheFolder = this.bandData.getLocalCacheFolder();
         Path localImageFile = getLocalImageFile();
         int dataType = getSampleModel().getDataType();
-        try (OpenJP2Decoder decoder = new OpenJP2Decoder(localCacheFolder, localImageFile, this.bandSource.getBandIndex(), dataType, level, LAYER, this.decompressTileIndex)) {
-            Dimension levelDecompressedImageSize = decoder.getImageDimensions(); // the whole image size from the specified level
-            Rectangle intersection = computeLevelDirectIntersection(level, levelDecompressedImageSize.width, levelDecompressedImageSize.height, levelDestinationRectangle);
+        // the decoded tile is shared by the bands of the file and by the concurrent requests of the same tile
+        JP2DecodedTileCache.DecodedTile decodedTile = JP2DecodedTileCache.getInstance().getTile(localCacheFolder, localImageFile, dataType, level, LAYER, this.decompressTileIndex);
+        Dimension levelDecompressedImageSize = decodedTile.getLevelImageSize(); // the whole image size from the specified level
+        Rectangle intersection = computeLevelDirectIntersection(level, levelDecompressedImageSize.width, levelDecompressedImageSize.height, levelDestinationRectangle);
+        Raster tileRaster = decodedTile.getRaster();
+        intersection = intersection.intersection(tileRaster.getBounds());
+        if (!intersection.isEmpty()) {
+            Raster readTileImage = tileRaster.createChild(intersection.x, intersection.y, intersection.width, intersection.height, 0, 0, null);
+            writeDataOnLevelRaster(levelDestinationRaster, readTileImage);
+        }
+    }
+
+    private synchronized void computeRectIndirect(WritableRaster levelDestinationRaster, Rectangle levelDestinationRectangle) throws InterruptedException, IOException {
+        int level = getLevel();
+        Raster tileRaster = readDecompressedTile(level);
+        if (tileRaster != null) {
+            Rectangle intersection = computeLevelIndirectIntersection(level, tileRaster.getWidth(), tileRaster.getHeight(), levelDestinationRectangle);
             if (!intersection.isEmpty()) {
-                Raster readTileImage = decoder.read(intersection);
+                Raster readTileImage = tileRaster.createChild(intersection.x, intersection.y, intersection.width, intersection.height, 0, 0, null);
                 writeDataOnLevelRaster(levelDestinationRaster, readTileImage);
             }
         }
     }
 
-    private void computeRectIndirect(WritableRaster levelDestinationRaster, Rectangle levelDestinationRectangle) throws InterruptedException, IOException {
-        int level = getLevel();
-        Path tileDecompressedFile = decompressTile(level);
-        if (tileDecompressedFile != null) {
+    private Raster readDecompressedTile(int level) throws InterruptedException, IOException {
+        Raster tileRaster = (this.decompressedTile == null) ? null : this.decompressedTile.get();
+        if (tileRaster != null) {
+            return tileRaster; // the tile has been read for a previous rectangle of this image
+        }
+        Path localImageFile = getLocalImageFile();
+        JP2TileDiskCache tileDiskCache = JP2TileDiskCache.getInstance();
+        tileRaster = tileDiskCache.get(localImageFile, this.decompressTileIndex, level);
+        if (tileRaster == null) {
+            Path tileDecompressedFile = decompressTile(level);
+            if (tileDecompressedFile == null) {
+                return null;
+            }
             try (ImageReader imageReader = new ImageReader(tileDecompressedFile)) {
-                Rectangle intersection = computeLevelIndirectIntersection(level, imageReader.getImageWidth(), imageReader.getImageHeight(), levelDestinationRectangle);
-                if (!intersection.isEmpty()) {
-                    RenderedImage readTileImage = imageReader.read(intersection);
-                    writeDataOnLevelRaster(levelDestinationRaster, readTileImage.getData());
-                }
+                tileRaster = imageReader.read().getData();
+            } finally {
+                Files.deleteIfExists(tileDecompressedFile);
+            }
+            try {
+                tileDiskCache.put(localImageFile, this.decompressTileIndex, level, tileRaster);
+            } catch (IOException ex) {
+                logger.warning("Failed to store the decompressed tile #" + this.decompressTileIndex + " @ resolution " + level + ": " + ex.getMessage());
             }
         }
+        this.decompressedTile = new SoftReference<>(tileRaster);
+        return tileRaster;
     }
 
     private void writeDataOnLevelRaster(WritableRaster levelDestinationRaster, Raster readTileImage) {
@@ -173,34 +200,41 @@ public class JP2TileOpImage extends SourcelessOpImage {
     private Path decompressTile(int level) throws InterruptedException, IOException {
         Path localImageFile = getLocalImageFile();
         Path localCacheFolder = this.bandData.getLocalCacheFolder();
-        String imageFileName = PathUtils.getFileNameWithoutExtension(localImageFile).toLowerCase() + "_tile_" + String.valueOf(this.decompressTileIndex) + "_" + String.valueOf(level) + ".tif";
-        Path tileFile = PathUtils.get(localCacheFolder, imageFileName);
-        if ((!Files.exists(tileFile)) || (Utils.diffLastModifiedTimes(tileFile.toFile(), localImageFile.toFile()) < 0L)) {
-            String tileFileName;
-            if (org.apache.commons.lang.SystemUtils.IS_OS_WINDOWS && (tileFile.getParent() != null)) {
-                tileFileName = Utils.GetIterativeShortPathNameW(tileFile.getParent().toString()) + File.separator + tileFile.getName(tileFile.getNameCount()-1);
-            } else {
-                tileFileName = tileFile.toString();
-            }
-
-            Map<String, String> params = new HashMap<String, String>();
-            params.put("-i", Utils.GetIterativeShortPathNameW(localImageFile.toString()));
-            params.put("-r", String.valueOf(level));
-            params.put("-l", Byte.toString(LAYER));
-            params.put("-o", tileFileName);
-            params.put("-t", String.valueOf(this.decompressTileIndex));
-            params.put("-p", String.valueOf(DataBuffer.getDataTypeSize(getSampleModel().getDataType())));
-            params.put("-threads", "ALL_CPUS");
+        // the file name is unique for each call, the images of the other bands may decompress the same tile concurrently
+        String imageFilePrefix = PathUtils.getFileNameWithoutExtension(localImageFile).toLowerCase() + "_tile_" + String.valueOf(this.decompressTileIndex) + "_" + String.valueOf(level) + "_";
+        Files.createDirectories(localCacheFolder);
+        Path tileFile = Files.createTempFile(localCacheFolder, imageFilePrefix, ".tif");
+        String tileFileName;
+        if (org.apache.commons.lang.SystemUtils.IS_OS_WINDOWS && (tileFile.getParent() != null)) {
+            tileFileName = Utils.GetIterativeShortPathNameW(tileFile.getParent().toString()) + File.separator + tileFile.getName(tileFile.getNameCount()-1);
+        } else {
+            tileFileName = tileFile.toString();
+        }
 
-            OpjExecutor decompress = new OpjExecutor(OpenJpegExecRetriever.getOpjDecompress());
+        Map<String, String> params = new HashMap<String, String>();
+        params.put("-i", Utils.GetIterativeShortPathNameW(localImageFile.toString()));
+        params.put("-r", String.valueOf(level));
+        params.put("-l", Byte.toString(LAYER));
+        params.put("-o", tileFileName);
+        params.put("-t", String.valueOf(this.decompressTileIndex));
+        params.put("-p", String.valueOf(DataBuffer.getDataTypeSize(getSampleModel().getDataType())));
+        params.put("-threads", "ALL_CPUS");
+
+        OpjExecutor decompress = new OpjExecutor(OpenJpegExecRetriever.getOpjDecompress());
+        boolean decompressed = false;
+        try {
             if (decompress.execute(params) != 0) {
                 logger.severe(decompress.getLastError());
-                tileFile = null;
             } else {
                 logger.fine("Decompressed tile #" + String.valueOf(this.decompressTileIndex) + " @ resolution " + String.valueOf(level));
+                decompressed = true;
+            }
+        } finally {
+            if (!decompressed) {
+                Files.deleteIfExists(tileFile);
             }
         }
-        return tileFile;
+        return decompressed ? tileFile : null;
     }
 
     private Path getLocalImageFile() throws IOException {
@@ -0,0 +1,172 @@
+package org.esa.snap.jp2.reader.internal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test: storing decompressed JP2 tiles on the local disk.
+ */
+public class JP2TileDiskCacheTest {
+
+    private Path tempFolder;
+    private Path storeFolder;
+    private Path imageFile;
+
+    @Before
+    public void setUp() throws IOException {
+        this.tempFolder = Files.createTempDirectory("jp2-tile-store");
+        this.storeFolder = this.tempFolder.resolve("tiles");
+        this.imageFile = Files.write(this.tempFolder.resolve("image.jp2"), new byte[]{1, 2, 3});
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(this.tempFolder)) {
+            files.sorted((file1, file2) -> file2.compareTo(file1)).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testPutAndGet() throws IOException {
+        JP2TileDiskCache tileDiskCache = new JP2TileDiskCache(this.storeFolder, 1024 * 1024, TimeUnit.DAYS.toMillis(1));
+        Raster tile = createTile(DataBuffer.TYPE_USHORT, 3);
+
+        assertNull(tileDiskCache.get(this.imageFile, 4, 1));
+        tileDiskCache.put(this.imageFile, 4, 1, tile);
+
+        assertRasterEquals(tile, tileDiskCache.get(this.imageFile, 4, 1));
+        assertNull(tileDiskCache.get(this.imageFile, 4, 0));
+        assertNull(tileDiskCache.get(this.imageFile, 5, 1));
+
+        JP2TileDiskCache.Statistics statistics = tileDiskCache.getStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(3, statistics.getMissCount());
+        assertEquals(0.25d, statistics.getHitRate(), 1.0e-9);
+        // no temporary file is left behind
+        try (Stream<Path> files = Files.list(this.storeFolder)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testReadAndWriteEntry() throws IOException {
+        for (int dataType : new int[]{DataBuffer.TYPE_BYTE, DataBuffer.TYPE_SHORT, DataBuffer.TYPE_USHORT, DataBuffer.TYPE_INT}) {
+            Raster tile = createTile(dataType, 2);
+            Path entryFile = this.tempFolder.resolve("entry" + JP2TileDiskCache.ENTRY_EXTENSION);
+
+            JP2TileDiskCache.writeEntry(entryFile, tile);
+
+            Raster readTile = JP2TileDiskCache.readEntry(entryFile);
+            assertEquals(dataType, readTile.getSampleModel().getDataType());
+            assertRasterEquals(tile, readTile);
+        }
+    }
+
+    @Test
+    public void testReplacedImageFileIsNotUsed() throws IOException {
+        JP2TileDiskCache tileDiskCache = new JP2TileDiskCache(this.storeFolder, 1024 * 1024, TimeUnit.DAYS.toMillis(1));
+        tileDiskCache.put(this.imageFile, 0, 0, createTile(DataBuffer.TYPE_BYTE, 1));
+
+        Files.write(this.imageFile, new byte[]{4, 5, 6, 7});
+
+        assertNull(tileDiskCache.get(this.imageFile, 0, 0));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsedEntries() throws IOException {
+        Raster tile = createTile(DataBuffer.TYPE_INT, 1);
+        JP2TileDiskCache probe = new JP2TileDiskCache(this.tempFolder.resolve("probe"), Long.MAX_VALUE, Long.MAX_VALUE);
+        probe.put(this.imageFile, 0, 0, tile);
+        long entrySize;
+        try (Stream<Path> files = Files.list(this.tempFolder.resolve("probe"))) {
+            entrySize = Files.size(files.findFirst().get());
+        }
+        // room for three entries
+        JP2TileDiskCache tileDiskCache = new JP2TileDiskCache(this.storeFolder, 3 * entrySize + entrySize / 2, TimeUnit.DAYS.toMillis(1));
+        long time = System.currentTimeMillis();
+        for (int tileIndex = 0; tileIndex < 3; tileIndex++) {
+            tileDiskCache.put(this.imageFile, tileIndex, 0, tile);
+        }
+        setAccessTime(tileDiskCache, 0, time - 1000);
+        setAccessTime(tileDiskCache, 1, time - 3000);
+        setAccessTime(tileDiskCache, 2, time - 2000);
+
+        tileDiskCache.put(this.imageFile, 3, 0, tile);
+
+        // the least recently used entry is evicted
+        assertNotNull(tileDiskCache.get(this.imageFile, 0, 0));
+        assertNull(tileDiskCache.get(this.imageFile, 1, 0));
+        assertNotNull(tileDiskCache.get(this.imageFile, 2, 0));
+        assertNotNull(tileDiskCache.get(this.imageFile, 3, 0));
+        assertEquals(1, tileDiskCache.getStatistics().getEvictedCount());
+    }
+
+    @Test
+    public void testEvictExpiredEntries() throws IOException {
+        JP2TileDiskCache tileDiskCache = new JP2TileDiskCache(this.storeFolder, 1024 * 1024, TimeUnit.HOURS.toMillis(1));
+        Raster tile = createTile(DataBuffer.TYPE_BYTE, 1);
+        JP2TileDiskCache otherProcessCache = new JP2TileDiskCache(this.storeFolder, 1024 * 1024, TimeUnit.HOURS.toMillis(1));
+        otherProcessCache.put(this.imageFile, 0, 0, tile);
+        setAccessTime(otherProcessCache, 0, System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2));
+
+        // the first tile stored by a process scans the store
+        tileDiskCache.put(this.imageFile, 1, 0, tile);
+
+        assertNull(tileDiskCache.get(this.imageFile, 0, 0));
+        assertNotNull(tileDiskCache.get(this.imageFile, 1, 0));
+        assertEquals(1, tileDiskCache.getStatistics().getEvictedCount());
+    }
+
+    private void setAccessTime(JP2TileDiskCache tileDiskCache, int tileIndex, long time) throws IOException {
+        try (Stream<Path> files = Files.list(this.storeFolder)) {
+            Path entryFile = files.filter(file -> file.getFileName().toString().endsWith("_" + tileIndex + "_0" + JP2TileDiskCache.ENTRY_EXTENSION))
+                                  .findFirst().get();
+            Files.setLastModifiedTime(entryFile, FileTime.fromMillis(time));
+        }
+    }
+
+    private static Raster createTile(int dataType, int bandCount) {
+        int width = 70;
+        int height = 50;
+        WritableRaster raster = Raster.createWritableRaster(new BandedSampleModel(dataType, width, height, bandCount), null);
+        for (int band = 0; band < bandCount; band++) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int value = (dataType == DataBuffer.TYPE_BYTE) ? (x + y + band) & 0xff : 100 * x - 37 * y + 1000 * band;
+                    raster.setSample(x, y, band, value);
+                }
+            }
+        }
+        return raster;
+    }
+
+    private static void assertRasterEquals(Raster expected, Raster actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getNumBands(), actual.getNumBands());
+        for (int band = 0; band < expected.getNumBands(); band++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    assertEquals(expected.getSample(x, y, band), actual.getSample(x, y, band));
+                }
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.esa.snap.core.datamodel.ProductData;
 import org.esa.snap.core.util.io.FileUtils;
 import org.esa.snap.dataio.netcdf.util.Constants;
 import org.esa.snap.dataio.netcdf.util.NetcdfFileOpener;
+import org.esa.snap.dataio.netcdf.util.NetcdfFilePool;
 import org.esa.snap.dataio.netcdf.util.TimeUtils;
 import ucar.nc2.Attribute;
 import ucar.nc2.NetcdfFile;
@@ -34,6 +35,7 @@ import java.io.IOException;
 class DefaultNetCdfReader extends AbstractProductReader {
 
     private NetcdfFile netcdfFile;
+    private NetcdfFilePool netcdfFilePool;
 
     public DefaultNetCdfReader(AbstractNetCdfReaderPlugIn netCdfReaderPlugIn) {
         super(netCdfReaderPlugIn);
@@ -56,6 +58,11 @@ class DefaultNetCdfReader extends AbstractProductReader {
         final ProfileReadContext context = new ProfileReadContextImpl(netcdfFile);
         String filename = extractProductName(fileLocation);
         context.setProperty(Constants.PRODUCT_FILENAME_PROPERTY, filename);
+        final int maximumFileHandles = NetcdfFilePool.getMaximumFileHandles();
+        if (maximumFileHandles > 1) {
+            netcdfFilePool = new NetcdfFilePool(fileLocation.getPath(), netcdfFile, maximumFileHandles);
+            context.setProperty(Constants.FILE_POOL_PROPERTY, netcdfFilePool);
+        }
         plugIn.initReadContext(context);
         NetCdfReadProfile profile = new NetCdfReadProfile();
         configureProfile(plugIn, profile);
@@ -118,6 +125,10 @@ class DefaultNetCdfReader extends AbstractProductReader {
 
     @Override
     public void close() throws IOException {
+        if (netcdfFilePool != null) {
+            netcdfFilePool.close();
+            netcdfFilePool = null;
+        }
         if (netcdfFile != null) {
             netcdfFile.close();
             netcdfFile = null;
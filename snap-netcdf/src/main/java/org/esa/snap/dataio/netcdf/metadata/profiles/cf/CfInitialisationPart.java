@@ -25,6 +25,8 @@ import org.esa.snap.dataio.netcdf.ProfileWriteContext;
 import org.esa.snap.dataio.netcdf.metadata.ProfileInitPartIO;
 import org.esa.snap.dataio.netcdf.nc.NFileWriteable;
 import org.esa.snap.dataio.netcdf.util.Constants;
+import org.esa.snap.dataio.netcdf.util.DimKey;
+import org.esa.snap.dataio.netcdf.util.RasterDigest;
 import ucar.nc2.Attribute;
 import ucar.nc2.Variable;
 import ucar.nc2.constants.CDM;
@@ -74,22 +76,57 @@ public class CfInitialisationPart extends ProfileInitPartIO {
     }
 
     private boolean initPreferredTileSizeFromChunkSizes(ProfileReadContext ctx, Product product) {
-        List<Variable> variables = ctx.getNetcdfFile().getVariables();
-        Variable variable = getFirst2dVariable(variables);
+        Variable variable = getFirstChunkedRasterVariable(ctx);
+        if (variable == null) {
+            variable = getFirst2dVariable(ctx.getNetcdfFile().getVariables());
+        }
         if (variable != null) {
-            Attribute att = variable.findAttribute(CDM.CHUNK_SIZES);
-            if (att != null) {
-                Number numericValue = att.getNumericValue(0);
-                Number numericValue1 = att.getNumericValue(1);
-                if (numericValue != null && numericValue1 != null) {
-                    product.setPreferredTileSize(numericValue.intValue(), numericValue1.intValue());
-                    return true;
-                }
+            Dimension chunkTileSize = getChunkTileSize(variable, product.getSceneRasterWidth(), product.getSceneRasterHeight());
+            if (chunkTileSize != null) {
+                product.setPreferredTileSize(chunkTileSize);
+                return true;
             }
         }
         return false;
     }
 
+    /**
+     * Returns the tile size matching the on-disk chunk shape of the given variable, so that each tile is read from
+     * a single chunk and no chunk has to be decompressed for more than one tile.
+     *
+     * @param variable  the variable
+     * @param maxWidth  the maximum tile width, usually the width of the raster
+     * @param maxHeight the maximum tile height, usually the height of the raster
+     * @return the tile size, or {@code null} if the variable is not chunked
+     */
+    static Dimension getChunkTileSize(Variable variable, int maxWidth, int maxHeight) {
+        Attribute att = variable.findAttribute(CDM.CHUNK_SIZES);
+        int rank = variable.getRank();
+        if (att == null || rank < 2 || att.getLength() != rank) {
+            return null;
+        }
+        List<ucar.nc2.Dimension> dimensions = variable.getDimensions();
+        DimKey dimKey = new DimKey(dimensions.toArray(new ucar.nc2.Dimension[0]));
+        Number chunkWidth = att.getNumericValue(dimKey.findXDimensionIndex());
+        Number chunkHeight = att.getNumericValue(dimKey.findYDimensionIndex());
+        if (chunkWidth == null || chunkHeight == null || chunkWidth.intValue() <= 0 || chunkHeight.intValue() <= 0) {
+            return null;
+        }
+        return new Dimension(Math.min(chunkWidth.intValue(), maxWidth), Math.min(chunkHeight.intValue(), maxHeight));
+    }
+
+    private Variable getFirstChunkedRasterVariable(ProfileReadContext ctx) {
+        RasterDigest rasterDigest = ctx.getRasterDigest();
+        if (rasterDigest != null) {
+            for (Variable variable : rasterDigest.getRasterVariables()) {
+                if (variable.findAttribute(CDM.CHUNK_SIZES) != null) {
+                    return variable;
+                }
+            }
+        }
+        return null;
+    }
+
     private Variable getFirst2dVariable(List<Variable> variables) {
         for (Variable variable : variables) {
             final List<ucar.nc2.Dimension> dimensions = variable.getDimensions();
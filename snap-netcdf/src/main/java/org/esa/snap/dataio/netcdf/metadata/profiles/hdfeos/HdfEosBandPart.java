@@ -33,7 +33,6 @@ import org.esa.snap.dataio.netcdf.util.NetcdfOpImage;
 import org.esa.snap.dataio.netcdf.util.RasterDigest;
 import org.esa.snap.dataio.netcdf.util.ScaledVariable;
 import ucar.ma2.DataType;
-import ucar.nc2.NetcdfFile;
 import ucar.nc2.Variable;
 
 import javax.media.jai.Interpolation;
@@ -88,7 +87,7 @@ public class HdfEosBandPart extends ProfilePartIO {
         @Override
         protected RenderedImage createImage(int level) {
             RasterDataNode rdn = getRasterDataNode();
-            NetcdfFile lock = ctx.getNetcdfFile();
+            Object lock = NetcdfMultiLevelImage.getReadLock(ctx);
             final Object object = ctx.getProperty(Constants.Y_FLIPPED_PROPERTY_NAME);
             boolean isYFlipped = object instanceof Boolean && (Boolean) object;
             int dataBufferType = ImageManager.getDataBufferType(rdn.getDataType());
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.dataio.netcdf.util;
+
+import org.esa.snap.core.util.SystemUtils;
+import org.esa.snap.runtime.Config;
+import ucar.ma2.Array;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.Variable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+
+/**
+ * A bounded pool of independently opened handles of one netCDF file. Reads through the pool can run concurrently,
+ * whereas all reads of a single {@link NetcdfFile} have to be serialised.
+ * <p>
+ * The primary file, which is used for reading the metadata, is the first handle of the pool. Further handles are
+ * opened on demand with the {@link NetcdfFileOpener}, up to the maximum number of handles. Every handle is still
+ * locked while being read, so the primary file can also be read by code synchronising on it directly.
+ *
+ * @since SNAP 8
+ */
+public class NetcdfFilePool implements Closeable {
+
+    /**
+     * The maximum number of handles opened for a netCDF file, a value of one disables the pool.
+     */
+    public static final String PROPERTY_KEY_MAX_FILE_HANDLES = "snap.dataio.netcdf.maxFileHandles";
+
+    private static final int DEFAULT_MAX_FILE_HANDLES = 1;
+
+    private final Object location;
+    private final NetcdfFile primaryFile;
+    private final Semaphore permits;
+    private final Deque<NetcdfFile> idleHandles;
+    private final List<NetcdfFile> secondaryHandles;
+    private boolean closed;
+
+    /**
+     * Creates a new pool.
+     *
+     * @param location       the location of the netCDF file, as accepted by {@link NetcdfFileOpener#open(Object)}
+     * @param primaryFile    the already opened netCDF file, which is not closed by the pool
+     * @param maximumHandles the maximum number of handles including the primary file
+     */
+    public NetcdfFilePool(Object location, NetcdfFile primaryFile, int maximumHandles) {
+        if (maximumHandles < 1) {
+            throw new IllegalArgumentException("maximumHandles < 1");
+        }
+        this.location = location;
+        this.primaryFile = primaryFile;
+        this.permits = new Semaphore(maximumHandles, true);
+        this.idleHandles = new ArrayDeque<>(maximumHandles);
+        this.idleHandles.push(primaryFile);
+        this.secondaryHandles = new ArrayList<>(maximumHandles - 1);
+    }
+
+    /**
+     * @return the maximum number of handles per netCDF file as configured by the preferences
+     */
+    public static int getMaximumFileHandles() {
+        return Math.max(1, Config.instance().preferences().getInt(PROPERTY_KEY_MAX_FILE_HANDLES, DEFAULT_MAX_FILE_HANDLES));
+    }
+
+    public NetcdfFile getPrimaryFile() {
+        return primaryFile;
+    }
+
+    /**
+     * Reads a section of a variable of the primary file using any idle handle of the pool.
+     *
+     * @param variable a variable of the primary file
+     * @param section  the section to read
+     * @return the data of the section
+     * @throws IOException           if an I/O error occurs
+     * @throws InvalidRangeException if the section is invalid
+     */
+    public Array read(Variable variable, Section section) throws IOException, InvalidRangeException {
+        final NetcdfFile handle = acquire();
+        try {
+            Variable handleVariable = variable;
+            if (handle != primaryFile) {
+                handleVariable = handle.findVariable(variable.getFullNameEscaped());
+            }
+            if (handleVariable == null) {
+                // e.g. a variable which has been added to the primary file after opening it
+                synchronized (primaryFile) {
+                    return variable.read(section);
+                }
+            }
+            synchronized (handle) {
+                return handleVariable.read(section);
+            }
+        } finally {
+            release(handle);
+        }
+    }
+
+    /**
+     * @return the number of handles currently opened, including the primary file
+     */
+    public synchronized int getNumHandles() {
+        return secondaryHandles.size() + 1;
+    }
+
+    /**
+     * Closes all handles but the primary file.
+     */
+    @Override
+    public void close() {
+        final List<NetcdfFile> handlesToClose;
+        synchronized (this) {
+            closed = true;
+            handlesToClose = new ArrayList<>(secondaryHandles);
+            secondaryHandles.clear();
+            idleHandles.clear();
+        }
+        for (NetcdfFile handle : handlesToClose) {
+            try {
+                synchronized (handle) {
+                    handle.close();
+                }
+            } catch (IOException e) {
+                SystemUtils.LOG.log(Level.FINE, "Failed to close netCDF file handle", e);
+            }
+        }
+    }
+
+    private NetcdfFile acquire() throws IOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a netCDF file handle");
+        }
+        synchronized (this) {
+            final NetcdfFile handle = idleHandles.poll();
+            if (handle != null || closed) {
+                // a closed pool reads from the primary file only, until the reader closes it as well
+                return handle != null ? handle : primaryFile;
+            }
+        }
+        final NetcdfFile handle;
+        try {
+            handle = NetcdfFileOpener.open(location);
+        } catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        if (handle == null) {
+            permits.release();
+            throw new IOException("Failed to open netCDF file " + location);
+        }
+        synchronized (this) {
+            if (closed) {
+                handle.close();
+                permits.release();
+                throw new IOException("The netCDF file pool has been closed");
+            }
+            secondaryHandles.add(handle);
+        }
+        return handle;
+    }
+
+    private void release(NetcdfFile handle) {
+        synchronized (this) {
+            if (!closed) {
+                idleHandles.push(handle);
+            }
+        }
+        permits.release();
+    }
+}
@@ -21,7 +21,6 @@ import org.esa.snap.core.image.ImageManager;
 import org.esa.snap.core.image.ResolutionLevel;
 import org.esa.snap.dataio.netcdf.ProfileReadContext;
 import ucar.ma2.DataType;
-import ucar.nc2.NetcdfFile;
 import ucar.nc2.Variable;
 
 import java.awt.Dimension;
@@ -60,10 +59,25 @@ public class NetcdfMultiLevelImage extends AbstractNetcdfMultiLevelImage {
         this.ctx = ctx;
     }
 
+    /**
+     * Returns the lock passed to the {@link NetcdfOpImage}s, which is the {@link NetcdfFilePool} of the context if
+     * there is one, otherwise the netCDF file.
+     *
+     * @param ctx the context
+     * @return the read lock
+     */
+    public static Object getReadLock(ProfileReadContext ctx) {
+        final Object filePool = ctx.getProperty(Constants.FILE_POOL_PROPERTY);
+        if (filePool instanceof NetcdfFilePool) {
+            return filePool;
+        }
+        return ctx.getNetcdfFile();
+    }
+
     @Override
     protected RenderedImage createImage(int level) {
         RasterDataNode rdn = getRasterDataNode();
-        NetcdfFile lock = ctx.getNetcdfFile();
+        Object lock = getReadLock(ctx);
         final Object object = ctx.getProperty(Constants.Y_FLIPPED_PROPERTY_NAME);
         boolean isYFlipped = object instanceof Boolean && (Boolean) object;
         int dataBufferType = ImageManager.getDataBufferType(rdn.getDataType());
@@ -16,6 +16,7 @@
 
 package org.esa.snap.dataio.netcdf.util;
 
+import com.bc.ceres.jai.tilescheduler.IoBoundImage;
 import org.esa.snap.core.image.ResolutionLevel;
 import org.esa.snap.core.image.SingleBandedOpImage;
 import ucar.ma2.Array;
@@ -28,6 +29,14 @@ import ucar.nc2.Variable;
 import javax.media.jai.PlanarImage;
 import java.awt.Dimension;
 import java.awt.Rectangle;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
@@ -37,7 +46,7 @@ import java.util.List;
  * An image that renders the data of a netcdf variable. Using the
  * "stride" feature to allow for faster subsetting.
  */
-public class NetcdfOpImage extends SingleBandedOpImage {
+public class NetcdfOpImage extends SingleBandedOpImage implements IoBoundImage {
 
     private final Variable variable;
     private final boolean flipY;
@@ -73,7 +82,8 @@ public class NetcdfOpImage extends SingleBandedOpImage {
      * @param variable       The netCDF variable
      * @param imageOrigin    The index within a multidimensional image dataset
      * @param flipY          The {@code true} if this data should be flipped along the yAxis.
-     * @param readLock       The the lock used for reading, usually the netcdf file that contains the variable
+     * @param readLock       The the lock used for reading, usually the netcdf file that contains the variable. If it is
+     *                       a {@link NetcdfFilePool}, the variable is read concurrently using the handles of the pool.
      * @param dataBufferType The data type.
      * @param sourceWidth    The width of the level 0 image.
      * @param sourceHeight   The height of the level 0 image.
@@ -154,15 +164,13 @@ public class NetcdfOpImage extends SingleBandedOpImage {
         stride[xIndex] = (int) scale;
 
         Array array;
-        synchronized (readLock) {
-            try {
-                final Section section = new Section(origin, shape, stride);
-                array = variable.read(section);
-            } catch (IOException e) {
-                throw new IllegalStateException(e);
-            } catch (InvalidRangeException e) {
-                throw new IllegalArgumentException(e);
-            }
+        try {
+            final Section section = new Section(origin, shape, stride);
+            array = read(section);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (InvalidRangeException e) {
+            throw new IllegalArgumentException(e);
         }
         if (xIndex < yIndex) {
             array = array.transpose(xIndex, yIndex);
@@ -170,6 +178,9 @@ public class NetcdfOpImage extends SingleBandedOpImage {
         // todo: consider weird position of lat/lon in nc variables (e.g. bands data1, data2, lat, data3, lon, data4), see above
 
         final Array convertedArray = arrayConverter.convert(array);
+        if (xIndex > yIndex && copyToDataBuffer(convertedArray.getStorage(), tile, destRect, flipY)) {
+            return;
+        }
         if (flipY) {
             tile.setDataElements(destRect.x, destRect.y,
                                  destRect.width, destRect.height,
@@ -188,6 +199,62 @@ public class NetcdfOpImage extends SingleBandedOpImage {
         }
     }
 
+    private Array read(Section section) throws IOException, InvalidRangeException {
+        if (readLock instanceof NetcdfFilePool) {
+            return ((NetcdfFilePool) readLock).read(variable, section);
+        }
+        synchronized (readLock) {
+            return variable.read(section);
+        }
+    }
+
+    /**
+     * Copies the samples row by row directly into the data bank of the tile, flipping the rows if required. This
+     * avoids the intermediate arrays of {@code Array.flip()} and {@code copyTo1DJavaArray()} as well as the per-pixel
+     * transfer done by {@code WritableRaster.setDataElements()}.
+     *
+     * @return {@code false} if the storage does not match the layout of the tile and nothing has been copied
+     */
+    static boolean copyToDataBuffer(Object storage, WritableRaster tile, Rectangle destRect, boolean flipY) {
+        if (!(tile.getSampleModel() instanceof ComponentSampleModel) || tile.getNumBands() != 1) {
+            return false;
+        }
+        final ComponentSampleModel sampleModel = (ComponentSampleModel) tile.getSampleModel();
+        final DataBuffer dataBuffer = tile.getDataBuffer();
+        final int bank = sampleModel.getBankIndices()[0];
+        final Object bankData = getBankData(dataBuffer, bank);
+        if (sampleModel.getPixelStride() != 1 || bankData == null || bankData.getClass() != storage.getClass()
+            || java.lang.reflect.Array.getLength(storage) != destRect.width * destRect.height) {
+            return false;
+        }
+        final int scanlineStride = sampleModel.getScanlineStride();
+        final int offset = dataBuffer.getOffsets()[bank] + sampleModel.getBandOffsets()[0]
+                           + (destRect.y - tile.getSampleModelTranslateY()) * scanlineStride
+                           + (destRect.x - tile.getSampleModelTranslateX());
+        for (int row = 0; row < destRect.height; row++) {
+            final int sourceRow = flipY ? destRect.height - 1 - row : row;
+            System.arraycopy(storage, sourceRow * destRect.width, bankData, offset + row * scanlineStride, destRect.width);
+        }
+        return true;
+    }
+
+    private static Object getBankData(DataBuffer dataBuffer, int bank) {
+        if (dataBuffer instanceof DataBufferByte) {
+            return ((DataBufferByte) dataBuffer).getData(bank);
+        } else if (dataBuffer instanceof DataBufferShort) {
+            return ((DataBufferShort) dataBuffer).getData(bank);
+        } else if (dataBuffer instanceof DataBufferUShort) {
+            return ((DataBufferUShort) dataBuffer).getData(bank);
+        } else if (dataBuffer instanceof DataBufferInt) {
+            return ((DataBufferInt) dataBuffer).getData(bank);
+        } else if (dataBuffer instanceof DataBufferFloat) {
+            return ((DataBufferFloat) dataBuffer).getData(bank);
+        } else if (dataBuffer instanceof DataBufferDouble) {
+            return ((DataBufferDouble) dataBuffer).getData(bank);
+        }
+        return null;
+    }
+
     private boolean isGlobalShifted180() {
         for (Attribute attribute : variable.getAttributes()) {
             // for the special case of a global image shifted by 180deg longitude, this attribute was added in CfGeocodingPart
@@ -236,17 +303,15 @@ public class NetcdfOpImage extends SingleBandedOpImage {
 
         Array arrayLeft;
         Array arrayRight;
-        synchronized (readLock) {
-            try {
-                final Section sectionLeft = new Section(originLeft, shapeLeft, stride);
-                final Section sectionRight = new Section(originRight, shapeRight, stride);
-                arrayLeft = variable.read(sectionLeft);
-                arrayRight = variable.read(sectionRight);
-            } catch (IOException e) {
-                throw new IllegalStateException(e);
-            } catch (InvalidRangeException e) {
-                throw new IllegalArgumentException(e);
-            }
+        try {
+            final Section sectionLeft = new Section(originLeft, shapeLeft, stride);
+            final Section sectionRight = new Section(originRight, shapeRight, stride);
+            arrayLeft = read(sectionLeft);
+            arrayRight = read(sectionRight);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } catch (InvalidRangeException e) {
+            throw new IllegalArgumentException(e);
         }
         if (xIndex < yIndex) {
             arrayLeft = arrayLeft.transpose(xIndex, yIndex);
@@ -0,0 +1,104 @@
+package org.esa.snap.dataio.netcdf.util;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import ucar.ma2.Array;
+import ucar.ma2.DataType;
+import ucar.ma2.InvalidRangeException;
+import ucar.ma2.Section;
+import ucar.nc2.NetcdfFile;
+import ucar.nc2.NetcdfFileWriter;
+import ucar.nc2.Variable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class NetcdfFilePoolTest {
+
+    private static final int WIDTH = 64;
+    private static final int HEIGHT = 48;
+
+    private static File tempFile;
+
+    @BeforeClass
+    public static void createTestDataFile() throws IOException, InvalidRangeException {
+        tempFile = File.createTempFile(NetcdfFilePoolTest.class.getSimpleName(), ".nc");
+        NetcdfFileWriter writer = NetcdfFileWriter.createNew(NetcdfFileWriter.Version.netcdf3, tempFile.getAbsolutePath());
+        writer.addDimension("y", HEIGHT);
+        writer.addDimension("x", WIDTH);
+        Variable data = writer.addVariable("data", DataType.INT, "y x");
+        writer.create();
+        int[] values = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        writer.write(data, Array.factory(DataType.INT, new int[]{HEIGHT, WIDTH}, values));
+        writer.close();
+    }
+
+    @AfterClass
+    public static void deleteTestDataFile() {
+        if (tempFile != null && !tempFile.delete()) {
+            tempFile.deleteOnExit();
+        }
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final NetcdfFile netcdfFile = NetcdfFileOpener.open(tempFile.getPath());
+        assertNotNull(netcdfFile);
+        final NetcdfFilePool pool = new NetcdfFilePool(tempFile.getPath(), netcdfFile, 3);
+        final ExecutorService executorService = Executors.newFixedThreadPool(6);
+        try {
+            final Variable variable = netcdfFile.findVariable("data");
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                final int y = i % (HEIGHT - 8);
+                final int x = (7 * i) % (WIDTH - 8);
+                results.add(executorService.submit(() -> {
+                    final Array array = pool.read(variable, new Section(new int[]{y, x}, new int[]{8, 8}));
+                    for (int j = 0; j < 8; j++) {
+                        for (int k = 0; k < 8; k++) {
+                            if (array.getInt(j * 8 + k) != (y + j) * WIDTH + x + k) {
+                                return false;
+                            }
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+            assertTrue(pool.getNumHandles() >= 1);
+            assertTrue(pool.getNumHandles() <= 3);
+        } finally {
+            executorService.shutdown();
+            pool.close();
+            netcdfFile.close();
+        }
+    }
+
+    @Test
+    public void testClosedPoolReadsFromPrimaryFile() throws Exception {
+        final NetcdfFile netcdfFile = NetcdfFileOpener.open(tempFile.getPath());
+        assertNotNull(netcdfFile);
+        final NetcdfFilePool pool = new NetcdfFilePool(tempFile.getPath(), netcdfFile, 2);
+        try {
+            pool.close();
+            assertEquals(1, pool.getNumHandles());
+            final Array array = pool.read(netcdfFile.findVariable("data"), new Section(new int[]{1, 2}, new int[]{1, 1}));
+            assertEquals(WIDTH + 2, array.getInt(0));
+        } finally {
+            netcdfFile.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.esa.snap.dataio.netcdf.util;
+
+import org.junit.Test;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NetcdfOpImageTest {
+
+    @Test
+    public void testCopyToDataBuffer() {
+        WritableRaster tile = createTile();
+        Rectangle destRect = new Rectangle(18, 13, 4, 3);
+
+        assertTrue(NetcdfOpImage.copyToDataBuffer(createStorage(), tile, destRect, false));
+
+        for (int y = 0; y < destRect.height; y++) {
+            for (int x = 0; x < destRect.width; x++) {
+                assertEquals(y * destRect.width + x, tile.getSampleFloat(destRect.x + x, destRect.y + y, 0), 0.0f);
+            }
+        }
+        assertEquals(0.0f, tile.getSampleFloat(17, 13, 0), 0.0f);
+        assertEquals(0.0f, tile.getSampleFloat(22, 13, 0), 0.0f);
+    }
+
+    @Test
+    public void testCopyToDataBuffer_FlipY() {
+        WritableRaster tile = createTile();
+        Rectangle destRect = new Rectangle(18, 13, 4, 3);
+
+        assertTrue(NetcdfOpImage.copyToDataBuffer(createStorage(), tile, destRect, true));
+
+        for (int y = 0; y < destRect.height; y++) {
+            for (int x = 0; x < destRect.width; x++) {
+                int sourceRow = destRect.height - 1 - y;
+                assertEquals(sourceRow * destRect.width + x, tile.getSampleFloat(destRect.x + x, destRect.y + y, 0), 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void testCopyToDataBuffer_NotMatchingStorage() {
+        WritableRaster tile = createTile();
+        Rectangle destRect = new Rectangle(18, 13, 4, 3);
+
+        assertFalse(NetcdfOpImage.copyToDataBuffer(new int[12], tile, destRect, false));
+        assertFalse(NetcdfOpImage.copyToDataBuffer(new float[10], tile, destRect, false));
+    }
+
+    private static WritableRaster createTile() {
+        PixelInterleavedSampleModel sampleModel = new PixelInterleavedSampleModel(DataBuffer.TYPE_FLOAT, 8, 6, 1, 8, new int[]{0});
+        return Raster.createWritableRaster(sampleModel, new Point(16, 12));
+    }
+
+    private static float[] createStorage() {
+        float[] storage = new float[12];
+        for (int i = 0; i < storage.length; i++) {
+            storage[i] = i;
+        }
+        return storage;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2020 Brockmann Consult GmbH (info@brockmann-consult.de)
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 3 of the License, or (at your option)
+ * any later version.
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, see http://www.gnu.org/licenses/
+ */
+
+package org.esa.snap.pixex;
+
+import org.esa.snap.core.datamodel.GeoCoding;
+import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.PixelPos;
+import org.esa.snap.core.datamodel.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A grid of one degree cells over the coordinates of a pixel extraction. It is built once and selects the
+ * coordinates which may lie within the footprint of a product, so that the pixel positions are only computed for
+ * these coordinates.
+ * <p>
+ * The selection is conservative: the final decision whether a coordinate lies within a product is still taken by
+ * the geo-coding of the product.
+ *
+ * @since SNAP 8
+ */
+class CoordinateIndex {
+
+    private static final int LAT_CELL_COUNT = 180;
+    private static final int LON_CELL_COUNT = 360;
+    // the number of points along the longer side of a product used to approximate its boundary
+    private static final int BOUNDARY_POINT_COUNT = 64;
+
+    private final List<Coordinate> coordinates;
+    private final Coordinate[][] cells;
+
+    CoordinateIndex(List<Coordinate> coordinates) {
+        this.coordinates = new ArrayList<>(coordinates);
+        this.coordinates.sort(Comparator.comparingInt(Coordinate::getID));
+        final List<List<Coordinate>> cellLists = new ArrayList<>(LAT_CELL_COUNT * LON_CELL_COUNT);
+        for (int i = 0; i < LAT_CELL_COUNT * LON_CELL_COUNT; i++) {
+            cellLists.add(null);
+        }
+        for (Coordinate coordinate : this.coordinates) {
+            final int cellIndex = getLatCell(coordinate.getLat()) * LON_CELL_COUNT + getLonCell(coordinate.getLon());
+            List<Coordinate> cellList = cellLists.get(cellIndex);
+            if (cellList == null) {
+                cellList = new ArrayList<>();
+                cellLists.set(cellIndex, cellList);
+            }
+            cellList.add(coordinate);
+        }
+        cells = new Coordinate[cellLists.size()][];
+        for (int i = 0; i < cells.length; i++) {
+            final List<Coordinate> cellList = cellLists.get(i);
+            if (cellList != null) {
+                cells[i] = cellList.toArray(new Coordinate[0]);
+            }
+        }
+    }
+
+    /**
+     * Returns the coordinates which may lie within the given product, ordered by their ID. All coordinates are
+     * returned if the footprint of the product cannot be determined.
+     *
+     * @param product the product, must be geo-coded
+     * @return the candidate coordinates
+     */
+    List<Coordinate> getCoordinates(Product product) {
+        final double[] bounds = getGeoBounds(product);
+        if (bounds == null) {
+            return coordinates;
+        }
+        return getCoordinates(bounds[0], bounds[1], bounds[2], bounds[3]);
+    }
+
+    /**
+     * Returns the coordinates within the given bounds, ordered by their ID.
+     *
+     * @param minLat    the minimum latitude
+     * @param maxLat    the maximum latitude
+     * @param minLon    the western longitude of the bounds
+     * @param lonExtent the extent of the bounds in longitude, eastwards from {@code minLon}, may cross the antimeridian
+     * @return the coordinates within the grid cells touched by the bounds
+     */
+    List<Coordinate> getCoordinates(double minLat, double maxLat, double minLon, double lonExtent) {
+        final int latCell1 = getLatCell(minLat);
+        final int latCell2 = getLatCell(maxLat);
+        final int lonCell1;
+        final int lonCellCount;
+        if (lonExtent >= LON_CELL_COUNT - 1) {
+            lonCell1 = 0;
+            lonCellCount = LON_CELL_COUNT;
+        } else {
+            lonCell1 = getLonCell(minLon);
+            lonCellCount = (int) Math.floor(minLon + 180.0 + lonExtent) - (int) Math.floor(minLon + 180.0) + 1;
+        }
+        final List<Coordinate> result = new ArrayList<>();
+        for (int latCell = latCell1; latCell <= latCell2; latCell++) {
+            for (int i = 0; i < lonCellCount; i++) {
+                final Coordinate[] cell = cells[latCell * LON_CELL_COUNT + (lonCell1 + i) % LON_CELL_COUNT];
+                if (cell != null) {
+                    result.addAll(Arrays.asList(cell));
+                }
+            }
+        }
+        result.sort(Comparator.comparingInt(Coordinate::getID));
+        return result;
+    }
+
+    /**
+     * Computes the geographical bounds of a product from points along its boundary, as an array of the minimum and
+     * maximum latitude, the western longitude and the extent in longitude. The bounds are enlarged by the largest
+     * distance between neighbouring boundary points, because the boundary may bulge between them.
+     *
+     * @return the bounds or {@code null} if a boundary point has no valid geo-position
+     */
+    static double[] getGeoBounds(Product product) {
+        final GeoCoding geoCoding = product.getSceneGeoCoding();
+        final int width = product.getSceneRasterWidth();
+        final int height = product.getSceneRasterHeight();
+        final int step = Math.max(1, Math.max(width, height) / BOUNDARY_POINT_COUNT);
+        final List<PixelPos> boundaryPixels = new ArrayList<>();
+        for (int x = 0; x < width; x += step) {
+            boundaryPixels.add(new PixelPos(x, 0));
+        }
+        for (int y = 0; y < height; y += step) {
+            boundaryPixels.add(new PixelPos(width, y));
+        }
+        for (int x = width; x > 0; x -= step) {
+            boundaryPixels.add(new PixelPos(x, height));
+        }
+        for (int y = height; y > 0; y -= step) {
+            boundaryPixels.add(new PixelPos(0, y));
+        }
+
+        final double[] lats = new double[boundaryPixels.size()];
+        final double[] lons = new double[boundaryPixels.size()];
+        for (int i = 0; i < lats.length; i++) {
+            final GeoPos geoPos = geoCoding.getGeoPos(boundaryPixels.get(i), null);
+            if (geoPos == null || !geoPos.isValid()) {
+                return null;
+            }
+            lats[i] = geoPos.lat;
+            lons[i] = normalizeLon(geoPos.lon);
+        }
+
+        double minLat = 90.0;
+        double maxLat = -90.0;
+        double margin = 0.0;
+        for (int i = 0; i < lats.length; i++) {
+            final int next = (i + 1) % lats.length;
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            final double lonDistance = Math.abs(lons[next] - lons[i]);
+            margin = Math.max(margin, Math.abs(lats[next] - lats[i]));
+            margin = Math.max(margin, Math.min(lonDistance, 360.0 - lonDistance));
+        }
+
+        // a product containing a pole covers all longitudes beyond its boundary
+        if (containsGeoPos(product, new GeoPos(90.0, 0.0))) {
+            return new double[]{minLat - margin, 90.0, -180.0, 360.0};
+        }
+        if (containsGeoPos(product, new GeoPos(-90.0, 0.0))) {
+            return new double[]{-90.0, maxLat + margin, -180.0, 360.0};
+        }
+
+        // the longitudes are covered by the circle except its largest gap between boundary points
+        final double[] sortedLons = lons.clone();
+        Arrays.sort(sortedLons);
+        double largestGap = sortedLons[0] + 360.0 - sortedLons[sortedLons.length - 1];
+        double westLon = sortedLons[0];
+        for (int i = 1; i < sortedLons.length; i++) {
+            final double gap = sortedLons[i] - sortedLons[i - 1];
+            if (gap > largestGap) {
+                largestGap = gap;
+                westLon = sortedLons[i];
+            }
+        }
+        return new double[]{minLat - margin, maxLat + margin, westLon - margin, 360.0 - largestGap + 2 * margin};
+    }
+
+    private static boolean containsGeoPos(Product product, GeoPos geoPos) {
+        final PixelPos pixelPos = product.getSceneGeoCoding().getPixelPos(geoPos, null);
+        return pixelPos != null && pixelPos.isValid() && product.containsPixel(pixelPos);
+    }
+
+    private static int getLatCell(double lat) {
+        return Math.max(0, Math.min(LAT_CELL_COUNT - 1, (int) Math.floor(lat + 90.0)));
+    }
+
+    private static int getLonCell(double lon) {
+        return Math.min(LON_CELL_COUNT - 1, (int) Math.floor(normalizeLon(lon) + 180.0));
+    }
+
+    private static double normalizeLon(double lon) {
+        final double normalized = (lon + 180.0) % 360.0;
+        return (normalized < 0.0 ? normalized + 360.0 : normalized) - 180.0;
+    }
+}
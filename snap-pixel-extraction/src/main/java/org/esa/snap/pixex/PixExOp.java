@@ -27,11 +27,13 @@ import org.esa.snap.core.dataio.ProductSubsetDef;
 import org.esa.snap.core.dataio.placemark.PlacemarkIO;
 import org.esa.snap.core.datamodel.GeoCoding;
 import org.esa.snap.core.datamodel.GeoPos;
+import org.esa.snap.core.datamodel.Mask;
 import org.esa.snap.core.datamodel.PinDescriptor;
 import org.esa.snap.core.datamodel.PixelPos;
 import org.esa.snap.core.datamodel.Placemark;
 import org.esa.snap.core.datamodel.Product;
 import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.RasterDataNode;
 import org.esa.snap.core.gpf.Operator;
 import org.esa.snap.core.gpf.OperatorException;
 import org.esa.snap.core.gpf.OperatorSpi;
@@ -73,6 +75,7 @@ import org.opengis.feature.type.AttributeDescriptor;
 
 import javax.media.jai.PlanarImage;
 import javax.media.jai.operator.ConstantDescriptor;
+import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.geom.Point2D;
 import java.awt.image.Raster;
@@ -81,15 +84,24 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipOutputStream;
@@ -229,6 +241,14 @@ public class PixExOp extends Operator {
             itemAlias = "variableCombination")
     private VariableCombination[] scatterPlotVariableCombinations;
 
+    @Parameter(description = "The number of source products which are searched for the coordinates concurrently. \n" +
+                             "If greater than zero, only the coordinates within the footprint of a product are \n" +
+                             "considered and the pixels are read in the order of the source tiles. The \n" +
+                             "measurements are written in the same order as with zero, which processes the \n" +
+                             "products one after the other.",
+            defaultValue = "0", interval = "[0,*]")
+    private int productWorkerCount;
+
     private List<Coordinate> coordinateList;
     private boolean isTargetProductInitialized;
     private int timeDelta;
@@ -330,13 +350,19 @@ public class PixExOp extends Operator {
             boolean measurementsFound = false;
             if (sourceProducts != null) {
                 Arrays.sort(sourceProducts, new ProductComparator());
-                for (Product product : sourceProducts) {
-                    measurementsFound |= extractMeasurements(product);
-                    pm.worked(1);
-                }
             }
-            if (!sourceProductFileSet.isEmpty()) {
-                measurementsFound |= extractMeasurements(sourceProductFileSet, pm);
+            if (productWorkerCount > 0) {
+                measurementsFound = extractMeasurementsConcurrently(sourceProducts, sourceProductFileSet, pm);
+            } else {
+                if (sourceProducts != null) {
+                    for (Product product : sourceProducts) {
+                        measurementsFound |= extractMeasurements(product);
+                        pm.worked(1);
+                    }
+                }
+                if (!sourceProductFileSet.isEmpty()) {
+                    measurementsFound |= extractMeasurements(sourceProductFileSet, pm);
+                }
             }
 
             if (exportKmz && measurementsFound) {
@@ -693,6 +719,37 @@ public class PixExOp extends Operator {
             return false;
         }
 
+        final ProductData.UTC[] oldTimeStamps = applyTimeStampsFromFilename(product);
+        final PlanarImage validMaskImage = createValidMaskImage(product);
+        try {
+            List<Coordinate> matchedCoordinates = new ArrayList<>();
+
+            boolean coordinatesFound = false;
+            for (Coordinate coordinate : coordinateList) {
+                try {
+                    final boolean measurementExtracted = extractMeasurement(product, coordinate, coordinate.getID(),
+                                                                            validMaskImage);
+                    coordinatesFound |= measurementExtracted;
+                    if (measurementExtracted && (exportSubScenes || exportKmz)) {
+                        matchedCoordinates.add(coordinate);
+                    }
+                } catch (IOException e) {
+                    getLogger().warning(e.getMessage());
+                }
+            }
+            formatStrategy.finish();
+            if (coordinatesFound) {
+                exportMatchedCoordinates(product, matchedCoordinates);
+            }
+            return coordinatesFound;
+        } finally {
+            validMaskImage.dispose();
+            product.setStartTime(oldTimeStamps[0]);
+            product.setEndTime(oldTimeStamps[1]);
+        }
+    }
+
+    private ProductData.UTC[] applyTimeStampsFromFilename(Product product) {
         ProductData.UTC[] oldTimeStamps = new ProductData.UTC[2];
         oldTimeStamps[0] = product.getStartTime();
         oldTimeStamps[1] = product.getEndTime();
@@ -700,26 +757,243 @@ public class PixExOp extends Operator {
             File file = product.getFileLocation();
             if (extractTimeFromFilename && file != null) {
                 String fileName = file.getName();
-                final ProductData.UTC[] timeStamps = timeStampExtractor.extractTimeStamps(fileName);
+                final ProductData.UTC[] timeStamps;
+                synchronized (timeStampExtractor) {
+                    timeStamps = timeStampExtractor.extractTimeStamps(fileName);
+                }
                 product.setStartTime(timeStamps[0]);
                 product.setEndTime(timeStamps[1]);
             }
         } catch (ValidationException e) {
             throw new OperatorException(e);
         }
+        return oldTimeStamps;
+    }
 
-        final PlanarImage validMaskImage = createValidMaskImage(product);
+    private void exportMatchedCoordinates(Product product, List<Coordinate> matchedCoordinates) {
+        if (exportSubScenes) {
+            try {
+                exportSubScene(product, matchedCoordinates);
+            } catch (IOException e) {
+                getLogger().log(Level.WARNING,
+                                "Could not export sub-scene for product: " + product.getFileLocation(), e);
+            }
+        }
+        if (exportKmz) {
+            for (Coordinate matchedCoordinate : matchedCoordinates) {
+                final String coordinateName = matchedCoordinate.getName();
+                if (!knownKmzPlacemarks.contains(coordinateName)) {
+                    final Point2D.Double position = new Point2D.Double(matchedCoordinate.getLon(),
+                                                                       matchedCoordinate.getLat());
+                    kmlDocument.addChild(new KmlPlacemark(coordinateName, null, position));
+                    knownKmzPlacemarks.add(coordinateName);
+                }
+
+            }
+        }
+    }
+
+    /**
+     * Extracts the measurements of several products at the same time. The workers open the products, select the
+     * coordinates within each product from the coordinate index and read the tiles of the matched windows, while the
+     * calling thread writes the measurements of one product after the other, in the order of the sequential
+     * extraction. Products are registered by the writer in this order too, so the product IDs do not change.
+     * <p>
+     * If the extraction fails, the pending workers are waited for and their products are disposed. Workers which
+     * have not started yet do not open their products.
+     */
+    private boolean extractMeasurementsConcurrently(Product[] products, Set<File> fileSet, ProgressMonitor pm) {
+        final CoordinateIndex coordinateIndex = new CoordinateIndex(coordinateList);
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final List<Callable<ProductMatches>> tasks = new ArrayList<>();
+        if (products != null) {
+            for (Product product : products) {
+                tasks.add(() -> findMatches(product, false, coordinateIndex));
+            }
+        }
+        for (File file : fileSet) {
+            tasks.add(() -> findMatches(file, coordinateIndex));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(productWorkerCount);
+        // the matches of at most twice as many products as workers are kept, until they are written
+        final int maxPendingCount = 2 * productWorkerCount;
+        final Deque<Future<ProductMatches>> pendingMatches = new ArrayDeque<>();
+        boolean measurementsFound = false;
         try {
-            List<Coordinate> matchedCoordinates = new ArrayList<>();
+            final Iterator<Callable<ProductMatches>> taskIterator = tasks.iterator();
+            while (taskIterator.hasNext() || !pendingMatches.isEmpty()) {
+                while (taskIterator.hasNext() && pendingMatches.size() < maxPendingCount) {
+                    final Callable<ProductMatches> task = taskIterator.next();
+                    pendingMatches.add(executor.submit(() -> findMatchesUnlessAborted(task, aborted)));
+                }
+                final ProductMatches productMatches = getMatches(pendingMatches.removeFirst());
+                if (productMatches != null) {
+                    measurementsFound |= writeMeasurements(productMatches);
+                }
+                pm.worked(1);
+            }
+        } finally {
+            aborted.set(true);
+            executor.shutdown();
+            for (Future<ProductMatches> future : pendingMatches) {
+                try {
+                    disposeMatches(getMatches(future));
+                } catch (OperatorException ignored) {
+                    // the extraction has already failed, a worker finishing later disposes its matches itself
+                }
+            }
+        }
+        return measurementsFound;
+    }
+
+    private static ProductMatches findMatchesUnlessAborted(Callable<ProductMatches> task, AtomicBoolean aborted) throws Exception {
+        if (aborted.get()) {
+            return null;
+        }
+        final ProductMatches productMatches = task.call();
+        if (aborted.get()) {
+            // the extraction has failed, the matches are not written any more
+            disposeMatches(productMatches);
+            return null;
+        }
+        return productMatches;
+    }
+
+    private ProductMatches getMatches(Future<ProductMatches> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperatorException("Interrupted while extracting the measurements.", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof OperatorException) {
+                throw (OperatorException) cause;
+            }
+            throw new OperatorException(cause);
+        }
+    }
 
+    private ProductMatches findMatches(File file, CoordinateIndex coordinateIndex) {
+        try {
+            final Product product = ProductIO.readProduct(file);
+            if (product == null) {
+                getLogger().warning("Unable to read product from file '" + file.getAbsolutePath() + "'.");
+                return null;
+            }
+            return findMatches(product, true, coordinateIndex);
+        } catch (Exception e) {
+            final Logger logger = getLogger();
+            logger.warning("Unable to extract measurements from product file '" + file.getAbsolutePath() + "'.");
+            logger.log(Level.WARNING, e.getMessage());
+            logger.log(Level.FINER, e.getMessage(), e);
+        }
+        return null;
+    }
+
+    private ProductMatches findMatches(Product product, boolean disposeProduct, CoordinateIndex coordinateIndex) {
+        if (!isAbleToExtractPixels(product)) {
+            if (disposeProduct) {
+                product.dispose();
+            }
+            return null;
+        }
+        final ProductMatches productMatches = new ProductMatches(product, disposeProduct);
+        try {
+            productMatches.oldTimeStamps = applyTimeStampsFromFilename(product);
+            productMatches.validMaskImage = createValidMaskImage(product);
+            final PlanarImage validMaskImage = productMatches.validMaskImage;
+            final List<Match> matches = new ArrayList<>();
+            for (Coordinate coordinate : coordinateIndex.getCoordinates(product)) {
+                PixelPos centerPos = getPixelPosition(product, coordinate);
+                if (!product.containsPixel(centerPos)) {
+                    continue;
+                }
+                if (considerTimeDifference(timeDifference) && coordinate.getDateTime() != null) {
+                    final ProductData.UTC scanLineTime = ProductUtils.getScanLineTime(product, centerPos.y);
+                    if (scanLineTime == null || !isPixelInTimeSpan(coordinate, timeDelta, calendarField, scanLineTime)) {
+                        continue;
+                    }
+                }
+                matches.add(new Match(coordinate, MathUtils.floorInt(centerPos.x), MathUtils.floorInt(centerPos.y)));
+            }
+
+            // the windows are read in the order of the tiles, so that the tiles are computed one after the other
+            matches.sort(Comparator.comparingInt((Match match) -> validMaskImage.YToTileY(match.centerY))
+                                 .thenComparingInt(match -> validMaskImage.XToTileX(match.centerX)));
+            final int offset = MathUtils.floorInt(windowSize / 2);
+            final List<Rectangle> windows = new ArrayList<>();
+            for (Match match : matches) {
+                final int upperLeftX = match.centerX - offset;
+                final int upperLeftY = match.centerY - offset;
+                final Rectangle window = new Rectangle(upperLeftX, upperLeftY, windowSize, windowSize);
+                match.validData = validMaskImage.getData(window);
+                if (isAnyPixelInWindowValid(upperLeftX, upperLeftY, match.validData)) {
+                    productMatches.matches.add(match);
+                    windows.add(window);
+                }
+            }
+            prefetchTiles(product, windows);
+            productMatches.matches.sort(Comparator.comparingInt(match -> match.coordinate.getID()));
+            return productMatches;
+        } catch (RuntimeException e) {
+            disposeMatches(productMatches);
+            throw e;
+        }
+    }
+
+    /**
+     * Computes the tiles of the exported rasters which are overlapped by the given windows, so that the measurements
+     * are written from the tile cache.
+     */
+    private void prefetchTiles(Product product, List<Rectangle> windows) {
+        if (windows.isEmpty()) {
+            return;
+        }
+        final List<RasterDataNode> rasters = new ArrayList<>();
+        if (exportBands) {
+            rasters.addAll(Arrays.asList(product.getBands()));
+        }
+        if (exportTiePoints) {
+            rasters.addAll(Arrays.asList(product.getTiePointGrids()));
+        }
+        if (exportMasks) {
+            rasters.addAll(Arrays.asList(product.getMaskGroup().toArray(new Mask[0])));
+        }
+        for (RasterDataNode raster : rasters) {
+            prefetchImageTiles(raster.getGeophysicalImage(), windows);
+            if (raster.isValidMaskUsed()) {
+                prefetchImageTiles(raster.getValidMaskImage(), windows);
+            }
+        }
+    }
+
+    private static void prefetchImageTiles(PlanarImage image, List<Rectangle> windows) {
+        final Set<Point> tileIndices = new LinkedHashSet<>();
+        for (Rectangle window : windows) {
+            final Point[] windowTileIndices = image.getTileIndices(window.intersection(image.getBounds()));
+            if (windowTileIndices != null) {
+                tileIndices.addAll(Arrays.asList(windowTileIndices));
+            }
+        }
+        if (!tileIndices.isEmpty()) {
+            image.getTiles(tileIndices.toArray(new Point[0]));
+        }
+    }
+
+    private boolean writeMeasurements(ProductMatches productMatches) {
+        final Product product = productMatches.product;
+        try {
+            List<Coordinate> matchedCoordinates = new ArrayList<>();
             boolean coordinatesFound = false;
-            for (Coordinate coordinate : coordinateList) {
+            for (Match match : productMatches.matches) {
                 try {
-                    final boolean measurementExtracted = extractMeasurement(product, coordinate, coordinate.getID(),
-                                                                            validMaskImage);
-                    coordinatesFound |= measurementExtracted;
-                    if (measurementExtracted && (exportSubScenes || exportKmz)) {
-                        matchedCoordinates.add(coordinate);
+                    measurementWriter.writeMeasurements(match.centerX, match.centerY, match.coordinate.getID(),
+                                                        match.coordinate.getName(), product, match.validData);
+                    coordinatesFound = true;
+                    if (exportSubScenes || exportKmz) {
+                        matchedCoordinates.add(match.coordinate);
                     }
                 } catch (IOException e) {
                     getLogger().warning(e.getMessage());
@@ -727,32 +1001,28 @@ public class PixExOp extends Operator {
             }
             formatStrategy.finish();
             if (coordinatesFound) {
-                if (exportSubScenes) {
-                    try {
-                        exportSubScene(product, matchedCoordinates);
-                    } catch (IOException e) {
-                        getLogger().log(Level.WARNING,
-                                        "Could not export sub-scene for product: " + product.getFileLocation(), e);
-                    }
-                }
-                if (exportKmz) {
-                    for (Coordinate matchedCoordinate : matchedCoordinates) {
-                        final String coordinateName = matchedCoordinate.getName();
-                        if (!knownKmzPlacemarks.contains(coordinateName)) {
-                            final Point2D.Double position = new Point2D.Double(matchedCoordinate.getLon(),
-                                                                               matchedCoordinate.getLat());
-                            kmlDocument.addChild(new KmlPlacemark(coordinateName, null, position));
-                            knownKmzPlacemarks.add(coordinateName);
-                        }
-
-                    }
-                }
+                exportMatchedCoordinates(product, matchedCoordinates);
             }
             return coordinatesFound;
         } finally {
-            validMaskImage.dispose();
-            product.setStartTime(oldTimeStamps[0]);
-            product.setEndTime(oldTimeStamps[1]);
+            disposeMatches(productMatches);
+        }
+    }
+
+    private static void disposeMatches(ProductMatches productMatches) {
+        if (productMatches == null) {
+            return;
+        }
+        final Product product = productMatches.product;
+        if (productMatches.validMaskImage != null) {
+            productMatches.validMaskImage.dispose();
+        }
+        if (productMatches.oldTimeStamps != null) {
+            product.setStartTime(productMatches.oldTimeStamps[0]);
+            product.setEndTime(productMatches.oldTimeStamps[1]);
+        }
+        if (productMatches.disposeProduct) {
+            product.dispose();
         }
     }
 
@@ -797,6 +1067,35 @@ public class PixExOp extends Operator {
         }
     }
 
+    private static class ProductMatches {
+
+        private final Product product;
+        private final boolean disposeProduct;
+        private final List<Match> matches;
+        private ProductData.UTC[] oldTimeStamps;
+        private PlanarImage validMaskImage;
+
+        private ProductMatches(Product product, boolean disposeProduct) {
+            this.product = product;
+            this.disposeProduct = disposeProduct;
+            this.matches = new ArrayList<>();
+        }
+    }
+
+    private static class Match {
+
+        private final Coordinate coordinate;
+        private final int centerX;
+        private final int centerY;
+        private Raster validData;
+
+        private Match(Coordinate coordinate, int centerX, int centerY) {
+            this.coordinate = coordinate;
+            this.centerX = centerX;
+            this.centerY = centerY;
+        }
+    }
+
     private boolean isAbleToExtractPixels(Product product) {
         final Logger logger = getLogger();
         if (product == null) {
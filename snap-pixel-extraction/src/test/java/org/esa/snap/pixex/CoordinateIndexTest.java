@@ -0,0 +1,94 @@
+package org.esa.snap.pixex;
+
+import org.esa.snap.core.datamodel.CrsGeoCoding;
+import org.esa.snap.core.datamodel.Product;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class CoordinateIndexTest {
+
+    @Test
+    public void testGetCoordinatesWithinBounds() {
+        final CoordinateIndex index = new CoordinateIndex(createCoordinates(
+                new double[]{10.2, 10.5}, new double[]{20.7, 11.3}, new double[]{-45.0, 170.0}, new double[]{50.5, 3.2}));
+
+        assertIds(new int[]{1, 2}, index.getCoordinates(9.5, 21.5, 10.0, 12.0));
+        assertIds(new int[]{1}, index.getCoordinates(9.5, 12.0, 10.0, 2.0));
+        assertIds(new int[]{4}, index.getCoordinates(40.0, 60.0, 2.0, 2.0));
+        assertIds(new int[0], index.getCoordinates(-10.0, 5.0, 100.0, 30.0));
+        // all longitudes
+        assertIds(new int[]{1, 2, 3}, index.getCoordinates(-50.0, 30.0, 0.0, 360.0));
+    }
+
+    @Test
+    public void testGetCoordinatesAcrossAntimeridian() {
+        final CoordinateIndex index = new CoordinateIndex(createCoordinates(
+                new double[]{0.0, 179.5}, new double[]{1.0, -179.5}, new double[]{2.0, 0.0}));
+
+        assertIds(new int[]{1, 2}, index.getCoordinates(-1.0, 3.0, 179.0, 2.0));
+        assertIds(new int[]{1, 2}, index.getCoordinates(-1.0, 3.0, -181.0, 2.0));
+        assertIds(new int[]{3}, index.getCoordinates(-1.0, 3.0, -1.0, 2.0));
+    }
+
+    @Test
+    public void testGetCoordinatesOfProduct() throws Exception {
+        final CoordinateIndex index = new CoordinateIndex(createCoordinates(
+                new double[]{45.0, 10.0}, new double[]{44.0, 12.0}, new double[]{-45.0, 10.0}, new double[]{45.0, -170.0}));
+        // covers 40°N to 50°N and 5°E to 15°E
+        final Product product = createProduct(5.0, 50.0, 100, 100, 0.1);
+
+        final double[] bounds = CoordinateIndex.getGeoBounds(product);
+        assertNotNull(bounds);
+        assertEquals(40.0, bounds[0], 1.0);
+        assertEquals(50.0, bounds[1], 1.0);
+        assertEquals(5.0, bounds[2], 1.0);
+        assertEquals(10.0, bounds[3], 2.0);
+        assertIds(new int[]{1, 2}, index.getCoordinates(product));
+    }
+
+    @Test
+    public void testGetCoordinatesOfGlobalProduct() throws Exception {
+        final CoordinateIndex index = new CoordinateIndex(createCoordinates(
+                new double[]{89.9, 10.0}, new double[]{0.0, 179.9}, new double[]{-89.9, -179.9}));
+        final Product product = createProduct(-180.0, 90.0, 360, 180, 1.0);
+
+        assertIds(new int[]{1, 2, 3}, index.getCoordinates(product));
+    }
+
+    private static List<Coordinate> createCoordinates(double[]... latLons) {
+        final List<Coordinate> coordinates = new ArrayList<>();
+        for (int i = 0; i < latLons.length; i++) {
+            final Coordinate coordinate = new Coordinate("coord" + (i + 1), latLons[i][0], latLons[i][1], null);
+            coordinate.setID(i + 1);
+            coordinates.add(coordinate);
+        }
+        return coordinates;
+    }
+
+    private static Product createProduct(double easting, double northing, int width, int height, double pixelSize) throws Exception {
+        final Rectangle bounds = new Rectangle(width, height);
+        final Product product = new Product("product", "type", width, height);
+        final AffineTransform i2mTransform = new AffineTransform();
+        i2mTransform.translate(easting, northing);
+        i2mTransform.scale(pixelSize, -pixelSize);
+        product.setSceneGeoCoding(new CrsGeoCoding(DefaultGeographicCRS.WGS84, bounds, i2mTransform));
+        return product;
+    }
+
+    private static void assertIds(int[] expectedIds, List<Coordinate> coordinates) {
+        final int[] ids = new int[coordinates.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = coordinates.get(i).getID();
+        }
+        assertArrayEquals(expectedIds, ids);
+    }
+}
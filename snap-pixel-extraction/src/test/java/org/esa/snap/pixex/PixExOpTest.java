@@ -420,6 +420,41 @@ public class PixExOpTest {
         }
     }
 
+    @Test
+    public void testTwentyProductsWithDifferentTypes_ConcurrentExtraction() throws Exception {
+
+        Coordinate[] coordinates = {
+                new Coordinate("coord3", 2.5, 1.0, null),
+                new Coordinate("coord4", 0.5, 0.5, null),
+                new Coordinate("coord5", 30.5, -60.5, null)
+        };
+        int windowSize = 3;
+
+        HashMap<String, Object> parameterMap = new HashMap<>();
+        parameterMap.put("outputDir", testDir);
+        parameterMap.put("exportTiePoints", false);
+        parameterMap.put("exportMasks", false);
+        parameterMap.put("coordinates", coordinates);
+        parameterMap.put("windowSize", windowSize);
+        parameterMap.put("productWorkerCount", 4);
+
+        List<Product> productList = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            productList.add(createTestProduct("prod_" + i, "type" + i, new String[]{"band" + i}));
+        }
+
+        Product[] products = productList.toArray(new Product[productList.size()]);
+
+        computeData(parameterMap, products);
+        try (PixExMeasurementReader measurementReader = new PixExMeasurementReader(testDir)) {
+            final List<Measurement> measurementList = convertToList(measurementReader);
+            assertEquals(windowSize * windowSize * products.length * coordinates.length, measurementList.size());
+            testForExistingMeasurement(measurementList, "coord3", 1, 2.5f, 1.5f, 181.5f, 87.5f);
+            testForExistingMeasurement(measurementList, "coord4", 2, 0.5f, 0.5f, 180.5f, 89.5f);
+            testForExistingMeasurement(measurementList, "coord5", 3, 30.5f, -60.5f, 119.5f, 59.5f);
+        }
+    }
+
     @Test(expected = OperatorException.class)
     public void testFailForEvenWindowSize() throws Exception {
         HashMap<String, Object> parameterMap = new HashMap<>();
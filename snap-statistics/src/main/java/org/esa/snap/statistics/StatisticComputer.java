@@ -48,6 +48,7 @@ public class StatisticComputer {
     private final int initialBinCount;
     private final Logger logger;
     private final TimeInterval[] timeIntervals;
+    private final boolean zonal;
     private String featureId;
 
     public StatisticComputer(File shapefile, BandConfiguration[] bandConfigurations, int initialBinCount,
@@ -59,7 +60,18 @@ public class StatisticComputer {
 
     public StatisticComputer(File shapefile, BandConfiguration[] bandConfigurations, int initialBinCount,
                              TimeInterval[] timeIntervals, String featureId, Logger logger) {
+        this(shapefile, bandConfigurations, initialBinCount, timeIntervals, featureId, logger, false);
+    }
+
+    /**
+     * @param zonal if true, the statistics of all regions and bands of a product are computed together in two passes
+     *              over the tiles of the product, instead of two passes per region and band
+     * @since SNAP 8
+     */
+    public StatisticComputer(File shapefile, BandConfiguration[] bandConfigurations, int initialBinCount,
+                             TimeInterval[] timeIntervals, String featureId, Logger logger, boolean zonal) {
         this.initialBinCount = initialBinCount;
+        this.zonal = zonal;
         this.timeIntervals = timeIntervals;
         this.logger = logger != null ? logger : SystemUtils.LOG;
         if (shapefile != null) {
@@ -134,18 +146,14 @@ public class StatisticComputer {
             for (VectorDataNode vectorDataNode : vectorDataNodes) {
                 product.getVectorDataGroup().add(vectorDataNode);
             }
+            if (zonal) {
+                computeZonalStatistic(intervalIndex, product, vectorDataNodes);
+                return;
+            }
         }
         for (BandConfiguration bandConfiguration : bandConfigurations) {
             final Band band = getBand(bandConfiguration, product);
-            final String newExpression = bandConfiguration.validPixelExpression;
-            if (newExpression != null) {
-                final String oldExpression = band.getValidPixelExpression();
-                if (oldExpression != null) {
-                    logger.info(
-                            "Replaced old valid pixel expression '" + oldExpression + "' by '" + newExpression + "'.");
-                }
-                band.setValidPixelExpression(newExpression);
-            }
+            setValidPixelExpression(band, bandConfiguration);
             final StxOpMapping stxOpsMapping = getStxOpsMapping(intervalIndex, bandConfiguration);
             if (features != null) {
                 for (VectorDataNode vectorDataNode : vectorDataNodes) {
@@ -161,6 +169,47 @@ public class StatisticComputer {
         }
     }
 
+    private void computeZonalStatistic(int intervalIndex, Product product, VectorDataNode[] vectorDataNodes) {
+        final String[] regionNames = new String[vectorDataNodes.length];
+        final Mask[] regionMasks = new Mask[vectorDataNodes.length];
+        for (int i = 0; i < vectorDataNodes.length; i++) {
+            regionNames[i] = vectorDataNodes[i].getName();
+            regionMasks[i] = product.getMaskGroup().get(regionNames[i]);
+        }
+        final ZonalStatisticComputer zonalStatisticComputer = new ZonalStatisticComputer(regionNames, regionMasks);
+        // a band can have a single valid pixel expression at a time, so configurations of the same band are
+        // computed in separate passes
+        final List<Band> bands = new ArrayList<>();
+        final List<StxOpMapping> stxOpMappings = new ArrayList<>();
+        final List<Boolean> categoricalFlags = new ArrayList<>();
+        for (BandConfiguration bandConfiguration : bandConfigurations) {
+            final Band band = getBand(bandConfiguration, product);
+            if (bands.contains(band)) {
+                zonalStatisticComputer.computeStatistic(bands, stxOpMappings, categoricalFlags);
+                bands.clear();
+                stxOpMappings.clear();
+                categoricalFlags.clear();
+            }
+            setValidPixelExpression(band, bandConfiguration);
+            bands.add(band);
+            stxOpMappings.add(getStxOpsMapping(intervalIndex, bandConfiguration));
+            categoricalFlags.add(bandConfiguration.retrieveCategoricalStatistics && isIntegerBand(band));
+        }
+        zonalStatisticComputer.computeStatistic(bands, stxOpMappings, categoricalFlags);
+    }
+
+    private void setValidPixelExpression(Band band, BandConfiguration bandConfiguration) {
+        final String newExpression = bandConfiguration.validPixelExpression;
+        if (newExpression != null) {
+            final String oldExpression = band.getValidPixelExpression();
+            if (oldExpression != null) {
+                logger.info(
+                        "Replaced old valid pixel expression '" + oldExpression + "' by '" + newExpression + "'.");
+            }
+            band.setValidPixelExpression(newExpression);
+        }
+    }
+
     private void computeStatistic(String regionName, StxOpMapping stxOpsMapping, Band band,
                                   boolean retrieveCategoricalStatistics, Shape roiShape, MultiLevelImage roiImage) {
         if (retrieveCategoricalStatistics && isIntegerBand(band)) {
@@ -242,7 +291,7 @@ public class StatisticComputer {
             this.qualitativeMap = new HashMap<>();
         }
 
-        private QualitativeStxOp getQualitativeStxOp(String vdnName, Band band) {
+        QualitativeStxOp getQualitativeStxOp(String vdnName, Band band) {
             QualitativeStxOp qualitativeStxOp = qualitativeMap.get(vdnName);
             if (qualitativeStxOp == null) {
                 qualitativeStxOp = new QualitativeStxOp();
@@ -252,7 +301,7 @@ public class StatisticComputer {
             return qualitativeStxOp;
         }
 
-        private SummaryStxOp getSummaryOp(String vdnName) {
+        SummaryStxOp getSummaryOp(String vdnName) {
             SummaryStxOp summaryStxOp = summaryMap.get(vdnName);
             if (summaryStxOp == null) {
                 summaryStxOp = new SummaryStxOp();
@@ -261,7 +310,7 @@ public class StatisticComputer {
             return summaryStxOp;
         }
 
-        private HistogramStxOp getHistogramOp(String vdnName, double minimum, double maximum, Band band) {
+        HistogramStxOp getHistogramOp(String vdnName, double minimum, double maximum, Band band) {
             HistogramStxOp histogramStxOp = histogramMap.get(vdnName);
             boolean intHistogram = isIntegerBand(band);
             if (histogramStxOp == null) {
@@ -280,7 +329,7 @@ public class StatisticComputer {
         }
     }
 
-    private static boolean isIntegerBand(Band band) {
+    static boolean isIntegerBand(Band band) {
         return band.getGeophysicalImage().getSampleModel().getDataType() < DataBuffer.TYPE_FLOAT;
     }
 
@@ -177,6 +177,12 @@ public class StatisticsOp extends Operator {
             defaultValue = "false")
     boolean writeDataTypesSeparately;
 
+    @Parameter(description = "If true, the statistics of all regions and bands of a product are computed together " +
+            "in two passes over the product, instead of two passes per region and band. Recommended for shapefiles with many " +
+            "regions. This parameter will only have an effect if a shapefile is given.",
+            defaultValue = "false")
+    boolean zonalMode;
+
     final Set<StatisticsOutputter> allStatisticsOutputters = new HashSet<>();
     private final Set<StatisticsOutputter> qualitativeStatisticsOutputters = new HashSet<>();
     private final Set<StatisticsOutputter> quantitativeStatisticsOutputters = new HashSet<>();
@@ -200,7 +206,7 @@ public class StatisticsOp extends Operator {
         TimeInterval[] timeIntervals = getTimeIntervals(interval, startDate, endDate);
 
         final StatisticComputer statisticComputer = new StatisticComputer(shapefile, bandConfigurations,
-                Util.computeBinCount(accuracy), timeIntervals, featureId, getLogger());
+                Util.computeBinCount(accuracy), timeIntervals, featureId, getLogger(), zonalMode);
 
         final ProductValidator productValidator = new ProductValidator(Arrays.asList(bandConfigurations), startDate, endDate, getLogger());
         final ProductLoop productLoop = new ProductLoop(new ProductLoader(), productValidator, statisticComputer, pm, getLogger());
@@ -0,0 +1,241 @@
+package org.esa.snap.statistics;
+
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.HistogramStxOp;
+import org.esa.snap.core.datamodel.Mask;
+import org.esa.snap.core.datamodel.SummaryStxOp;
+import org.esa.snap.core.gpf.OperatorException;
+import org.esa.snap.core.image.ImageManager;
+
+import javax.media.jai.PixelAccessor;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.UnpackedImageData;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+/**
+ * Computes the statistics of all regions and bands of a product together, in two passes over the tiles of the product.
+ * <p>
+ * The tiles are processed in parallel. For each tile, only the regions whose shape intersects the tile are
+ * considered, and the pixels of each band are read once for all of them. The regions may overlap, so the membership
+ * of the pixels is taken from the region masks of the intersecting regions rather than from a single label image.
+ * <p>
+ * As in the computation per region, the histograms are accumulated in a second pass, with the value range found by
+ * the first one. The summary statistics of the tiles are merged in the order of the tiles, so that the results do not
+ * depend on the order in which the tiles have been computed.
+ *
+ * @since SNAP 8
+ */
+class ZonalStatisticComputer {
+
+    private final String[] regionNames;
+    private final Mask[] regionMasks;
+    private final Shape[] regionShapes;
+
+    ZonalStatisticComputer(String[] regionNames, Mask[] regionMasks) {
+        this.regionNames = regionNames;
+        this.regionMasks = regionMasks;
+        this.regionShapes = new Shape[regionMasks.length];
+        for (int i = 0; i < regionMasks.length; i++) {
+            regionShapes[i] = regionMasks[i].getValidShape();
+        }
+    }
+
+    /**
+     * Accumulates the statistics of the given bands.
+     *
+     * @param bands            the bands, all having the size of the region masks
+     * @param stxOpMappings    the statistic operators of each band
+     * @param categoricalFlags whether categorical statistics are computed for each band
+     */
+    void computeStatistic(List<Band> bands, List<StatisticComputer.StxOpMapping> stxOpMappings, List<Boolean> categoricalFlags) {
+        if (bands.isEmpty()) {
+            return;
+        }
+        // the operators are created upfront, so that the tiles only look them up
+        for (int b = 0; b < bands.size(); b++) {
+            for (String regionName : regionNames) {
+                if (categoricalFlags.get(b)) {
+                    stxOpMappings.get(b).getQualitativeStxOp(regionName, bands.get(b));
+                } else {
+                    stxOpMappings.get(b).getSummaryOp(regionName);
+                }
+            }
+        }
+
+        final PlanarImage referenceImage = ImageManager.getInstance().getGeophysicalImage(bands.get(0), 0);
+        final Rectangle imageBounds = referenceImage.getBounds();
+        final List<Rectangle> tileRects = new ArrayList<>();
+        final List<int[]> tileRegionIndices = new ArrayList<>();
+        for (int tileY = referenceImage.getMinTileY(); tileY <= referenceImage.getMaxTileY(); tileY++) {
+            for (int tileX = referenceImage.getMinTileX(); tileX <= referenceImage.getMaxTileX(); tileX++) {
+                final Rectangle tileRect = referenceImage.getTileRect(tileX, tileY).intersection(imageBounds);
+                final int[] regionIndices = getIntersectingRegions(tileRect);
+                if (!tileRect.isEmpty() && regionIndices.length > 0) {
+                    tileRects.add(tileRect);
+                    tileRegionIndices.add(regionIndices);
+                }
+            }
+        }
+
+        final List<SummaryStxOp[][]> tileSummaries = processTiles(tileRects, tileRegionIndices, (tileRect, regionIndices) ->
+                accumulateSummaries(tileRect, regionIndices, bands, stxOpMappings, categoricalFlags));
+        boolean anyHistogram = false;
+        for (int b = 0; b < bands.size(); b++) {
+            if (categoricalFlags.get(b)) {
+                continue;
+            }
+            final StatisticComputer.StxOpMapping stxOpMapping = stxOpMappings.get(b);
+            for (int r = 0; r < regionNames.length; r++) {
+                final SummaryStxOp summaryStxOp = stxOpMapping.getSummaryOp(regionNames[r]);
+                for (SummaryStxOp[][] summaries : tileSummaries) {
+                    if (summaries[b][r] != null) {
+                        summaryStxOp.merge(summaries[b][r]);
+                    }
+                }
+                // regions without any valid pixel still get a histogram, as in the computation per region
+                stxOpMapping.getHistogramOp(regionNames[r], summaryStxOp.getMinimum(), summaryStxOp.getMaximum(), bands.get(b));
+            }
+            anyHistogram = true;
+        }
+        if (anyHistogram) {
+            processTiles(tileRects, tileRegionIndices, (tileRect, regionIndices) ->
+                    accumulateHistograms(tileRect, regionIndices, bands, stxOpMappings, categoricalFlags));
+        }
+    }
+
+    private int[] getIntersectingRegions(Rectangle tileRect) {
+        final List<Integer> regionIndices = new ArrayList<>();
+        for (int i = 0; i < regionShapes.length; i++) {
+            // a region without shape may cover any tile
+            if (regionShapes[i] == null || regionShapes[i].intersects(tileRect)) {
+                regionIndices.add(i);
+            }
+        }
+        return regionIndices.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Processes the tiles in parallel and returns the results in the order of the tiles.
+     */
+    private static <T> List<T> processTiles(List<Rectangle> tileRects, List<int[]> tileRegionIndices,
+                                            BiFunction<Rectangle, int[], T> tileFunction) {
+        final int threadCount = Runtime.getRuntime().availableProcessors();
+        final ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < tileRects.size(); i++) {
+                final Rectangle tileRect = tileRects.get(i);
+                final int[] regionIndices = tileRegionIndices.get(i);
+                futures.add(executor.submit(() -> tileFunction.apply(tileRect, regionIndices)));
+            }
+            final List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperatorException("Interrupted while computing the zonal statistics.", e);
+        } catch (ExecutionException e) {
+            throw new OperatorException("Failed to compute the zonal statistics.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Accumulates the categorical statistics of a tile and returns its summary statistics per band and region.
+     */
+    private SummaryStxOp[][] accumulateSummaries(Rectangle tileRect, int[] regionIndices, List<Band> bands,
+                                                 List<StatisticComputer.StxOpMapping> stxOpMappings, List<Boolean> categoricalFlags) {
+        final SummaryStxOp[][] summaries = new SummaryStxOp[bands.size()][regionNames.length];
+        accumulateTile(tileRect, regionIndices, bands, (b, r, dataPixels, maskPixels) -> {
+            if (categoricalFlags.get(b)) {
+                // the class counts do not depend on the order of the tiles
+                final StatisticComputer.StxOpMapping stxOpMapping = stxOpMappings.get(b);
+                synchronized (stxOpMapping) {
+                    stxOpMapping.qualitativeMap.get(regionNames[r]).accumulateData(dataPixels, maskPixels);
+                }
+            } else {
+                summaries[b][r] = new SummaryStxOp();
+                summaries[b][r].accumulateData(dataPixels, maskPixels);
+            }
+        });
+        return summaries;
+    }
+
+    private Void accumulateHistograms(Rectangle tileRect, int[] regionIndices, List<Band> bands,
+                                      List<StatisticComputer.StxOpMapping> stxOpMappings, List<Boolean> categoricalFlags) {
+        accumulateTile(tileRect, regionIndices, bands, (b, r, dataPixels, maskPixels) -> {
+            if (!categoricalFlags.get(b)) {
+                // the bin counts do not depend on the order of the tiles
+                final StatisticComputer.StxOpMapping stxOpMapping = stxOpMappings.get(b);
+                final HistogramStxOp histogramStxOp = stxOpMapping.histogramMap.get(regionNames[r]);
+                synchronized (stxOpMapping) {
+                    histogramStxOp.accumulateData(dataPixels, maskPixels);
+                }
+            }
+        });
+        return null;
+    }
+
+    private void accumulateTile(Rectangle tileRect, int[] regionIndices, List<Band> bands, RegionPixelsConsumer consumer) {
+        final int pixelCount = tileRect.width * tileRect.height;
+        final int[][] regionSamples = new int[regionIndices.length][];
+        for (int r = 0; r < regionIndices.length; r++) {
+            final Raster regionTile = regionMasks[regionIndices[r]].getSourceImage().getData(tileRect);
+            regionSamples[r] = regionTile.getSamples(tileRect.x, tileRect.y, tileRect.width, tileRect.height, 0, (int[]) null);
+        }
+        int[] validSamples = null;
+        for (int b = 0; b < bands.size(); b++) {
+            final Band band = bands.get(b);
+            final PlanarImage dataImage = ImageManager.getInstance().getGeophysicalImage(band, 0);
+            final Raster dataTile = dataImage.getData(tileRect);
+            final PixelAccessor dataAccessor = new PixelAccessor(dataImage.getSampleModel(), null);
+            final UnpackedImageData dataPixels = dataAccessor.getPixels(dataTile, tileRect, dataImage.getSampleModel().getDataType(), false);
+            final PlanarImage validMaskImage = ImageManager.getInstance().getValidMaskImage(band, 0);
+            if (validMaskImage != null) {
+                validSamples = validMaskImage.getData(tileRect).getSamples(tileRect.x, tileRect.y, tileRect.width, tileRect.height, 0, validSamples);
+            }
+            for (int r = 0; r < regionIndices.length; r++) {
+                final byte[] mask = new byte[pixelCount];
+                boolean anyPixel = false;
+                for (int i = 0; i < pixelCount; i++) {
+                    if (regionSamples[r][i] != 0 && (validMaskImage == null || validSamples[i] != 0)) {
+                        mask[i] = 1;
+                        anyPixel = true;
+                    }
+                }
+                if (anyPixel) {
+                    consumer.accept(b, regionIndices[r], dataPixels, createMaskPixels(tileRect, mask));
+                }
+            }
+        }
+    }
+
+    private static UnpackedImageData createMaskPixels(Rectangle tileRect, byte[] mask) {
+        final Raster maskTile = Raster.createInterleavedRaster(new DataBufferByte(mask, mask.length),
+                                                               tileRect.width, tileRect.height, tileRect.width, 1,
+                                                               new int[]{0}, new Point(tileRect.x, tileRect.y));
+        final PixelAccessor maskAccessor = new PixelAccessor(maskTile.getSampleModel(), null);
+        return maskAccessor.getPixels(maskTile, tileRect, DataBuffer.TYPE_BYTE, false);
+    }
+
+    @FunctionalInterface
+    private interface RegionPixelsConsumer {
+
+        void accept(int bandIndex, int regionIndex, UnpackedImageData dataPixels, UnpackedImageData maskPixels);
+    }
+}
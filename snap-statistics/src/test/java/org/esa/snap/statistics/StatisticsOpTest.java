@@ -100,6 +100,36 @@ public class StatisticsOpTest {
         assertEquals(0.804474, outputter.percentiles[1], 1E-3);
     }
 
+    @Test
+    public void testStatisticsOp_ZonalMode() throws Exception {
+        final StatisticsOp statisticsOp = createStatisticsOp();
+        final BandConfiguration bandConfiguration = new BandConfiguration();
+        bandConfiguration.sourceBandName = "algal_2";
+        statisticsOp.bandConfigurations = new BandConfiguration[]{bandConfiguration};
+        statisticsOp.sourceProducts = new Product[]{TestUtil.getTestProduct()};
+        final URL resource = getClass().getResource("4_pixels.shp");
+        final URI uri = new URI(resource.toString());
+        statisticsOp.shapefile = new File(uri.getPath());
+        statisticsOp.zonalMode = true;
+        final MyOutputter outputter = new MyOutputter();
+        statisticsOp.allStatisticsOutputters.add(outputter);
+
+        statisticsOp.initialize();
+        statisticsOp.doExecute(ProgressMonitor.NULL);
+
+        assertEquals("4_pixels.1", outputter.region);
+        assertEquals("algal_2", outputter.bandName);
+        assertEquals(4, outputter.pixels);
+        assertEquals(0.804474, outputter.maximum, 1E-3);
+        assertEquals(0.695857, outputter.minimum, 1E-3);
+        assertEquals(0.749427, outputter.average, 1E-3);
+        assertEquals(0.721552, outputter.median, 1E-3);
+        assertEquals(0.049577, outputter.sigma, 1E-3);
+        assertEquals(2, outputter.percentiles.length);
+        assertEquals(0.804474, outputter.percentiles[0], 1E-3);
+        assertEquals(0.804474, outputter.percentiles[1], 1E-3);
+    }
+
     @Test
     public void testStatisticsOp_WithPrecisePercentiles() throws Exception {
         final StatisticsOp statisticsOp = createStatisticsOp();
@@ -0,0 +1,65 @@
+package org.esa.snap.statistics;
+
+import com.bc.ceres.core.ProgressMonitor;
+import org.esa.snap.core.datamodel.Band;
+import org.esa.snap.core.datamodel.HistogramStxOp;
+import org.esa.snap.core.datamodel.Mask;
+import org.esa.snap.core.datamodel.Product;
+import org.esa.snap.core.datamodel.ProductData;
+import org.esa.snap.core.datamodel.StxFactory;
+import org.esa.snap.core.datamodel.SummaryStxOp;
+import org.esa.snap.core.datamodel.VirtualBand;
+import org.junit.Test;
+
+import javax.media.jai.Histogram;
+import java.awt.Color;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ZonalStatisticComputerTest {
+
+    @Test
+    public void testMultiTileStatisticsEqualStatisticsPerRegion() {
+        final Product product = new Product("test", "test", 100, 90);
+        product.setPreferredTileSize(16, 16);
+        final Band band = new VirtualBand("data", ProductData.TYPE_FLOAT32, 100, 90,
+                                          "sin(X * 0.37) * cos(Y * 0.23) * 50 + X * 0.5");
+        product.addBand(band);
+        final Mask[] masks = {
+                product.addMask("west", "X < 61", "", Color.RED, 0.5),
+                product.addMask("disc", "(X - 50) * (X - 50) + (Y - 40) * (Y - 40) < 900", "", Color.BLUE, 0.5),
+        };
+        final String[] regionNames = {"west", "disc"};
+
+        final StatisticComputer.StxOpMapping zonal = new StatisticComputer.StxOpMapping(1000);
+        new ZonalStatisticComputer(regionNames, masks).computeStatistic(Collections.singletonList(band),
+                                                                        Collections.singletonList(zonal),
+                                                                        Collections.singletonList(false));
+
+        final StatisticComputer.StxOpMapping perRegion = new StatisticComputer.StxOpMapping(1000);
+        for (Mask mask : masks) {
+            final SummaryStxOp summaryStxOp = perRegion.getSummaryOp(mask.getName());
+            StxFactory.accumulate(band, 0, mask.getSourceImage(), mask.getValidShape(), summaryStxOp, ProgressMonitor.NULL);
+            final HistogramStxOp histogramStxOp = perRegion.getHistogramOp(mask.getName(), summaryStxOp.getMinimum(),
+                                                                           summaryStxOp.getMaximum(), band);
+            StxFactory.accumulate(band, 0, mask.getSourceImage(), mask.getValidShape(), histogramStxOp, ProgressMonitor.NULL);
+        }
+
+        for (String regionName : regionNames) {
+            final SummaryStxOp expectedSummary = perRegion.summaryMap.get(regionName);
+            final SummaryStxOp actualSummary = zonal.summaryMap.get(regionName);
+            assertEquals(expectedSummary.getMinimum(), actualSummary.getMinimum(), 0.0);
+            assertEquals(expectedSummary.getMaximum(), actualSummary.getMaximum(), 0.0);
+            // the tiles are merged rather than accumulated one after the other, which only differs by rounding
+            assertEquals(expectedSummary.getMean(), actualSummary.getMean(), 1.0e-9);
+            assertEquals(expectedSummary.getStandardDeviation(), actualSummary.getStandardDeviation(), 1.0e-9);
+            // the histograms have the same bins, so the median and the percentiles are equal
+            final Histogram expectedHistogram = perRegion.histogramMap.get(regionName).getHistogram();
+            final Histogram actualHistogram = zonal.histogramMap.get(regionName).getHistogram();
+            assertEquals(expectedHistogram.getLowValue(0), actualHistogram.getLowValue(0), 0.0);
+            assertEquals(expectedHistogram.getHighValue(0), actualHistogram.getHighValue(0), 0.0);
+            assertArrayEquals(expectedHistogram.getBins(0), actualHistogram.getBins(0));
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package org.esa.snap.vfs.remote;
+
+import org.esa.snap.runtime.Config;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A size-bounded cache of aligned blocks of remote files, shared by all VFS byte channels.
+ * <p>
+ * Reads are served from blocks of {@link #getBlockSize() block size} bytes which are loaded with a single ranged
+ * request each and evicted in least-recently-used order. Each {@link Reader} detects sequential access and
+ * prefetches an adaptively growing number of following blocks. Reads spanning several blocks load the blocks in
+ * parallel.
+ * <p>
+ * The cache used by the VFS channels is enabled by the preference {@value #PREFERENCE_KEY_ENABLED}.
+ *
+ * @since SNAP 8
+ */
+public class RemoteBlockCache {
+
+    public static final String PREFERENCE_KEY_ENABLED = "snap.vfs.blockCache.enabled";
+    /**
+     * The maximum size of the cache in MB.
+     */
+    public static final String PREFERENCE_KEY_SIZE = "snap.vfs.blockCache.size";
+    /**
+     * The size of the blocks in KB.
+     */
+    public static final String PREFERENCE_KEY_BLOCK_SIZE = "snap.vfs.blockCache.blockSize";
+    /**
+     * The maximum number of blocks read ahead of a sequential reader.
+     */
+    public static final String PREFERENCE_KEY_MAX_READ_AHEAD = "snap.vfs.blockCache.maxReadAhead";
+    public static final String PREFERENCE_KEY_PREFETCH_THREADS = "snap.vfs.blockCache.prefetchThreads";
+
+    private static final int DEFAULT_SIZE = 256;
+    private static final int DEFAULT_BLOCK_SIZE = 1024;
+    private static final int DEFAULT_MAX_READ_AHEAD = 8;
+    private static final int DEFAULT_PREFETCH_THREADS = 4;
+
+    private static final Logger logger = Logger.getLogger(RemoteBlockCache.class.getName());
+
+    private static RemoteBlockCache defaultInstance;
+
+    private final int blockSize;
+    private final long maximumSize;
+    private final int maximumReadAhead;
+    private final ThreadPoolExecutor prefetchExecutor;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<BlockKey, byte[]> blocks;
+    private final Map<BlockKey, Future<byte[]>> loadingBlocks;
+    private long currentSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong prefetchCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong loadedBytes = new AtomicLong();
+
+    /**
+     * Creates a new block cache.
+     *
+     * @param blockSize        the size of the blocks in bytes
+     * @param maximumSize      the maximum number of bytes held by the cache
+     * @param maximumReadAhead the maximum number of blocks read ahead of a sequential reader, zero disables read-ahead
+     * @param prefetchThreads  the number of threads loading blocks in the background
+     */
+    public RemoteBlockCache(int blockSize, long maximumSize, int maximumReadAhead, int prefetchThreads) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize must be positive.");
+        }
+        if (prefetchThreads <= 0) {
+            throw new IllegalArgumentException("prefetchThreads must be positive.");
+        }
+        this.blockSize = blockSize;
+        this.maximumSize = maximumSize;
+        this.maximumReadAhead = Math.max(0, maximumReadAhead);
+        this.blocks = new LinkedHashMap<>(16, 0.75f, true);
+        this.loadingBlocks = new ConcurrentHashMap<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.prefetchExecutor = new ThreadPoolExecutor(prefetchThreads, prefetchThreads, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "RemoteBlockCache-prefetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.prefetchExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * @return {@code true}, if the VFS channels shall read through the {@link #getDefault() default cache}
+     */
+    public static boolean isEnabled() {
+        return Config.instance().preferences().getBoolean(PREFERENCE_KEY_ENABLED, false);
+    }
+
+    /**
+     * @return the cache shared by the VFS channels, configured by the {@code snap.vfs.blockCache.*} preferences
+     */
+    public static synchronized RemoteBlockCache getDefault() {
+        if (defaultInstance == null) {
+            int blockSize = Config.instance().preferences().getInt(PREFERENCE_KEY_BLOCK_SIZE, DEFAULT_BLOCK_SIZE) * 1024;
+            long maximumSize = Config.instance().preferences().getInt(PREFERENCE_KEY_SIZE, DEFAULT_SIZE) * 1024L * 1024L;
+            int maximumReadAhead = Config.instance().preferences().getInt(PREFERENCE_KEY_MAX_READ_AHEAD, DEFAULT_MAX_READ_AHEAD);
+            int prefetchThreads = Config.instance().preferences().getInt(PREFERENCE_KEY_PREFETCH_THREADS, DEFAULT_PREFETCH_THREADS);
+            defaultInstance = new RemoteBlockCache(blockSize, maximumSize, maximumReadAhead, Math.max(1, prefetchThreads));
+        }
+        return defaultInstance;
+    }
+
+    /**
+     * Reads a block from the given connection, which has been opened with a {@code Range} request starting at
+     * {@code offset}. Servers which ignore the range and answer with the full content are supported as well.
+     * The input stream is closed, but the connection is not disconnected, so it can be reused for the next request.
+     *
+     * @param connection the connection
+     * @param offset     the position of the block within the remote file
+     * @param length     the length of the block
+     * @return the block
+     * @throws IOException If an I/O error occurs or the content ends before the block is complete
+     */
+    public static byte[] readBlock(HttpURLConnection connection, long offset, int length) throws IOException {
+        boolean partialContent = connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL;
+        try (InputStream inputStream = connection.getInputStream()) {
+            if (!partialContent) {
+                long bytesToSkip = offset;
+                while (bytesToSkip > 0) {
+                    long bytesSkipped = inputStream.skip(bytesToSkip);
+                    if (bytesSkipped <= 0) {
+                        if (inputStream.read() < 0) {
+                            throw new EOFException(connection.getURL().toString());
+                        }
+                        bytesSkipped = 1;
+                    }
+                    bytesToSkip -= bytesSkipped;
+                }
+            }
+            byte[] block = new byte[length];
+            int bytesTransferred = 0;
+            while (bytesTransferred < length) {
+                int bytesReadNow = inputStream.read(block, bytesTransferred, length - bytesTransferred);
+                if (bytesReadNow < 0) {
+                    throw new EOFException(connection.getURL().toString());
+                }
+                bytesTransferred += bytesReadNow;
+            }
+            if (partialContent) {
+                // drain the remainder, so the connection is returned to the keep-alive cache
+                while (inputStream.read() >= 0) {
+                    // the server sent more than requested
+                }
+            }
+            return block;
+        }
+    }
+
+    /**
+     * Creates a reader for a remote file. Readers are not thread-safe, but several readers may read the same
+     * file concurrently.
+     *
+     * @param resourceId  the identifier of the remote file, e.g. its URL
+     * @param size        the size of the remote file
+     * @param blockLoader the loader of the blocks of the remote file
+     * @return the reader
+     */
+    public Reader createReader(String resourceId, long size, BlockLoader blockLoader) {
+        return new Reader(resourceId, size, blockLoader);
+    }
+
+    /**
+     * Removes all blocks of the given remote file.
+     *
+     * @param resourceId the identifier of the remote file
+     */
+    public void invalidate(String resourceId) {
+        synchronized (this.lock) {
+            Iterator<Map.Entry<BlockKey, byte[]>> iterator = this.blocks.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<BlockKey, byte[]> entry = iterator.next();
+                if (entry.getKey().resourceId.equals(resourceId)) {
+                    this.currentSize -= entry.getValue().length;
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all blocks.
+     */
+    public void clear() {
+        synchronized (this.lock) {
+            this.blocks.clear();
+            this.currentSize = 0;
+        }
+    }
+
+    /**
+     * Stops the prefetch threads and removes all blocks. The cache must not be used afterwards.
+     */
+    public void dispose() {
+        this.prefetchExecutor.shutdownNow();
+        clear();
+    }
+
+    public int getBlockSize() {
+        return this.blockSize;
+    }
+
+    public long getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    /**
+     * @return the number of bytes currently held by the cache
+     */
+    public long getSize() {
+        synchronized (this.lock) {
+            return this.currentSize;
+        }
+    }
+
+    /**
+     * @return the number of block accesses served without a new request
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * @return the number of block accesses which had to wait for a new request
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+    /**
+     * @return the number of blocks loaded in the background
+     */
+    public long getPrefetchCount() {
+        return this.prefetchCount.get();
+    }
+
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+    /**
+     * @return the number of bytes loaded from the remote files
+     */
+    public long getLoadedBytes() {
+        return this.loadedBytes.get();
+    }
+
+    public void resetStatistics() {
+        this.hitCount.set(0);
+        this.missCount.set(0);
+        this.prefetchCount.set(0);
+        this.evictionCount.set(0);
+        this.loadedBytes.set(0);
+    }
+
+    private byte[] getBlock(BlockKey key, BlockLoader blockLoader, long size) throws IOException {
+        byte[] block;
+        synchronized (this.lock) {
+            block = this.blocks.get(key);
+        }
+        if (block != null) {
+            this.hitCount.incrementAndGet();
+            return block;
+        }
+        FutureTask<byte[]> task = createLoadTask(key, blockLoader, size, false);
+        Future<byte[]> loadingBlock = this.loadingBlocks.putIfAbsent(key, task);
+        if (loadingBlock == null) {
+            this.missCount.incrementAndGet();
+            task.run();
+            loadingBlock = task;
+        } else {
+            // a prefetch of the block is already under way
+            this.hitCount.incrementAndGet();
+        }
+        try {
+            return loadingBlock.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(key.toString());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void prefetchBlock(BlockKey key, BlockLoader blockLoader, long size) {
+        synchronized (this.lock) {
+            if (this.blocks.containsKey(key)) {
+                return;
+            }
+        }
+        FutureTask<byte[]> task = createLoadTask(key, blockLoader, size, true);
+        if (this.loadingBlocks.putIfAbsent(key, task) == null) {
+            try {
+                this.prefetchExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                this.loadingBlocks.remove(key, task);
+            }
+        }
+    }
+
+    private FutureTask<byte[]> createLoadTask(BlockKey key, BlockLoader blockLoader, long size, boolean prefetch) {
+        long offset = key.blockIndex * this.blockSize;
+        int length = (int) Math.min(this.blockSize, size - offset);
+        return new FutureTask<byte[]>(() -> {
+            try {
+                synchronized (this.lock) {
+                    // the block may have been stored by a concurrent load in the meantime
+                    byte[] block = this.blocks.get(key);
+                    if (block != null) {
+                        return block;
+                    }
+                }
+                byte[] block = blockLoader.loadBlock(offset, length);
+                if (prefetch) {
+                    this.prefetchCount.incrementAndGet();
+                }
+                this.loadedBytes.addAndGet(block.length);
+                putBlock(key, block);
+                return block;
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Failed to load block " + key + ".", e);
+                throw e;
+            } finally {
+                this.loadingBlocks.remove(key);
+            }
+        });
+    }
+
+    private void putBlock(BlockKey key, byte[] block) {
+        synchronized (this.lock) {
+            byte[] previousBlock = this.blocks.put(key, block);
+            if (previousBlock != null) {
+                this.currentSize -= previousBlock.length;
+            }
+            this.currentSize += block.length;
+            Iterator<byte[]> iterator = this.blocks.values().iterator();
+            while (this.currentSize > this.maximumSize && this.blocks.size() > 1) {
+                this.currentSize -= iterator.next().length;
+                iterator.remove();
+                this.evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Loads a block of a remote file.
+     */
+    @FunctionalInterface
+    public interface BlockLoader {
+
+        /**
+         * Loads a block of a remote file. The method is called concurrently by the prefetch threads.
+         *
+         * @param offset the position of the block within the remote file
+         * @param length the length of the block
+         * @return the block of exactly {@code length} bytes
+         * @throws IOException If an I/O error occurs
+         */
+        byte[] loadBlock(long offset, int length) throws IOException;
+    }
+
+    /**
+     * Reads a remote file through the cache and keeps track of the access pattern for read-ahead.
+     */
+    public class Reader {
+
+        private final String resourceId;
+        private final long size;
+        private final BlockLoader blockLoader;
+
+        private long lastBlockIndex;
+        private int readAhead;
+
+        private Reader(String resourceId, long size, BlockLoader blockLoader) {
+            this.resourceId = resourceId;
+            this.size = size;
+            this.blockLoader = blockLoader;
+            this.lastBlockIndex = -2L;
+            this.readAhead = 0;
+        }
+
+        public long size() {
+            return this.size;
+        }
+
+        /**
+         * Reads up to {@code length} bytes starting at {@code position}.
+         *
+         * @param position the position within the remote file
+         * @param array    the buffer into which the data is read
+         * @param offset   the start offset in {@code array} at which the data is written
+         * @param length   the maximum number of bytes to read
+         * @return the number of bytes read, or {@code -1} if {@code position} is at or beyond the end of the file
+         * @throws IOException If an I/O error occurs
+         */
+        public int read(long position, byte[] array, int offset, int length) throws IOException {
+            if (position >= this.size) {
+                return -1;
+            }
+            int bytesToRead = (int) Math.min(length, this.size - position);
+            if (bytesToRead <= 0) {
+                return 0;
+            }
+            long firstBlockIndex = position / blockSize;
+            long lastBlockIndexToRead = (position + bytesToRead - 1) / blockSize;
+            for (long blockIndex = firstBlockIndex + 1; blockIndex <= lastBlockIndexToRead; blockIndex++) {
+                prefetchBlock(new BlockKey(this.resourceId, blockIndex), this.blockLoader, this.size);
+            }
+
+            int bytesTransferred = 0;
+            for (long blockIndex = firstBlockIndex; blockIndex <= lastBlockIndexToRead; blockIndex++) {
+                byte[] block = getBlock(new BlockKey(this.resourceId, blockIndex), this.blockLoader, this.size);
+                updateReadAhead(blockIndex);
+                long blockOffset = blockIndex * blockSize;
+                int start = (int) (position + bytesTransferred - blockOffset);
+                int count = Math.min(block.length - start, bytesToRead - bytesTransferred);
+                System.arraycopy(block, start, array, offset + bytesTransferred, count);
+                bytesTransferred += count;
+            }
+            return bytesTransferred;
+        }
+
+        private void updateReadAhead(long blockIndex) {
+            if (blockIndex == this.lastBlockIndex + 1) {
+                this.readAhead = Math.min(Math.max(1, 2 * this.readAhead), maximumReadAhead);
+            } else if (blockIndex != this.lastBlockIndex) {
+                this.readAhead = 0;
+            }
+            this.lastBlockIndex = blockIndex;
+            long numBlocks = (this.size + blockSize - 1) / blockSize;
+            for (int i = 1; i <= this.readAhead && blockIndex + i < numBlocks; i++) {
+                prefetchBlock(new BlockKey(this.resourceId, blockIndex + i), this.blockLoader, this.size);
+            }
+        }
+    }
+
+    private static final class BlockKey {
+
+        private final String resourceId;
+        private final long blockIndex;
+
+        private BlockKey(String resourceId, long blockIndex) {
+            this.resourceId = resourceId;
+            this.blockIndex = blockIndex;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BlockKey blockKey = (BlockKey) o;
+            return this.blockIndex == blockKey.blockIndex && this.resourceId.equals(blockKey.resourceId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.resourceId, this.blockIndex);
+        }
+
+        @Override
+        public String toString() {
+            return this.resourceId + "#" + this.blockIndex;
+        }
+    }
+}
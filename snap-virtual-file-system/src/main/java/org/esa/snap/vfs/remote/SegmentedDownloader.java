@@ -0,0 +1,275 @@
+package org.esa.snap.vfs.remote;
+
+import org.esa.snap.runtime.Config;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Downloads a remote file as a number of byte range segments which are transferred concurrently and written
+ * positionally into a local file. A segment whose transfer failed is requested again from the last byte received.
+ *
+ * @since SNAP 8
+ */
+public class SegmentedDownloader {
+
+    /**
+     * The number of segments transferred concurrently, a value of one disables segmented transfers of the VFS channels.
+     */
+    public static final String PREFERENCE_KEY_PARALLELISM = "snap.vfs.download.parallelism";
+    /**
+     * The size of the segments in MB.
+     */
+    public static final String PREFERENCE_KEY_SEGMENT_SIZE = "snap.vfs.download.segmentSize";
+
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int DEFAULT_SEGMENT_SIZE = 16;
+    private static final int DEFAULT_MAXIMUM_ATTEMPTS = 3;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private static final Logger logger = Logger.getLogger(SegmentedDownloader.class.getName());
+
+    private final int parallelism;
+    private final long segmentSize;
+    private int maximumAttempts;
+    private LongConsumer progressListener;
+
+    /**
+     * Creates a new downloader.
+     *
+     * @param parallelism the number of segments transferred concurrently
+     * @param segmentSize the size of the segments in bytes
+     */
+    public SegmentedDownloader(int parallelism, long segmentSize) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive.");
+        }
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize must be positive.");
+        }
+        this.parallelism = parallelism;
+        this.segmentSize = segmentSize;
+        this.maximumAttempts = DEFAULT_MAXIMUM_ATTEMPTS;
+    }
+
+    /**
+     * @return a downloader configured by the {@code snap.vfs.download.*} preferences
+     */
+    public static SegmentedDownloader createDefault() {
+        int parallelism = Config.instance().preferences().getInt(PREFERENCE_KEY_PARALLELISM, DEFAULT_PARALLELISM);
+        int segmentSize = Config.instance().preferences().getInt(PREFERENCE_KEY_SEGMENT_SIZE, DEFAULT_SEGMENT_SIZE);
+        return new SegmentedDownloader(Math.max(1, parallelism), Math.max(1, segmentSize) * 1024L * 1024L);
+    }
+
+    /**
+     * Returns the stream of the given connection, which has been opened with a {@code Range} request starting at
+     * {@code start}. If the server ignored the range and answered with the full content, the stream is skipped to
+     * {@code start}.
+     *
+     * @param connection the connection
+     * @param start      the first position of the range
+     * @return the stream positioned at {@code start}
+     * @throws IOException If an I/O error occurs
+     */
+    public static InputStream openRangeStream(HttpURLConnection connection, long start) throws IOException {
+        boolean partialContent = connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL;
+        InputStream inputStream = connection.getInputStream();
+        if (!partialContent) {
+            long bytesToSkip = start;
+            try {
+                while (bytesToSkip > 0) {
+                    long bytesSkipped = inputStream.skip(bytesToSkip);
+                    if (bytesSkipped <= 0) {
+                        if (inputStream.read() < 0) {
+                            throw new EOFException(connection.getURL().toString());
+                        }
+                        bytesSkipped = 1;
+                    }
+                    bytesToSkip -= bytesSkipped;
+                }
+            } catch (IOException e) {
+                inputStream.close();
+                throw e;
+            }
+        }
+        return inputStream;
+    }
+
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public long getSegmentSize() {
+        return this.segmentSize;
+    }
+
+    /**
+     * Sets the number of attempts to transfer a segment before the transfer fails. Each attempt resumes the
+     * segment at the last byte received.
+     *
+     * @param maximumAttempts the number of attempts
+     */
+    public void setMaximumAttempts(int maximumAttempts) {
+        this.maximumAttempts = Math.max(1, maximumAttempts);
+    }
+
+    /**
+     * Sets a listener which is notified with the total number of bytes present in the target after each chunk
+     * written. The listener is called concurrently by the transfer threads.
+     *
+     * @param progressListener the listener, may be {@code null}
+     */
+    public void setProgressListener(LongConsumer progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Transfers {@code count} bytes starting at {@code sourcePosition} of the remote file into the given channel,
+     * starting at {@code targetPosition}. The channel must support concurrent positional writes.
+     *
+     * @param source         the source of the remote file
+     * @param sourcePosition the first position within the remote file
+     * @param count          the number of bytes to transfer
+     * @param target         the target channel
+     * @param targetPosition the first position within the target channel
+     * @return the number of bytes transferred
+     * @throws IOException If a segment could not be transferred
+     */
+    public long transfer(RangeSource source, long sourcePosition, long count, FileChannel target, long targetPosition) throws IOException {
+        int numSegments = getNumSegments(count);
+        if (numSegments > 0) {
+            transferSegments(source, sourcePosition, count, target, targetPosition, numSegments);
+        }
+        return count;
+    }
+
+    private int getNumSegments(long count) {
+        long numSegments = (count + this.segmentSize - 1) / this.segmentSize;
+        if (numSegments > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The segment size is too small for " + count + " bytes.");
+        }
+        return (int) numSegments;
+    }
+
+    private void transferSegments(RangeSource source, long sourcePosition, long count, FileChannel target, long targetPosition,
+                                  int numSegments) throws IOException {
+        AtomicLong totalBytes = new AtomicLong();
+        int numThreads = Math.min(this.parallelism, numSegments);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable, "SegmentedDownloader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(numSegments);
+            for (int i = 0; i < numSegments; i++) {
+                int segmentIndex = i;
+                futures.add(executorService.submit(() -> {
+                    transferSegment(source, sourcePosition, count, target, targetPosition, segmentIndex, totalBytes);
+                    return null;
+                }));
+            }
+            IOException failure = null;
+            int numFailedSegments = 0;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    numFailedSegments++;
+                    if (failure == null) {
+                        failure = e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw new IOException(numFailedSegments + " of " + numSegments + " segments could not be transferred.", failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("The transfer has been interrupted.");
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void transferSegment(RangeSource source, long sourcePosition, long count, FileChannel target, long targetPosition,
+                                 int segmentIndex, AtomicLong totalBytes) throws IOException {
+        long segmentOffset = segmentIndex * this.segmentSize;
+        long segmentLength = getSegmentLength(segmentIndex, count);
+        byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, segmentLength)];
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+        long bytesDone = 0;
+        for (int attempt = 1; ; attempt++) {
+            long firstPosition = sourcePosition + segmentOffset + bytesDone;
+            long lastPosition = sourcePosition + segmentOffset + segmentLength - 1;
+            try (InputStream inputStream = source.openRange(firstPosition, lastPosition)) {
+                while (bytesDone < segmentLength) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("The transfer has been interrupted.");
+                    }
+                    int bytesReadNow = inputStream.read(buffer, 0, (int) Math.min(buffer.length, segmentLength - bytesDone));
+                    if (bytesReadNow < 0) {
+                        throw new EOFException("Unexpected end of range " + firstPosition + "-" + lastPosition + ".");
+                    }
+                    byteBuffer.clear();
+                    byteBuffer.limit(bytesReadNow);
+                    long writePosition = targetPosition + segmentOffset + bytesDone;
+                    while (byteBuffer.hasRemaining()) {
+                        target.write(byteBuffer, writePosition + byteBuffer.position());
+                    }
+                    bytesDone += bytesReadNow;
+                    long total = totalBytes.addAndGet(bytesReadNow);
+                    if (this.progressListener != null) {
+                        this.progressListener.accept(total);
+                    }
+                }
+                return;
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                if (attempt >= this.maximumAttempts) {
+                    throw e;
+                }
+                logger.log(Level.FINE, "Failed to transfer the range " + firstPosition + "-" + lastPosition + ", attempt " + attempt + ".", e);
+            }
+        }
+    }
+
+    private long getSegmentLength(int segmentIndex, long count) {
+        return Math.min(this.segmentSize, count - segmentIndex * this.segmentSize);
+    }
+
+    /**
+     * Opens byte ranges of a remote file.
+     */
+    @FunctionalInterface
+    public interface RangeSource {
+
+        /**
+         * Opens a stream of the given byte range. The method is called concurrently by the transfer threads.
+         *
+         * @param start the first position of the range
+         * @param end   the last position of the range (inclusive)
+         * @return the stream, which delivers at least the bytes of the range
+         * @throws IOException If an I/O error occurs
+         */
+        InputStream openRange(long start, long end) throws IOException;
+    }
+}
@@ -23,6 +23,7 @@ class VFSByteChannel implements SeekableByteChannel {
     private final long contentLength;
 
     private HttpURLConnection connection;
+    private RemoteBlockCache.Reader blockReader;
     private long position;
     private boolean canCreateConnection;
 
@@ -39,6 +40,13 @@ class VFSByteChannel implements SeekableByteChannel {
         this.canCreateConnection = true;
         createConnectionIfNeeded();
         this.contentLength = this.connection.getContentLengthLong();
+        if (RemoteBlockCache.isEnabled()) {
+            // the blocks are read with ranged requests of their own, so the initial connection is no longer needed
+            String resourceId = path.buildURL().toString() + "#" + this.contentLength;
+            this.blockReader = RemoteBlockCache.getDefault().createReader(resourceId, this.contentLength, (offset, length) -> loadBlock(path, offset, length));
+            this.connection.disconnect();
+            this.connection = null;
+        }
     }
 
     /**
@@ -101,7 +109,7 @@ class VFSByteChannel implements SeekableByteChannel {
      */
     @Override
     public boolean isOpen() {
-        return (this.connection != null);
+        return (this.connection != null || this.blockReader != null);
     }
 
     /**
@@ -115,6 +123,7 @@ class VFSByteChannel implements SeekableByteChannel {
             this.connection.disconnect();
             this.connection = null;
         }
+        this.blockReader = null;
         this.path.getFileSystem().removeByteChannel(this);
     }
 
@@ -227,6 +236,9 @@ class VFSByteChannel implements SeekableByteChannel {
      * @throws IOException If some other I/O error occurs
      */
     private int readBytes(byte[] array, int offset, int length) throws IOException {
+        if (this.blockReader != null) {
+            return readCachedBytes(array, offset, length);
+        }
         createConnectionIfNeeded();
         InputStream inputStream = this.connection.getInputStream();
 
@@ -244,6 +256,31 @@ class VFSByteChannel implements SeekableByteChannel {
         return bytesTransferred;
     }
 
+    private int readCachedBytes(byte[] array, int offset, int length) throws IOException {
+        int bytesTransferred = 0;
+        while (length > 0) {
+            int bytesReadNow = this.blockReader.read(this.position, array, offset, length);
+            if (bytesReadNow <= 0) {
+                break;
+            }
+            length -= bytesReadNow;
+            offset += bytesReadNow;
+            bytesTransferred += bytesReadNow;
+            this.position += bytesReadNow;
+        }
+        return bytesTransferred;
+    }
+
+    private static byte[] loadBlock(VFSPath path, long offset, int length) throws IOException {
+        HttpURLConnection blockConnection = VFSFileChannel.buildProviderConnectionChannel(path, offset, offset + length - 1, "GET");
+        try {
+            return RemoteBlockCache.readBlock(blockConnection, offset, length);
+        } catch (IOException e) {
+            blockConnection.disconnect();
+            throw e;
+        }
+    }
+
     private void createConnectionIfNeeded() throws IOException {
         if (this.canCreateConnection) {
             this.canCreateConnection = false;
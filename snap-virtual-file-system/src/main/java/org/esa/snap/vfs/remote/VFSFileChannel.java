@@ -68,9 +68,17 @@ public class VFSFileChannel extends FileChannel {
     }
 
     static HttpURLConnection buildProviderConnectionChannel(VFSPath path, long position, String httpMethod) throws IOException {
+        return buildProviderConnectionChannel(path, position, -1L, httpMethod);
+    }
+
+    /**
+     * Opens a connection for the byte range from {@code position} to {@code lastPosition} (inclusive) of the given path.
+     * A negative {@code lastPosition} requests all bytes up to the end of the file.
+     */
+    static HttpURLConnection buildProviderConnectionChannel(VFSPath path, long position, long lastPosition, String httpMethod) throws IOException {
         URL url = path.buildURL();
         Map<String, String> requestProperties = new LinkedHashMap<>();
-        String rangeSpec = "bytes=" + position + "-";
+        String rangeSpec = "bytes=" + position + "-" + (lastPosition >= 0 ? Long.toString(lastPosition) : "");
         requestProperties.put("Range", rangeSpec);
         AbstractRemoteFileSystemProvider fileSystemProvider = path.getFileSystem().provider();
         String fileSystemRoot = path.getFileSystem().getRoot().getPath();
@@ -99,6 +107,13 @@ public class VFSFileChannel extends FileChannel {
         }
     }
 
+    /**
+     * Creates a source of byte ranges of the given path, used for segmented downloads.
+     */
+    static SegmentedDownloader.RangeSource rangeSource(VFSPath path) {
+        return (start, end) -> SegmentedDownloader.openRangeStream(buildProviderConnectionChannel(path, start, end, "GET"), start);
+    }
+
     /**
      * Reads a sequence of bytes from this channel into the given buffer.
      *
@@ -258,6 +273,12 @@ public class VFSFileChannel extends FileChannel {
         }
         int maximumBufferSize = 1024 * 1024;
         long bytesTransferred = 0;
+        SegmentedDownloader downloader = SegmentedDownloader.createDefault();
+        long remainingSize = size() - position;
+        if (target instanceof FileChannel && downloader.getParallelism() > 1 && Math.min(count, remainingSize) > downloader.getSegmentSize()) {
+            // large transfers are split into byte ranges which are transferred concurrently
+            return downloader.transfer(rangeSource(this.path), position, Math.min(count, remainingSize), (FileChannel) target, position);
+        }
         if (target instanceof FileChannel) {
             FileChannel fileChannel = (FileChannel) target;
             while (bytesTransferred < count) {
@@ -0,0 +1,176 @@
+package org.esa.snap.vfs.remote;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test: block cache for remote files, using a local HTTP server as stand-in for the remote service.
+ */
+public class RemoteBlockCacheTest {
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    private static final int FILE_SIZE = 10000;
+    private static final int BLOCK_SIZE = 1024;
+
+    private final byte[] content = new byte[FILE_SIZE];
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private HttpServer server;
+    private String fileAddress;
+    private String ignoringRangeFileAddress;
+    private RemoteBlockCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        for (int i = 0; i < this.content.length; i++) {
+            this.content[i] = (byte) (i * 31 + i / 256);
+        }
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/file.bin", exchange -> {
+            this.requestCount.incrementAndGet();
+            int start = 0;
+            int end = FILE_SIZE - 1;
+            int status = HttpURLConnection.HTTP_OK;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            Matcher matcher = range != null ? RANGE_PATTERN.matcher(range) : null;
+            if (matcher != null && matcher.matches()) {
+                start = Integer.parseInt(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    end = Math.min(end, Integer.parseInt(matcher.group(2)));
+                }
+                status = HttpURLConnection.HTTP_PARTIAL;
+                exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + FILE_SIZE);
+            }
+            exchange.sendResponseHeaders(status, end - start + 1);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(this.content, start, end - start + 1);
+            }
+        });
+        this.server.createContext("/ignoring-range.bin", exchange -> {
+            this.requestCount.incrementAndGet();
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, FILE_SIZE);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(this.content);
+            }
+        });
+        this.server.start();
+        String serverAddress = "http://localhost:" + this.server.getAddress().getPort();
+        this.fileAddress = serverAddress + "/file.bin";
+        this.ignoringRangeFileAddress = serverAddress + "/ignoring-range.bin";
+        this.cache = new RemoteBlockCache(BLOCK_SIZE, 4 * BLOCK_SIZE, 2, 2);
+    }
+
+    @After
+    public void tearDown() {
+        this.cache.dispose();
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testRandomAccessIsServedFromBlocks() throws Exception {
+        RemoteBlockCache.Reader reader = this.cache.createReader(this.fileAddress, FILE_SIZE, loader(this.fileAddress));
+
+        assertRead(reader, 100, 10);
+        assertRead(reader, 900, 50);
+        assertRead(reader, 0, 16);
+        assertEquals(1, this.requestCount.get());
+        assertEquals(1, this.cache.getMissCount());
+        assertEquals(2, this.cache.getHitCount());
+
+        assertRead(reader, 5000, 100);
+        assertRead(reader, 5050, 20);
+        assertEquals(2, this.requestCount.get());
+        assertEquals(2 * BLOCK_SIZE, this.cache.getLoadedBytes());
+        assertEquals(2 * BLOCK_SIZE, this.cache.getSize());
+
+        assertEquals(-1, reader.read(FILE_SIZE, new byte[10], 0, 10));
+    }
+
+    @Test
+    public void testReadSpanningBlocks() throws Exception {
+        RemoteBlockCache.Reader reader = this.cache.createReader(this.fileAddress, FILE_SIZE, loader(this.fileAddress));
+
+        assertRead(reader, 1000, 2100);
+        assertRead(reader, 9500, 500);
+        assertEquals(5, this.cache.getMissCount() + this.cache.getHitCount());
+        byte[] tail = new byte[1000];
+        assertEquals(FILE_SIZE - 9800, reader.read(9800, tail, 0, tail.length));
+    }
+
+    @Test
+    public void testSequentialReadAhead() throws Exception {
+        RemoteBlockCache.Reader reader = this.cache.createReader(this.fileAddress, FILE_SIZE, loader(this.fileAddress));
+
+        for (int position = 0; position < FILE_SIZE; position += 500) {
+            assertRead(reader, position, Math.min(500, FILE_SIZE - position));
+        }
+        assertTrue(this.cache.getPrefetchCount() > 0);
+        assertEquals(this.requestCount.get(), this.cache.getMissCount() + this.cache.getPrefetchCount());
+        assertEquals(10, this.requestCount.get());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        RemoteBlockCache cache = new RemoteBlockCache(BLOCK_SIZE, 2 * BLOCK_SIZE, 0, 1);
+        try {
+            RemoteBlockCache.Reader reader = cache.createReader(this.fileAddress, FILE_SIZE, loader(this.fileAddress));
+            assertRead(reader, 0, 10);
+            assertRead(reader, 3000, 10);
+            assertRead(reader, 0, 10);
+            assertRead(reader, 6000, 10);
+            assertEquals(1, cache.getEvictionCount());
+            assertEquals(2 * BLOCK_SIZE, cache.getSize());
+
+            // the least recently used block has been evicted
+            assertRead(reader, 0, 10);
+            assertEquals(3, this.requestCount.get());
+            assertRead(reader, 3000, 10);
+            assertEquals(4, this.requestCount.get());
+
+            cache.invalidate(this.fileAddress);
+            assertEquals(0, cache.getSize());
+        } finally {
+            cache.dispose();
+        }
+    }
+
+    @Test
+    public void testServerIgnoringRange() throws Exception {
+        RemoteBlockCache.Reader reader = this.cache.createReader(this.ignoringRangeFileAddress, FILE_SIZE, loader(this.ignoringRangeFileAddress));
+
+        assertRead(reader, 4000, 100);
+        assertRead(reader, 9990, 10);
+    }
+
+    private void assertRead(RemoteBlockCache.Reader reader, int position, int length) throws IOException {
+        byte[] expected = new byte[length];
+        System.arraycopy(this.content, position, expected, 0, length);
+        byte[] actual = new byte[length + 2];
+        assertEquals(length, reader.read(position, actual, 2, length));
+        byte[] actualPart = new byte[length];
+        System.arraycopy(actual, 2, actualPart, 0, length);
+        assertArrayEquals(expected, actualPart);
+    }
+
+    private static RemoteBlockCache.BlockLoader loader(String address) {
+        return (offset, length) -> {
+            HttpURLConnection connection = (HttpURLConnection) new URL(address).openConnection();
+            connection.setRequestProperty("Range", "bytes=" + offset + "-" + (offset + length - 1));
+            return RemoteBlockCache.readBlock(connection, offset, length);
+        };
+    }
+}
@@ -0,0 +1,144 @@
+package org.esa.snap.vfs.remote;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test: segmented download of remote files, using a local HTTP server as stand-in for the remote service.
+ */
+public class SegmentedDownloaderTest {
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d+)");
+    private static final int FILE_SIZE = 100000;
+    private static final int SEGMENT_SIZE = 16384;
+    private static final int FAILING_POSITION = 3 * SEGMENT_SIZE + 100;
+
+    private final byte[] content = new byte[FILE_SIZE];
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicBoolean failOnce = new AtomicBoolean();
+    private HttpServer server;
+    private String fileAddress;
+    private Path tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        for (int i = 0; i < this.content.length; i++) {
+            this.content[i] = (byte) (i * 17 + i / 1000);
+        }
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/file.bin", exchange -> {
+            Matcher matcher = RANGE_PATTERN.matcher(exchange.getRequestHeaders().getFirst("Range"));
+            if (!matcher.matches()) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_REQUEST, -1);
+                exchange.close();
+                return;
+            }
+            int start = Integer.parseInt(matcher.group(1));
+            int end = Integer.parseInt(matcher.group(2));
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_PARTIAL, end - start + 1);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                if (start <= FAILING_POSITION && end > FAILING_POSITION && this.failOnce.compareAndSet(true, false)) {
+                    // close the response in the middle of the range
+                    outputStream.write(this.content, start, FAILING_POSITION - start);
+                    this.bytesServed.addAndGet(FAILING_POSITION - start);
+                    outputStream.flush();
+                    exchange.close();
+                    return;
+                }
+                outputStream.write(this.content, start, end - start + 1);
+                this.bytesServed.addAndGet(end - start + 1);
+            }
+        });
+        this.server.start();
+        this.fileAddress = "http://localhost:" + this.server.getAddress().getPort() + "/file.bin";
+        this.tempDir = Files.createTempDirectory("segmented-download");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        this.server.stop(0);
+        try (Stream<Path> files = Files.list(this.tempDir)) {
+            for (Path file : files.toArray(Path[]::new)) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(this.tempDir);
+    }
+
+    @Test
+    public void testTransfer() throws Exception {
+        SegmentedDownloader downloader = new SegmentedDownloader(3, SEGMENT_SIZE);
+        Path targetFile = this.tempDir.resolve("part.bin");
+        try (FileChannel fileChannel = FileChannel.open(targetFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertEquals(50000, downloader.transfer(rangeSource(), 20000, 50000, fileChannel, 10));
+        }
+
+        byte[] bytes = Files.readAllBytes(targetFile);
+        assertEquals(50010, bytes.length);
+        ByteBuffer expected = ByteBuffer.wrap(this.content, 20000, 50000);
+        assertEquals(expected, ByteBuffer.wrap(bytes, 10, 50000));
+    }
+
+    @Test
+    public void testTransferResumesFailedSegment() throws Exception {
+        SegmentedDownloader downloader = new SegmentedDownloader(4, SEGMENT_SIZE);
+        AtomicLong progress = new AtomicLong();
+        downloader.setProgressListener(bytes -> progress.accumulateAndGet(bytes, Math::max));
+        Path targetFile = this.tempDir.resolve("file.bin");
+        this.failOnce.set(true);
+
+        try (FileChannel fileChannel = FileChannel.open(targetFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertEquals(FILE_SIZE, downloader.transfer(rangeSource(), 0, FILE_SIZE, fileChannel, 0));
+        }
+
+        assertArrayEquals(this.content, Files.readAllBytes(targetFile));
+        // the failed segment is requested again from the last byte received
+        assertEquals(FILE_SIZE, this.bytesServed.get());
+        assertEquals(FILE_SIZE, progress.get());
+    }
+
+    @Test
+    public void testTransferFailure() throws Exception {
+        SegmentedDownloader downloader = new SegmentedDownloader(2, SEGMENT_SIZE);
+        downloader.setMaximumAttempts(1);
+        Path targetFile = this.tempDir.resolve("file.bin");
+        this.failOnce.set(true);
+
+        try (FileChannel fileChannel = FileChannel.open(targetFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            downloader.transfer(rangeSource(), 0, FILE_SIZE, fileChannel, 0);
+            fail("IOException expected");
+        } catch (IOException expected) {
+            assertEquals("1 of 7 segments could not be transferred.", expected.getMessage());
+        }
+    }
+
+    private SegmentedDownloader.RangeSource rangeSource() {
+        return (start, end) -> {
+            HttpURLConnection connection = (HttpURLConnection) new URL(this.fileAddress).openConnection();
+            connection.setRequestProperty("Range", "bytes=" + start + "-" + end);
+            return SegmentedDownloader.openRangeStream(connection, start);
+        };
+    }
+}